@@ -51,6 +51,7 @@ import edu.tamu.tcat.trc.digires.books.discovery.CopySearchResultImpl;
 import edu.tamu.tcat.trc.digires.books.discovery.CopySearchService;
 import edu.tamu.tcat.trc.digires.books.discovery.DigitalCopyProxy;
 import edu.tamu.tcat.trc.digires.books.resolve.ResourceAccessException;
+import edu.tamu.tcat.trc.search.solr.SolrHttpClientPool;
 
 /**
  *  Searches over the local SOLR index of Hathifiles data. Note that this index may be expanded
@@ -68,6 +69,7 @@ public class HTFilesSearchService implements CopySearchService
 
    private Future<HttpSolrClient> solrServerFuture;
    private ConfigurationProperties props;
+   private SolrHttpClientPool pool;
 
    public void setConfiguration(ConfigurationProperties props)
    {
@@ -80,6 +82,8 @@ public class HTFilesSearchService implements CopySearchService
 
       final URI solrEndpoint = props.getPropertyValue("solr.api.endpoint", URI.class);
       final String core = props.getPropertyValue("hathifiles", String.class);
+      // NOTE this service's connections are configured independently of the search services
+      pool = new SolrHttpClientPool(props);
       ExecutorService exec = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("htfiles").build());
       // check to ensure that the requested SolrServer can be contacted. Run this in a background
       // thread to not prevent the service from initializing in a timely manner. Use the Future to
@@ -89,7 +93,7 @@ public class HTFilesSearchService implements CopySearchService
       solrServerFuture = exec.submit(() -> {
          try
          {
-            HttpSolrClient server = new HttpSolrClient(solrEndpoint.resolve(core).toString());
+            HttpSolrClient server = pool.createClient(core, solrEndpoint.resolve(core).toString());
             SolrPingResponse pingResponse = server.ping();
             if (pingResponse == null || (pingResponse.getStatus() > 299 && pingResponse.getStatus() < 200))
             {
@@ -127,6 +131,10 @@ public class HTFilesSearchService implements CopySearchService
 
          solrServerFuture = null;
       }
+
+      if (pool != null)
+         pool.close();
+      pool = null;
    }
 
    @Override
@@ -167,7 +167,7 @@ public class ArticleEntryService
       IndexService<Article> indexSvc = indexSvcMgr.configure(strategy);
 
       ArticleRepoImpl repo = new ArticleRepoImpl(delegate, null);     // USE SEARCH ACCT
-      SolrSearchSupport<Article> mediator = new SolrSearchSupport<>(indexSvc, strategy);
+      SolrSearchSupport<Article> mediator = new SolrSearchSupport<>(indexSvc, strategy, trcCtx.getConfig());
       searchReg = repo.onUpdate(mediator::handleUpdate);
    }
 }
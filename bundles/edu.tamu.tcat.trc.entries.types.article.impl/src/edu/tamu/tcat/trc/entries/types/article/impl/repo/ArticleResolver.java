@@ -2,6 +2,8 @@ package edu.tamu.tcat.trc.entries.types.article.impl.repo;
 
 import static java.text.MessageFormat.format;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -36,6 +38,12 @@ public class ArticleResolver extends EntryResolverBase<Article>
       return delegate.getOptionally(account, reference.getId());
    }
 
+   @Override
+   public Map<EntryId, Article> resolveAll(Account account, Collection<EntryId> references) throws InvalidReferenceException
+   {
+      return loadAll(references, ids -> delegate.getAll(account, ids));
+   }
+
    @Override
    protected String getId(Article article)
    {
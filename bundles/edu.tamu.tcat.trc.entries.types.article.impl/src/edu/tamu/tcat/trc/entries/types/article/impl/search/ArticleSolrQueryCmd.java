@@ -1,20 +1,19 @@
 package edu.tamu.tcat.trc.entries.types.article.impl.search;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.response.QueryResponse;
-import org.apache.solr.common.SolrDocumentList;
 
 import edu.tamu.tcat.trc.entries.types.article.search.ArticleQuery;
 import edu.tamu.tcat.trc.entries.types.article.search.ArticleQueryCommand;
 import edu.tamu.tcat.trc.entries.types.article.search.ArticleSearchProxy;
 import edu.tamu.tcat.trc.entries.types.article.search.ArticleSearchResult;
+import edu.tamu.tcat.trc.search.SearchFacet;
 import edu.tamu.tcat.trc.search.solr.SearchException;
+import edu.tamu.tcat.trc.search.solr.impl.ResultPage;
 import edu.tamu.tcat.trc.search.solr.impl.TrcQueryBuilder;
 
 /**
@@ -25,6 +24,9 @@ public class ArticleSolrQueryCmd implements ArticleQueryCommand
 
    private static final int DEFAULT_MAX_RESULTS = 25;
 
+   /** Tag applied to the article type filter so that it may be excluded from facet counts. */
+   private static final String TYPE_TAG = "type";
+
    private final ArticleQuery query;;
    private final SolrClient solr;
    private final TrcQueryBuilder qb;
@@ -51,7 +53,25 @@ public class ArticleSolrQueryCmd implements ArticleQueryCommand
    @Override
    public void articleType(String type)
    {
-      qb.filter(ArticleSolrConfig.ARTICLE_TYPE, Objects.requireNonNull(type));
+      qb.filter(ArticleSolrConfig.ARTICLE_TYPE, Objects.requireNonNull(type), TYPE_TAG);
+   }
+
+   @Override
+   public void facetArticleTypes()
+   {
+      qb.facet(ArticleSolrConfig.ARTICLE_TYPE, TYPE_TAG);
+   }
+
+   @Override
+   public void facetAuthors()
+   {
+      qb.facet(ArticleSolrConfig.AUTHORS);
+   }
+
+   @Override
+   public void setFacetLimit(int max)
+   {
+      qb.facetLimit(max);
    }
 
    @Override
@@ -63,6 +83,12 @@ public class ArticleSolrQueryCmd implements ArticleQueryCommand
       qb.offset(start);
    }
 
+   @Override
+   public void setCursor(String cursor)
+   {
+      qb.cursor(cursor);
+   }
+
    @Override
    public void setMaxResults(int max)
    {
@@ -75,22 +101,17 @@ public class ArticleSolrQueryCmd implements ArticleQueryCommand
       CompletableFuture<ArticleSearchResult> result = new CompletableFuture<>();
       try
       {
-         QueryResponse response = solr.query(qb.get());
-
-         SolrDocumentList results = response.getResults();
+         ResultPage<ArticleSearchProxy> page = qb.execute(solr, ArticleSolrConfig.SEARCH_PROXY);
 
          // TODO need to parse the highlighted results into something more meaningful.
          //      should add to article proxy.
 
          // HACK what is this structure - presumably it is field/document id or vice/versa, but this
          //      isn't clear.
-         Map<String, Map<String, List<String>>> highlighting = response.getHighlighting();
-//         List<FacetValueList> facets = response.getFacetFields().stream()
-//               .map(SolrArticleResults::adapt)
-//               .collect(Collectors.toList());
+         Map<String, Map<String, List<String>>> highlighting = page.getHighlighting();
+         List<SearchFacet> facets = SearchFacet.create(page.getFacets());
 
-         List<ArticleSearchProxy> articles = qb.unpack(results, ArticleSolrConfig.SEARCH_PROXY);
-         SolrArticleResults searchResults = new SolrArticleResults(query, articles, highlighting, Collections.emptyList(), results.getNumFound());
+         SolrArticleResults searchResults = new SolrArticleResults(query, page.getItems(), highlighting, facets, page.getNumFound(), page.getNextCursor());
          result.complete(searchResults);
       }
       catch (Exception e)
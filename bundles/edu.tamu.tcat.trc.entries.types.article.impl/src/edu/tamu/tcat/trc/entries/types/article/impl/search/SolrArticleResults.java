@@ -3,14 +3,11 @@ package edu.tamu.tcat.trc.entries.types.article.impl.search;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
-import org.apache.solr.client.solrj.response.FacetField;
-import org.apache.solr.client.solrj.response.FacetField.Count;
 
 import edu.tamu.tcat.trc.entries.types.article.search.ArticleQuery;
 import edu.tamu.tcat.trc.entries.types.article.search.ArticleSearchProxy;
 import edu.tamu.tcat.trc.entries.types.article.search.ArticleSearchResult;
+import edu.tamu.tcat.trc.search.SearchFacet;
 
 /**
  * @since 1.1
@@ -21,22 +18,25 @@ public class SolrArticleResults implements ArticleSearchResult
    private List<ArticleSearchProxy> articles;
    private ArticleQuery query;
    private long numMatched;
+   private String nextCursor;
 
    // FIXME make concrete type
    private Map<String, Map<String, List<String>>> highlighting;
-   private List<FacetValueList> facets;
+   private List<SearchFacet> facets;
 
    public SolrArticleResults(ArticleQuery query,
                              List<ArticleSearchProxy> articles,
                              Map<String, Map<String, List<String>>> highlighting,
-                             List<FacetValueList> facets,
-                             long numMatched)
+                             List<SearchFacet> facets,
+                             long numMatched,
+                             String nextCursor)
    {
       this.query = new ArticleQuery(query);
       this.articles = articles;
       this.highlighting = highlighting;
       this.facets = facets;
       this.numMatched = numMatched;
+      this.nextCursor = nextCursor;
 
    }
 
@@ -59,40 +59,20 @@ public class SolrArticleResults implements ArticleSearchResult
    }
 
    @Override
-   public Map<String, Map<String, List<String>>> getHits()
+   public String getNextCursor()
    {
-      return highlighting;
+      return nextCursor;
    }
 
    @Override
-   public List<FacetValueList> getFacets()
-   {
-      return facets;
-   }
-
-   // HACK TEMP inner classes pending refactor to correct location.
-   public static FacetValueList adapt(FacetField field)
+   public Map<String, Map<String, List<String>>> getHits()
    {
-      FacetValueList result = new FacetValueList();
-      result.name = field.getName();
-      result.count = field.getValueCount();
-
-      result.items = field.getValues().stream()
-            .map(SolrArticleResults::adapt)
-            .collect(Collectors.toList());
-
-      return result;
+      return highlighting;
    }
 
-   public static FacetValue adapt(Count count)
+   @Override
+   public List<SearchFacet> getSearchFacets()
    {
-      FacetValue value = new FacetValue();
-      value.filter = count.getAsFilterQuery();
-      value.name = count.getName();
-      value.count = count.getCount();
-
-      return value;
+      return facets;
    }
-
-
 }
@@ -29,12 +29,39 @@ public interface ArticleQueryCommand
 
    // TODO add author query by name and/or id
 
+   /**
+    * Request counts of the matching articles by type. Counts for all types are returned,
+    * even if results have been restricted using {@link #articleType(String)}. Facets are
+    * returned with the results of this query (see {@link ArticleSearchResult#getSearchFacets()}).
+    */
+   void facetArticleTypes();
+
+   /**
+    * Request counts of the matching articles by author.
+    */
+   void facetAuthors();
+
+   /**
+    * @param max The maximum number of values to be returned for each facet.
+    */
+   void setFacetLimit(int max);
+
    /**
     * @param start The offset for the first article to be returned. Used to support paged
     *       search results.
     */
    void setOffset(int start);
 
+   /**
+    * Requests results using a cursor rather than an offset. Cursors support efficient
+    * paging through large result sets since the cost of retrieving a page does not grow
+    * with its depth. A cursor may not be combined with {@link #setOffset(int)}.
+    *
+    * @param cursor The cursor returned with the previous page of results (see
+    *       {@link ArticleSearchResult#getNextCursor()}), or {@code null} to request the first page.
+    */
+   void setCursor(String cursor);
+
    /**
     * @param max The maximum number of results to be returned. Used to support paged results.
     *       Defaults to 25.
@@ -3,6 +3,9 @@ package edu.tamu.tcat.trc.entries.types.article.search;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+
+import edu.tamu.tcat.trc.search.SearchFacet;
 
 public interface ArticleSearchResult
 {
@@ -22,13 +25,20 @@ public interface ArticleSearchResult
     */
    List<ArticleSearchProxy> getResults();
 
+   /**
+    * @return The cursor to supply to {@link ArticleQueryCommand#setCursor(String)} in order to retrieve
+    *       the next page of results. Will be {@code null} if the query was not executed
+    *       using a cursor or if there are no further results.
+    */
+   String getNextCursor();
+
    /**
     * @return the Hit Highlight results found.
     */
    Map<String, Map<String, List<String>>> getHits();
 
    /**
-    * @deprecated To be moved into core TRC Search API
+    * @deprecated To be moved into core TRC Search API. Replaced by {@link SearchFacet}.
     */
    @Deprecated
    public static class FacetValue
@@ -39,7 +49,7 @@ public interface ArticleSearchResult
    }
 
    /**
-    * @deprecated To be moved into core TRC Search API
+    * @deprecated To be moved into core TRC Search API. Replaced by {@link SearchFacet}.
     */
    @Deprecated
    public static class FacetValueList
@@ -47,7 +57,46 @@ public interface ArticleSearchResult
       public int count;
       public String name;
       public List<FacetValue> items = new ArrayList<>();
+
+      /**
+       * @param facet The facet to adapt.
+       * @return A representation of the supplied facet using the deprecated types.
+       */
+      public static FacetValueList adapt(SearchFacet facet)
+      {
+         FacetValueList result = new FacetValueList();
+         result.name = facet.getName();
+         result.count = facet.getValues().size();
+         result.items = facet.getValues().stream()
+               .map(value -> {
+                  FacetValue item = new FacetValue();
+                  item.filter = facet.getName() + ":\"" + value.getValue().replace("\"", "\\\"") + "\"";
+                  item.name = value.getValue();
+                  item.count = value.getCount();
+                  return item;
+               })
+               .collect(Collectors.toList());
+
+         return result;
+      }
+   }
+
+   /**
+    * @return The requested facets, adapted to the deprecated facet types.
+    * @deprecated Use {@link #getSearchFacets()}.
+    */
+   @Deprecated
+   default List<FacetValueList> getFacets()
+   {
+      return getSearchFacets().stream()
+            .map(FacetValueList::adapt)
+            .collect(Collectors.toList());
    }
 
-   List<FacetValueList> getFacets();
+   /**
+    * @return The facets requested by the {@link ArticleQueryCommand} that produced these
+    *       results. Will be empty if no facets were requested.
+    * @since 2.1
+    */
+   List<SearchFacet> getSearchFacets();
 }
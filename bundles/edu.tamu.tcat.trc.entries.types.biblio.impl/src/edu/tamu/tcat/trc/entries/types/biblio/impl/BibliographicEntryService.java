@@ -2,6 +2,8 @@ package edu.tamu.tcat.trc.entries.types.biblio.impl;
 
 import static java.text.MessageFormat.format;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -165,7 +167,7 @@ public class BibliographicEntryService
       IndexService<BibliographicEntry> indexSvc = searchMgr.configure(indexCfg);
 
       BiblioRepoImpl repo = new BiblioRepoImpl(delegate, null);     // TODO USE SEARCH ACCT
-      SolrSearchSupport<BibliographicEntry> mediator = new SolrSearchSupport<>(indexSvc, indexCfg);
+      SolrSearchSupport<BibliographicEntry> mediator = new SolrSearchSupport<>(indexSvc, indexCfg, trcCtx.getConfig());
       searchReg = repo.onUpdate(mediator::handleUpdate);
    }
 
@@ -189,6 +191,12 @@ public class BibliographicEntryService
          return delegate.getOptionally(account, reference.getId());
       }
 
+      @Override
+      public Map<EntryId, BibliographicEntry> resolveAll(Account account, Collection<EntryId> references) throws InvalidReferenceException
+      {
+         return loadAll(references, ids -> delegate.getAll(account, ids));
+      }
+
       @Override
       protected String getId(BibliographicEntry relationship)
       {
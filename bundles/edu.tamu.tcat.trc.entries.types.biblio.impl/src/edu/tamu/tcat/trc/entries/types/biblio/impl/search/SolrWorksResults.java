@@ -20,16 +20,21 @@ import java.util.List;
 import edu.tamu.tcat.trc.entries.types.biblio.search.BiblioSearchProxy;
 import edu.tamu.tcat.trc.entries.types.biblio.search.SearchWorksResult;
 import edu.tamu.tcat.trc.entries.types.biblio.search.WorkQueryCommand;
+import edu.tamu.tcat.trc.search.SearchFacet;
 
 public class SolrWorksResults implements SearchWorksResult
 {
    private List<BiblioSearchProxy> items;
    private WorkSolrQueryCommand cmd;
+   private String nextCursor;
+   private List<SearchFacet> facets;
 
-   SolrWorksResults(WorkSolrQueryCommand cmd, List<BiblioSearchProxy> items)
+   SolrWorksResults(WorkSolrQueryCommand cmd, List<BiblioSearchProxy> items, String nextCursor, List<SearchFacet> facets)
    {
       this.cmd = cmd;
       this.items = items;
+      this.nextCursor = nextCursor;
+      this.facets = facets;
    }
 
    //HACK this is a degenerate impl for current puproses
@@ -40,6 +45,18 @@ public class SolrWorksResults implements SearchWorksResult
       return items;
    }
 
+   @Override
+   public String getNextCursor()
+   {
+      return nextCursor;
+   }
+
+   @Override
+   public List<SearchFacet> getFacets()
+   {
+      return facets;
+   }
+
    @Override
    public WorkQueryCommand getCommand()
    {
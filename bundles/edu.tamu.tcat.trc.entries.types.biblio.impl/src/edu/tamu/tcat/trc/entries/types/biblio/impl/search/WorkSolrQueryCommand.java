@@ -15,7 +15,6 @@
  */
 package edu.tamu.tcat.trc.entries.types.biblio.impl.search;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.Year;
@@ -27,21 +26,24 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.response.QueryResponse;
-import org.apache.solr.common.SolrDocumentList;
 
 import edu.tamu.tcat.trc.entries.types.biblio.search.BiblioSearchProxy;
 import edu.tamu.tcat.trc.entries.types.biblio.search.SearchWorksResult;
 import edu.tamu.tcat.trc.entries.types.biblio.search.WorkQueryCommand;
+import edu.tamu.tcat.trc.search.SearchFacet;
 import edu.tamu.tcat.trc.search.solr.SearchException;
 import edu.tamu.tcat.trc.search.solr.impl.DateRangeDTO;
+import edu.tamu.tcat.trc.search.solr.impl.ResultPage;
 import edu.tamu.tcat.trc.search.solr.impl.TrcQueryBuilder;
 
 public class WorkSolrQueryCommand implements WorkQueryCommand
 {
    private static final int DEFAULT_MAX_RESULTS = 25;
 
+   /** Tags applied to filters so that they may be excluded when computing facet counts. */
+   private static final String DATE_TAG = "pubDate";
+   private static final String PUBLISHER_TAG = "publisher";
+
    private final SolrClient solr;
    private final TrcQueryBuilder qb;
 
@@ -67,13 +69,10 @@ public class WorkSolrQueryCommand implements WorkQueryCommand
          if (dates != null)
             dates.stream().forEach(this::addDateRange);
 
-         QueryResponse response = solr.query(qb.get());
-         SolrDocumentList results = response.getResults();
-
-         List<BiblioSearchProxy> works = qb.unpack(results, BiblioSolrConfig.SEARCH_PROXY);
-         result.complete(new SolrWorksResults(this, works));
+         ResultPage<BiblioSearchProxy> page = qb.execute(solr, BiblioSolrConfig.SEARCH_PROXY);
+         result.complete(new SolrWorksResults(this, page.getItems(), page.getNextCursor(), SearchFacet.create(page.getFacets())));
       }
-      catch (SolrServerException | IOException e)
+      catch (SearchException e)
       {
          result.completeExceptionally(new SearchException("An error occurred while querying the works core", e));
       }
@@ -86,7 +85,8 @@ public class WorkSolrQueryCommand implements WorkQueryCommand
       qb.filterRange(BiblioSolrConfig.PUBLICATION_DATE,
                      // For a "year" query, search from 1 Jan of start year through 31 Dec of end year (inclusive)
                      LocalDate.of(dr.start.getValue(), Month.JANUARY, 1),
-                     LocalDate.of(dr.end.getValue(), Month.DECEMBER, 31));
+                     LocalDate.of(dr.end.getValue(), Month.DECEMBER, 31),
+                     DATE_TAG);
    }
 
    private void addAuthor(String id)
@@ -158,6 +158,40 @@ public class WorkSolrQueryCommand implements WorkQueryCommand
       dates = null;
    }
 
+   @Override
+   public void addFilterPublisher(Collection<String> publishers)
+   {
+      qb.filterMulti(BiblioSolrConfig.PUBLISHER, publishers, PUBLISHER_TAG);
+   }
+
+   @Override
+   public void facetAuthors()
+   {
+      qb.facet(BiblioSolrConfig.AUTHOR_NAMES);
+   }
+
+   @Override
+   public void facetPublishers()
+   {
+      qb.facet(BiblioSolrConfig.PUBLISHER, PUBLISHER_TAG);
+   }
+
+   @Override
+   public void facetPublicationDecades(Year start, Year end)
+   {
+      qb.facetRange(BiblioSolrConfig.PUBLICATION_DATE,
+                    LocalDate.of(start.getValue(), Month.JANUARY, 1),
+                    LocalDate.of(end.getValue() + 1, Month.JANUARY, 1),
+                    "+10YEARS",
+                    DATE_TAG);
+   }
+
+   @Override
+   public void setFacetLimit(int max)
+   {
+      qb.facetLimit(max);
+   }
+
    @Override
    public void setOffset(int start)
    {
@@ -167,6 +201,12 @@ public class WorkSolrQueryCommand implements WorkQueryCommand
       qb.offset(start);
    }
 
+   @Override
+   public void setCursor(String cursor)
+   {
+      qb.cursor(cursor);
+   }
+
    @Override
    public void setMaxResults(int max)
    {
@@ -68,6 +68,10 @@ public class WorkCollectionResource
     * @param query The basic search criteria.
     * @param authorNames Each "a" argument is an individual literal; items in the list are combined via "OR" criteria
     * @param titles Each "t" argument is an individual literal; items in the list are combined via "OR" criteria
+    * @param offset The offset of the first result. Ignored if a {@code cursor} is supplied.
+    * @param cursor The cursor returned in the {@code qsNext} link of the previous page, or
+    *       {@code *} to request the first page. Results are paged by offset unless a cursor
+    *       is supplied.
     * @param numResults
     * @return
     */
@@ -81,11 +85,15 @@ public class WorkCollectionResource
                @QueryParam(value = "dr") List<BiblioRestApiV1.DateRangeParam> dateRanges,
                @QueryParam(value = "type") String type,
                @QueryParam(value = "off") @DefaultValue("0")   int offset,
+               @QueryParam(value = "cursor") String cursor,
                @QueryParam(value = "max") @DefaultValue("100") int numResults)
    {
       SearchWorksResult worksResult;
 
-      worksResult = executeSearch(query, authorNames, titles, authorIds, dateRanges, type, offset, numResults);
+      // NOTE cursors are only used when requested by the client; existing clients that
+      //      page by offset must continue to receive offset links
+      boolean useCursor = cursor != null;
+      worksResult = executeSearch(query, authorNames, titles, authorIds, dateRanges, type, offset, useCursor, cursor, numResults);
 
 
       // assemble search response data vehicle
@@ -106,17 +114,28 @@ public class WorkCollectionResource
 
       // query parameters specific to the current query
       QueryStringBuilder qsbCurrent = new QueryStringBuilder(qsb);
-      qsbCurrent.add("off", Integer.valueOf(offset));
+      if (useCursor)
+         qsbCurrent.add("cursor", cursor);
+      else
+         qsbCurrent.add("off", Integer.valueOf(offset));
       resultSet.qs = qsbCurrent.toString();
 
       // query parameters specific to the next query
-      QueryStringBuilder qsbNext = new QueryStringBuilder(qsb);
-      qsbNext.add("off", Integer.valueOf(offset + numResults));
-      resultSet.qsNext = qsbNext.toString();
+      // when using cursors, omit the next query once all results have been returned
+      String nextCursor = worksResult.getNextCursor();
+      if (!useCursor || nextCursor != null)
+      {
+         QueryStringBuilder qsbNext = new QueryStringBuilder(qsb);
+         if (useCursor)
+            qsbNext.add("cursor", nextCursor);
+         else
+            qsbNext.add("off", Integer.valueOf(offset + numResults));
+         resultSet.qsNext = qsbNext.toString();
+      }
 
       // query parameters specific to the previous query
-      // only include previous query if available
-      if (offset > 0)
+      // only include previous query if available; cursors only support paging forward
+      if (!useCursor && offset > 0)
       {
          QueryStringBuilder qsbPrev = new QueryStringBuilder(qsb);
          qsbPrev.add("off", Integer.valueOf(Math.max(0, offset - numResults)));
@@ -131,7 +150,7 @@ public class WorkCollectionResource
                                            List<String> titles,
                                            List<String> authorIds,
                                            List<BiblioRestApiV1.DateRangeParam> dateRanges,
-                                           String type, int offset, int numResults) throws Error
+                                           String type, int offset, boolean useCursor, String cursor, int numResults) throws Error
    {
       try
       {
@@ -158,7 +177,10 @@ public class WorkCollectionResource
 
          // now meta fields
          cmd.setMaxResults(numResults);
-         cmd.setOffset(offset);
+         if (useCursor)
+            cmd.setCursor(cursor);
+         else
+            cmd.setOffset(offset);
 
          // execute query
          return cmd.execute().get(10, TimeUnit.SECONDS);
@@ -17,6 +17,8 @@ package edu.tamu.tcat.trc.entries.types.biblio.search;
 
 import java.util.List;
 
+import edu.tamu.tcat.trc.search.SearchFacet;
+
 import edu.tamu.tcat.trc.entries.types.biblio.BibliographicEntry;
 
 /**
@@ -37,5 +39,16 @@ public interface SearchWorksResult
     */
    List<BiblioSearchProxy> get();
 
-   //TODO: add support for retrieving facet information
+   /**
+    * @return The cursor to supply to {@link WorkQueryCommand#setCursor(String)} in order to retrieve
+    *       the next page of results. Will be {@code null} if the query was not executed
+    *       using a cursor or if there are no further results.
+    */
+   String getNextCursor();
+
+   /**
+    * @return The facets requested by the {@link WorkQueryCommand} that produced these
+    *       results. Will be empty if no facets were requested.
+    */
+   List<SearchFacet> getFacets();
 }
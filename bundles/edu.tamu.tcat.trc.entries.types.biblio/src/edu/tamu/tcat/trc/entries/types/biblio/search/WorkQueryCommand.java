@@ -120,6 +120,41 @@ public interface WorkQueryCommand
 
    void clearFilterDate();
 
+   /**
+    * Restrict the results to those published by any of the supplied publishers. The values
+    * supplied should match those returned by the publisher facet (see {@link #facetPublishers()}).
+    *
+    * @param publishers The names of the publishers to include.
+    */
+   void addFilterPublisher(Collection<String> publishers);
+
+   /**
+    * Request counts of the matching works by author name. Facets are returned with the
+    * results of this query (see {@link SearchWorksResult#getFacets()}).
+    */
+   void facetAuthors();
+
+   /**
+    * Request counts of the matching works by publisher. Counts for all publishers are
+    * returned, even if results have been restricted using {@link #addFilterPublisher(Collection)}.
+    */
+   void facetPublishers();
+
+   /**
+    * Request counts of the matching works by the decade in which they were published.
+    * Counts for all decades are returned, even if results have been restricted using
+    * {@link #addFilterDate(Year, Year)}.
+    *
+    * @param start The first year of the earliest decade to be counted.
+    * @param end The last year to be counted.
+    */
+   void facetPublicationDecades(Year start, Year end);
+
+   /**
+    * @param max The maximum number of values to be returned for each facet.
+    */
+   void setFacetLimit(int max);
+
 //   /**
 //    * Filter results to a specific geographical location.
 //    *
@@ -140,6 +175,16 @@ public interface WorkQueryCommand
     */
    void setOffset(int offset);
 
+   /**
+    * Requests results using a cursor rather than an offset. Cursors support efficient
+    * paging through large result sets since the cost of retrieving a page does not grow
+    * with its depth. A cursor may not be combined with {@link #setOffset(int)}.
+    *
+    * @param cursor The cursor returned with the previous page of results (see
+    *       {@link SearchWorksResult#getNextCursor()}), or {@code null} to request the first page.
+    */
+   void setCursor(String cursor);
+
    /**
     * Specify the maximum number of results to be returned. Implementations may return fewer
     * results but must not return more.
@@ -162,7 +162,7 @@ public class BiographicalEntryService
       IndexService<BiographicalEntry> indexSvc = indexSvcMgr.configure(indexCfg);
 
       BioEntryRepoImpl repo = new BioEntryRepoImpl(delegate, null);     // USE SEARCH ACCT
-      SolrSearchSupport<BiographicalEntry> mediator = new SolrSearchSupport<>(indexSvc, indexCfg);
+      SolrSearchSupport<BiographicalEntry> mediator = new SolrSearchSupport<>(indexSvc, indexCfg, trcCtx.getConfig());
       searchReg = repo.onUpdate(mediator::handleUpdate);
    }
 }
@@ -2,6 +2,8 @@ package edu.tamu.tcat.trc.entries.types.bio.impl.repo;
 
 import java.text.MessageFormat;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -37,6 +39,12 @@ public class BioEntryResolver extends EntryResolverBase<BiographicalEntry>
       return delegate.getOptionally(account, reference.getId());
    }
 
+   @Override
+   public Map<EntryId, BiographicalEntry> resolveAll(Account account, Collection<EntryId> references) throws InvalidReferenceException
+   {
+      return loadAll(references, ids -> delegate.getAll(account, ids));
+   }
+
    @Override
    protected String getId(BiographicalEntry person)
    {
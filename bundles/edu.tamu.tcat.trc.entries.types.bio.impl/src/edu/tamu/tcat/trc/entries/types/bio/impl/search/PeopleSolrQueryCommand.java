@@ -15,17 +15,19 @@
  */
 package edu.tamu.tcat.trc.entries.types.bio.impl.search;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
 import java.util.concurrent.CompletableFuture;
 
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.response.QueryResponse;
-import org.apache.solr.common.SolrDocumentList;
 
 import edu.tamu.tcat.trc.entries.types.bio.search.BioEntryQueryCommand;
 import edu.tamu.tcat.trc.entries.types.bio.search.BioSearchProxy;
 import edu.tamu.tcat.trc.entries.types.bio.search.PersonSearchResult;
+import edu.tamu.tcat.trc.search.SearchFacet;
 import edu.tamu.tcat.trc.search.solr.SearchException;
+import edu.tamu.tcat.trc.search.solr.impl.ResultPage;
 import edu.tamu.tcat.trc.search.solr.impl.TrcQueryBuilder;
 
 public class PeopleSolrQueryCommand implements BioEntryQueryCommand
@@ -48,11 +50,8 @@ public class PeopleSolrQueryCommand implements BioEntryQueryCommand
       CompletableFuture<PersonSearchResult> result = new CompletableFuture<>();
       try
       {
-         QueryResponse response = solr.query(qb.get());
-         SolrDocumentList results = response.getResults();
-
-         List<BioSearchProxy> people = qb.unpack(results, BioSolrConfig.SEARCH_PROXY);
-         SolrPersonResults searchResults = new SolrPersonResults(this, people);
+         ResultPage<BioSearchProxy> page = qb.execute(solr, BioSolrConfig.SEARCH_PROXY);
+         SolrPersonResults searchResults = new SolrPersonResults(this, page.getItems(), page.getNextCursor(), SearchFacet.create(page.getFacets()));
          result.complete(searchResults);
       }
       catch (Exception e)
@@ -82,6 +81,27 @@ public class PeopleSolrQueryCommand implements BioEntryQueryCommand
       qb.query(BioSolrConfig.FAMILY_NAME, '"' + familyName + '"');
    }
 
+   @Override
+   public void facetBirthLocations()
+   {
+      qb.facet(BioSolrConfig.BIRTH_LOCATION);
+   }
+
+   @Override
+   public void facetBirthDecades(Year start, Year end)
+   {
+      qb.facetRange(BioSolrConfig.BIRTH_DATE,
+                    LocalDate.of(start.getValue(), Month.JANUARY, 1),
+                    LocalDate.of(end.getValue() + 1, Month.JANUARY, 1),
+                    "+10YEARS");
+   }
+
+   @Override
+   public void setFacetLimit(int max)
+   {
+      qb.facetLimit(max);
+   }
+
    @Override
    public void setOffset(int start)
    {
@@ -91,6 +111,12 @@ public class PeopleSolrQueryCommand implements BioEntryQueryCommand
       qb.offset(start);
    }
 
+   @Override
+   public void setCursor(String cursor)
+   {
+      qb.cursor(cursor);
+   }
+
    @Override
    public void setMaxResults(int max)
    {
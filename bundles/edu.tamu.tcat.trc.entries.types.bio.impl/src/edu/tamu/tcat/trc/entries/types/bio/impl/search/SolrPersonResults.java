@@ -20,6 +20,7 @@ import java.util.List;
 import edu.tamu.tcat.trc.entries.types.bio.search.BioSearchProxy;
 import edu.tamu.tcat.trc.entries.types.bio.search.BioEntryQueryCommand;
 import edu.tamu.tcat.trc.entries.types.bio.search.PersonSearchResult;
+import edu.tamu.tcat.trc.search.SearchFacet;
 
 public class SolrPersonResults implements PersonSearchResult
 {
@@ -27,15 +28,18 @@ public class SolrPersonResults implements PersonSearchResult
    //      other than to store a list of results. Notably, it seems like we ought to
    //      - distinguish between the query command and a serializable query.
    //      - provide better support for pagable results
-   //      - support facetted queries
    //
    private List<BioSearchProxy> items;
    private PeopleSolrQueryCommand cmd;
+   private String nextCursor;
+   private List<SearchFacet> facets;
 
-   SolrPersonResults(PeopleSolrQueryCommand cmd, List<BioSearchProxy> items)
+   SolrPersonResults(PeopleSolrQueryCommand cmd, List<BioSearchProxy> items, String nextCursor, List<SearchFacet> facets)
    {
       this.cmd = cmd;
       this.items = items;
+      this.nextCursor = nextCursor;
+      this.facets = facets;
    }
 
    @Override
@@ -44,6 +48,18 @@ public class SolrPersonResults implements PersonSearchResult
       return items;
    }
 
+   @Override
+   public String getNextCursor()
+   {
+      return nextCursor;
+   }
+
+   @Override
+   public List<SearchFacet> getFacets()
+   {
+      return facets;
+   }
+
    @Override
    public BioEntryQueryCommand getCommand()
    {
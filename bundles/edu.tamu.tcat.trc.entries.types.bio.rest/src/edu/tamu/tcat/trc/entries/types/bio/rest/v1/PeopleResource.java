@@ -71,6 +71,7 @@ public class PeopleResource
    searchPeople(//@BeanParam ContextBean bean,
                 @QueryParam(value="q") String q,
                 @QueryParam(value = "off") @DefaultValue("0")   int offset,
+                @QueryParam(value = "cursor") String cursor,
                 @QueryParam(value = "max") @DefaultValue("100") int numResults)
    {
       //TrcAccount account = bean.get(TrcAccount.class);
@@ -92,14 +93,23 @@ public class PeopleResource
             cmd.query(q);
          else
             cmd.queryAll();
-         cmd.setOffset(offset);
+
+         // NOTE clients opt in to cursor paging by supplying cursor=*
+         boolean useCursor = cursor != null;
+         if (useCursor)
+            cmd.setCursor(cursor);
+         else
+            cmd.setOffset(offset);
          cmd.setMaxResults(numResults);
          PersonSearchResult results = cmd.execute().get(10, TimeUnit.SECONDS);
 
          RestApiV1.PersonSearchResultSet rs = new RestApiV1.PersonSearchResultSet();
          rs.items = RestApiAdapter.adapt(results.get(), app.getResolverRegistry());
 
-         buildQueryLinks(rs, q, offset, numResults);
+         if (useCursor)
+            buildCursorLinks(rs, q, cursor, results.getNextCursor(), numResults);
+         else
+            buildQueryLinks(rs, q, offset, numResults);
 
          return rs;
       }
@@ -111,6 +121,25 @@ public class PeopleResource
       }
    }
 
+   private void buildCursorLinks(RestApiV1.PersonSearchResultSet rs, String q, String cursor, String nextCursor, int numResults)
+   {
+      try
+      {
+         String linktemplate = "cursor={0}&max={1}&q={2}";
+         String query = q != null ? URLEncoder.encode(q, "UTF-8") : "";
+
+         rs.qs = MessageFormat.format(linktemplate, URLEncoder.encode(cursor, "UTF-8"), Integer.valueOf(numResults), query);
+
+         // cursors only support paging forward; omit the next link once all results have been returned
+         if (nextCursor != null)
+            rs.qsNext = MessageFormat.format(linktemplate, URLEncoder.encode(nextCursor, "UTF-8"), Integer.valueOf(numResults), query);
+      }
+      catch (Exception e)
+      {
+         throw new InternalServerErrorException("Failed building querystring", e);
+      }
+   }
+
    private void buildQueryLinks(RestApiV1.PersonSearchResultSet rs, String q, int offset, int numResults)
    {
       //TODO: does next link depend on the number of results returned (i.e. whether < numResults), or do we assume there are infinite results?
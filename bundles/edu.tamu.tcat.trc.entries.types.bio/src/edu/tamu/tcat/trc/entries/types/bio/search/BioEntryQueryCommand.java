@@ -15,6 +15,7 @@
  */
 package edu.tamu.tcat.trc.entries.types.bio.search;
 
+import java.time.Year;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -55,12 +56,41 @@ public interface BioEntryQueryCommand
     */
    void queryFamilyName(String familyName);
 
+   /**
+    * Request counts of the matching people by place of birth. Facets are returned with the
+    * results of this query (see {@link PersonSearchResult#getFacets()}).
+    */
+   void facetBirthLocations();
+
+   /**
+    * Request counts of the matching people by the decade in which they were born.
+    *
+    * @param start The first year of the earliest decade to be counted.
+    * @param end The last year to be counted.
+    */
+   void facetBirthDecades(Year start, Year end);
+
+   /**
+    * @param max The maximum number of values to be returned for each facet.
+    */
+   void setFacetLimit(int max);
+
    /**
     * Set the offset of the first record to return. Used for executing paged query requests.
     * @param start The offset of the first record.
     */
    void setOffset(int start);
 
+   /**
+    * Requests results using a cursor rather than an offset. Cursors support efficient
+    * paging through large result sets since the cost of retrieving a page does not grow
+    * with its depth. A cursor may not be combined with {@link #setOffset(int)}.
+    *
+    * @param cursor The cursor returned with the previous page of results (see
+    *       {@link PersonSearchResult#getNextCursor()}), or {@code null} to request the first page.
+    */
+   void setCursor(String cursor);
+
    /**
     * @param max the maximum number of results to return.
     */
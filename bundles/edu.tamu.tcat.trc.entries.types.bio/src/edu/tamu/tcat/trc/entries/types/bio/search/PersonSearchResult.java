@@ -17,6 +17,8 @@ package edu.tamu.tcat.trc.entries.types.bio.search;
 
 import java.util.List;
 
+import edu.tamu.tcat.trc.search.SearchFacet;
+
 /**
  * The result set of person entries matched by a {@link BioEntryQueryCommand}.
  * A result set has no functionality other than retrieving matched results from an executed
@@ -35,5 +37,16 @@ public interface PersonSearchResult
     */
    List<BioSearchProxy> get();
 
-   //TODO: add support for retrieving facet information
+   /**
+    * @return The cursor to supply to {@link BioEntryQueryCommand#setCursor(String)} in order to retrieve
+    *       the next page of results. Will be {@code null} if the query was not executed
+    *       using a cursor or if there are no further results.
+    */
+   String getNextCursor();
+
+   /**
+    * @return The facets requested by the {@link BioEntryQueryCommand} that produced these
+    *       results. Will be empty if no facets were requested.
+    */
+   List<SearchFacet> getFacets();
 }
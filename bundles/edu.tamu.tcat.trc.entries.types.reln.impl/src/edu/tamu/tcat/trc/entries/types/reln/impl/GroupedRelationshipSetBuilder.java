@@ -1,10 +1,10 @@
 package edu.tamu.tcat.trc.entries.types.reln.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import edu.tamu.tcat.trc.entries.types.reln.Anchor;
@@ -14,31 +14,78 @@ import edu.tamu.tcat.trc.entries.types.reln.GroupedRelationshipSet.TypedRelation
 import edu.tamu.tcat.trc.entries.types.reln.Relationship;
 import edu.tamu.tcat.trc.entries.types.reln.RelationshipType;
 import edu.tamu.tcat.trc.resolver.EntryId;
-import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
 
+/**
+ * Organizes the relationships of an entry into a {@link GroupedRelationshipSet}.
+ * Relationships are grouped by type and, within each group, by whether the root entry is
+ * one of the related entities or one of the targets of the relationship. Relationships of
+ * undirected types are always placed in the former set. Relationships that do not refer to
+ * the root entry are ignored, as are subsequent relationships that have the same id as a
+ * relationship that has already been added.
+ *
+ * <p>This class is not thread safe.
+ */
 public class GroupedRelationshipSetBuilder
 {
    private final AtomicBoolean isBuilt = new AtomicBoolean();
 
    private final EntryId entry;
-   private final ConcurrentHashMap<String, TypedRelationshipGroup> groups = new ConcurrentHashMap<>();
+   private final Map<String, TypedRelnGroupImpl> groups = new LinkedHashMap<>();
 
-   private final EntryResolverRegistry resolvers;
-
-   public GroupedRelationshipSetBuilder(EntryId entry, EntryResolverRegistry resolvers)
+   public GroupedRelationshipSetBuilder(EntryId entry)
    {
       this.entry = entry;
-      this.resolvers = resolvers;
    }
 
+   /**
+    * Adds an original (non-derived) relationship to the set.
+    *
+    * @param reln The relationship to add.
+    */
+   public void add(Relationship reln)
+   {
+      if (reln instanceof DerivedRelationship)
+         add((DerivedRelationship)reln);
+      else
+         add(new OriginalRelationship(reln));
+   }
+
+   /**
+    * Adds a derived relationship to the set.
+    *
+    * @param reln The relationship to add.
+    */
    public void add(DerivedRelationship reln)
    {
-      String typeId = reln.getType().getIdentifier();
-      groups.computeIfAbsent(typeId, key -> new TypedRelnGroupImpl(reln.getType()));
+      if (isBuilt.get())
+         throw new IllegalStateException("This relationship set has already been built.");
+
+      RelationshipType type = reln.getType();
+      String typeId = type == null ? null : type.getIdentifier();
+      groups.computeIfAbsent(typeId, key -> new TypedRelnGroupImpl(type)).add(reln);
+   }
+
+   /**
+    * @return The grouped relationships. No further relationships may be added once the
+    *       set has been built.
+    */
+   public GroupedRelationshipSet build()
+   {
+      if (isBuilt.getAndSet(true))
+         throw new IllegalStateException("This relationship set has already been built.");
+
+      return new GroupedRelnSetImpl(new ArrayList<>(groups.values()));
    }
 
-   public class GroupedRelnSetImpl implements GroupedRelationshipSet
+   private class GroupedRelnSetImpl implements GroupedRelationshipSet
    {
+      private final Collection<TypedRelationshipGroup> groups;
+
+      GroupedRelnSetImpl(Collection<TypedRelationshipGroup> groups)
+      {
+         this.groups = Collections.unmodifiableCollection(groups);
+      }
+
       @Override
       public EntryId getRootEntity()
       {
@@ -48,66 +95,104 @@ public class GroupedRelationshipSetBuilder
       @Override
       public Collection<TypedRelationshipGroup> getRelationshipGroups()
       {
-         return groups.values();
+         return groups;
       }
    }
 
-   // TODO merge relationships
-   // TODO merge anchors
-   // TODO test anchor set equality
-
    private class TypedRelnGroupImpl implements TypedRelationshipGroup
    {
-      private RelationshipType type;
+      private final RelationshipType type;
+      private final Map<String, DerivedRelationship> from = new LinkedHashMap<>();
+      private final Map<String, DerivedRelationship> to = new LinkedHashMap<>();
 
       TypedRelnGroupImpl(RelationshipType type)
       {
          this.type = type;
-         HashSet<String> a = new HashSet<>();
-         HashSet<String> b = new HashSet<>();
       }
 
       void add(DerivedRelationship reln)
       {
-         Relationship.contains(reln.getRelatedEntities(), entry);
-         TreeSet<Anchor> from = new TreeSet<>(this::compare);
-         from.addAll(reln.getRelatedEntities());
-         TreeSet<Anchor> to = new TreeSet<>(this::compare);
-         to.addAll(reln.getTargetEntities());
+         boolean isRelated = Relationship.contains(reln.getRelatedEntities(), entry);
+         boolean isTarget = Relationship.contains(reln.getTargetEntities(), entry);
+
+         boolean isDirected = type != null && type.isDirected();
+         if (isRelated || (isTarget && !isDirected))
+            from.putIfAbsent(reln.getId(), reln);
+         if (isTarget && isDirected)
+            to.putIfAbsent(reln.getId(), reln);
       }
 
-      int compare(Anchor a, Anchor b)
+      @Override
+      public EntryId getRootEntity()
       {
-         String tokenA = resolvers.tokenize(a.getTarget());
-         String tokenB = resolvers.tokenize(b.getTarget());
+         return entry;
+      }
 
-         return tokenA.compareTo(tokenB);
+      @Override
+      public RelationshipType getType()
+      {
+         return type;
       }
 
       @Override
-      public EntryId getRootEntity()
+      public Collection<DerivedRelationship> getRelationshipsFrom()
       {
-         return entry;
+         return Collections.unmodifiableCollection(from.values());
+      }
+
+      @Override
+      public Collection<DerivedRelationship> getRelationshipsTo()
+      {
+         return Collections.unmodifiableCollection(to.values());
+      }
+   }
+
+   /**
+    * Presents a stored relationship as a {@link DerivedRelationship} that has no sources.
+    */
+   private static class OriginalRelationship implements DerivedRelationship
+   {
+      private final Relationship reln;
+
+      OriginalRelationship(Relationship reln)
+      {
+         this.reln = reln;
+      }
+
+      @Override
+      public String getId()
+      {
+         return reln.getId();
       }
 
       @Override
       public RelationshipType getType()
       {
-         return type;
+         return reln.getType();
+      }
+
+      @Override
+      public String getDescription()
+      {
+         return reln.getDescription();
+      }
+
+      @Override
+      public Collection<Anchor> getRelatedEntities()
+      {
+         return reln.getRelatedEntities();
       }
 
       @Override
-      public Set<DerivedRelationship> getRelationshipsFrom()
+      public Collection<Anchor> getTargetEntities()
       {
-         // TODO Auto-generated method stub
-         return null;
+         return reln.getTargetEntities();
       }
 
       @Override
-      public Set<DerivedRelationship> getRelationshipsTo()
+      public Collection<Relationship> getSourceRelationships()
       {
-         // TODO Auto-generated method stub
-         return null;
+         return Collections.emptySet();
       }
    }
 }
@@ -1,16 +1,23 @@
 package edu.tamu.tcat.trc.entries.types.reln.impl;
 
 import static java.text.MessageFormat.format;
+import static java.util.stream.Collectors.toSet;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import edu.tamu.tcat.account.Account;
 import edu.tamu.tcat.trc.TrcApplication;
@@ -19,6 +26,7 @@ import edu.tamu.tcat.trc.entries.core.repo.BasicRepoDelegate;
 import edu.tamu.tcat.trc.entries.core.repo.EntryRepository;
 import edu.tamu.tcat.trc.entries.core.repo.EntryRepositoryRegistrar;
 import edu.tamu.tcat.trc.entries.core.repo.NoSuchEntryException;
+import edu.tamu.tcat.trc.entries.types.reln.Anchor;
 import edu.tamu.tcat.trc.entries.types.reln.GroupedRelationshipSet;
 import edu.tamu.tcat.trc.entries.types.reln.Relationship;
 import edu.tamu.tcat.trc.entries.types.reln.RelationshipInferenceStrategy;
@@ -30,9 +38,12 @@ import edu.tamu.tcat.trc.entries.types.reln.impl.search.RelnSearchStrategy;
 import edu.tamu.tcat.trc.entries.types.reln.repo.EditRelationshipCommand;
 import edu.tamu.tcat.trc.entries.types.reln.repo.RelationshipRepository;
 import edu.tamu.tcat.trc.entries.types.reln.repo.RelationshipTypeRegistry;
+import edu.tamu.tcat.trc.impl.psql.entries.ReferenceTracker;
 import edu.tamu.tcat.trc.impl.psql.entries.SolrSearchSupport;
 import edu.tamu.tcat.trc.repo.DocRepoBuilder;
 import edu.tamu.tcat.trc.repo.DocumentRepository;
+import edu.tamu.tcat.trc.repo.postgres.PsqlChangeNotifier;
+import edu.tamu.tcat.trc.repo.postgres.PsqlJacksonRepo;
 import edu.tamu.tcat.trc.resolver.EntryId;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistrar;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
@@ -58,6 +69,18 @@ public class RelationshipEntryService
    private EntryResolverRegistrar.Registration resolverReg;
    private EntryRepositoryRegistrar.Registration repoReg;
    private EntryRepository.ObserverRegistration searchReg;
+   private ReferenceTracker<Relationship> references;
+   private Runnable referencesRemoteReg;
+
+   // NOTE replaced when the graph is rebuilt. While a rebuild is in progress, changes are
+   //      applied both to the current graph and to the graph being built (guarded by
+   //      graphLock), and the rebuild skips relationships that have been changed.
+   private volatile RelationshipGraph graph;
+   private RelationshipGraph rebuilding;
+   private Set<String> updatedDuringRebuild;
+   private final Object graphLock = new Object();
+   private EntryRepository.ObserverRegistration graphReg;
+   private Runnable graphRemoteReg;
 
    private EntryResolverRegistry resolvers;
 
@@ -96,6 +119,7 @@ public class RelationshipEntryService
          // make sure these are all set up and fail fast if not.
          Objects.requireNonNull(delegate);
          Objects.requireNonNull(docRepo);
+         Objects.requireNonNull(graph);
          Objects.requireNonNull(resolverReg);
          Objects.requireNonNull(repoReg);
 
@@ -122,12 +146,20 @@ public class RelationshipEntryService
 
          resolverReg.unregister();
          repoReg.unregister();
+         graphReg.close();
+         if (graphRemoteReg != null)
+            graphRemoteReg.run();
          docRepo.dispose();
          delegate.dispose();
 
          if (searchReg != null)
             searchReg.close();
 
+         if (referencesRemoteReg != null)
+            referencesRemoteReg.run();
+         if (references != null)
+            references.stop();
+
          logger.fine("Stopped " + getClass().getSimpleName());
 
       }
@@ -144,6 +176,7 @@ public class RelationshipEntryService
 
       initDocRepo();
       initDelegate();
+      initGraph();
 
       this.resolverReg = ctx.registerResolver(new RelationshipResolver(delegate, ctx.getConfig()));
       this.repoReg = ctx.registerRepository(RelationshipRepository.class, account -> new RelationshipRepositoryImpl(account));
@@ -174,6 +207,109 @@ public class RelationshipEntryService
       delegate = delegateBuilder.build();
    }
 
+   private void initGraph()
+   {
+      // NOTE register for updates before building so that no changes are missed. Adding a
+      //      relationship that is already in the graph replaces it.
+      graph = new RelationshipGraph();
+      graphReg = delegate.onUpdate(ctx -> updateGraph(ctx.getEntryReference().getId(), g -> g.handleUpdate(ctx)), TrcAccountDataStore.SEARCH);
+
+      // relationships may also be modified by other application nodes
+      if (docRepo instanceof PsqlJacksonRepo)
+      {
+         graphRemoteReg = ((PsqlJacksonRepo<?, ?, ?>)docRepo).onRemoteChange(new PsqlChangeNotifier.ChangeListener()
+         {
+            @Override
+            public void changed(String id)
+            {
+               Optional<Relationship> reln = delegate.getOptionally(TrcAccountDataStore.SEARCH, id);
+               updateGraph(id, g -> {
+                  if (reln.isPresent())
+                     g.add(reln.get());
+                  else
+                     g.remove(id);
+               });
+            }
+
+            @Override
+            public void reset()
+            {
+               CompletableFuture.runAsync(RelationshipEntryService.this::rebuildGraph);
+            }
+         });
+      }
+
+      long start = System.currentTimeMillis();
+      long count = graph.build(delegate.listAll());
+      long elapsed = System.currentTimeMillis() - start;
+      logger.info(format("Built relationship graph from {0} relationships referring to {1} entries in {2}ms.",
+            Long.valueOf(count), Integer.valueOf(graph.getEntryCount()), Long.valueOf(elapsed)));
+   }
+
+   private void updateGraph(String id, Consumer<RelationshipGraph> update)
+   {
+      synchronized (graphLock)
+      {
+         update.accept(graph);
+         if (rebuilding != null)
+         {
+            updatedDuringRebuild.add(id);
+            update.accept(rebuilding);
+         }
+      }
+   }
+
+   /**
+    * Replaces the relationship graph with one built from the current state of the
+    * repository. Called when changes made by other application nodes may have been missed.
+    */
+   private synchronized void rebuildGraph()
+   {
+      RelationshipGraph next = new RelationshipGraph();
+      synchronized (graphLock)
+      {
+         rebuilding = next;
+         updatedDuringRebuild = new HashSet<>();
+      }
+
+      try
+      {
+         long start = System.currentTimeMillis();
+         Iterator<Relationship> relationships = delegate.listAll();
+         while (relationships.hasNext())
+         {
+            Relationship reln = relationships.next();
+            synchronized (graphLock)
+            {
+               // the state read by the rebuild may be older than that of a live update
+               if (!updatedDuringRebuild.contains(reln.getId()))
+                  next.add(reln);
+            }
+         }
+
+         synchronized (graphLock)
+         {
+            graph = next;
+         }
+
+         long elapsed = System.currentTimeMillis() - start;
+         logger.info(format("Rebuilt relationship graph from {0} relationships referring to {1} entries in {2}ms.",
+               Integer.valueOf(next.size()), Integer.valueOf(next.getEntryCount()), Long.valueOf(elapsed)));
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.SEVERE, "Failed to rebuild the relationship graph.", ex);
+      }
+      finally
+      {
+         synchronized (graphLock)
+         {
+            rebuilding = null;
+            updatedDuringRebuild = null;
+         }
+      }
+   }
+
    private Relationship adapt(DataModelV1.Relationship dto)
    {
       return new RelationshipImpl(dto, typeReg, resolvers);
@@ -190,10 +326,31 @@ public class RelationshipEntryService
       IndexService<Relationship> indexSvc = indexSvcMgr.configure(indexCfg);
 
       RelationshipRepositoryImpl repo = new RelationshipRepositoryImpl(TrcAccountDataStore.SEARCH);
-      SolrSearchSupport<Relationship> mediator = new SolrSearchSupport<>(indexSvc, indexCfg);
+      SolrSearchSupport<Relationship> mediator = new SolrSearchSupport<>(indexSvc, indexCfg, trcCtx.getConfig());
+
+      // relationship documents embed the labels of anchors that do not supply their own
+      references = new ReferenceTracker<>(indexCfg.getCoreId(), indexSvc,
+            Relationship::getId,
+            RelationshipEntryService::getAnchorTargets,
+            ids -> delegate.getAll(TrcAccountDataStore.SEARCH, ids));
+      mediator.setReferenceTracker(references);
+      references.start(resolvers, delegate::listAll);
+
+      // dependents may be created or modified by other application nodes
+      if (docRepo instanceof PsqlJacksonRepo)
+         referencesRemoteReg = ((PsqlJacksonRepo<?, ?, ?>)docRepo).onRemoteChange(references);
+
       searchReg = repo.onUpdate(mediator::handleUpdate);
    }
 
+   private static Collection<EntryId> getAnchorTargets(Relationship reln)
+   {
+      return Stream.concat(reln.getRelatedEntities().stream(), reln.getTargetEntities().stream())
+            .filter(anchor -> anchor.getLabel() == null)
+            .map(Anchor::getTarget)
+            .collect(toSet());
+   }
+
    public class RelationshipRepositoryImpl implements RelationshipRepository
    {
       private final Account account;
@@ -274,16 +431,41 @@ public class RelationshipEntryService
          return getRelationships(ref, reln -> true);
       }
 
-//      @Override
+      /**
+       * @param ref The entry whose relationships should be returned.
+       * @param filter Selects the stored and inferred relationships to be included.
+       * @return The selected relationships that refer to the supplied entry, grouped by
+       *       relationship type.
+       */
       public GroupedRelationshipSet getRelationships(EntryId ref, Predicate<Relationship> filter)
       {
+         GroupedRelationshipSetBuilder builder = new GroupedRelationshipSetBuilder(ref);
+
+         Set<String> ids = graph.getRelationships(ref, RelationshipGraph.Direction.ANY, null);
+         if (!ids.isEmpty())
+         {
+            delegate.getAll(account, ids).stream()
+               .filter(filter)
+               .forEach(builder::add);
+         }
+
          inferenceStrategies.stream()
             .filter(strategy -> strategy.accepts(ref))
             .flatMap(strategy -> strategy.getRelationships(ref))
-            .filter(filter);
+            .filter(filter)
+            .forEach(builder::add);
+
+         return builder.build();
+      }
+
+      @Override
+      public Collection<Relationship> getNeighborhood(EntryId ref, int hops, int limit)
+      {
+         Set<String> ids = graph.getNeighborhood(ref, hops, limit);
+         if (ids.isEmpty())
+            return Collections.emptyList();
 
-         // TODO Auto-generated method stub
-         return null;
+         return delegate.getAll(account, ids);
       }
    }
 }
@@ -0,0 +1,460 @@
+package edu.tamu.tcat.trc.entries.types.reln.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import edu.tamu.tcat.trc.entries.core.repo.EntryUpdateRecord;
+import edu.tamu.tcat.trc.entries.types.reln.Anchor;
+import edu.tamu.tcat.trc.entries.types.reln.Relationship;
+import edu.tamu.tcat.trc.entries.types.reln.RelationshipType;
+import edu.tamu.tcat.trc.resolver.EntryId;
+
+/**
+ * An in-memory index of the relationships between entries. For each entry, the graph
+ * records the relationships in which that entry is one of the related entities
+ * (relationships <em>from</em> the entry) and those in which it is one of the target
+ * entities (relationships <em>to</em> the entry). This allows the relationships of an entry
+ * to be found without querying the database or the search index.
+ *
+ * <p>Only the structure of the graph is retained. Entries, relationships and relationship
+ * types are each interned and represented by an integer index; the adjacency lists of each
+ * entry and the anchors of each relationship are stored as arrays of these indices. The
+ * relationships themselves must be loaded from the repository.
+ *
+ * <p>This class is thread safe. Queries may be performed concurrently with each other but
+ * not with modifications.
+ */
+public class RelationshipGraph
+{
+   /**
+    * The direction of a relationship relative to an entry.
+    */
+   public enum Direction
+   {
+      /** Relationships in which the entry is one of the related entities. */
+      FROM,
+
+      /** Relationships in which the entry is one of the target entities. */
+      TO,
+
+      /** All relationships that refer to the entry. */
+      ANY
+   }
+
+   private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+   // interned entries
+   private final Map<EntryId, Integer> entryIndex = new HashMap<>();
+   private final List<EntryId> entries = new ArrayList<>();
+   private final List<IntList> from = new ArrayList<>();
+   private final List<IntList> to = new ArrayList<>();
+
+   // interned relationship types
+   private final Map<String, Integer> typeIndex = new HashMap<>();
+   private final List<String> types = new ArrayList<>();
+
+   // interned relationships; slots of removed relationships are reused
+   private final Map<String, Integer> relnIndex = new HashMap<>();
+   private final List<String> relnIds = new ArrayList<>();
+   private final IntList relnTypes = new IntList();
+   private final List<int[]> relnRelated = new ArrayList<>();
+   private final List<int[]> relnTargets = new ArrayList<>();
+   private final IntList freeSlots = new IntList();
+
+   /**
+    * Adds all supplied relationships to this graph.
+    *
+    * @param relationships The relationships to add.
+    * @return The number of relationships added.
+    */
+   public long build(Iterator<Relationship> relationships)
+   {
+      long count = 0;
+      while (relationships.hasNext())
+      {
+         add(relationships.next());
+         count++;
+      }
+
+      return count;
+   }
+
+   /**
+    * Updates this graph to reflect a change to a stored relationship. Intended to be
+    * registered as an observer of the relationship repository.
+    *
+    * @param ctx The update to apply.
+    */
+   public void handleUpdate(EntryUpdateRecord<Relationship> ctx)
+   {
+      switch (ctx.getAction())
+      {
+         case CREATE:
+         case UPDATE:
+            add(ctx.getModifiedState());
+            break;
+         case REMOVE:
+            remove(ctx.getEntryReference().getId());
+            break;
+      }
+   }
+
+   /**
+    * Adds a relationship to this graph, replacing any relationship with the same id.
+    *
+    * @param reln The relationship to add.
+    */
+   public void add(Relationship reln)
+   {
+      lock.writeLock().lock();
+      try
+      {
+         doRemove(reln.getId());
+
+         int slot;
+         if (freeSlots.size() > 0)
+         {
+            slot = freeSlots.removeLast();
+            relnIds.set(slot, reln.getId());
+         }
+         else
+         {
+            slot = relnIds.size();
+            relnIds.add(reln.getId());
+            relnTypes.add(0);
+            relnRelated.add(null);
+            relnTargets.add(null);
+         }
+
+         int[] related = internAnchors(reln.getRelatedEntities());
+         int[] targets = internAnchors(reln.getTargetEntities());
+
+         relnIndex.put(reln.getId(), Integer.valueOf(slot));
+         RelationshipType type = reln.getType();
+         relnTypes.set(slot, internType(type == null ? null : type.getIdentifier()));
+         relnRelated.set(slot, related);
+         relnTargets.set(slot, targets);
+
+         for (int entry : related)
+         {
+            from.get(entry).add(slot);
+         }
+
+         for (int entry : targets)
+         {
+            to.get(entry).add(slot);
+         }
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Removes a relationship from this graph.
+    *
+    * @param relnId The id of the relationship to remove.
+    */
+   public void remove(String relnId)
+   {
+      lock.writeLock().lock();
+      try
+      {
+         doRemove(relnId);
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   private void doRemove(String relnId)
+   {
+      Integer ix = relnIndex.remove(relnId);
+      if (ix == null)
+         return;
+
+      int slot = ix.intValue();
+      for (int entry : relnRelated.get(slot))
+      {
+         from.get(entry).removeValue(slot);
+      }
+
+      for (int entry : relnTargets.get(slot))
+      {
+         to.get(entry).removeValue(slot);
+      }
+
+      // NOTE interned entries are retained; they will typically be referenced again
+      relnIds.set(slot, null);
+      relnRelated.set(slot, null);
+      relnTargets.set(slot, null);
+      freeSlots.add(slot);
+   }
+
+   private int[] internAnchors(Collection<Anchor> anchors)
+   {
+      int[] result = new int[anchors.size()];
+      int ix = 0;
+      for (Anchor anchor : anchors)
+      {
+         result[ix++] = internEntry(anchor.getTarget());
+      }
+
+      // ignore duplicate anchors
+      return Arrays.stream(result).distinct().toArray();
+   }
+
+   private int internEntry(EntryId entry)
+   {
+      Integer ix = entryIndex.get(entry);
+      if (ix != null)
+         return ix.intValue();
+
+      int next = entries.size();
+      entryIndex.put(entry, Integer.valueOf(next));
+      entries.add(entry);
+      from.add(new IntList());
+      to.add(new IntList());
+      return next;
+   }
+
+   private int internType(String typeId)
+   {
+      Integer ix = typeIndex.get(typeId);
+      if (ix != null)
+         return ix.intValue();
+
+      int next = types.size();
+      typeIndex.put(typeId, Integer.valueOf(next));
+      types.add(typeId);
+      return next;
+   }
+
+   /**
+    * @param entry The entry whose relationships should be returned.
+    * @param direction The direction of the relationships to return.
+    * @param typeId The identifier of the type of relationships to return or {@code null}
+    *       to return relationships of all types.
+    * @return The ids of the matching relationships.
+    */
+   public Set<String> getRelationships(EntryId entry, Direction direction, String typeId)
+   {
+      lock.readLock().lock();
+      try
+      {
+         Set<String> result = new LinkedHashSet<>();
+         Integer ix = entryIndex.get(entry);
+         if (ix == null)
+            return result;
+
+         int type = -1;
+         if (typeId != null)
+         {
+            Integer typeIx = typeIndex.get(typeId);
+            if (typeIx == null)
+               return result;
+
+            type = typeIx.intValue();
+         }
+
+         if (direction != Direction.TO)
+            collect(from.get(ix.intValue()), type, result);
+         if (direction != Direction.FROM)
+            collect(to.get(ix.intValue()), type, result);
+
+         return result;
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   private void collect(IntList slots, int type, Set<String> result)
+   {
+      for (int i = 0; i < slots.size(); i++)
+      {
+         int slot = slots.get(i);
+         if (type < 0 || relnTypes.get(slot) == type)
+            result.add(relnIds.get(slot));
+      }
+   }
+
+   /**
+    * Finds the relationships that connect the entries within a given number of hops of
+    * the supplied entry, regardless of their direction. The search proceeds breadth first
+    * and stops once the maximum number of relationships has been found.
+    *
+    * @param entry The entry at the center of the neighborhood.
+    * @param hops The maximum distance (in relationships) of entries from the supplied entry.
+    * @param maxRelationships The maximum number of relationships to return.
+    * @return The ids of the relationships in the neighborhood, in order of increasing
+    *       distance from the supplied entry.
+    */
+   public Set<String> getNeighborhood(EntryId entry, int hops, int maxRelationships)
+   {
+      lock.readLock().lock();
+      try
+      {
+         Set<String> result = new LinkedHashSet<>();
+         Integer root = entryIndex.get(entry);
+         if (root == null)
+            return result;
+
+         boolean[] visitedEntries = new boolean[entries.size()];
+         boolean[] visitedRelns = new boolean[relnIds.size()];
+         IntList frontier = new IntList();
+         frontier.add(root.intValue());
+         visitedEntries[root.intValue()] = true;
+
+         for (int hop = 0; hop < hops && frontier.size() > 0; hop++)
+         {
+            IntList next = new IntList();
+            for (int i = 0; i < frontier.size(); i++)
+            {
+               int current = frontier.get(i);
+               if (!expand(from.get(current), visitedEntries, visitedRelns, next, result, maxRelationships)
+                     || !expand(to.get(current), visitedEntries, visitedRelns, next, result, maxRelationships))
+                  return result;
+            }
+
+            frontier = next;
+         }
+
+         return result;
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * @return {@code false} if the maximum number of relationships has been reached.
+    */
+   private boolean expand(IntList slots, boolean[] visitedEntries, boolean[] visitedRelns,
+                          IntList next, Set<String> result, int maxRelationships)
+   {
+      for (int i = 0; i < slots.size(); i++)
+      {
+         int slot = slots.get(i);
+         if (visitedRelns[slot])
+            continue;
+
+         if (result.size() >= maxRelationships)
+            return false;
+
+         visitedRelns[slot] = true;
+         result.add(relnIds.get(slot));
+         visit(relnRelated.get(slot), visitedEntries, next);
+         visit(relnTargets.get(slot), visitedEntries, next);
+      }
+
+      return true;
+   }
+
+   private static void visit(int[] anchors, boolean[] visitedEntries, IntList next)
+   {
+      for (int entry : anchors)
+      {
+         if (!visitedEntries[entry])
+         {
+            visitedEntries[entry] = true;
+            next.add(entry);
+         }
+      }
+   }
+
+   /**
+    * @return The number of relationships in this graph.
+    */
+   public int size()
+   {
+      lock.readLock().lock();
+      try
+      {
+         return relnIndex.size();
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * @return The number of distinct entries referenced by relationships in this graph.
+    */
+   public int getEntryCount()
+   {
+      lock.readLock().lock();
+      try
+      {
+         return entries.size();
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * A growable array of {@code int} values.
+    */
+   private static class IntList
+   {
+      private int[] values = new int[4];
+      private int size = 0;
+
+      int size()
+      {
+         return size;
+      }
+
+      int get(int ix)
+      {
+         return values[ix];
+      }
+
+      void set(int ix, int value)
+      {
+         values[ix] = value;
+      }
+
+      void add(int value)
+      {
+         if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+
+         values[size++] = value;
+      }
+
+      int removeLast()
+      {
+         return values[--size];
+      }
+
+      void removeValue(int value)
+      {
+         for (int i = 0; i < size; i++)
+         {
+            if (values[i] == value)
+            {
+               // order is not significant, so move the last value into this position
+               values[i] = values[--size];
+               return;
+            }
+         }
+      }
+   }
+}
@@ -2,6 +2,8 @@ package edu.tamu.tcat.trc.entries.types.reln.impl.repo;
 
 import static java.text.MessageFormat.format;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -35,6 +37,12 @@ public class RelationshipResolver extends EntryResolverBase<Relationship>
       return delegate.getOptionally(account, reference.getId());
    }
 
+   @Override
+   public Map<EntryId, Relationship> resolveAll(Account account, Collection<EntryId> references) throws InvalidReferenceException
+   {
+      return loadAll(references, ids -> delegate.getAll(account, ids));
+   }
+
    @Override
    protected String getId(Relationship relationship)
    {
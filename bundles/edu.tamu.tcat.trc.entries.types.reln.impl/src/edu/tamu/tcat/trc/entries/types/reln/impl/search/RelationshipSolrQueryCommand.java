@@ -17,13 +17,10 @@ package edu.tamu.tcat.trc.entries.types.reln.impl.search;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.response.QueryResponse;
-import org.apache.solr.common.SolrDocumentList;
 
 import com.google.common.base.Joiner;
 
@@ -36,6 +33,7 @@ import edu.tamu.tcat.trc.entries.types.reln.search.RelationshipSearchResult;
 import edu.tamu.tcat.trc.entries.types.reln.search.RelnSearchProxy;
 import edu.tamu.tcat.trc.resolver.EntryId;
 import edu.tamu.tcat.trc.search.solr.SearchException;
+import edu.tamu.tcat.trc.search.solr.impl.ResultPage;
 import edu.tamu.tcat.trc.search.solr.impl.TrcQueryBuilder;
 
 public class RelationshipSolrQueryCommand implements RelationshipQueryCommand
@@ -66,11 +64,8 @@ public class RelationshipSolrQueryCommand implements RelationshipQueryCommand
       {
          String queryString = Joiner.on(" AND ").join(criteria);
          qb.basic(queryString);
-         QueryResponse response = solr.query(qb.get());
-         SolrDocumentList results = response.getResults();
-
-         List<RelnSearchProxy> relns = qb.unpack(results, RelnSolrConfig.SEARCH_PROXY);
-         result.complete(new SolrRelnResults(this, relns));
+         ResultPage<RelnSearchProxy> page = qb.execute(solr, RelnSolrConfig.SEARCH_PROXY);
+         result.complete(new SolrRelnResults(this, page.getItems(), page.getNextCursor()));
       }
       catch (Exception e)
       {
@@ -118,6 +113,12 @@ public class RelationshipSolrQueryCommand implements RelationshipQueryCommand
       qb.offset(start);
    }
 
+   @Override
+   public void setCursor(String cursor)
+   {
+      qb.cursor(cursor);
+   }
+
    @Override
    public void setMaxResults(int max)
    {
@@ -16,13 +16,22 @@
 package edu.tamu.tcat.trc.entries.types.reln.impl.search;
 
 import static java.text.MessageFormat.format;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import org.apache.solr.common.SolrInputDocument;
 
@@ -32,6 +41,7 @@ import edu.tamu.tcat.trc.entries.types.reln.repo.RelationshipRepository;
 import edu.tamu.tcat.trc.entries.types.reln.search.RelnSearchProxy;
 import edu.tamu.tcat.trc.resolver.EntryId;
 import edu.tamu.tcat.trc.resolver.EntryIdDto;
+import edu.tamu.tcat.trc.resolver.EntryLabel;
 import edu.tamu.tcat.trc.resolver.EntryReference;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
 import edu.tamu.tcat.trc.search.solr.impl.TrcDocument;
@@ -76,6 +86,84 @@ public class RelnDocument
       }
    }
 
+   /**
+    * Builds an atomic update for a modified relationship. The fields of the relationship are
+    * compared directly so that anchor references are resolved (in order to rebuild the
+    * search proxy) only if the relationship has changed.
+    *
+    * @return The update or {@code null} if no indexed fields have changed.
+    */
+   public static SolrInputDocument update(Relationship original, Relationship modified, EntryResolverRegistry resolvers)
+   {
+      try
+      {
+         TrcDocument doc = new TrcDocument(new RelnSolrConfig());
+         boolean changed = false;
+
+         doc.set(RelnSolrConfig.ID, modified.getId());
+         if (!Objects.equals(original.getDescription(), modified.getDescription()))
+         {
+            doc.update(RelnSolrConfig.DESCRIPTION, modified.getDescription());
+            changed = true;
+         }
+
+         String typeId = modified.getType().getIdentifier();
+         if (!Objects.equals(original.getType().getIdentifier(), typeId))
+         {
+            doc.update(RelnSolrConfig.REL_TYPE, typeId);
+            changed = true;
+         }
+
+         if (!getTargets(original.getRelatedEntities()).equals(getTargets(modified.getRelatedEntities())))
+         {
+            doc.update(RelnSolrConfig.RELATED_ENTITIES, tokenize(modified.getRelatedEntities(), resolvers));
+            changed = true;
+         }
+
+         if (!getTargets(original.getTargetEntities()).equals(getTargets(modified.getTargetEntities())))
+         {
+            doc.update(RelnSolrConfig.TARGET_ENTITIES, tokenize(modified.getTargetEntities(), resolvers));
+            changed = true;
+         }
+
+         // anchor labels and properties are stored only in the search proxy
+         changed = changed
+               || !describe(original.getRelatedEntities()).equals(describe(modified.getRelatedEntities()))
+               || !describe(original.getTargetEntities()).equals(describe(modified.getTargetEntities()));
+         if (!changed)
+            return null;
+
+         doc.update(RelnSolrConfig.SEARCH_PROXY, makeProxy(modified, resolvers));
+         return doc.build();
+      }
+      catch (Exception ex)
+      {
+         throw new IllegalStateException("Failed to construct index update for relationship" + modified, ex);
+      }
+   }
+
+   private static Set<EntryId> getTargets(Collection<Anchor> anchors)
+   {
+      return anchors.stream().map(Anchor::getTarget).collect(toSet());
+   }
+
+   private static List<String> tokenize(Collection<Anchor> anchors, EntryResolverRegistry resolvers)
+   {
+      return anchors.stream()
+            .map(Anchor::getTarget)
+            .map(resolvers::tokenize)
+            .collect(toList());
+   }
+
+   private static Set<List<Object>> describe(Collection<Anchor> anchors)
+   {
+      return anchors.stream()
+            .map(anchor -> Arrays.<Object>asList(anchor.getTarget(), anchor.getLabel(),
+                  anchor.listProperties().stream()
+                     .collect(toMap(Function.identity(), key -> anchor.getProperty(key)))))
+            .collect(toSet());
+   }
+
    public static RelnSearchProxy makeProxy(Relationship reln, EntryResolverRegistry resolvers)
    {
       EntryId entryId = new EntryId(reln.getId(), RelationshipRepository.ENTRY_TYPE_ID);
@@ -85,14 +173,16 @@ public class RelnDocument
       result.typeId = reln.getType().getIdentifier();
       result.description = reln.getDescription();
 
+      Map<EntryId, EntryLabel> labels = getLabels(reln, resolvers);
+
       result.related = reln.getRelatedEntities().stream()
-            .map(anchor -> adapt(anchor, resolvers))
+            .map(anchor -> adapt(anchor, labels, resolvers))
             .filter(opt -> opt.isPresent())
             .map(Optional::get)
             .collect(toSet());
 
       result.targets = reln.getTargetEntities().stream()
-            .map(anchor -> adapt(anchor, resolvers))
+            .map(anchor -> adapt(anchor, labels, resolvers))
             .filter(opt -> opt.isPresent())
             .map(Optional::get)
             .collect(toSet());
@@ -100,14 +190,45 @@ public class RelnDocument
       return result;
    }
 
-   private static Optional<RelnSearchProxy.Anchor> adapt(Anchor anchor, EntryResolverRegistry resolvers)
+   /**
+    * Obtains labels for the targets of all anchors that do not supply a label. Labels that
+    * are not retained by the registry are resolved using one request per entry type, rather
+    * than one request per anchor.
+    */
+   private static Map<EntryId, EntryLabel> getLabels(Relationship reln, EntryResolverRegistry resolvers)
+   {
+      Set<EntryId> targets = Stream.concat(reln.getRelatedEntities().stream(), reln.getTargetEntities().stream())
+            .filter(anchor -> anchor.getLabel() == null)
+            .map(Anchor::getTarget)
+            .collect(toSet());
+
+      if (targets.isEmpty())
+         return Collections.emptyMap();
+
+      try
+      {
+         return resolvers.getLabels(targets);
+      }
+      catch (Exception ex)
+      {
+         // anchors will be resolved individually
+         logger.log(Level.WARNING, format("Failed to resolve anchors for relationship {0}", reln.getId()), ex);
+         return Collections.emptyMap();
+      }
+   }
+
+   private static Optional<RelnSearchProxy.Anchor> adapt(Anchor anchor, Map<EntryId, EntryLabel> labels, EntryResolverRegistry resolvers)
    {
       try
       {
          EntryReference<?> reference = resolvers.getReference(anchor.getTarget());
+         EntryLabel label = labels.get(anchor.getTarget());
 
          RelnSearchProxy.Anchor dto = new RelnSearchProxy.Anchor();
-         dto.label = anchor.getLabel() != null ? anchor.getLabel() : reference.getHtmlLabel();
+         if (anchor.getLabel() != null)
+            dto.label = anchor.getLabel();
+         else
+            dto.label = label != null ? label.getHtmlLabel() : reference.getHtmlLabel();
          dto.ref = EntryIdDto.adapt(reference);
          dto.properties = anchor.listProperties().stream()
                   .collect(toMap(Function.identity(), key -> anchor.getProperty(key)));
@@ -46,6 +46,12 @@ public class RelnSearchStrategy implements IndexServiceStrategy<Relationship, Re
       return RelnDocument.create(entry, trcCtx.getResolverRegistry());
    }
 
+   @Override
+   public SolrInputDocument getUpdate(Relationship original, Relationship modified)
+   {
+      return RelnDocument.update(original, modified, trcCtx.getResolverRegistry());
+   }
+
    @Override
    public String getEntryId(Relationship entry)
    {
@@ -24,11 +24,13 @@ public class SolrRelnResults implements RelationshipSearchResult
 {
    private List<RelnSearchProxy> items;
    private RelationshipSolrQueryCommand cmd;
+   private String nextCursor;
 
-   SolrRelnResults(RelationshipSolrQueryCommand cmd, List<RelnSearchProxy> items)
+   SolrRelnResults(RelationshipSolrQueryCommand cmd, List<RelnSearchProxy> items, String nextCursor)
    {
       this.cmd = cmd;
       this.items = items;
+      this.nextCursor = nextCursor;
    }
 
    //HACK this is a degenerate impl for current puproses
@@ -39,6 +41,12 @@ public class SolrRelnResults implements RelationshipSearchResult
       return items;
    }
 
+   @Override
+   public String getNextCursor()
+   {
+      return nextCursor;
+   }
+
    @Override
    public RelationshipSolrQueryCommand getCommand()
    {
@@ -71,6 +71,7 @@ public class RelationshipsResource
                        @QueryParam(value="type") String type,
                        @QueryParam(value="direction") RestApiV1.RelDirection direction,
                        @QueryParam(value = "off") @DefaultValue("0")   int offset,
+                       @QueryParam(value = "cursor") String cursor,
                        @QueryParam(value = "max") @DefaultValue("100") int numResults)
    throws Exception
    {
@@ -92,7 +93,12 @@ public class RelationshipsResource
             cmd.byType(type);
          }
 
-         cmd.setOffset(offset);
+         // page by cursor only if the client supplied one (use cursor=* for the first page)
+         boolean useCursor = cursor != null;
+         if (useCursor)
+            cmd.setCursor(cursor);
+         else
+            cmd.setOffset(offset);
          cmd.setMaxResults(numResults);
 
          // HACK this throws many things that aren't caught and properly handled
@@ -100,7 +106,10 @@ public class RelationshipsResource
          RestApiV1.RelationshipSearchResultSet rs = new RestApiV1.RelationshipSearchResultSet();
          rs.items = SearchAdapter.toDTO(results.get(), resolvers, null);
 
-         updateLinks(rs, ref, direction, type, offset, numResults);
+         if (useCursor)
+            updateCursorLinks(rs, ref, direction, type, cursor, results.getNextCursor(), numResults);
+         else
+            updateLinks(rs, ref, direction, type, offset, numResults);
 
          //HACK: until the JS is ready to accept this data vehicle, just send the list of results
          return rs.items;
@@ -113,6 +122,34 @@ public class RelationshipsResource
    }
 
 
+   private void updateCursorLinks(RestApiV1.RelationshipSearchResultSet rs, EntryReference<Object> ref, RestApiV1.RelDirection direction, String type, String cursor, String nextCursor, int numResults)
+   {
+      StringBuilder sb = new StringBuilder();
+      StringBuilder current = new StringBuilder();
+      StringBuilder next = new StringBuilder();
+      try
+      {
+         app(sb, "entity", ref.getToken());
+         app(sb, "type", type);
+         if (direction != null)
+            app(sb, "direction", direction.toValue());
+
+         app(current, "cursor", cursor);
+         app(current, "max", String.valueOf(numResults));
+         app(next, "cursor", nextCursor);
+         app(next, "max", String.valueOf(numResults));
+      }
+      catch (Exception e)
+      {
+         throw new SearchException("Failed building querystring", e);
+      }
+
+      rs.qs = current+"&"+sb.toString();
+      // cursors only support paging forward; omit the next link once all results have been returned
+      if (nextCursor != null)
+         rs.qsNext = next+"&"+sb.toString();
+   }
+
    private void updateLinks(RestApiV1.RelationshipSearchResultSet rs, EntryReference<Object> ref, RestApiV1.RelDirection direction, String type, int offset, int numResults)
    {
       StringBuilder sb = new StringBuilder();
@@ -15,13 +15,18 @@
  */
 package edu.tamu.tcat.trc.entries.types.reln.rest.v1;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import edu.tamu.tcat.trc.entries.types.reln.Anchor;
 import edu.tamu.tcat.trc.entries.types.reln.Relationship;
 import edu.tamu.tcat.trc.entries.types.reln.RelationshipType;
 import edu.tamu.tcat.trc.resolver.EntryId;
 import edu.tamu.tcat.trc.resolver.EntryIdDto;
+import edu.tamu.tcat.trc.resolver.EntryLabel;
 import edu.tamu.tcat.trc.resolver.EntryReference;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
 
@@ -42,23 +47,35 @@ public class RepoAdapter
       dto.typeId = orig.getType().getIdentifier();
       dto.description = orig.getDescription();
 
+      // look up the labels of all unlabeled anchors together
+      Set<EntryId> unlabeled = Stream.concat(orig.getRelatedEntities().stream(), orig.getTargetEntities().stream())
+            .filter(anchor -> !hasLabel(anchor))
+            .map(Anchor::getTarget)
+            .collect(Collectors.toSet());
+      Map<EntryId, EntryLabel> labels = getLabels(unlabeled, resolvers);
+
       dto.related = orig.getRelatedEntities().stream()
-            .map(anchor -> toDto(anchor, resolvers))
+            .map(anchor -> toDto(anchor, labels, resolvers))
             .collect(Collectors.toSet());
 
       dto.targets = orig.getTargetEntities().stream()
-            .map(anchor -> toDto(anchor, resolvers))
+            .map(anchor -> toDto(anchor, labels, resolvers))
             .collect(Collectors.toSet());
 
       return dto;
    }
 
    public static RestApiV1.Anchor toDto(Anchor anchor, EntryResolverRegistry resolvers)
+   {
+      return toDto(anchor, Collections.emptyMap(), resolvers);
+   }
+
+   private static RestApiV1.Anchor toDto(Anchor anchor, Map<EntryId, EntryLabel> labels, EntryResolverRegistry resolvers)
    {
       RestApiV1.Anchor dto = new RestApiV1.Anchor();
       EntryId entryId = anchor.getTarget();
       dto.ref = EntryIdDto.adapt(entryId, resolvers);
-      dto.label = getLabel(anchor, resolvers);
+      dto.label = getLabel(anchor, labels, resolvers);
       dto.properties.clear();
       anchor.listProperties().stream()
             .forEach(key -> dto.properties.put(key, anchor.getProperty(key)));
@@ -66,11 +83,36 @@ public class RepoAdapter
       return dto;
    }
 
-   private static String getLabel(Anchor anchor, EntryResolverRegistry resolvers)
+   private static boolean hasLabel(Anchor anchor)
    {
       String label = anchor.getLabel();
-      if (label != null && !label.trim().isEmpty())
-         return label;
+      return label != null && !label.trim().isEmpty();
+   }
+
+   private static Map<EntryId, EntryLabel> getLabels(Set<EntryId> ids, EntryResolverRegistry resolvers)
+   {
+      if (ids.isEmpty())
+         return Collections.emptyMap();
+
+      try
+      {
+         return resolvers.getLabels(ids);
+      }
+      catch (Exception ex)
+      {
+         // anchors will be resolved individually
+         return Collections.emptyMap();
+      }
+   }
+
+   private static String getLabel(Anchor anchor, Map<EntryId, EntryLabel> labels, EntryResolverRegistry resolvers)
+   {
+      if (hasLabel(anchor))
+         return anchor.getLabel();
+
+      EntryLabel label = labels.get(anchor.getTarget());
+      if (label != null)
+         return label.getHtmlLabel();
 
       try
       {
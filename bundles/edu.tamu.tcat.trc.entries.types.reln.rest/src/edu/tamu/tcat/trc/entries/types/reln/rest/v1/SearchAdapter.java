@@ -15,15 +15,18 @@
  */
 package edu.tamu.tcat.trc.entries.types.reln.rest.v1;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import edu.tamu.tcat.account.Account;
 import edu.tamu.tcat.trc.entries.types.reln.search.RelnSearchProxy;
 import edu.tamu.tcat.trc.resolver.EntryId;
 import edu.tamu.tcat.trc.resolver.EntryIdDto;
-import edu.tamu.tcat.trc.resolver.EntryResolver;
+import edu.tamu.tcat.trc.resolver.EntryLabel;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
 
 /**
@@ -37,8 +40,19 @@ public class SearchAdapter
       if (origList == null)
          return null;
 
+      // look up the labels of all unlabeled anchors on this page together
+      Set<EntryId> unlabeled = origList.stream()
+            .filter(proxy -> proxy != null)
+            .flatMap(proxy -> Stream.concat(proxy.related.stream(), proxy.targets.stream()))
+            .filter(anchor -> anchor.label == null)
+            .map(anchor -> new EntryId(anchor.ref.id, anchor.ref.type))
+            .collect(Collectors.toSet());
+      Map<EntryId, EntryLabel> labels = unlabeled.isEmpty()
+            ? Collections.emptyMap()
+            : resolvers.getLabels(unlabeled);
+
       return origList.stream()
-            .map(proxy -> toDTO(proxy, resolvers, account))
+            .map(proxy -> toDTO(proxy, labels, resolvers))
             .collect(Collectors.toList());
    }
 
@@ -49,6 +63,16 @@ public class SearchAdapter
          return null;
       }
 
+      return toDTO(Collections.singletonList(orig), resolvers, account).get(0);
+   }
+
+   private static RestApiV1.Relationship toDTO(RelnSearchProxy orig, Map<EntryId, EntryLabel> labels, EntryResolverRegistry resolvers)
+   {
+      if (orig == null)
+      {
+         return null;
+      }
+
       RestApiV1.Relationship dto = new RestApiV1.Relationship();
       dto.id = orig.id;
       dto.ref = orig.token == null ? null : EntryIdDto.adapt(resolvers.getReference(orig.token));
@@ -57,18 +81,18 @@ public class SearchAdapter
 
       dto.related.clear();
       orig.related.stream()
-            .map(token -> createAnchor(token, resolvers, account))
+            .map(token -> createAnchor(token, labels))
             .forEach(dto.related::add);
 
       dto.targets.clear();
       orig.targets.stream()
-            .map(token -> createAnchor(token, resolvers, account))
+            .map(token -> createAnchor(token, labels))
             .forEach(dto.targets::add);
 
       return dto;
    }
 
-   private static RestApiV1.Anchor createAnchor(RelnSearchProxy.Anchor anchor, EntryResolverRegistry resolvers, Account account)
+   private static RestApiV1.Anchor createAnchor(RelnSearchProxy.Anchor anchor, Map<EntryId, EntryLabel> labels)
    {
       EntryId entryId = new EntryId(anchor.ref.id, anchor.ref.type);
 
@@ -82,11 +106,8 @@ public class SearchAdapter
 
       if (dto.label == null)
       {
-         EntryResolver<Object> resolver = resolvers.getResolver(entryId);
-         Optional<Object> instance = resolver.resolve(account, entryId);
-
-         dto.label = instance.map(entry -> resolver.getHtmlLabel(entry))
-               .orElse("Invalid Anchor Reference");
+         EntryLabel label = labels.get(entryId);
+         dto.label = label != null ? label.getHtmlLabel() : "Invalid Anchor Reference";
       }
 
       return dto;
@@ -15,6 +15,7 @@
  */
 package edu.tamu.tcat.trc.entries.types.reln.repo;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.CompletableFuture;
 
@@ -118,8 +119,27 @@ public interface RelationshipRepository extends EntryRepository<Relationship>
     */
    void register(RelationshipInferenceStrategy strategy);
 
+   /**
+    * @param ref The entry whose relationships should be returned.
+    * @return The relationships that refer to the supplied entry, including those supplied
+    *       by registered inference strategies, grouped by relationship type.
+    */
    GroupedRelationshipSet getRelationships(EntryId ref);
 
+   /**
+    * Finds the relationships that connect the entries within a given number of hops of the
+    * supplied entry, irrespective of the direction of those relationships. Intended to
+    * support network visualizations.
+    *
+    * @param ref The entry at the center of the network.
+    * @param hops The maximum number of relationships between the supplied entry and any
+    *       other entry in the network.
+    * @param limit The maximum number of relationships to return. Relationships closer to
+    *       the supplied entry are returned first.
+    * @return The relationships in the network.
+    */
+   Collection<Relationship> getNeighborhood(EntryId ref, int hops, int limit);
+
    @Override
    EntryRepository.ObserverRegistration onUpdate(EntryRepository.UpdateObserver<Relationship> observer);
 }
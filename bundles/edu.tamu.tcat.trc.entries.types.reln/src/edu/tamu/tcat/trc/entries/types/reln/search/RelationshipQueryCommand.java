@@ -29,5 +29,15 @@ public interface RelationshipQueryCommand
    void byType(String typeId);
 
    void setOffset(int start);
+
+   /**
+    * Requests results using a cursor rather than an offset. Cursors support efficient
+    * paging through large result sets since the cost of retrieving a page does not grow
+    * with its depth. A cursor may not be combined with {@link #setOffset(int)}.
+    *
+    * @param cursor The cursor returned with the previous page of results (see
+    *       {@link RelationshipSearchResult#getNextCursor()}), or {@code null} to request the first page.
+    */
+   void setCursor(String cursor);
    void setMaxResults(int rows);
 }
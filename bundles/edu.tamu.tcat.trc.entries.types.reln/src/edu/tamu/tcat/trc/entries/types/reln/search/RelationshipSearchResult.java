@@ -35,5 +35,12 @@ public interface RelationshipSearchResult
     */
    List<RelnSearchProxy> get();
 
+   /**
+    * @return The cursor to supply to {@link RelationshipQueryCommand#setCursor(String)} in order to retrieve
+    *       the next page of results. Will be {@code null} if the query was not executed
+    *       using a cursor or if there are no further results.
+    */
+   String getNextCursor();
+
    //TODO: add support for retrieving facet information
 }
@@ -6,6 +6,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import edu.tamu.tcat.account.Account;
 import edu.tamu.tcat.db.exec.sql.SqlExecutor;
@@ -18,8 +20,10 @@ import edu.tamu.tcat.trc.entries.core.repo.RepositoryReference;
 import edu.tamu.tcat.trc.repo.id.IdFactory;
 import edu.tamu.tcat.trc.repo.id.IdFactoryProvider;
 import edu.tamu.tcat.trc.repo.postgres.JaversProvider;
+import edu.tamu.tcat.trc.repo.postgres.PsqlChangeNotifier;
 import edu.tamu.tcat.trc.repo.postgres.PsqlJacksonRepoBuilder;
 import edu.tamu.tcat.trc.resolver.BasicResolverRegistry;
+import edu.tamu.tcat.trc.resolver.EntryId;
 import edu.tamu.tcat.trc.resolver.EntryResolver;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistrar;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
@@ -39,6 +43,11 @@ public class DbEntryRepositoryRegistry implements EntryRepositoryRegistry, Entry
 //        repo framework and makes it difficult to provide alternate implementations. Mostly likely, we need to
 //        split the API of this class to that they can be interchanged.
 
+   private static final Logger logger = Logger.getLogger(DbEntryRepositoryRegistry.class.getName());
+
+   /** The notification channel used to discard entry labels retained by other nodes. */
+   private static final String LABEL_CHANNEL = PsqlChangeNotifier.getChannel("entry_labels");
+
    private final BasicResolverRegistry resolverRegistry = new BasicResolverRegistry();
    private final Map<Class<?>, RepositoryReference<?>> repositories = new HashMap<>();
 
@@ -46,6 +55,9 @@ public class DbEntryRepositoryRegistry implements EntryRepositoryRegistry, Entry
    private IdFactoryProvider idFactoryProvider;
    private ConfigurationProperties config;
    private JaversProvider jvsp;
+   private PsqlChangeNotifier notifier;
+   private Runnable labelPublisherReg;
+   private Runnable labelListenerReg;
 
    // TODO add version history
    //      start up other service?
@@ -78,6 +90,18 @@ public class DbEntryRepositoryRegistry implements EntryRepositoryRegistry, Entry
       this.jvsp = jvsp;
    }
 
+   /**
+    * Optional bind method for the change notifier used to keep repository caches consistent
+    * across application nodes. If not supplied, caches will only reflect changes made
+    * through this node.
+    *
+    * @param notifier The change notifier.
+    */
+   public void setChangeNotifier(PsqlChangeNotifier notifier)
+   {
+      this.notifier = notifier;
+   }
+
    public void setConfiguration(ConfigurationProperties config)
    {
       this.config = config;
@@ -90,11 +114,57 @@ public class DbEntryRepositoryRegistry implements EntryRepositoryRegistry, Entry
       Objects.requireNonNull(idFactoryProvider);
       Objects.requireNonNull(config);
       Objects.requireNonNull(jvsp);
+
+      if (notifier != null)
+         initLabelNotifications();
    }
 
    public void dispose()
    {
+      if (labelPublisherReg != null)
+         labelPublisherReg.run();
+      if (labelListenerReg != null)
+         labelListenerReg.run();
 
+      labelPublisherReg = null;
+      labelListenerReg = null;
+   }
+
+   /**
+    * Keeps the entry labels retained by the resolver registry consistent across application
+    * nodes. Label changes made on this node are published to other nodes, which discard
+    * their retained labels. Label change listeners (for example, those that reindex
+    * dependent documents) are only notified on the node that made the change.
+    */
+   private void initLabelNotifications()
+   {
+      labelPublisherReg = resolverRegistry.onLabelChanged(this::publishLabelChange);
+      labelListenerReg = notifier.listen(LABEL_CHANNEL, new PsqlChangeNotifier.ChangeListener()
+      {
+         @Override
+         public void changed(String token)
+         {
+            resolverRegistry.discardLabel(resolverRegistry.decodeToken(token));
+         }
+
+         @Override
+         public void reset()
+         {
+            resolverRegistry.discardLabels();
+         }
+      });
+   }
+
+   private void publishLabelChange(EntryId eId)
+   {
+      String token = resolverRegistry.tokenize(eId);
+      sqlExecutor.submit(conn -> {
+         notifier.publish(conn, LABEL_CHANNEL, token);
+         return null;
+      }).exceptionally(ex -> {
+         logger.log(Level.WARNING, "Failed to notify other nodes of the changed label for " + token, ex);
+         return null;
+      });
    }
 
    @Override
@@ -179,6 +249,7 @@ public class DbEntryRepositoryRegistry implements EntryRepositoryRegistry, Entry
       PsqlJacksonRepoBuilder<T, DTO, CMD> repoBuilder = new PsqlJacksonRepoBuilder<>();
       repoBuilder.setDbExecutor(sqlExecutor);
       repoBuilder.setJaversProvider(jvsp);
+      repoBuilder.setChangeNotifier(notifier);
       return repoBuilder;
    }
 
@@ -0,0 +1,114 @@
+package edu.tamu.tcat.trc.impl.psql.entries;
+
+import static java.text.MessageFormat.format;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes the differences between the entries stored in a repository and the documents
+ * in the corresponding search index. Entries that are present in the repository but not in
+ * the index are reported as missing. Documents that are present in the index but have no
+ * corresponding entry are reported as orphaned.
+ *
+ * <p>A report is computed by streaming the ids of all entries from the repository followed
+ * by the ids of all documents from the index. The ids of the repository entries are held
+ * in memory while the index is read. Since both sources may change while the report is
+ * computed, entries created or removed during that time may be reported incorrectly.
+ */
+public class IndexDriftReport
+{
+   private final long repoCount;
+   private final long indexCount;
+   private final List<String> missing;
+   private final List<String> orphaned;
+
+   private IndexDriftReport(long repoCount, long indexCount, List<String> missing, List<String> orphaned)
+   {
+      this.repoCount = repoCount;
+      this.indexCount = indexCount;
+      this.missing = Collections.unmodifiableList(missing);
+      this.orphaned = Collections.unmodifiableList(orphaned);
+   }
+
+   /**
+    * @param repoIds The ids of all entries in the repository.
+    * @param indexIds The ids of all documents in the index.
+    * @return A report of the differences between the two.
+    */
+   public static IndexDriftReport compute(Iterator<String> repoIds, Iterator<String> indexIds)
+   {
+      Set<String> unmatched = new HashSet<>();
+      long repoCount = 0;
+      while (repoIds.hasNext())
+      {
+         unmatched.add(repoIds.next());
+         repoCount++;
+      }
+
+      long indexCount = 0;
+      List<String> orphaned = new ArrayList<>();
+      while (indexIds.hasNext())
+      {
+         String id = indexIds.next();
+         indexCount++;
+         if (!unmatched.remove(id))
+            orphaned.add(id);
+      }
+
+      List<String> missing = new ArrayList<>(unmatched);
+      Collections.sort(missing);
+      return new IndexDriftReport(repoCount, indexCount, missing, orphaned);
+   }
+
+   /**
+    * @return The number of entries in the repository.
+    */
+   public long getRepositoryCount()
+   {
+      return repoCount;
+   }
+
+   /**
+    * @return The number of documents in the index.
+    */
+   public long getIndexCount()
+   {
+      return indexCount;
+   }
+
+   /**
+    * @return The ids of entries that are present in the repository but not in the index.
+    */
+   public List<String> getMissing()
+   {
+      return missing;
+   }
+
+   /**
+    * @return The ids of documents that are present in the index but not in the repository.
+    */
+   public List<String> getOrphaned()
+   {
+      return orphaned;
+   }
+
+   /**
+    * @return {@code true} if the repository and the index contain the same entries.
+    */
+   public boolean isConsistent()
+   {
+      return missing.isEmpty() && orphaned.isEmpty();
+   }
+
+   @Override
+   public String toString()
+   {
+      return format("{0} entries, {1} indexed documents, {2} missing, {3} orphaned",
+            Long.valueOf(repoCount), Long.valueOf(indexCount), Integer.valueOf(missing.size()), Integer.valueOf(orphaned.size()));
+   }
+}
@@ -0,0 +1,429 @@
+package edu.tamu.tcat.trc.impl.psql.entries;
+
+import static java.text.MessageFormat.format;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import edu.tamu.tcat.trc.repo.postgres.PsqlChangeNotifier;
+import edu.tamu.tcat.trc.resolver.EntryId;
+import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
+import edu.tamu.tcat.trc.search.solr.IndexService;
+
+/**
+ * Keeps indexed documents up to date with the entries they reference. Search documents
+ * often embed information about other entries, such as the labels of the people and works
+ * that are the anchors of a relationship. When the label of a referenced entry changes,
+ * the documents that reference it must be reindexed.
+ *
+ * <p>A tracker maintains a reverse-reference index for a single core that maps each
+ * referenced entry to the ids of the documents that reference it. This index is held in
+ * memory. It is built from the repository when the tracker is started and is maintained as
+ * entries are indexed (see {@link SolrSearchSupport}). When the resolver registry reports
+ * that the label of an entry has changed, the dependent documents are reindexed. Changes
+ * are collected for a short period and the dependent entries are loaded and reindexed in
+ * batches, so that a burst of changes results in each dependent document being reindexed
+ * once.
+ *
+ * <p>Entries may also be modified by other application nodes. The tracker should receive
+ * the change notifications for its repository (see
+ * {@link edu.tamu.tcat.trc.repo.postgres.PsqlJacksonRepo#onRemoteChange(PsqlChangeNotifier.ChangeListener)})
+ * so that it reloads the references of those entries, and rebuilds the reverse-reference
+ * index if notifications may have been missed.
+ *
+ * <p>Entries may be indexed or removed while the reverse-reference index is being built.
+ * The repository state read by the build may predate these changes, so the build skips any
+ * entry that has been indexed or removed since the build began. Once the build completes,
+ * the references of entries that were not read (and so no longer exist) are discarded.
+ *
+ * @param <EntryType> The type of entry stored in the index.
+ */
+public class ReferenceTracker<EntryType> implements PsqlChangeNotifier.ChangeListener
+{
+   private static final Logger logger = Logger.getLogger(ReferenceTracker.class.getName());
+
+   /** The time (in milliseconds) for which changes are collected before reindexing. */
+   private static final long REINDEX_DELAY = 2000;
+
+   /** The maximum number of dependent entries to load at once. */
+   private static final int BATCH_SIZE = 200;
+
+   private final String coreId;
+   private final IndexService<EntryType> indexSvc;
+   private final Function<EntryType, String> idFn;
+   private final Function<EntryType, Collection<EntryId>> referenceFn;
+   private final Function<Collection<String>, Collection<EntryType>> loader;
+
+   // NOTE guarded by this
+   private final Map<EntryId, Set<String>> dependents = new HashMap<>();
+   private final Map<String, Set<EntryId>> references = new HashMap<>();
+   private final Set<String> pending = new LinkedHashSet<>();
+   private boolean scheduled = false;
+
+   /** The ids of entries updated while the index is being built, or {@code null} once built. */
+   private Set<String> updatedDuringBuild = null;
+
+   private final AtomicLong changes = new AtomicLong();
+   private final AtomicLong reindexed = new AtomicLong();
+   private final AtomicLong maxFanOut = new AtomicLong();
+
+   private ScheduledExecutorService exec;
+   private Runnable listenerReg;
+   private Supplier<Iterator<EntryType>> entries;
+
+   /**
+    * @param coreId The id of the core whose documents are tracked. Used for logging.
+    * @param indexSvc The index to update.
+    * @param idFn Supplies the id of an entry (and hence of its indexed document).
+    * @param referenceFn Supplies the references to other entries whose information is
+    *       embedded in the document for an entry.
+    * @param loader Loads the entries with the supplied ids for reindexing. Entries that do
+    *       not exist should be omitted.
+    */
+   public ReferenceTracker(String coreId,
+                           IndexService<EntryType> indexSvc,
+                           Function<EntryType, String> idFn,
+                           Function<EntryType, Collection<EntryId>> referenceFn,
+                           Function<Collection<String>, Collection<EntryType>> loader)
+   {
+      this.coreId = coreId;
+      this.indexSvc = indexSvc;
+      this.idFn = idFn;
+      this.referenceFn = referenceFn;
+      this.loader = loader;
+   }
+
+   /**
+    * Starts tracking references. The reverse-reference index is built in the background
+    * from the supplied entries; changes to referenced entries are tracked immediately.
+    *
+    * @param resolvers The registry that reports changes to entry labels.
+    * @param entries Supplies all entries in the index, for example by streaming them from
+    *       the repository.
+    */
+   public void start(EntryResolverRegistry resolvers, Supplier<Iterator<EntryType>> entries)
+   {
+      exec = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("trc-references-" + coreId)
+            .setDaemon(true)
+            .build());
+
+      this.entries = entries;
+      listenerReg = resolvers.onLabelChanged(this::referenceChanged);
+      rebuild();
+   }
+
+   /**
+    * Stops tracking references. Pending reindex requests are discarded.
+    */
+   public void stop()
+   {
+      if (listenerReg != null)
+         listenerReg.run();
+      listenerReg = null;
+
+      if (exec != null)
+         exec.shutdownNow();
+      exec = null;
+   }
+
+   /**
+    * Reloads the references of an entry that has been modified by another application node.
+    * The entry is loaded in the background.
+    *
+    * @param id The id of the modified entry.
+    */
+   @Override
+   public void changed(String id)
+   {
+      ScheduledExecutorService executor = exec;
+      if (executor != null)
+         executor.submit(() -> reload(id));
+   }
+
+   /**
+    * Rebuilds the reverse-reference index in the background. Called when changes made by
+    * other application nodes may have been missed.
+    */
+   @Override
+   public void reset()
+   {
+      if (exec != null)
+         rebuild();
+   }
+
+   private void rebuild()
+   {
+      exec.submit(() -> build(entries.get()));
+   }
+
+   private void reload(String id)
+   {
+      try
+      {
+         Collection<EntryType> loaded = loader.apply(Collections.singleton(id));
+         if (loaded.isEmpty())
+            removed(id);
+         else
+            loaded.forEach(this::indexed);
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.WARNING, format("Failed to reload the references of entry {0} in core {1}", id, coreId), ex);
+      }
+   }
+
+   private void build(Iterator<EntryType> entries)
+   {
+      synchronized (this)
+      {
+         updatedDuringBuild = new HashSet<>();
+      }
+
+      long start = System.currentTimeMillis();
+      long count = 0;
+      try
+      {
+         Set<String> read = new HashSet<>();
+         while (entries.hasNext())
+         {
+            EntryType entry = entries.next();
+            read.add(idFn.apply(entry));
+            record(entry, true);
+            count++;
+         }
+
+         discardUnread(read);
+
+         long elapsed = System.currentTimeMillis() - start;
+         logger.info(format("Built reference index for core {0} from {1} entries in {2}ms. {3}",
+               coreId, Long.valueOf(count), Long.valueOf(elapsed), this));
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.SEVERE, format("Failed to build reference index for core {0}", coreId), ex);
+      }
+      finally
+      {
+         synchronized (this)
+         {
+            updatedDuringBuild = null;
+         }
+      }
+   }
+
+   /**
+    * Discards the references of entries that were not read by a build and that have not
+    * been updated since the build began.
+    */
+   private synchronized void discardUnread(Set<String> read)
+   {
+      List<String> unread = references.keySet().stream()
+            .filter(id -> !read.contains(id) && !updatedDuringBuild.contains(id))
+            .collect(Collectors.toList());
+
+      unread.forEach(id -> references.remove(id).forEach(ref -> removeDependent(ref, id)));
+   }
+
+   /**
+    * Records the references of an entry that has been indexed, replacing any references
+    * previously recorded for that entry.
+    *
+    * @param entry The indexed entry.
+    */
+   public void indexed(EntryType entry)
+   {
+      record(entry, false);
+   }
+
+   private void record(EntryType entry, boolean isBuild)
+   {
+      String id = idFn.apply(entry);
+      Set<EntryId> refs = new HashSet<>(referenceFn.apply(entry));
+
+      synchronized (this)
+      {
+         if (updatedDuringBuild != null)
+         {
+            // the state read by the build may be older than that of a live update
+            if (isBuild && updatedDuringBuild.contains(id))
+               return;
+            if (!isBuild)
+               updatedDuringBuild.add(id);
+         }
+
+         Set<EntryId> previous = references.remove(id);
+         if (previous != null)
+            previous.stream().filter(ref -> !refs.contains(ref)).forEach(ref -> removeDependent(ref, id));
+
+         if (refs.isEmpty())
+            return;
+
+         references.put(id, refs);
+         refs.forEach(ref -> dependents.computeIfAbsent(ref, key -> new HashSet<>()).add(id));
+      }
+   }
+
+   /**
+    * Discards the references of an entry that has been removed from the index.
+    *
+    * @param id The id of the removed entry.
+    */
+   public synchronized void removed(String id)
+   {
+      if (updatedDuringBuild != null)
+         updatedDuringBuild.add(id);
+
+      Set<EntryId> previous = references.remove(id);
+      if (previous != null)
+         previous.forEach(ref -> removeDependent(ref, id));
+
+      pending.remove(id);
+   }
+
+   private void removeDependent(EntryId ref, String id)
+   {
+      Set<String> ids = dependents.get(ref);
+      if (ids == null)
+         return;
+
+      ids.remove(id);
+      if (ids.isEmpty())
+         dependents.remove(ref);
+   }
+
+   /**
+    * @param ref A referenced entry.
+    * @return The ids of the documents that reference the supplied entry.
+    */
+   public synchronized Set<String> getDependents(EntryId ref)
+   {
+      Set<String> ids = dependents.get(ref);
+      return ids == null ? Collections.emptySet() : new HashSet<>(ids);
+   }
+
+   /**
+    * Schedules the documents that reference the supplied entry to be reindexed.
+    *
+    * @param ref The entry that has changed.
+    */
+   public void referenceChanged(EntryId ref)
+   {
+      int fanOut;
+      synchronized (this)
+      {
+         Set<String> ids = dependents.get(ref);
+         if (ids == null || ids.isEmpty())
+            return;
+
+         fanOut = ids.size();
+         pending.addAll(ids);
+         if (!scheduled && exec != null)
+         {
+            scheduled = true;
+            exec.schedule(this::reindexPending, REINDEX_DELAY, TimeUnit.MILLISECONDS);
+         }
+      }
+
+      changes.incrementAndGet();
+      maxFanOut.accumulateAndGet(fanOut, Math::max);
+      logger.fine(() -> format("{0} documents in core {1} depend on changed entry {2}:{3}",
+            Integer.valueOf(fanOut), coreId, ref.getType(), ref.getId()));
+   }
+
+   private void reindexPending()
+   {
+      List<String> ids;
+      synchronized (this)
+      {
+         ids = new ArrayList<>(pending);
+         pending.clear();
+         scheduled = false;
+      }
+
+      long start = System.currentTimeMillis();
+      long count = 0;
+      for (int ix = 0; ix < ids.size(); ix += BATCH_SIZE)
+      {
+         List<String> batch = ids.subList(ix, Math.min(ix + BATCH_SIZE, ids.size()));
+         try
+         {
+            for (EntryType entry : loader.apply(batch))
+            {
+               indexSvc.index(entry);
+               indexed(entry);
+               count++;
+            }
+         }
+         catch (Exception ex)
+         {
+            logger.log(Level.WARNING, format("Failed to reindex dependent documents {0} in core {1}", batch, coreId), ex);
+         }
+      }
+
+      reindexed.addAndGet(count);
+      long elapsed = System.currentTimeMillis() - start;
+      logger.info(format("Reindexed {0} dependent documents in core {1} in {2}ms.",
+            Long.valueOf(count), coreId, Long.valueOf(elapsed)));
+   }
+
+   /**
+    * @return The number of changed entries that had dependent documents.
+    */
+   public long getChangeCount()
+   {
+      return changes.get();
+   }
+
+   /**
+    * @return The total number of dependent documents that have been reindexed.
+    */
+   public long getReindexedCount()
+   {
+      return reindexed.get();
+   }
+
+   /**
+    * @return The largest number of documents that depended on a single changed entry.
+    */
+   public long getMaxFanOut()
+   {
+      return maxFanOut.get();
+   }
+
+   /**
+    * @return The number of distinct entries referenced by indexed documents.
+    */
+   public synchronized int getReferencedCount()
+   {
+      return dependents.size();
+   }
+
+   @Override
+   public synchronized String toString()
+   {
+      return format("[core: {0}, documents: {1}, referenced entries: {2}, changes: {3}, reindexed: {4}, max fan-out: {5}, pending: {6}]",
+            coreId, Integer.valueOf(references.size()), Integer.valueOf(dependents.size()),
+            Long.valueOf(changes.get()), Long.valueOf(reindexed.get()), Long.valueOf(maxFanOut.get()),
+            Integer.valueOf(pending.size()));
+   }
+}
@@ -0,0 +1,138 @@
+package edu.tamu.tcat.trc.impl.psql.entries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Records the progress of a reindex operation so that an interrupted reindex can be resumed.
+ * Progress is recorded as the number of entries (in repository order) that have been sent to
+ * the index along with the id of the last of these entries.
+ */
+public interface ReindexCheckpoint
+{
+   /**
+    * Progress of a reindex operation.
+    */
+   public static class Position
+   {
+      /** The number of entries that have been indexed. */
+      public final long count;
+
+      /** The id of the last entry that was indexed. A resumed reindex begins after this id. */
+      public final String lastId;
+
+      public Position(long count, String lastId)
+      {
+         this.count = count;
+         this.lastId = lastId;
+      }
+   }
+
+   /**
+    * @return The last recorded position or empty if no reindex operation is in progress.
+    */
+   Optional<Position> load();
+
+   /**
+    * @param position The current position.
+    */
+   void save(Position position);
+
+   /**
+    * Called once a reindex operation has completed successfully.
+    */
+   void clear();
+
+   /**
+    * @return A checkpoint that does not record progress.
+    */
+   static ReindexCheckpoint none()
+   {
+      return new ReindexCheckpoint()
+      {
+         @Override
+         public Optional<Position> load()
+         {
+            return Optional.empty();
+         }
+
+         @Override
+         public void save(Position position)
+         {
+            // no-op
+         }
+
+         @Override
+         public void clear()
+         {
+            // no-op
+         }
+      };
+   }
+
+   /**
+    * @param file The file in which to record progress.
+    * @return A checkpoint that records progress in the supplied file.
+    */
+   static ReindexCheckpoint file(Path file)
+   {
+      return new ReindexCheckpoint()
+      {
+         @Override
+         public Optional<Position> load()
+         {
+            if (!Files.exists(file))
+               return Optional.empty();
+
+            try
+            {
+               List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+               if (lines.size() < 2)
+                  return Optional.empty();
+
+               return Optional.of(new Position(Long.parseLong(lines.get(0).trim()), lines.get(1)));
+            }
+            catch (IOException | NumberFormatException ex)
+            {
+               throw new IllegalStateException("Failed to read reindex checkpoint " + file, ex);
+            }
+         }
+
+         @Override
+         public void save(Position position)
+         {
+            try
+            {
+               // NOTE write to a temporary file and move so that a partial write cannot corrupt the checkpoint
+               Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+               String content = position.count + "\n" + position.lastId + "\n";
+               Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+               Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (IOException ex)
+            {
+               throw new UncheckedIOException("Failed to write reindex checkpoint " + file, ex);
+            }
+         }
+
+         @Override
+         public void clear()
+         {
+            try
+            {
+               Files.deleteIfExists(file);
+            }
+            catch (IOException ex)
+            {
+               throw new UncheckedIOException("Failed to remove reindex checkpoint " + file, ex);
+            }
+         }
+      };
+   }
+}
@@ -0,0 +1,316 @@
+package edu.tamu.tcat.trc.impl.psql.entries;
+
+import static java.text.MessageFormat.format;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.common.SolrInputDocument;
+
+import edu.tamu.tcat.trc.search.solr.IndexServiceStrategy;
+import edu.tamu.tcat.trc.search.solr.SearchException;
+import edu.tamu.tcat.trc.search.solr.SolrHttpClientPool;
+
+/**
+ * Rebuilds a Solr index from the entries of a repository. Reindexing proceeds in stages.
+ * Entries are read from the repository in batches, Solr documents are built for each batch
+ * in parallel on a {@link ForkJoinPool} and completed batches are sent to Solr in order.
+ * The number of batches that may be read ahead of those sent to Solr is bounded.
+ *
+ * <p>After each batch is sent, progress is recorded using the configured
+ * {@link ReindexCheckpoint}. If a reindex is interrupted, the next reindex using the same
+ * checkpoint will resume after the last entry that was sent. Entries are requested from the
+ * repository starting after that entry's id, so resuming does not require the entries that
+ * were already indexed to be read again.
+ *
+ * <p>By default, documents are updated in place. Existing documents remain searchable during
+ * the reindex but documents for entries that no longer exist are not removed. Alternatively,
+ * if {@link #setAliasSwap(String, String)} is configured, documents are written to a
+ * separate collection that is cleared before the reindex begins. Once all documents have been
+ * written, the alias is updated to refer to that collection. This requires SolrCloud and that
+ * clients access the index via the alias. Note that updates made to the index while an alias
+ * swap is in progress are not reflected in the rebuilt collection.
+ *
+ * @param <EntryType> The type of entry to index.
+ */
+public class SolrReindexer<EntryType>
+{
+   private final static Logger logger = Logger.getLogger(SolrReindexer.class.getName());
+
+   public static final int DEFAULT_BATCH_SIZE = 500;
+   public static final int DEFAULT_READ_AHEAD = 4;
+
+   private final SolrClient solr;
+   private final IndexServiceStrategy<EntryType, ?> strategy;
+
+   private int batchSize = DEFAULT_BATCH_SIZE;
+   private int readAhead = DEFAULT_READ_AHEAD;
+   private ForkJoinPool pool = ForkJoinPool.commonPool();
+   private ReindexCheckpoint checkpoint = ReindexCheckpoint.none();
+
+   private String alias;
+   private String collection;
+
+   /**
+    * @param solr The client used to access the index to rebuild.
+    * @param strategy Used to build Solr documents for entries.
+    */
+   public SolrReindexer(SolrClient solr, IndexServiceStrategy<EntryType, ?> strategy)
+   {
+      this.solr = solr;
+      this.strategy = strategy;
+   }
+
+   /**
+    * @param size The number of documents to send to Solr per request.
+    */
+   public SolrReindexer<EntryType> setBatchSize(int size)
+   {
+      if (size < 1)
+         throw new IllegalArgumentException("The batch size must be positive");
+
+      this.batchSize = size;
+      return this;
+   }
+
+   /**
+    * @param batches The maximum number of batches that may be read and built before they
+    *       have been sent to Solr.
+    */
+   public SolrReindexer<EntryType> setReadAhead(int batches)
+   {
+      if (batches < 1)
+         throw new IllegalArgumentException("The read ahead must be positive");
+
+      this.readAhead = batches;
+      return this;
+   }
+
+   /**
+    * @param pool The pool used to build Solr documents.
+    */
+   public SolrReindexer<EntryType> setPool(ForkJoinPool pool)
+   {
+      this.pool = Objects.requireNonNull(pool);
+      return this;
+   }
+
+   /**
+    * @param checkpoint Used to record progress so that interrupted reindex operations may
+    *       be resumed.
+    */
+   public SolrReindexer<EntryType> setCheckpoint(ReindexCheckpoint checkpoint)
+   {
+      this.checkpoint = Objects.requireNonNull(checkpoint);
+      return this;
+   }
+
+   /**
+    * Configures this reindexer to build the index in a separate collection and then update
+    * an alias to refer to that collection.
+    *
+    * @param alias The alias used by clients to access the index.
+    * @param collection The collection to build. Any documents in this collection will be
+    *       removed.
+    */
+   public SolrReindexer<EntryType> setAliasSwap(String alias, String collection)
+   {
+      this.alias = alias;
+      this.collection = collection;
+      return this;
+   }
+
+   /**
+    * Rebuilds the index.
+    *
+    * @param entries Supplies an iterator over the entries to index in ascending order of id,
+    *       beginning after the supplied id. The supplied id will be {@code null} unless an
+    *       interrupted reindex is being resumed, in which case it is the id of the last entry
+    *       recorded by the checkpoint. Repositories should seek directly to this position
+    *       (for example, using {@link edu.tamu.tcat.trc.entries.core.repo.BasicRepoDelegate#listAll(String)})
+    *       rather than reading and discarding the entries that precede it.
+    * @return The number of entries that were indexed by this invocation.
+    * @throws SearchException If the index could not be rebuilt. Progress up to the point of
+    *       failure will have been recorded by the checkpoint.
+    */
+   public long reindex(Function<String, Iterator<EntryType>> entries) throws SearchException
+   {
+      boolean swap = alias != null;
+      SolrClient target = swap ? openClient(collection) : solr;
+      try
+      {
+         Optional<ReindexCheckpoint.Position> position = checkpoint.load();
+         long offset = position.map(p -> p.count).orElse(Long.valueOf(0)).longValue();
+         String lastId = position.map(p -> p.lastId).orElse(null);
+         if (lastId != null)
+            logger.info(() -> format("Resuming reindex after {0} entries (last id {1}).", Long.valueOf(offset), lastId));
+         else if (swap)
+            target.deleteByQuery("*:*");
+
+         long indexed = index(entries.apply(lastId), target, offset);
+         target.commit();
+
+         if (swap)
+            swapAlias();
+
+         checkpoint.clear();
+         return indexed;
+      }
+      catch (SearchException ex)
+      {
+         throw ex;
+      }
+      catch (Exception ex)
+      {
+         throw new SearchException("Failed to rebuild the search index", ex);
+      }
+      finally
+      {
+         if (swap)
+            close(target);
+      }
+   }
+
+   private long index(Iterator<EntryType> iterator, SolrClient target, long offset) throws Exception
+   {
+      Deque<Batch> inFlight = new ArrayDeque<>();
+      long position = offset;
+      long indexed = 0;
+
+      while (iterator.hasNext())
+      {
+         List<EntryType> entries = new ArrayList<>(batchSize);
+         while (iterator.hasNext() && entries.size() < batchSize)
+         {
+            entries.add(iterator.next());
+         }
+
+         inFlight.add(new Batch(entries));
+         while (inFlight.size() >= readAhead)
+         {
+            Batch batch = inFlight.remove();
+            position += send(batch, target, position);
+            indexed += batch.size;
+         }
+      }
+
+      while (!inFlight.isEmpty())
+      {
+         Batch batch = inFlight.remove();
+         position += send(batch, target, position);
+         indexed += batch.size;
+      }
+
+      return indexed;
+   }
+
+   private int send(Batch batch, SolrClient target, long position) throws Exception
+   {
+      List<SolrInputDocument> docs;
+      try
+      {
+         docs = batch.documents.get();
+      }
+      catch (ExecutionException ex)
+      {
+         throw new SearchException("Failed to build Solr documents", ex.getCause());
+      }
+
+      if (!docs.isEmpty())
+         target.add(docs);
+
+      long count = position + batch.size;
+      checkpoint.save(new ReindexCheckpoint.Position(count, batch.lastId));
+      logger.fine(() -> format("Reindexed {0} entries.", Long.valueOf(count)));
+
+      return batch.size;
+   }
+
+   private SolrInputDocument build(EntryType entry)
+   {
+      try
+      {
+         return strategy.getDocument(entry);
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.SEVERE, format("Failed to build search document for entry {0}", strategy.getEntryId(entry)), ex);
+         return null;
+      }
+   }
+
+   private void swapAlias() throws Exception
+   {
+      try (SolrClient admin = openClient(null))
+      {
+         CollectionAdminRequest.createAlias(alias, collection).process(admin);
+         logger.info(() -> format("Updated alias {0} to refer to collection {1}", alias, collection));
+      }
+   }
+
+   /**
+    * @param name The name of a collection or {@code null} to access the Solr server.
+    * @return A client for the named collection on the same server as the configured client.
+    *       The returned client shares the HTTP connections and request limit of the
+    *       configured client.
+    */
+   private SolrClient openClient(String name)
+   {
+      if (!(solr instanceof HttpSolrClient))
+         throw new IllegalStateException("Alias swapping requires an HTTP Solr client.");
+
+      HttpSolrClient client = (HttpSolrClient)solr;
+      String coreUrl = client.getBaseURL();
+      String baseUrl = coreUrl.substring(0, coreUrl.lastIndexOf('/'));
+
+      // NOTE closing a derived client does not close the shared HTTP client
+      return SolrHttpClientPool.derive(client, name == null ? baseUrl : baseUrl + "/" + name);
+   }
+
+   private static void close(SolrClient client)
+   {
+      try
+      {
+         client.close();
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.WARNING, "Failed to close Solr client", ex);
+      }
+   }
+
+   /**
+    * A batch of entries whose documents are being built.
+    */
+   private class Batch
+   {
+      private final int size;
+      private final String lastId;
+      private final Future<List<SolrInputDocument>> documents;
+
+      Batch(List<EntryType> entries)
+      {
+         this.size = entries.size();
+         this.lastId = strategy.getEntryId(entries.get(entries.size() - 1));
+         this.documents = pool.submit(() -> entries.parallelStream()
+               .map(SolrReindexer.this::build)
+               .filter(Objects::nonNull)
+               .collect(Collectors.toList()));
+      }
+   }
+}
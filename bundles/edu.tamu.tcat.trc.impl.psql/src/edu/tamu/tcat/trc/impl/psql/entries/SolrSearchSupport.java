@@ -2,32 +2,56 @@ package edu.tamu.tcat.trc.impl.psql.entries;
 
 import static java.text.MessageFormat.format;
 
-import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.StreamSupport;
-
-import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.common.SolrInputDocument;
 
+import edu.tamu.tcat.osgi.config.ConfigurationProperties;
 import edu.tamu.tcat.trc.TrcException;
 import edu.tamu.tcat.trc.entries.core.repo.EntryRepository;
 import edu.tamu.tcat.trc.entries.core.repo.EntryUpdateRecord;
 import edu.tamu.tcat.trc.search.solr.IndexService;
 import edu.tamu.tcat.trc.search.solr.IndexServiceStrategy;
+import edu.tamu.tcat.trc.search.solr.SearchException;
 
 public class SolrSearchSupport<EntryType>
 {
    private final static Logger logger = Logger.getLogger(SolrSearchSupport.class.getName());
 
+   /** Directory in which reindex progress is recorded. If not set, reindexing cannot be resumed. */
+   public static final String REINDEX_CHECKPOINT_DIR = "trc.search.solr.reindex.checkpoints";
+   public static final String REINDEX_BATCH_SIZE = "trc.search.solr.reindex.batchsize";
+   public static final String REINDEX_READ_AHEAD = "trc.search.solr.reindex.readahead";
+
+   /** The alias used to access a core. If set, reindexing builds a separate collection and then updates the alias. */
+   public static final String REINDEX_ALIAS = "trc.search.solr.cores.{0}.reindex.alias";
+   /** The collection built when reindexing a core that is accessed via an alias. */
+   public static final String REINDEX_COLLECTION = "trc.search.solr.cores.{0}.reindex.collection";
+
    private final IndexService<EntryType> indexSvc;
+   private final ConfigurationProperties config;
    private IndexServiceStrategy<EntryType, ?> strategy;
+   private ReferenceTracker<EntryType> references;
 
    public SolrSearchSupport(IndexService<EntryType> indexSvc, IndexServiceStrategy<EntryType, ?> strategy)
+   {
+      this(indexSvc, strategy, null);
+   }
+
+   /**
+    * @param indexSvc The index to maintain.
+    * @param strategy Used to build Solr documents for entries.
+    * @param config Supplies the reindexing configuration. May be {@code null}, in which
+    *       case the defaults of {@link SolrReindexer} are used.
+    */
+   public SolrSearchSupport(IndexService<EntryType> indexSvc, IndexServiceStrategy<EntryType, ?> strategy, ConfigurationProperties config)
    {
       this.indexSvc = indexSvc;
       this.strategy = strategy;
+      this.config = config;
 
       try
       {
@@ -39,58 +63,183 @@ public class SolrSearchSupport<EntryType>
       }
    }
 
+   /**
+    * Tracks the entries referenced by indexed documents so that documents are reindexed
+    * when the labels of the entries they reference change. The tracker is updated as
+    * entries are indexed through this object but must be started and stopped by the caller.
+    *
+    * @param references The tracker for this index.
+    */
+   public void setReferenceTracker(ReferenceTracker<EntryType> references)
+   {
+      this.references = references;
+   }
+
    public void handleUpdate(EntryUpdateRecord<EntryType> ctx)
    {
       switch(ctx.getAction())
       {
          case CREATE:
             indexSvc.index(ctx.getModifiedState());
+            if (references != null)
+               references.indexed(ctx.getModifiedState());
             break;
          case UPDATE:
-            // TODO perform update
-            indexSvc.index(ctx.getModifiedState());
+            indexSvc.update(ctx.getOriginalState(), ctx.getModifiedState());
+            if (references != null)
+               references.indexed(ctx.getModifiedState());
             break;
          case REMOVE:
             indexSvc.remove(ctx.getEntryReference().getId());
+            if (references != null)
+               references.removed(ctx.getEntryReference().getId());
             break;
       }
    }
 
+   /**
+    * Rebuilds the search index for all entries in the supplied repository using a
+    * {@link SolrReindexer} configured by {@link #createReindexer()}. The repository cannot
+    * seek to a given entry, so the reindex is not resumable and no checkpoint is recorded.
+    *
+    * @param repo The repository to index.
+    * @deprecated Use {@link #reIndex(Function)}, which can resume an interrupted reindex.
+    */
+   @Deprecated
    public void reIndex(EntryRepository<EntryType> repo)
    {
-      SolrClient solr = indexSvc.getSolrClient();
-      Iterable<EntryType> entries = () -> repo.listAll();
+      reIndex(afterId -> repo.listAll(), createReindexer().setCheckpoint(ReindexCheckpoint.none()));
+   }
 
-      try
-      {
-         logger.log(Level.INFO, format("Reindexing all documents for " + repo.getClass().getSimpleName()));
+   /**
+    * Rebuilds the search index using a {@link SolrReindexer} configured by
+    * {@link #createReindexer()}.
+    *
+    * @param entries Supplies the entries to index in ascending order of id, beginning after
+    *       the supplied id. See {@link SolrReindexer#reindex(Function)}.
+    */
+   public void reIndex(Function<String, Iterator<EntryType>> entries)
+   {
+      reIndex(entries, createReindexer());
+   }
+
+   /**
+    * Creates a reindexer for this index. The following configuration properties are used,
+    * where {@code <core>} is the core id of the index:
+    *
+    * <ul>
+    *   <li>{@value #REINDEX_CHECKPOINT_DIR}: progress is recorded in the file
+    *       {@code <core>.checkpoint} within this directory, allowing an interrupted reindex
+    *       to be resumed.</li>
+    *   <li>{@value #REINDEX_BATCH_SIZE}, {@value #REINDEX_READ_AHEAD}: see
+    *       {@link SolrReindexer}.</li>
+    *   <li>{@value #REINDEX_ALIAS}, {@value #REINDEX_COLLECTION}: if both are set, the index
+    *       is rebuilt in the named collection and the alias is then updated.</li>
+    * </ul>
+    *
+    * @return A reindexer for this index that may be further configured prior to use with
+    *       {@link #reIndex(Function, SolrReindexer)}.
+    */
+   public SolrReindexer<EntryType> createReindexer()
+   {
+      SolrReindexer<EntryType> reindexer = new SolrReindexer<>(indexSvc.getSolrClient(), strategy);
+      if (config == null)
+         return reindexer;
+
+      String coreId = strategy.getCoreId();
+      reindexer.setBatchSize(config.getPropertyValue(REINDEX_BATCH_SIZE, Integer.class, Integer.valueOf(SolrReindexer.DEFAULT_BATCH_SIZE)).intValue());
+      reindexer.setReadAhead(config.getPropertyValue(REINDEX_READ_AHEAD, Integer.class, Integer.valueOf(SolrReindexer.DEFAULT_READ_AHEAD)).intValue());
 
-         solr.deleteByQuery("*:*");
-         solr.commit();
-         StreamSupport.stream(entries.spliterator(), false)
-            .map(strategy::getDocument)
-            .forEach(this::index);
+      String checkpointDir = config.getPropertyValue(REINDEX_CHECKPOINT_DIR, String.class, null);
+      if (checkpointDir != null)
+         reindexer.setCheckpoint(ReindexCheckpoint.file(Paths.get(checkpointDir, coreId + ".checkpoint")));
 
-         solr.commit();
-         logger.log(Level.INFO, format("Finished reindexing all documents for " + repo.getClass().getSimpleName()));
+      String alias = config.getPropertyValue(format(REINDEX_ALIAS, coreId), String.class, null);
+      String collection = config.getPropertyValue(format(REINDEX_COLLECTION, coreId), String.class, null);
+      if (alias != null && collection != null)
+         reindexer.setAliasSwap(alias, collection);
+      else if (alias != null || collection != null)
+         logger.warning(() -> format("Both an alias and a collection must be configured to reindex Solr core {0} using an alias swap. Reindexing in place.", coreId));
+
+      return reindexer;
+   }
+
+   /**
+    * Rebuilds the search index. Once the reindex completes (or fails), the index service is
+    * flushed so that query results cached before the index was rebuilt (or its alias
+    * updated) are discarded.
+    *
+    * @param entries Supplies the entries to index. See {@link SolrReindexer#reindex(Function)}.
+    * @param reindexer The reindexer to use.
+    */
+   public void reIndex(Function<String, Iterator<EntryType>> entries, SolrReindexer<EntryType> reindexer)
+   {
+      String coreId = strategy.getCoreId();
+      try
+      {
+         logger.log(Level.INFO, format("Reindexing all documents for {0}", coreId));
+         long count = reindexer.reindex(entries);
+         logger.log(Level.INFO, format("Finished reindexing {0} documents for {1}", Long.valueOf(count), coreId));
+      }
+      catch (SearchException ex)
+      {
+         logger.log(Level.SEVERE, format("Failed to reindex documents for {0}", coreId), ex);
       }
-      catch (SolrServerException | IOException ex)
+      finally
       {
-         logger.log(Level.SEVERE, "Failed to commit index changes", ex);
+         flush(coreId);
       }
    }
 
-   private void index(SolrInputDocument doc)
+   private void flush(String coreId)
    {
-      SolrClient solr = indexSvc.getSolrClient();
       try
       {
-         // TODO return some handle so that we can aggregate result - probably response
-         solr.add(doc);
+         indexSvc.flush();
       }
-      catch (Exception ex)
+      catch (SearchException ex)
       {
-         logger.log(Level.SEVERE, format("Failed to index document {0}", doc.getFieldValue("id")), ex);
+         logger.log(Level.WARNING, format("Failed to flush the index for {0} after reindexing", coreId), ex);
       }
    }
+
+   /**
+    * Compares the entries in a repository with the documents in the search index and
+    * reports any differences. The index is not modified.
+    *
+    * @param repoIds Supplies the ids of all entries in the repository, for example
+    *       {@link edu.tamu.tcat.trc.entries.core.repo.BasicRepoDelegate#listIds()}.
+    * @return A report of missing and orphaned documents.
+    */
+   public IndexDriftReport checkDrift(Supplier<Iterator<String>> repoIds)
+   {
+      IndexDriftReport report = IndexDriftReport.compute(repoIds.get(), indexSvc.listIds());
+      Level level = report.isConsistent() ? Level.INFO : Level.WARNING;
+      logger.log(level, format("Search index drift for core {0}: {1}", strategy.getCoreId(), report));
+
+      return report;
+   }
+
+   /**
+    * Compares the entries in a repository with the documents in the search index and
+    * repairs any differences. Missing entries are indexed and orphaned documents are removed
+    * from the index. This is useful following an in-place reindex (which does not remove
+    * documents for entries that have since been deleted) or if updates to the index have
+    * been lost.
+    *
+    * @param repo The repository from which to load missing entries.
+    * @param repoIds Supplies the ids of all entries in the repository.
+    * @return A report of the differences that were found prior to their repair.
+    */
+   public IndexDriftReport repairDrift(EntryRepository<EntryType> repo, Supplier<Iterator<String>> repoIds)
+   {
+      IndexDriftReport report = checkDrift(repoIds);
+      if (!report.getOrphaned().isEmpty())
+         indexSvc.remove(report.getOrphaned());
+
+      report.getMissing().forEach(id -> repo.getOptionally(id).ifPresent(indexSvc::index));
+      indexSvc.flush();
+
+      return report;
+   }
 }
@@ -16,6 +16,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import edu.tamu.tcat.account.Account;
 import edu.tamu.tcat.db.exec.sql.SqlExecutor;
@@ -69,6 +70,9 @@ public class CategorizationServiceFactory implements ServiceFactory<Categorizati
     */
    public static final String PARAM_TABLE_NAME = "table_name";
 
+   /** Shared, thread-safe reader for tree categorizations loaded directly from the database. */
+   private static final ObjectReader TREE_READER = new ObjectMapper().reader(PersistenceModelV1.TreeCategorizationStrategy.class);
+
    private PsqlJacksonRepo<TreeCategorization, PersistenceModelV1.TreeCategorizationStrategy, EditTreeCategorizationCommand> treeRepo;
 
    private IdFactory nodeIds;
@@ -259,10 +263,9 @@ public class CategorizationServiceFactory implements ServiceFactory<Categorizati
 
       private CategorizationScheme parseTreeCategorization(String json) throws IOException
       {
-         ObjectMapper mapper = new ObjectMapper();
          EntryResolverRegistry resolvers = repoRegistry.getResolverRegistry();
 
-         PersistenceModelV1.TreeCategorizationStrategy dto = mapper.readValue(json, PersistenceModelV1.TreeCategorizationStrategy.class);
+         PersistenceModelV1.TreeCategorizationStrategy dto = TREE_READER.readValue(json);
          TreeCategorizationImpl impl = toDomainModel(resolvers, dto);
          impl.setContext(svcContext);
          return impl;
@@ -1,6 +1,11 @@
 package edu.tamu.tcat.trc.impl.psql.services.categorization.model;
 
 import static java.text.MessageFormat.format;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import edu.tamu.tcat.account.Account;
 import edu.tamu.tcat.trc.impl.psql.services.categorization.repo.PersistenceModelV1;
@@ -23,6 +28,12 @@ public abstract class CategorizationImpl implements CategorizationScheme
 
    private ServiceContext<CategorizationService> context;
 
+   /**
+    * The entries associated with the nodes of this scheme, resolved in bulk when the first
+    * associated entry is requested. Discarded when the context changes.
+    */
+   private Map<EntryId, Object> associatedEntries;
+
    public CategorizationImpl(PersistenceModelV1.CategorizationScheme scheme)
    {
       this.id = scheme.id;
@@ -34,9 +45,34 @@ public abstract class CategorizationImpl implements CategorizationScheme
       this.description = scheme.description;
    }
 
-   public void setContext(ServiceContext<CategorizationService> context)
+   public synchronized void setContext(ServiceContext<CategorizationService> context)
    {
       this.context = context;
+      this.associatedEntries = null;
+   }
+
+   /**
+    * Resolves the entry associated with a node of this scheme. The entries associated with
+    * all nodes are resolved together (using one request per entry type) the first time this
+    * is called.
+    *
+    * @param registry The registry to use to resolve entries.
+    * @param ref The reference to resolve.
+    * @return The referenced entry or {@code null} if it does not exist.
+    */
+   protected synchronized Object resolveAssociatedEntry(EntryResolverRegistry registry, EntryId ref)
+   {
+      if (associatedEntries == null)
+      {
+         Set<EntryId> refs = getNodes()
+               .map(CategorizationNode::getAssociatedEntryRef)
+               .filter(Objects::nonNull)
+               .collect(toSet());
+
+         associatedEntries = registry.resolveAll(refs, getAccount());
+      }
+
+      return associatedEntries.get(ref);
    }
 
    protected Account getAccount()
@@ -143,8 +179,10 @@ public abstract class CategorizationImpl implements CategorizationScheme
          if (ref == null)
             return null;
 
-         // TODO pass through user account
-         Object entry = registry.getResolver(ref).resolve(getAccount(), ref);
+         Object entry = resolveAssociatedEntry(registry, ref);
+         if (entry == null)
+            throw new InvalidReferenceException(ref, "The referenced entry does not exist.");
+
          if (!type.isInstance(entry))
             throw new InvalidReferenceException(ref,
                   format("The referenced entry is not an instance the expected type {0}", type));
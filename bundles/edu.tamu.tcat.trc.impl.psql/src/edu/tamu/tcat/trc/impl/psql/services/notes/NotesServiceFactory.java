@@ -21,6 +21,7 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import edu.tamu.tcat.account.store.AccountStore;
 import edu.tamu.tcat.db.exec.sql.SqlExecutor;
@@ -48,6 +49,13 @@ public class NotesServiceFactory implements ServiceFactory<NotesService>
    private static final String TABLE_NAME = "notes";
    public static final String SCHEMA_DATA_FIELD = "data";
 
+   private static final String GET_BY_TOKEN_SQL = "SELECT {0} AS json"
+         + " FROM {1} "
+         + "WHERE {0}->>''entryRef'' = ? ";
+
+   /** Shared, thread-safe reader for notes loaded directly from the database. */
+   private static final ObjectReader NOTE_READER = new ObjectMapper().reader(DataModelV1.Note.class);
+
    private final DbEntryRepositoryRegistry repoRegistry;
    private final AccountStore acctStore;
    private final PsqlJacksonRepo<Note, DataModelV1.Note, EditNoteCommand> docRepo;
@@ -55,6 +63,7 @@ public class NotesServiceFactory implements ServiceFactory<NotesService>
    private SearchServiceManager indexSvcMgr;
 
    private String tablename;
+   private final String getByTokenSql;
 
    public NotesServiceFactory(DbEntryRepositoryRegistry repoRegistry, AccountStore acctStore)
    {
@@ -62,6 +71,7 @@ public class NotesServiceFactory implements ServiceFactory<NotesService>
       this.acctStore = acctStore;
 
       this.docRepo = initRepo();
+      this.getByTokenSql = format(GET_BY_TOKEN_SQL, SCHEMA_DATA_FIELD, tablename) + docRepo.buildNotRemovedClause();
    }
 
    private PsqlJacksonRepo<Note, DataModelV1.Note, EditNoteCommand> initRepo()
@@ -170,16 +180,8 @@ public class NotesServiceFactory implements ServiceFactory<NotesService>
 
       private Collection<DataModelV1.Note> doGetByToken(String token, Connection conn)
       {
-         String sqlTemplate = "SELECT {0} AS json"
-               + " FROM {1} "
-               + "WHERE {0}->>''entryRef'' = ? "
-               + docRepo.buildNotRemovedClause();
-
-         String sql = format(sqlTemplate, SCHEMA_DATA_FIELD, tablename);
-
-         ObjectMapper mapper = new ObjectMapper();
          List<DataModelV1.Note> notes = new ArrayList<>();
-         try (PreparedStatement stmt = conn.prepareStatement(sql))
+         try (PreparedStatement stmt = conn.prepareStatement(getByTokenSql))
          {
             stmt.setString(1, token);
             ResultSet rs = stmt.executeQuery();
@@ -188,7 +190,7 @@ public class NotesServiceFactory implements ServiceFactory<NotesService>
                String json = rs.getString("json");
                try
                {
-                  DataModelV1.Note note = mapper.readValue(json, DataModelV1.Note.class);
+                  DataModelV1.Note note = NOTE_READER.readValue(json);
                   notes.add(note);
                }
                catch (IOException ioe)
@@ -32,13 +32,42 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
    private static final String COLUMN_SOURCE = "source";
    private static final String COLUMN_TARGET = "target";
 
+   private static final String INSERT_SQL = "INSERT INTO {2} ({0}, {1}) VALUES (?, ?)";
+   private static final String COUNT_SQL = "SELECT COUNT(*) FROM {2} WHERE {0} = ? AND {1} = ?";
+   private static final String GET_FOR_SQL = "SELECT {0}, {1} FROM {2} WHERE {0} = ? OR {1} = ?";
+   private static final String GET_FROM_SQL = "SELECT {0}, {1} FROM {2} WHERE {0} = ?";
+   private static final String GET_TO_SQL = "SELECT {0}, {1} FROM {2} WHERE {1} = ?";
+   private static final String DELETE_SQL = "DELETE FROM {2} WHERE {0} = ? AND {1} = ?";
+   private static final String DELETE_ALL_SQL = "DELETE FROM {2} WHERE {0} = ? OR {1} = ?";
+
    private final String tableName;
    private final SqlExecutor sqlExecutor;
 
+   private final String insertSql;
+   private final String countSql;
+   private final String getForSql;
+   private final String getFromSql;
+   private final String getToSql;
+   private final String deleteSql;
+   private final String deleteAllSql;
+
    public SeeAlsoServiceImpl(String tableName, SqlExecutor sqlExecutor)
    {
       this.tableName = tableName;
       this.sqlExecutor = sqlExecutor;
+
+      this.insertSql = formatSql(INSERT_SQL);
+      this.countSql = formatSql(COUNT_SQL);
+      this.getForSql = formatSql(GET_FOR_SQL);
+      this.getFromSql = formatSql(GET_FROM_SQL);
+      this.getToSql = formatSql(GET_TO_SQL);
+      this.deleteSql = formatSql(DELETE_SQL);
+      this.deleteAllSql = formatSql(DELETE_ALL_SQL);
+   }
+
+   private String formatSql(String template)
+   {
+      return format(template, COLUMN_SOURCE, COLUMN_TARGET, tableName);
    }
 
    @Override
@@ -47,14 +76,15 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
       if (isRelated(source, target))
          return new LinkImpl(source, target);
 
-      String sql = format("INSERT INTO {2} ({0}, {1}) VALUES (?, ?)", COLUMN_SOURCE, COLUMN_TARGET, tableName);
       CompletableFuture<LinkImpl> result = sqlExecutor.submit(conn -> {
-         PreparedStatement ps = conn.prepareStatement(sql);
-         ps.setString(1, source);
-         ps.setString(2, target);
-         ps.executeUpdate();
-
-         return new LinkImpl(source, target);
+         try (PreparedStatement ps = conn.prepareStatement(insertSql))
+         {
+            ps.setString(1, source);
+            ps.setString(2, target);
+            ps.executeUpdate();
+
+            return new LinkImpl(source, target);
+         }
       });
 
       // wait for statement to complete
@@ -72,19 +102,20 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
    @Override
    public boolean isRelated(String source, String target)
    {
-      String sql = format("SELECT COUNT(*) FROM {2} WHERE {0} = ? AND {1} = ?", COLUMN_SOURCE, COLUMN_TARGET, tableName);
       CompletableFuture<Boolean> result = sqlExecutor.submit(conn -> {
-         PreparedStatement ps = conn.prepareStatement(sql);
-         ps.setString(1, source);
-         ps.setString(2, target);
-
-         ResultSet resultSet = ps.executeQuery();
-         resultSet.next();
-         int count = resultSet.getInt(1);
-         if (count > 1)
-            logger.log(Level.SEVERE, format("more than one record for link ({0}, {1}).", source, target));
-
-         return Boolean.valueOf(count == 1);
+         try (PreparedStatement ps = conn.prepareStatement(countSql))
+         {
+            ps.setString(1, source);
+            ps.setString(2, target);
+
+            ResultSet resultSet = ps.executeQuery();
+            resultSet.next();
+            int count = resultSet.getInt(1);
+            if (count > 1)
+               logger.log(Level.SEVERE, format("more than one record for link ({0}, {1}).", source, target));
+
+            return Boolean.valueOf(count == 1);
+         }
       });
 
       String msg = "Unable to determine whether record ({0}, {1}) exists";
@@ -94,13 +125,14 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
    @Override
    public Collection<Link> getFor(String id)
    {
-      String sql = format("SELECT {0}, {1} FROM {2} WHERE {0} = ? OR {1} = ?", COLUMN_SOURCE, COLUMN_TARGET, tableName);
       CompletableFuture<Collection<Link>> result = sqlExecutor.submit(conn -> {
-         PreparedStatement ps = conn.prepareStatement(sql);
-         ps.setString(1, id);
-         ps.setString(2, id);
-         ResultSet resultSet = ps.executeQuery();
-         return hydrateModels(resultSet);
+         try (PreparedStatement ps = conn.prepareStatement(getForSql))
+         {
+            ps.setString(1, id);
+            ps.setString(2, id);
+            ResultSet resultSet = ps.executeQuery();
+            return hydrateModels(resultSet);
+         }
       });
 
       String msg = "unable to find records ({0} -> *) || (* -> {0})";
@@ -110,12 +142,13 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
    @Override
    public Collection<Link> getFrom(String source)
    {
-      String sql = format("SELECT {0}, {1} FROM {2} WHERE {0} = ?", COLUMN_SOURCE, COLUMN_TARGET, tableName);
       CompletableFuture<Collection<Link>> result = sqlExecutor.submit(conn -> {
-         PreparedStatement ps = conn.prepareStatement(sql);
-         ps.setString(1, source);
-         ResultSet resultSet = ps.executeQuery();
-         return hydrateModels(resultSet);
+         try (PreparedStatement ps = conn.prepareStatement(getFromSql))
+         {
+            ps.setString(1, source);
+            ResultSet resultSet = ps.executeQuery();
+            return hydrateModels(resultSet);
+         }
       });
 
       String msg = "unable to find records ({0} -> *)";
@@ -126,11 +159,12 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
    public Collection<Link> getTo(String target)
    {
       CompletableFuture<Collection<Link>> result = sqlExecutor.submit(conn -> {
-         String sql = format("SELECT {0}, {1} FROM {2} WHERE {1} = ?", COLUMN_SOURCE, COLUMN_TARGET, tableName);
-         PreparedStatement ps = conn.prepareStatement(sql);
-         ps.setString(1, target);
-         ResultSet resultSet = ps.executeQuery();
-         return hydrateModels(resultSet);
+         try (PreparedStatement ps = conn.prepareStatement(getToSql))
+         {
+            ps.setString(1, target);
+            ResultSet resultSet = ps.executeQuery();
+            return hydrateModels(resultSet);
+         }
       });
 
       String msg = "unable to find records (* -> {0})";
@@ -140,13 +174,14 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
    @Override
    public boolean delete(String source, String target)
    {
-      String sql = format("DELETE FROM {2} WHERE {0} = ? AND {1} = ?", COLUMN_SOURCE, COLUMN_TARGET, tableName);
       CompletableFuture<Boolean> result = sqlExecutor.submit(conn -> {
-         PreparedStatement ps = conn.prepareStatement(sql);
-         ps.setString(1, source);
-         ps.setString(2, target);
-         int updated = ps.executeUpdate();
-         return Boolean.valueOf(updated > 0);
+         try (PreparedStatement ps = conn.prepareStatement(deleteSql))
+         {
+            ps.setString(1, source);
+            ps.setString(2, target);
+            int updated = ps.executeUpdate();
+            return Boolean.valueOf(updated > 0);
+         }
       });
 
       String msg = "unable to delete record ({0}, {1})";
@@ -156,13 +191,14 @@ public class SeeAlsoServiceImpl implements SeeAlsoService
    @Override
    public boolean delete(String id)
    {
-      String sql = format("DELETE FROM {2} WHERE {0} = ? OR {1} = ?", COLUMN_SOURCE, COLUMN_TARGET, tableName);
       CompletableFuture<Boolean> result = sqlExecutor.submit(conn -> {
-         PreparedStatement ps = conn.prepareStatement(sql);
-         ps.setString(1, id);
-         ps.setString(2, id);
-         int updated = ps.executeUpdate();
-         return Boolean.valueOf(updated > 0);
+         try (PreparedStatement ps = conn.prepareStatement(deleteAllSql))
+         {
+            ps.setString(1, id);
+            ps.setString(2, id);
+            int updated = ps.executeUpdate();
+            return Boolean.valueOf(updated > 0);
+         }
       });
 
       String msg = "unable to delete records ({0}, *) || (*, {0})";
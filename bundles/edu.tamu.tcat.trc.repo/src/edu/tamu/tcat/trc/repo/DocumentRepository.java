@@ -77,6 +77,26 @@ public interface DocumentRepository<RecordType, EditCommandType>
     */
    Iterator<RecordType> listAll() throws RepositoryException;
 
+   /**
+    * Lists the items in this repository in ascending order of id, beginning after the
+    * supplied id. This allows a long-running traversal of the repository to be resumed
+    * without re-reading the items that were processed previously.
+    *
+    * @param afterId The id of the item after which the listing should begin. This item
+    *       need not exist. If {@code null}, all items will be listed.
+    * @return An {@link Iterator} over the items in this repository whose ids follow the
+    *       supplied id.
+    * @throws RepositoryException For errors accessing the underlying data store.
+    */
+   Iterator<RecordType> listAll(String afterId) throws RepositoryException;
+
+   /**
+    * @return An {@link Iterator} over the ids of all items in this repository. This allows
+    *       clients (for example, consistency checks against a search index) to enumerate the
+    *       contents of a repository without the cost of retrieving and parsing each item.
+    * @throws RepositoryException For errors accessing the underlying data store.
+    */
+   Iterator<String> listIds() throws RepositoryException;
 
    /**
     * @return A {@link Stream} over all items in this repository.
@@ -0,0 +1,36 @@
+package edu.tamu.tcat.trc.repo;
+
+/**
+ * Indicates that an update could not be applied because the record was modified by another
+ * update after its original state was retrieved. Repositories that support optimistic
+ * concurrency control will typically retry the update against the current state of the
+ * record before reporting this exception to clients.
+ */
+public class RecordConflictException extends RepositoryException
+{
+   private final String recordId;
+   private final long expectedVersion;
+
+   public RecordConflictException(String recordId, long expectedVersion)
+   {
+      super("Record [" + recordId + "] was modified by a concurrent update. Expected version " + expectedVersion);
+      this.recordId = recordId;
+      this.expectedVersion = expectedVersion;
+   }
+
+   /**
+    * @return The id of the record that could not be updated.
+    */
+   public String getRecordId()
+   {
+      return recordId;
+   }
+
+   /**
+    * @return The version of the record the failed update was based on.
+    */
+   public long getExpectedVersion()
+   {
+      return expectedVersion;
+   }
+}
@@ -0,0 +1,48 @@
+package edu.tamu.tcat.trc.repo.postgres;
+
+/**
+ * Receives progress notifications while records are being imported using
+ * {@link PsqlJacksonRepo#importAll(edu.tamu.tcat.account.Account, java.util.stream.Stream, java.util.function.Function, BulkImportMonitor)}.
+ *
+ * <p>An import proceeds in two stages. Records are first written to the database within
+ * a single transaction. Once that transaction has committed, the imported records are
+ * supplied to the repository's history writer and update observers (for example, to
+ * update the search index). Methods of this interface may be called from any thread.
+ */
+public interface BulkImportMonitor
+{
+   /** A monitor that ignores all notifications. */
+   static BulkImportMonitor NULL_MONITOR = new BulkImportMonitor() { };
+
+   /**
+    * Called periodically as records are written to the database. Note that these records
+    * will not be visible to other clients until the import transaction has committed.
+    *
+    * @param count The total number of records written so far.
+    */
+   default void stored(int count)
+   {
+      // no-op
+   }
+
+   /**
+    * Called once all records have been committed to the database.
+    *
+    * @param count The total number of records imported.
+    */
+   default void committed(int count)
+   {
+      // no-op
+   }
+
+   /**
+    * Called periodically as imported records are supplied to history and update observers.
+    *
+    * @param count The total number of records processed so far.
+    * @param total The total number of records to be processed.
+    */
+   default void processed(int count, int total)
+   {
+      // no-op
+   }
+}
@@ -0,0 +1,36 @@
+package edu.tamu.tcat.trc.repo.postgres;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Records the version history of stored records. History is written asynchronously so
+ * that recording history does not delay the completion of updates.
+ *
+ * @see JaversProvider#getHistoryWriter()
+ */
+public interface HistoryWriter extends AutoCloseable
+{
+   /**
+    * Records a new version of a stored record.
+    *
+    * @param actorId The id of the account responsible for the change.
+    * @param data The new state of the record.
+    * @return A future that will be completed once the history has been written.
+    */
+   CompletableFuture<Void> record(String actorId, Object data);
+
+   /**
+    * Records the removal of a stored record.
+    *
+    * @param actorId The id of the account responsible for the change.
+    * @param data The state of the record that was removed.
+    * @return A future that will be completed once the history has been written.
+    */
+   CompletableFuture<Void> recordDelete(String actorId, Object data);
+
+   /**
+    * Waits for all records submitted using this writer to be written.
+    */
+   @Override
+   void close();
+}
@@ -3,10 +3,22 @@ package edu.tamu.tcat.trc.repo.postgres;
 import java.lang.reflect.Type;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
@@ -29,13 +41,35 @@ import org.javers.repository.sql.DialectName;
 import org.javers.repository.sql.JaversSqlRepository;
 import org.javers.repository.sql.SqlRepositoryBuilder;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import edu.tamu.tcat.db.provider.DataSourceProvider;
 
+/**
+ * Supplies the {@link Javers} instances used to record the version history of stored
+ * records. Each client of {@link #getJavers()} receives its own instance, with its own
+ * connection, so that history reads by one repository do not wait on another. A single
+ * {@link HistoryWriter}, backed by a separate Javers instance, is shared by all repositories
+ * that use this provider. It is created when first requested and is released when this
+ * provider is disposed.
+ */
 public class JaversProvider
 {
+   private static final Logger logger = Logger.getLogger(JaversProvider.class.getName());
+
+   /** The maximum number of history records that may be waiting to be written. */
+   private static final int QUEUE_CAPACITY = 10_000;
+
+   /** The maximum number of history records to be written using a single connection. */
+   private static final int BATCH_SIZE = 100;
+
+   /** The time (in seconds) to wait for queued history records to be written on shutdown. */
+   private static final long SHUTDOWN_TIMEOUT = 60;
 
    private DataSourceProvider dsProvider;
 
+   private AsyncHistoryWriter historyWriter;
+
    public JaversProvider()
    {
    }
@@ -49,32 +83,308 @@ public class JaversProvider
    {
    }
    
-   public void dispose()
+   public synchronized void dispose()
    {
+      // wait for pending history records to be written
+      if (historyWriter != null)
+         historyWriter.close();
+
+      historyWriter = null;
    }
    
+   /**
+    * @return A new Javers instance for use by a single client. Each operation performed
+    *       using the returned instance is executed on its own connection.
+    */
    public Javers getJavers()
    {
-      
+      ConnectionManager manager = createConnectionManager();
+      return new ConnIsoJavers(createJavers(manager), manager);
+   }
+   
+   /**
+    * Returns a {@link HistoryWriter} that records history in the background. Records are
+    * placed in a bounded queue and written in order, in batches, by a single thread that
+    * is shared by all writers obtained from this provider. Each batch is written using a
+    * single database connection. If the queue is full, recording a change blocks until
+    * space is available.
+    *
+    * <p>The returned writer should be closed once it is no longer needed. Closing the
+    * writer waits for the records it has submitted to be written; the background thread
+    * is stopped once this provider is disposed. The writer uses its own Javers instance
+    * and connection, so writing a batch does not delay clients of {@link #getJavers()}.
+    *
+    * @return A history writer.
+    */
+   public synchronized HistoryWriter getHistoryWriter()
+   {
+      if (historyWriter == null)
+      {
+         ConnectionManager manager = createConnectionManager();
+         historyWriter = new AsyncHistoryWriter(createJavers(manager), manager);
+      }
+
+      return new HistoryWriterHandle(historyWriter);
+   }
+
+   private ConnectionManager createConnectionManager()
+   {
       try
       {
-         ConnectionManager connManager = new ConnectionManager(dsProvider.getDataSource());
-         return connManager.exec(()-> { 
-            JaversSqlRepository javersRepo = SqlRepositoryBuilder.sqlRepository()
-                  .withConnectionProvider(connManager::getConnection)
-                  .withDialect(DialectName.POSTGRES)
-                  .build();
-            
-            Javers javers = JaversBuilder.javers().registerJaversRepository(javersRepo).build();
-            return new ConnIsoJavers(javers, connManager);
-         });
+         return new ConnectionManager(dsProvider.getDataSource());
       }
       catch (SQLException e)
       {
          throw new IllegalStateException("Faild to instantiate Javers.", e);
       }
    }
-   
+
+   private static Javers createJavers(ConnectionManager manager)
+   {
+      return manager.exec(()-> {
+         JaversSqlRepository javersRepo = SqlRepositoryBuilder.sqlRepository()
+               .withConnectionProvider(manager::getConnection)
+               .withDialect(DialectName.POSTGRES)
+               .build();
+
+         return JaversBuilder.javers().registerJaversRepository(javersRepo).build();
+      });
+   }
+
+   private static class HistoryTask
+   {
+      private final String actorId;
+      private final Object data;
+      private final boolean delete;
+      private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+      HistoryTask(String actorId, Object data, boolean delete)
+      {
+         this.actorId = actorId;
+         this.data = data;
+         this.delete = delete;
+      }
+
+      void execute(Javers javers)
+      {
+         try
+         {
+            // NOTE tasks without data are used to wait for previously queued records
+            if (data != null && delete)
+               javers.commitShallowDelete(actorId, data);
+            else if (data != null)
+               javers.commit(actorId, data);
+
+            result.complete(null);
+         }
+         catch (Exception ex)
+         {
+            logger.log(Level.SEVERE, "Failed to record history for " + data, ex);
+            result.completeExceptionally(ex);
+         }
+      }
+   }
+
+   /**
+    * A view of the shared history writer for use by a single client. Closing the handle
+    * waits for pending records to be written but does not stop the shared writer.
+    */
+   private static class HistoryWriterHandle implements HistoryWriter
+   {
+      private final AsyncHistoryWriter writer;
+
+      HistoryWriterHandle(AsyncHistoryWriter writer)
+      {
+         this.writer = writer;
+      }
+
+      @Override
+      public CompletableFuture<Void> record(String actorId, Object data)
+      {
+         return writer.record(actorId, data);
+      }
+
+      @Override
+      public CompletableFuture<Void> recordDelete(String actorId, Object data)
+      {
+         return writer.recordDelete(actorId, data);
+      }
+
+      @Override
+      public void close()
+      {
+         writer.flush();
+      }
+   }
+
+   private static class AsyncHistoryWriter implements HistoryWriter
+   {
+      private final Javers javers;
+      private final ConnectionManager manager;
+
+      private final BlockingQueue<HistoryTask> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      private final ExecutorService exec;
+
+      // guards closed so that no record can be queued once the writer has been closed
+      private final ReadWriteLock lock = new ReentrantReadWriteLock();
+      private volatile boolean closed = false;
+
+      AsyncHistoryWriter(Javers javers, ConnectionManager manager)
+      {
+         this.javers = javers;
+         this.manager = manager;
+
+         exec = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+               .setNameFormat("trc-history-writer-%d")
+               .setDaemon(true)
+               .build());
+         exec.submit(this::drain);
+      }
+
+      @Override
+      public CompletableFuture<Void> record(String actorId, Object data)
+      {
+         return submit(new HistoryTask(actorId, data, false));
+      }
+
+      @Override
+      public CompletableFuture<Void> recordDelete(String actorId, Object data)
+      {
+         return submit(new HistoryTask(actorId, data, true));
+      }
+
+      private CompletableFuture<Void> submit(HistoryTask task)
+      {
+         // NOTE records must be written in the order in which they were submitted, so if
+         //      the queue is full, block until there is space rather than writing the record
+         //      on the calling thread. This applies back-pressure to clients that produce
+         //      history faster than it can be written.
+         lock.readLock().lock();
+         try
+         {
+            if (closed)
+               throw new IllegalStateException("The history writer has been closed.");
+
+            queue.put(task);
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            logger.log(Level.WARNING, "Interrupted while waiting to record history for " + task.data, e);
+            task.result.completeExceptionally(e);
+         }
+         finally
+         {
+            lock.readLock().unlock();
+         }
+
+         return task.result;
+      }
+
+      /**
+       * Waits for all records that have been queued to be written.
+       */
+      void flush()
+      {
+         try
+         {
+            submit(new HistoryTask(null, null, false)).get(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+         }
+         catch (IllegalStateException e)
+         {
+            // already closed, so all records have been written
+         }
+         catch (TimeoutException e)
+         {
+            logger.warning(() -> "Timed out waiting for history records to be written. " + queue.size() + " records remain.");
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+         catch (Exception e)
+         {
+            logger.log(Level.WARNING, "Failed waiting for history records to be written.", e);
+         }
+      }
+
+      private void drain()
+      {
+         List<HistoryTask> batch = new ArrayList<>(BATCH_SIZE);
+         while (!closed || !queue.isEmpty())
+         {
+            try
+            {
+               HistoryTask task = queue.poll(1, TimeUnit.SECONDS);
+               if (task == null)
+                  continue;
+
+               batch.add(task);
+               queue.drainTo(batch, BATCH_SIZE - 1);
+               writeBatch(batch);
+            }
+            catch (InterruptedException e)
+            {
+               break;
+            }
+            catch (Exception ex)
+            {
+               logger.log(Level.SEVERE, "Failed to write history batch.", ex);
+               batch.forEach(task -> task.result.completeExceptionally(ex));
+            }
+            finally
+            {
+               batch.clear();
+            }
+         }
+
+         // write anything that remains if we were interrupted
+         queue.drainTo(batch);
+         if (!batch.isEmpty())
+            writeBatch(batch);
+      }
+
+      private void writeBatch(List<HistoryTask> batch)
+      {
+         manager.exec(() -> {
+            batch.forEach(task -> task.execute(javers));
+            return null;
+         });
+      }
+
+      /**
+       * Stops accepting new records and waits for all queued records to be written.
+       */
+      @Override
+      public void close()
+      {
+         lock.writeLock().lock();
+         try
+         {
+            closed = true;
+         }
+         finally
+         {
+            lock.writeLock().unlock();
+         }
+
+         exec.shutdown();
+         try
+         {
+            if (!exec.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS))
+            {
+               logger.warning(() -> "Timed out waiting for history records to be written. " + queue.size() + " records remain.");
+               exec.shutdownNow();
+            }
+         }
+         catch (InterruptedException e)
+         {
+            exec.shutdownNow();
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
    private class ConnectionManager
    {
       private final DataSource ds;
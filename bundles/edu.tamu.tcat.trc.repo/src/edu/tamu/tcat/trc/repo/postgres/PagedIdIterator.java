@@ -0,0 +1,84 @@
+package edu.tamu.tcat.trc.repo.postgres;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+
+/**
+ * Provides an iterator over the ids of the records in a repository. Like the
+ * {@link PagedRecordIterator}, ids are requested in pages using keyset pagination and the
+ * next page is requested in the background while the current page is being consumed.
+ */
+class PagedIdIterator implements Iterator<String>
+{
+   public static interface IdPageResolver
+   {
+      /**
+       * @param lastId The last id of the previous page, or {@code null} to request the
+       *       first page.
+       * @param size The maximum number of ids to return.
+       * @return The requested page of ids, in ascending order. An empty page indicates that
+       *       no more ids are available.
+       */
+      Future<List<String>> resolve(String lastId, int size);
+   }
+
+   private final IdPageResolver pageResolver;
+   private final int pageSize;
+
+   private Iterator<String> currentPage = Collections.emptyIterator();
+   private Future<List<String>> nextBlock;
+
+   PagedIdIterator(IdPageResolver pageResolver, int pageSize)
+   {
+      this.pageResolver = pageResolver;
+      this.pageSize = pageSize;
+
+      nextBlock = pageResolver.resolve(null, pageSize);
+   }
+
+   @Override
+   public synchronized boolean hasNext()
+   {
+      return currentPage.hasNext() || loadNextPage();
+   }
+
+   @Override
+   public synchronized String next()
+   {
+      if (!hasNext())
+         throw new NoSuchElementException();
+
+      return currentPage.next();
+   }
+
+   private boolean loadNextPage()
+   {
+      if (nextBlock == null)
+         return false;
+
+      List<String> ids;
+      try
+      {
+         ids = nextBlock.get();
+      }
+      catch (Exception ex)
+      {
+         throw new IllegalStateException("Failed to load next page of ids", ex);
+      }
+
+      if (ids.isEmpty())
+      {
+         nextBlock = null;
+         return false;
+      }
+
+      currentPage = ids.iterator();
+
+      // start next page loading, unless this page was the last
+      nextBlock = (ids.size() < pageSize) ? null : pageResolver.resolve(ids.get(ids.size() - 1), pageSize);
+      return true;
+   }
+}
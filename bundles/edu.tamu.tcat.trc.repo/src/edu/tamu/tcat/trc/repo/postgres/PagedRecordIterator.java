@@ -1,34 +1,80 @@
 package edu.tamu.tcat.trc.repo.postgres;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
  * Provides an iterator over a set of paged data.
  *
+ * <p>Pages are requested using keyset pagination. Rather than an offset, each request
+ * supplies the id of the last record returned by the previous page so that the cost of
+ * retrieving a page remains constant regardless of how far into the underlying data set
+ * the iterator has progressed. The next page is requested in the background while the
+ * current page is being consumed.
+ *
  * @param <T>
  */
 public class PagedRecordIterator<T> implements Iterator<T>
 {
    public static interface JsonPageResolver
    {
-      Future<List<String>> resolve(int offset, int size);
+      /**
+       * @param lastId The id of the last record of the previous page, or {@code null} to
+       *       request the first page.
+       * @param size The maximum number of records to return.
+       * @return The requested page. An empty page indicates that no more records are available.
+       */
+      Future<JsonPage> resolve(String lastId, int size);
+   }
+
+   /**
+    * A single page of serialized records, ordered by record id.
+    */
+   public static class JsonPage
+   {
+      /** The id of the last record in this page. Will be {@code null} if this page is empty. */
+      public final String lastId;
+
+      /** The serialized records in this page. */
+      public final List<String> records;
+
+      public JsonPage(String lastId, List<String> records)
+      {
+         this.lastId = lastId;
+         this.records = records;
+      }
    }
 
    private List<String> currentPage;
    private int currentIndex = 0;
 
-   private int offset = 0;
    private int pageSize = 100;
-   private volatile Future<List<String>> nextBlock = null;
+   private volatile Future<JsonPage> nextBlock = null;
 
    private final Function<String, T> parser;
    private final PagedRecordIterator.JsonPageResolver pageResolver;
 
    public PagedRecordIterator(PagedRecordIterator.JsonPageResolver pageResolver, Function<String, T> parser, int pageSize)
+   {
+      this(pageResolver, parser, pageSize, null);
+   }
+
+   /**
+    * @param pageResolver Supplies pages of serialized records.
+    * @param parser Converts serialized records to the returned type.
+    * @param pageSize The number of records to request per page.
+    * @param startAfter The id of the record after which iteration should begin, or
+    *       {@code null} to begin with the first record.
+    */
+   public PagedRecordIterator(PagedRecordIterator.JsonPageResolver pageResolver, Function<String, T> parser, int pageSize, String startAfter)
    {
       this.pageResolver = pageResolver;
       this.parser = parser;
@@ -36,11 +82,12 @@ public class PagedRecordIterator<T> implements Iterator<T>
 
       // init to empty list and start next page load
       currentPage = new ArrayList<>();
-      nextBlock = pageResolver.resolve(offset, pageSize);
+      currentIndex = -1;
+      nextBlock = pageResolver.resolve(startAfter, pageSize);
    }
 
    @Override
-   public boolean hasNext()
+   public synchronized boolean hasNext()
    {
       return (currentIndex < currentPage.size() - 1) ? true : loadNextPage();
    }
@@ -51,6 +98,9 @@ public class PagedRecordIterator<T> implements Iterator<T>
       String json = "";
       synchronized (this)
       {
+         if (!hasNext())
+            throw new NoSuchElementException();
+
          currentIndex++;
          json = currentPage.get(currentIndex);
       }
@@ -58,29 +108,119 @@ public class PagedRecordIterator<T> implements Iterator<T>
       return parser.apply(json);
    }
 
+   /**
+    * @return A {@link Spliterator} over the remaining records of this iterator. The returned
+    *       spliterator splits by handing off whole pages of serialized records so that records
+    *       may be parsed in parallel while subsequent pages are being retrieved. Note that
+    *       this iterator should not be used once the spliterator has been obtained.
+    */
+   public Spliterator<T> spliterator()
+   {
+      return new PagedSpliterator();
+   }
+
+   /**
+    * Removes and returns all serialized records that have not yet been consumed from the
+    * current page, loading the next page if needed.
+    *
+    * @return The unconsumed records. Will be empty if all records have been consumed.
+    */
+   private synchronized List<String> takeRemaining()
+   {
+      if (!hasNext())
+         return Collections.emptyList();
+
+      List<String> remaining = currentPage.subList(currentIndex + 1, currentPage.size());
+      currentIndex = currentPage.size() - 1;
+      return remaining;
+   }
+
    private synchronized boolean loadNextPage()
    {
       currentIndex = -1;
-      currentPage = null;
+      currentPage = Collections.emptyList();
 
       if (nextBlock == null)
          return false;
 
+      JsonPage page;
       try
       {
-         currentPage = nextBlock.get();
+         page = nextBlock.get();
       }
       catch (Exception ex)
       {
          throw new IllegalStateException("Failed to load next page", ex);
       }
 
-      if (currentPage.isEmpty())
+      if (page.records.isEmpty())
+      {
+         nextBlock = null;
          return false;
+      }
+
+      currentPage = page.records;
 
-      // start next page loading
-      offset = offset + currentPage.size();
-      nextBlock = pageResolver.resolve(offset, pageSize);
+      // start next page loading, unless this page was the last
+      nextBlock = (page.records.size() < pageSize) ? null : pageResolver.resolve(page.lastId, pageSize);
       return true;
    }
-}
\ No newline at end of file
+
+   private class PagedSpliterator implements Spliterator<T>
+   {
+      @Override
+      public boolean tryAdvance(Consumer<? super T> action)
+      {
+         String json;
+         synchronized (PagedRecordIterator.this)
+         {
+            if (!hasNext())
+               return false;
+
+            currentIndex++;
+            json = currentPage.get(currentIndex);
+         }
+
+         action.accept(parser.apply(json));
+         return true;
+      }
+
+      @Override
+      public Spliterator<T> trySplit()
+      {
+         List<String> block = takeRemaining();
+         if (block.isEmpty())
+            return null;
+
+         Iterator<String> records = block.iterator();
+         Iterator<T> parsed = new Iterator<T>()
+         {
+            @Override
+            public boolean hasNext()
+            {
+               return records.hasNext();
+            }
+
+            @Override
+            public T next()
+            {
+               return parser.apply(records.next());
+            }
+         };
+
+         return Spliterators.spliterator(parsed, block.size(), characteristics() | Spliterator.SIZED | Spliterator.SUBSIZED);
+      }
+
+      @Override
+      public long estimateSize()
+      {
+         return Long.MAX_VALUE;
+      }
+
+      @Override
+      public int characteristics()
+      {
+         return Spliterator.ORDERED | Spliterator.NONNULL;
+      }
+   }
+}
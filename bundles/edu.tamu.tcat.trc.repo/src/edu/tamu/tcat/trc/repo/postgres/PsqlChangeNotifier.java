@@ -0,0 +1,336 @@
+package edu.tamu.tcat.trc.repo.postgres;
+
+import static java.text.MessageFormat.format;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import edu.tamu.tcat.db.provider.DataSourceProvider;
+
+/**
+ * Propagates notifications of record changes between application nodes that share a
+ * PostgreSQL database using {@code LISTEN}/{@code NOTIFY}. This allows each node to
+ * maintain a local cache of records and invalidate cached entries when another node
+ * modifies the underlying data.
+ *
+ * <p>Notifications are published on the connection used to perform the update (see
+ * {@link #publish(Connection, String, String)}). PostgreSQL only delivers notifications
+ * once the enclosing transaction has committed, so listeners are never told about changes
+ * that were rolled back. Each notifier holds a single dedicated connection on which it
+ * listens for all registered channels. This connection is polled in a background thread.
+ *
+ * <p>If the listening connection is lost, notifications may be missed. Once the connection
+ * has been re-established, all listeners will be reset so that they can discard any state
+ * that may be stale.
+ */
+public class PsqlChangeNotifier
+{
+   private static final Logger logger = Logger.getLogger(PsqlChangeNotifier.class.getName());
+
+   private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+   /** The interval (in milliseconds) at which the database is polled for notifications. */
+   private static final long POLL_INTERVAL = 250;
+
+   /** The time (in milliseconds) to wait before attempting to reconnect following an error. */
+   private static final long RECONNECT_DELAY = 5000;
+
+   /** Identifies notifications published by this node so they can be ignored by its own listeners. */
+   private final String nodeId = UUID.randomUUID().toString();
+
+   private final Map<String, Map<UUID, ChangeListener>> listeners = new ConcurrentHashMap<>();
+   private final Set<String> pendingChannels = ConcurrentHashMap.newKeySet();
+   private final Set<String> unusedChannels = ConcurrentHashMap.newKeySet();
+
+   private DataSourceProvider dsProvider;
+   private ExecutorService exec;
+   private volatile boolean running = false;
+
+   /**
+    * Receives notifications about records that have been changed by another node.
+    */
+   public interface ChangeListener
+   {
+      /**
+       * @param id The id of the record that was changed.
+       */
+      void changed(String id);
+
+      /**
+       * Called when notifications may have been missed, for example after the connection
+       * to the database has been re-established.
+       */
+      void reset();
+   }
+
+   public PsqlChangeNotifier()
+   {
+   }
+
+   public void setDataSourceProvider(DataSourceProvider dataSourceProvider)
+   {
+      this.dsProvider = dataSourceProvider;
+   }
+
+   public void activate()
+   {
+      Objects.requireNonNull(dsProvider, "No data source provider supplied");
+
+      running = true;
+      exec = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("trc-repo-notifications")
+            .setDaemon(true)
+            .build());
+      exec.submit(this::receive);
+   }
+
+   public void dispose()
+   {
+      running = false;
+      if (exec == null)
+         return;
+
+      exec.shutdownNow();
+      try
+      {
+         if (!exec.awaitTermination(10, TimeUnit.SECONDS))
+            logger.warning("Timed out waiting for the notification listener to shut down.");
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      exec = null;
+   }
+
+   /**
+    * @param tablename The name of a repository table.
+    * @return The notification channel used for changes to records in the supplied table.
+    */
+   public static String getChannel(String tablename)
+   {
+      return "trc_" + tablename.toLowerCase().replaceAll("[^a-z0-9_]", "_");
+   }
+
+   /**
+    * Registers a listener to be notified of changes published on the supplied channel by
+    * other nodes.
+    *
+    * <p>Once the last listener for a channel has been removed, this notifier will stop
+    * listening on that channel.
+    *
+    * @param channel The channel to listen on.
+    * @param listener The listener to notify.
+    * @return A registration handle for use in removing this listener.
+    */
+   public Runnable listen(String channel, ChangeListener listener)
+   {
+      UUID listenerId = UUID.randomUUID();
+      listeners.compute(channel, (key, registered) -> {
+         if (registered == null)
+         {
+            registered = new ConcurrentHashMap<>();
+            unusedChannels.remove(key);
+            pendingChannels.add(key);
+         }
+
+         registered.put(listenerId, listener);
+         return registered;
+      });
+
+      return () -> listeners.computeIfPresent(channel, (key, registered) -> {
+         registered.remove(listenerId);
+         if (!registered.isEmpty())
+            return registered;
+
+         pendingChannels.remove(key);
+         unusedChannels.add(key);
+         return null;
+      });
+   }
+
+   /**
+    * Publishes a change notification for the identified record. This should be called on
+    * the connection (and within the transaction) used to perform the change so that the
+    * notification is delivered once that transaction commits.
+    *
+    * @param conn The database connection used to modify the record.
+    * @param channel The channel to publish to.
+    * @param id The id of the record that was changed.
+    * @throws SQLException If the notification could not be sent.
+    */
+   public void publish(Connection conn, String channel, String id) throws SQLException
+   {
+      try (PreparedStatement ps = conn.prepareStatement(NOTIFY_SQL))
+      {
+         ps.setString(1, channel);
+         ps.setString(2, nodeId + " " + id);
+         ps.execute();
+      }
+   }
+
+   /**
+    * Publishes a notification that an unspecified set of records on the supplied channel
+    * has changed. Listeners on other nodes will be reset. This should be used in place of
+    * {@link #publish(Connection, String, String)} when a large number of records have been
+    * modified by a single transaction.
+    *
+    * @param conn The database connection used to modify the records.
+    * @param channel The channel to publish to.
+    * @throws SQLException If the notification could not be sent.
+    */
+   public void publishReset(Connection conn, String channel) throws SQLException
+   {
+      try (PreparedStatement ps = conn.prepareStatement(NOTIFY_SQL))
+      {
+         ps.setString(1, channel);
+         ps.setString(2, nodeId);
+         ps.execute();
+      }
+   }
+
+   private void receive()
+   {
+      boolean connected = false;
+      while (running && !Thread.currentThread().isInterrupted())
+      {
+         try (Connection conn = dsProvider.getDataSource().getConnection())
+         {
+            conn.setAutoCommit(true);
+            PGConnection pgconn = conn.unwrap(PGConnection.class);
+
+            // after reconnecting, we may have missed notifications
+            if (connected)
+               resetAll();
+
+            // a new connection is not listening on any channel
+            unusedChannels.clear();
+            pendingChannels.addAll(listeners.keySet());
+            connected = true;
+
+            poll(conn, pgconn);
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+         catch (Exception ex)
+         {
+            if (!running)
+               break;
+
+            logger.log(Level.WARNING, "Lost connection used to listen for record change notifications. Attempting to reconnect.", ex);
+            try
+            {
+               Thread.sleep(RECONNECT_DELAY);
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+         }
+      }
+   }
+
+   private void poll(Connection conn, PGConnection pgconn) throws SQLException, InterruptedException
+   {
+      while (running)
+      {
+         try (Statement stmt = conn.createStatement())
+         {
+            // NOTE stop listening before starting so that a channel that is removed and
+            //      then registered again before this loop runs will still be listened on
+            for (String channel : unusedChannels)
+            {
+               unusedChannels.remove(channel);
+               if (!listeners.containsKey(channel))
+                  stmt.execute(format("UNLISTEN \"{0}\"", channel));
+            }
+
+            for (String channel : pendingChannels)
+            {
+               stmt.execute(format("LISTEN \"{0}\"", channel));
+               pendingChannels.remove(channel);
+            }
+
+            // issue a trivial query in order to receive any pending notifications
+            stmt.execute("SELECT 1");
+         }
+
+         PGNotification[] notifications = pgconn.getNotifications();
+         if (notifications != null)
+         {
+            for (PGNotification notification : notifications)
+            {
+               dispatch(notification.getName(), notification.getParameter());
+            }
+         }
+
+         Thread.sleep(POLL_INTERVAL);
+      }
+   }
+
+   private void dispatch(String channel, String payload)
+   {
+      // NOTE payloads without a record id are published by publishReset
+      int ix = payload.indexOf(' ');
+      String sender = ix < 0 ? payload : payload.substring(0, ix);
+      String id = ix < 0 ? null : payload.substring(ix + 1);
+
+      // ignore notifications published by this node
+      if (nodeId.equals(sender))
+         return;
+
+      Map<UUID, ChangeListener> registered = listeners.get(channel);
+      if (registered == null)
+         return;
+
+      registered.values().forEach(listener -> {
+         try
+         {
+            if (id == null)
+               listener.reset();
+            else
+               listener.changed(id);
+         }
+         catch (Exception ex)
+         {
+            logger.log(Level.WARNING, format("Change listener failed for record {0} on channel {1}", id, channel), ex);
+         }
+      });
+   }
+
+   private void resetAll()
+   {
+      listeners.values().stream()
+         .flatMap(registered -> registered.values().stream())
+         .forEach(listener -> {
+            try
+            {
+               listener.reset();
+            }
+            catch (Exception ex)
+            {
+               logger.log(Level.WARNING, "Change listener failed to reset", ex);
+            }
+         });
+   }
+}
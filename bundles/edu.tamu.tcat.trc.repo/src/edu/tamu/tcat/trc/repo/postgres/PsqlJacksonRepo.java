@@ -4,44 +4,57 @@ import static edu.tamu.tcat.trc.repo.DocumentRepository.unwrap;
 import static java.text.MessageFormat.format;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.javers.core.Javers;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.postgresql.util.PGobject;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.cache.CacheBuilder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
@@ -50,6 +63,7 @@ import edu.tamu.tcat.db.exec.sql.SqlExecutor;
 import edu.tamu.tcat.trc.repo.DocumentRepository;
 import edu.tamu.tcat.trc.repo.EditCommandFactory;
 import edu.tamu.tcat.trc.repo.ExecutableUpdateContext;
+import edu.tamu.tcat.trc.repo.RecordConflictException;
 import edu.tamu.tcat.trc.repo.RecordReference;
 import edu.tamu.tcat.trc.repo.RecordUpdateEvent;
 import edu.tamu.tcat.trc.repo.RecordUpdateObserver;
@@ -68,11 +82,36 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
 
    private static final String GET_RECORD_SQL = "SELECT data FROM {0} WHERE id = ? {1}";
    private static final String INSERT_SQL = "INSERT INTO {0} (data, id) VALUES(?, ?)";
-   private static final String UPDATE_SQL = "UPDATE {0} SET data = ?, last_modified = now() WHERE id = ?";
+   private static final String GET_VERSIONED_RECORD_SQL = "SELECT data, version FROM {0} WHERE id = ? AND removed IS NULL";
+   private static final String UPDATE_SQL = "UPDATE {0} SET data = ?, version = version + 1, last_modified = now() WHERE id = ? AND version = ?";
    private static final String MARK_REMOVED_SQL =  "UPDATE {0} SET removed = now(), last_modified = now() WHERE id = ?";
 //   private static final String DELETE_SQL =  "DELETE FROM {0} WHERE id = ?";
    private static final String EXISTS_SQL = "SELECT id FROM {0} WHERE id = ? AND removed IS NULL";
    private static final String META_SQL =  "SELECT id, data, date_created, last_modified, removed FROM {0} WHERE id = ?";
+   private static final String GET_RECORDS_SQL = "SELECT id, data FROM {0} WHERE id = ANY(?) {1}";
+   private static final String FIRST_PAGE_SQL = "SELECT id, data FROM {0} WHERE removed IS NULL ORDER BY id LIMIT ?";
+   private static final String NEXT_PAGE_SQL = "SELECT id, data FROM {0} WHERE removed IS NULL AND id > ? ORDER BY id LIMIT ?";
+   private static final String FIRST_ID_PAGE_SQL = "SELECT id FROM {0} WHERE removed IS NULL ORDER BY id LIMIT ?";
+   private static final String NEXT_ID_PAGE_SQL = "SELECT id FROM {0} WHERE removed IS NULL AND id > ? ORDER BY id LIMIT ?";
+   private static final String COPY_SQL = "COPY {0} (id, data) FROM STDIN";
+
+   /** The number of records to retrieve per query when iterating over all records. */
+   private static final int PAGE_SIZE = 100;
+
+   /** The number of ids to retrieve per query when iterating over the ids of all records. */
+   private static final int ID_PAGE_SIZE = 1000;
+
+   /** The maximum number of ids to be bound to a single multi-record query. */
+   private static final int MAX_BATCH_SIZE = 500;
+
+   /** The number of records above which stored JSON will be parsed in parallel. */
+   private static final int PARALLEL_PARSE_THRESHOLD = 20;
+
+   /** The maximum number of times an edit will be attempted if it conflicts with concurrent updates. */
+   private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+   /** The number of records to be sent to the database per {@code COPY} command during a bulk import. */
+   private static final int IMPORT_BATCH_SIZE = 1000;
 
 
    private static final Logger logger = Logger.getLogger(PsqlJacksonRepo.class.getName());
@@ -84,21 +123,46 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
    private String tablename;
    private Function<DTO, RecordType> adapter;
    private Class<DTO> storageType;
+   private ObjectMapper mapper;
+
+   private ObjectReader reader;
+   private ObjectWriter writer;
 
    private EditCommandFactory<DTO, EditCommandType> cmdFactory;
 
+   // NOTE SQL text is formatted once so that identical statements are issued for each call.
+   //      Statements are not reused across calls. The bundled driver (9.3) only prepares a
+   //      statement on the server when the same PreparedStatement is executed repeatedly and
+   //      pooled connections are proxies, so reuse requires the per-connection statement
+   //      cache of pgjdbc 9.4.1202 or later (see its preparedStatementCacheQueries option).
    private String getMetaSql;
+   private String existsSql;
    private String getActiveRecordSql;
+   private String getVersionedRecordSql;
+   private String getActiveRecordsSql;
+   private String getFirstPageSql;
+   private String getNextPageSql;
+   private String getFirstIdPageSql;
+   private String getNextIdPageSql;
    private String createRecordSql;
    private String updateRecordSql;
    private String removeRecordSql;
+   private String copyRecordsSql;
 
    private final Map<UUID, Consumer<UpdateContext<DTO>>> preCommitTasks = new ConcurrentHashMap<>();
 
    private final Map<UUID, RecordUpdateObserver<RecordType>> updateObservers = new ConcurrentHashMap<>();
 
-   private LoadingCache<String, Optional<RecordType>> cache;
+   private final Map<UUID, PsqlChangeNotifier.ChangeListener> remoteListeners = new ConcurrentHashMap<>();
+
+   private RecordCachePolicy cachePolicy;
+   private LoadingCache<String, CachedRecord<RecordType>> cache;
+
+   private PsqlChangeNotifier notifier;
+   private String notificationChannel;
+   private Runnable notifierRegistration;
    private Javers javers;
+   private HistoryWriter historyWriter;
 
 
    PsqlJacksonRepo()
@@ -140,23 +204,69 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       this.storageType = storageType;
    }
 
+   void setObjectMapper(ObjectMapper mapper)
+   {
+      this.mapper = mapper;
+   }
+
+   void setCachePolicy(RecordCachePolicy cachePolicy)
+   {
+      this.cachePolicy = cachePolicy;
+   }
+
+   void setChangeNotifier(PsqlChangeNotifier notifier)
+   {
+      this.notifier = notifier;
+   }
+
    void activate()
    {
       logger.info(format("Initializing document repository using table {0}", tablename));
 
       sanityCheck();
       initSqlStatements();
+      initJsonMapping();
       initJavers();
       initCache();
+      initChangeListener();
    }
 
    private void initSqlStatements()
    {
       this.getMetaSql = format(META_SQL,  tablename);
+      this.existsSql = format(EXISTS_SQL, tablename);
       this.getActiveRecordSql = format(GET_RECORD_SQL, tablename, "AND removed IS NULL");
+      this.getVersionedRecordSql = format(GET_VERSIONED_RECORD_SQL, tablename);
+      this.getActiveRecordsSql = format(GET_RECORDS_SQL, tablename, "AND removed IS NULL");
+      this.getFirstPageSql = format(FIRST_PAGE_SQL, tablename);
+      this.getNextPageSql = format(NEXT_PAGE_SQL, tablename);
+      this.getFirstIdPageSql = format(FIRST_ID_PAGE_SQL, tablename);
+      this.getNextIdPageSql = format(NEXT_ID_PAGE_SQL, tablename);
       this.createRecordSql = format(INSERT_SQL, tablename);
       this.updateRecordSql = format(UPDATE_SQL, tablename);
       this.removeRecordSql = format(MARK_REMOVED_SQL, tablename);
+      this.copyRecordsSql = format(COPY_SQL, tablename);
+   }
+
+   private void initJsonMapping()
+   {
+      // NOTE ObjectReader and ObjectWriter instances are immutable and thread-safe. Binding
+      //      them once to the storage type allows Jackson to reuse its (de)serializer caches
+      //      across all reads and writes performed by this repository.
+      ObjectMapper m = (mapper != null) ? mapper : createDefaultMapper();
+      this.reader = m.reader(storageType);
+      this.writer = m.writerWithType(storageType);
+   }
+
+   /**
+    * @return The {@link ObjectMapper} configuration used if none has been supplied to the
+    *       {@link PsqlJacksonRepoBuilder}.
+    */
+   static ObjectMapper createDefaultMapper()
+   {
+      ObjectMapper mapper = new ObjectMapper();
+      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+      return mapper;
    }
 
    private void sanityCheck()
@@ -179,32 +289,156 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
    private void initJavers()
    {
       javers = jvsProvider.getJavers();
+      historyWriter = jvsProvider.getHistoryWriter();
+   }
+
+   private void initChangeListener()
+   {
+      if (notifier == null)
+         return;
+
+      // invalidate cached records when they are modified by other application nodes
+      notificationChannel = PsqlChangeNotifier.getChannel(tablename);
+      notifierRegistration = notifier.listen(notificationChannel, new PsqlChangeNotifier.ChangeListener()
+      {
+         @Override
+         public void changed(String id)
+         {
+            cache.invalidate(id);
+            notifyRemoteListeners(listener -> listener.changed(id));
+         }
+
+         @Override
+         public void reset()
+         {
+            cache.invalidateAll();
+            notifyRemoteListeners(PsqlChangeNotifier.ChangeListener::reset);
+         }
+      });
+   }
+
+   private void notifyRemoteListeners(Consumer<PsqlChangeNotifier.ChangeListener> notification)
+   {
+      remoteListeners.values().forEach(listener -> {
+         try
+         {
+            notification.accept(listener);
+         }
+         catch (Exception ex)
+         {
+            logger.log(Level.WARNING, format("Failed to notify listener of changes to table {0} made by another node.", tablename), ex);
+         }
+      });
+   }
+
+   /**
+    * Registers a listener to be notified when records in this repository are modified by
+    * other application nodes. Listeners are notified after any cached copy of the modified
+    * record has been discarded, so they may reload the record from this repository.
+    * Listeners are not notified of changes made through this repository; use
+    * {@link #afterUpdate(RecordUpdateObserver)} for those.
+    *
+    * <p>If no {@link PsqlChangeNotifier} has been supplied, listeners will not be notified.
+    *
+    * @param listener The listener to notify.
+    * @return A registration handle for use in removing this listener.
+    */
+   public Runnable onRemoteChange(PsqlChangeNotifier.ChangeListener listener)
+   {
+      UUID listenerId = UUID.randomUUID();
+      remoteListeners.put(listenerId, listener);
+
+      return () -> remoteListeners.remove(listenerId);
+   }
 
+   /**
+    * Notifies other application nodes that the identified record has changed. This must be
+    * called from within the database task that performed the change.
+    */
+   private void publishChange(Connection conn, String id) throws SQLException
+   {
+      if (notifier != null)
+         notifier.publish(conn, notificationChannel, id);
    }
 
    @Override
    public void dispose()
    {
+      if (notifierRegistration != null)
+         notifierRegistration.run();
+
+      // wait for pending history records to be written
+      if (historyWriter != null)
+         historyWriter.close();
+
+      logger.fine(() -> format("Disposing document repository for table {0}. Cache statistics: {1}", tablename, cache.stats()));
       this.cache.invalidateAll();
       this.cache = null;
    }
 
+   /**
+    * @return A snapshot of the usage statistics for this repository's record cache,
+    *       including hit and miss counts, load times and evictions.
+    */
+   public CacheStats getCacheStats()
+   {
+      return cache.stats();
+   }
+
    private void initCache()
    {
-      cache = CacheBuilder.newBuilder()
-                     .maximumSize(1000)
-                     .expireAfterAccess(10, TimeUnit.MINUTES)
-                     .build(new CacheLoaderImpl());
+      RecordCachePolicy policy = cachePolicy != null ? cachePolicy : RecordCachePolicy.defaultPolicy();
+      cache = policy.build(new CacheLoaderImpl(), (id, entry) -> entry.weight);
+   }
+
+   /**
+    * A cached record along with the length of the JSON from which it was parsed. The
+    * length is used to weigh cache entries for weight-bounded cache policies.
+    */
+   private static class CachedRecord<R>
+   {
+      private final Optional<R> record;
+      private final int weight;
+
+      CachedRecord(Optional<R> record, int weight)
+      {
+         this.record = record;
+         this.weight = weight;
+      }
    }
 
-   private class CacheLoaderImpl extends CacheLoader<String, Optional<RecordType>>
+   private class CacheLoaderImpl extends CacheLoader<String, CachedRecord<RecordType>>
    {
       @Override
-      public Optional<RecordType> load(String key) throws Exception
+      public CachedRecord<RecordType> load(String key) throws Exception
       {
-         Optional<DTO> dto = loadStoredRecord(key);
-         Optional<RecordType> record = dto.map(adapter::apply);
-         return record;
+         Optional<String> json = loadStoredJson(key);
+         return toCachedRecord(json.orElse(null));
+      }
+
+      @Override
+      public Map<String, CachedRecord<RecordType>> loadAll(Iterable<? extends String> keys) throws Exception
+      {
+         Set<String> ids = new LinkedHashSet<>();
+         keys.forEach(ids::add);
+
+         Map<String, String> json = loadStoredJson(ids);
+
+         Stream<String> stream = json.size() > PARALLEL_PARSE_THRESHOLD
+               ? ids.parallelStream()
+               : ids.stream();
+
+         // NOTE the cache requires an entry for every requested key, including missing records
+         return stream.collect(Collectors.toMap(Function.identity(), id -> toCachedRecord(json.get(id))));
+      }
+
+      private CachedRecord<RecordType> toCachedRecord(String json)
+      {
+         if (json == null)
+            return new CachedRecord<>(Optional.empty(), 1);
+
+         RecordType record = adapter.apply(parse(json));
+         return new CachedRecord<>(Optional.of(record), Math.max(1, json.length()));
       }
    }
 
@@ -219,7 +453,32 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
    @Override
    public Iterator<RecordType> listAll()
    {
-      return new PagedRecordIterator<>(this::getPageBlock, json -> adapter.apply(parse(json)), 100);
+      return listAll(null);
+   }
+
+   @Override
+   public Iterator<RecordType> listAll(String afterId)
+   {
+      return new PagedRecordIterator<>(this::getPageBlock, json -> adapter.apply(parse(json)), PAGE_SIZE, afterId);
+   }
+
+   /**
+    * @implNote The returned stream is sequential. If it is made parallel, pages of records
+    *       will be handed off to worker threads and parsed concurrently while subsequent pages
+    *       are retrieved from the database.
+    */
+   @Override
+   public Stream<RecordType> listAsStream() throws RepositoryException
+   {
+      PagedRecordIterator<RecordType> iterator =
+            new PagedRecordIterator<>(this::getPageBlock, json -> adapter.apply(parse(json)), PAGE_SIZE);
+      return StreamSupport.stream(iterator.spliterator(), false);
+   }
+
+   @Override
+   public Iterator<String> listIds()
+   {
+      return new PagedIdIterator(this::getIdPageBlock, ID_PAGE_SIZE);
    }
 
    public boolean exists(String id)
@@ -240,7 +499,7 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
    {
       try
       {
-         return cache.get(id);
+         return cache.get(id).record;
       }
       catch (ExecutionException | UncheckedExecutionException ex)
       {
@@ -251,20 +510,25 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
    @Override
    public Collection<RecordType> get(String... ids) throws RepositoryException
    {
-      // TODO: this is very inefficient. Should load records that are already in the
-      //       cache and then execute a query that will load all remaining records from the DB
-      //       in a single task (depending on the number of ids, possibly via multiple queries).
-
-      HashMap<String, RecordType> results = new HashMap<>();
-      for (String id: ids)
+      // Cached records are returned directly. All remaining records are loaded by a single
+      // database task (one query per block of MAX_BATCH_SIZE ids) and added to the cache.
+      Set<String> keys = new LinkedHashSet<>(Arrays.asList(ids));
+      try
       {
-         if (results.containsKey(id))
-            continue;
+         Map<String, CachedRecord<RecordType>> records = cache.getAll(keys);
 
-         get(id).ifPresent(record -> results.put(id, record));
-      }
+         List<RecordType> results = new ArrayList<>(keys.size());
+         for (String id : keys)
+         {
+            records.get(id).record.ifPresent(results::add);
+         }
 
-      return Collections.unmodifiableCollection(results.values());
+         return Collections.unmodifiableList(results);
+      }
+      catch (ExecutionException | UncheckedExecutionException ex)
+      {
+         throw new RepositoryException(format("Failed to retrieve records {0}", keys), ex.getCause());
+      }
    }
 
    @Override
@@ -286,7 +550,15 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
    @Override
    public EditCommandType edit(Account account, String id) throws RepositoryException
    {
-      UpdateContextImpl context = new UpdateContextImpl(id, UpdateActionType.EDIT, account, () -> loadStoredRecord(id), dto -> doEdit(id, dto));
+      // NOTE the version of the most recently loaded original state is used to detect
+      //      concurrent modifications when the update is applied.
+      AtomicLong version = new AtomicLong(-1);
+      Supplier<Optional<DTO>> loader = () -> loadStoredVersion(id).map(stored -> {
+         version.set(stored.version);
+         return parse(stored.json);
+      });
+
+      UpdateContextImpl context = new UpdateContextImpl(id, UpdateActionType.EDIT, account, loader, dto -> doEdit(id, dto, version.get()));
       return this.cmdFactory.create(context);
    }
 
@@ -300,6 +572,159 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       return resultFuture;
    }
 
+   /**
+    * Imports a large number of new records. This is intended to support the migration of
+    * existing data sets and avoids the per-record overhead of creating records via edit
+    * commands.
+    *
+    * <p>Records are written to the database using PostgreSQL's {@code COPY} command within a
+    * single transaction. If any record cannot be written (for example, because a record
+    * with the same id already exists), no records will be imported. Once the records have
+    * been committed, history is recorded and registered update observers are notified of
+    * the creation of each record as a deferred, second stage. Pre-commit tasks registered
+    * via {@link #beforeUpdate(Consumer)} are not invoked for imported records.
+    *
+    * @param account The user account responsible for this import.
+    * @param records The records to import. The stream will be consumed on a database thread.
+    * @param idProvider Returns the id of a supplied record.
+    * @param monitor Notified of the progress of this import.
+    * @return A future that resolves to the number of records imported once all records have
+    *       been stored and supplied to update observers.
+    */
+   public CompletableFuture<Integer> importAll(Account account, Stream<DTO> records, Function<DTO, String> idProvider, BulkImportMonitor monitor)
+   {
+      Objects.requireNonNull(idProvider, "No id provider supplied");
+      BulkImportMonitor progress = monitor != null ? monitor : BulkImportMonitor.NULL_MONITOR;
+
+      CompletableFuture<List<String>> stored = exec.submit(conn -> doImport(conn, records, idProvider, progress));
+      return stored.thenApplyAsync(ids -> {
+         progress.committed(ids.size());
+
+         // NOTE ids previously requested may be cached as missing records
+         cache.invalidateAll(ids);
+         afterImport(account, ids, progress);
+         return Integer.valueOf(ids.size());
+      });
+   }
+
+   private List<String> doImport(Connection conn, Stream<DTO> records, Function<DTO, String> idProvider, BulkImportMonitor monitor) throws SQLException, IOException
+   {
+      CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+
+      List<String> ids = new ArrayList<>();
+      StringBuilder batch = new StringBuilder();
+      int batchSize = 0;
+
+      Iterator<DTO> iterator = records.iterator();
+      while (iterator.hasNext())
+      {
+         DTO record = iterator.next();
+         String id = idProvider.apply(record);
+         if (id == null)
+            throw new IllegalArgumentException("Cannot import record without an id [" + record + "]");
+
+         appendCopyValue(batch, id);
+         batch.append('\t');
+         appendCopyValue(batch, writer.writeValueAsString(record));
+         batch.append('\n');
+
+         ids.add(id);
+         if (++batchSize == IMPORT_BATCH_SIZE)
+         {
+            copyManager.copyIn(copyRecordsSql, new StringReader(batch.toString()));
+            monitor.stored(ids.size());
+
+            batch.setLength(0);
+            batchSize = 0;
+         }
+      }
+
+      if (batchSize > 0)
+      {
+         copyManager.copyIn(copyRecordsSql, new StringReader(batch.toString()));
+         monitor.stored(ids.size());
+      }
+
+      if (notifier != null && !ids.isEmpty())
+         notifier.publishReset(conn, notificationChannel);
+
+      return ids;
+   }
+
+   /**
+    * Escapes a value for use in the text format of the {@code COPY} command.
+    */
+   private static void appendCopyValue(StringBuilder sb, String value)
+   {
+      for (int i = 0; i < value.length(); i++)
+      {
+         char c = value.charAt(i);
+         switch (c)
+         {
+            case '\\':
+               sb.append("\\\\");
+               break;
+            case '\n':
+               sb.append("\\n");
+               break;
+            case '\r':
+               sb.append("\\r");
+               break;
+            case '\t':
+               sb.append("\\t");
+               break;
+            default:
+               sb.append(c);
+         }
+      }
+   }
+
+   /**
+    * Records history and notifies update observers about newly imported records.
+    */
+   private void afterImport(Account account, List<String> ids, BulkImportMonitor monitor)
+   {
+      String actorId = getActorId(account);
+      Instant timestamp = Instant.now();
+
+      int processed = 0;
+      for (int start = 0; start < ids.size(); start += MAX_BATCH_SIZE)
+      {
+         List<String> block = ids.subList(start, Math.min(start + MAX_BATCH_SIZE, ids.size()));
+         Map<String, String> stored = loadStoredJson(block);
+
+         stored.entrySet().parallelStream().forEach(entry -> {
+            DTO dto = parse(entry.getValue());
+            historyWriter.record(actorId, dto);
+
+            ImportEvent event = new ImportEvent(entry.getKey(), account, timestamp, dto);
+            updateObservers.entrySet().forEach(observer -> {
+               try
+               {
+                  observer.getValue().accept(event);
+               }
+               catch (Exception ex)
+               {
+                  String msg = format("Post-commit task {0} failed following import of entry {1}.", observer.getKey(), entry.getKey());
+                  logger.log(Level.WARNING, msg, ex);
+               }
+            });
+         });
+
+         processed += block.size();
+         monitor.processed(processed, ids.size());
+      }
+   }
+
+   /**
+    * @return The id to be used to attribute changes to the supplied account.
+    */
+   private static String getActorId(Account actor)
+   {
+      // HACK FIXME for now, we'll log this as the 'system' user account if no account is supplied.
+      return actor == null ? new UUID(0, 1).toString() : actor.getId().toString();
+   }
+
    private Function<DTO, CompletableFuture<DTO>> makeDeletionExec(String id, CompletableFuture<Boolean> resultFuture)
    {
       // HACK There's a mismatch between the API on the ExecutableUpdateContext and the repo.
@@ -348,56 +773,124 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       return () -> updateObservers.remove(observerId);
    }
 
-   private Future<List<String>> getPageBlock(int offset, int limit)
+   private Future<PagedRecordIterator.JsonPage> getPageBlock(String lastId, int limit)
    {
-
-      return exec.submit((conn) -> getPageBlock(conn, offset, limit));
+      return exec.submit((conn) -> getPageBlock(conn, lastId, limit));
    }
 
-   private List<String> getPageBlock(Connection conn, int offset, int limit) throws InterruptedException
+   private PagedRecordIterator.JsonPage getPageBlock(Connection conn, String lastId, int limit) throws InterruptedException
    {
       if (Thread.interrupted())
          throw new InterruptedException();
 
-      String template = "SELECT data FROM {0} {1} ORDER BY id LIMIT {2} OFFSET {3}";
-      String filterRemoved = "WHERE removed IS NULL";
-      String sql = format(template,
-            tablename,
-            filterRemoved,
-            Integer.toString(limit),
-            Integer.toString(offset));
-
-      List<String> jsonData = new ArrayList<>();
-      try (Statement stmt = conn.createStatement())
+      // NOTE uses keyset pagination (WHERE id > lastId) rather than LIMIT/OFFSET so that
+      //      the cost of retrieving a page does not grow as we move through the table.
+      String sql = lastId == null ? getFirstPageSql : getNextPageSql;
+      try (PreparedStatement ps = conn.prepareStatement(sql))
       {
-         ResultSet rs = stmt.executeQuery(sql);
-         while (rs.next())
+         int ix = 1;
+         if (lastId != null)
+            ps.setString(ix++, lastId);
+         ps.setInt(ix, limit);
+
+         String id = null;
+         List<String> jsonData = new ArrayList<>(limit);
+         try (ResultSet rs = ps.executeQuery())
          {
-            if (Thread.interrupted())
-               throw new InterruptedException();
+            while (rs.next())
+            {
+               if (Thread.interrupted())
+                  throw new InterruptedException();
 
-            PGobject pgo = (PGobject)rs.getObject(DATA);
-            String json = pgo.toString();
-            jsonData.add(json);
+               id = rs.getString("id");
+               PGobject pgo = (PGobject)rs.getObject(DATA);
+               jsonData.add(pgo.toString());
+            }
+         }
+
+         return new PagedRecordIterator.JsonPage(id, jsonData);
+      }
+      catch (SQLException e)
+      {
+         throw new IllegalStateException(format("Failed to retrieve records from {0}.", tablename), e);
+      }
+   }
+
+   private Future<List<String>> getIdPageBlock(String lastId, int limit)
+   {
+      return exec.submit((conn) -> getIdPageBlock(conn, lastId, limit));
+   }
+
+   private List<String> getIdPageBlock(Connection conn, String lastId, int limit) throws InterruptedException
+   {
+      if (Thread.interrupted())
+         throw new InterruptedException();
+
+      String sql = lastId == null ? getFirstIdPageSql : getNextIdPageSql;
+      try (PreparedStatement ps = conn.prepareStatement(sql))
+      {
+         int ix = 1;
+         if (lastId != null)
+            ps.setString(ix++, lastId);
+         ps.setInt(ix, limit);
+
+         List<String> ids = new ArrayList<>(limit);
+         try (ResultSet rs = ps.executeQuery())
+         {
+            while (rs.next())
+            {
+               ids.add(rs.getString("id"));
+            }
          }
 
-         return jsonData;
+         return ids;
       }
       catch (SQLException e)
       {
-         throw new IllegalStateException("Faield to retrieve person.", e);
+         throw new IllegalStateException(format("Failed to retrieve record ids from {0}.", tablename), e);
       }
    }
 
    /**
-    * @return the JSON representation associated with this id.
+    * @return the stored record associated with this id.
     */
    private Optional<DTO> loadStoredRecord(String id) throws RepositoryException
+   {
+      return loadStoredJson(id).map(this::parse);
+   }
+
+   /**
+    * @return the JSON representation associated with this id.
+    */
+   private Optional<String> loadStoredJson(String id) throws RepositoryException
    {
       Future<Optional<String>> future = exec.submit((conn) -> loadJson(conn, id));
+      return unwrap(future, () -> format("Failed to load DTO for entry with id={0}", id));
+   }
+
+   /**
+    * Loads the JSON representation of multiple records within a single database task.
+    *
+    * @param ids The ids of the records to load.
+    * @return A map from record id to JSON. Records that do not exist (or have been removed)
+    *       will not be present in the returned map.
+    */
+   private Map<String, String> loadStoredJson(Collection<String> ids) throws RepositoryException
+   {
+      if (ids.isEmpty())
+         return Collections.emptyMap();
+
+      Future<Map<String, String>> future = exec.submit((conn) -> loadJson(conn, ids));
+      return unwrap(future, () -> format("Failed to load DTOs for {0} entries", Integer.valueOf(ids.size())));
+   }
 
-      Optional<String> json = unwrap(future, () -> format("Failed to load DTO for entry with id={0}", id));
-      return json.map(this::parse);
+   /**
+    * @return the JSON representation and current version of the identified record.
+    */
+   private Optional<VersionedJson> loadStoredVersion(String id) throws RepositoryException
+   {
+      Future<Optional<VersionedJson>> future = exec.submit((conn) -> loadVersionedJson(conn, id));
+      return unwrap(future, () -> format("Failed to load DTO for entry with id={0}", id));
    }
 
    /**
@@ -421,9 +914,7 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
    {
       try
       {
-         ObjectMapper mapper = getObjectMapper();
-
-         return mapper.readValue(json, storageType);
+         return reader.readValue(json);
       }
       catch (IOException ex)
       {
@@ -434,9 +925,7 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
 
    private boolean exists(Connection conn, String id) throws RepositoryException
    {
-      String sql = format(EXISTS_SQL, tablename);
-
-      try (PreparedStatement ps = conn.prepareStatement(sql))
+      try (PreparedStatement ps = conn.prepareStatement(existsSql))
       {
          ps.setString(1, id);
          ResultSet rs = ps.executeQuery();
@@ -514,6 +1003,82 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       }
    }
 
+   private Optional<VersionedJson> loadVersionedJson(Connection conn, String id)
+         throws InterruptedException, RepositoryException
+   {
+      if (Thread.interrupted())
+         throw new InterruptedException();
+
+      try (PreparedStatement ps = conn.prepareStatement(getVersionedRecordSql))
+      {
+         ps.setString(1, id);
+         try (ResultSet rs = ps.executeQuery())
+         {
+            if (!rs.next())
+               return Optional.empty();
+
+            PGobject pgo = (PGobject)rs.getObject(DATA);
+            return Optional.of(new VersionedJson(pgo.toString(), rs.getLong("version")));
+         }
+      }
+      catch (SQLException e)
+      {
+         throw new RepositoryException("Failed to retrieve the record.", e);
+      }
+   }
+
+   /**
+    * Called from within the database executor to retrieve the underlying JSON representation
+    * of multiple items. Ids are bound as an array parameter in blocks of at most
+    * {@link #MAX_BATCH_SIZE} in order to keep individual queries to a reasonable size.
+    *
+    * @param conn
+    * @param ids
+    * @return A map from record id to JSON for all active records that were found.
+    *
+    * @throws RepositoryException If an unknown internal error occurred.
+    * @throws InterruptedException If the execution was interrupted
+    */
+   private Map<String, String> loadJson(Connection conn, Collection<String> ids)
+         throws InterruptedException, RepositoryException
+   {
+      Map<String, String> results = new HashMap<>();
+      List<String> idList = new ArrayList<>(ids);
+      try (PreparedStatement ps = conn.prepareStatement(getActiveRecordsSql))
+      {
+         for (int start = 0; start < idList.size(); start += MAX_BATCH_SIZE)
+         {
+            if (Thread.interrupted())
+               throw new InterruptedException();
+
+            List<String> block = idList.subList(start, Math.min(start + MAX_BATCH_SIZE, idList.size()));
+            Array param = conn.createArrayOf("varchar", block.toArray());
+            try
+            {
+               ps.setArray(1, param);
+               try (ResultSet rs = ps.executeQuery())
+               {
+                  while (rs.next())
+                  {
+                     PGobject pgo = (PGobject)rs.getObject(DATA);
+                     results.put(rs.getString("id"), pgo.toString());
+                  }
+               }
+            }
+            finally
+            {
+               param.free();
+            }
+         }
+
+         return results;
+      }
+      catch (SQLException e)
+      {
+         throw new RepositoryException("Failed to retrieve records.", e);
+      }
+   }
+
    private CompletableFuture<DTO> doCreate(String id, DTO record)
    {
       return exec.submit((conn) -> {
@@ -529,6 +1094,7 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
                throw new IllegalStateException("Failed to create record for id [" + id + "]. Unexpected number of rows updates [" + ct + "]");
 
             cache.invalidate(id);
+            publishChange(conn, id);
          }
          catch (IOException e)
          {
@@ -549,6 +1115,7 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
             ps.setString(1, id);
             int ct = ps.executeUpdate();
             cache.invalidate(id);
+            publishChange(conn, id);
             return Boolean.valueOf(ct == 1);
          }
          catch (SQLException e)
@@ -559,19 +1126,23 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       });
    }
 
-   private CompletableFuture<DTO> doEdit(String id, DTO record)
+   private CompletableFuture<DTO> doEdit(String id, DTO record, long version)
    {
       return exec.submit((conn) -> {
          try (PreparedStatement ps = conn.prepareStatement(updateRecordSql))
          {
             ps.setObject(1, asJson(record));
             ps.setString(2, id);
+            ps.setLong(3, version);
 
             int ct = ps.executeUpdate();
+            if (ct == 0 && exists(conn, id))
+               throw new RecordConflictException(id, version);
             if (ct != 1)
                throw new IllegalStateException("Failed to update record for id [" + id + "]. Unexpected number of rows updates [" + ct + "]");
 
             cache.invalidate(id);
+            publishChange(conn, id);
             return record;
          }
          catch (IOException e)
@@ -583,8 +1154,7 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
 
    private PGobject asJson(DTO record) throws JsonProcessingException, SQLException
    {
-      ObjectMapper mapper = getObjectMapper();
-      String entryJson = mapper.writeValueAsString(record);
+      String entryJson = writer.writeValueAsString(record);
 
       PGobject json = new PGobject();
       json.setType("json");
@@ -592,13 +1162,6 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       return json;
    }
 
-   private ObjectMapper getObjectMapper()
-   {
-      ObjectMapper mapper = new ObjectMapper();
-      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-      return mapper;
-   }
-
 //   public class UpdateContextState
 //   {
 //      public UpdateStatus status;
@@ -660,7 +1223,7 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       private final Optional<DTO> initial;
 
       // execution phase
-      private final CompletableFuture<Optional<DTO>> original = new CompletableFuture<>();
+      private volatile CompletableFuture<Optional<DTO>> original = new CompletableFuture<>();
 
       // post-commit phase
       private Instant timestamp = null;
@@ -730,6 +1293,28 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
          }
       }
 
+      /**
+       * Reloads the original state of the record following a conflicting update so that
+       * the changes made by this update can be re-applied.
+       */
+      private void reloadOriginal()
+      {
+         CompletableFuture<Optional<DTO>> reloaded = new CompletableFuture<>();
+         try
+         {
+            reloaded.complete(supplier.get());
+         }
+         catch (Exception ex)
+         {
+            reloaded.completeExceptionally(ex);
+         }
+
+         synchronized (this)
+         {
+            original = reloaded;
+         }
+      }
+
       private void finish()
       {
          transitionState(UpdateStatus.INPROGRESS, UpdateStatus.COMPLETED, "Cannot finish update.");
@@ -802,6 +1387,12 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
                      "The original representation of this entry is not available. The update has not yet started.");
          }
 
+         CompletableFuture<Optional<DTO>> original;
+         synchronized (this)
+         {
+            original = this.original;
+         }
+
          try
          {
             return original.get(time, units);
@@ -868,10 +1459,32 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       @Override
       public CompletableFuture<DTO> update(Function<DTO, DTO> generator)
       {
-         // TODO this is not thread confined. Could have conflicting values for original.
+         // NOTE edits are applied using optimistic concurrency control. If the record is
+         //      modified by a concurrent update, the original state is reloaded and the
+         //      generator is re-applied to it (see #execute).
          markSubmitted();
          start();
 
+         CompletableFuture<DTO> result = new CompletableFuture<>();
+         execute(generator, MAX_UPDATE_ATTEMPTS, result);
+
+         // fire post-commit hooks]
+         result
+            .thenRun(() -> timestamp = Instant.now())
+            .thenRunAsync(this::firePostCommitTasks)
+            .thenRun(this::finish);
+
+         return result;
+      }
+
+      /**
+       * Applies the supplied generator to the original state of the record and stores the
+       * result. If the store fails due to a conflicting update, the original state is
+       * reloaded and the update is re-attempted. Pre-commit tasks are run prior to each
+       * attempt so that they always observe the original state that will be modified.
+       */
+      private void execute(Function<DTO, DTO> generator, int attemptsRemaining, CompletableFuture<DTO> result)
+      {
          try
          {
             preCommitTasks.entrySet().parallelStream()
@@ -884,39 +1497,59 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
             logger.log(Level.WARNING, msg, ex);
 
             addError(msg);
-            CompletableFuture<DTO> failure = new CompletableFuture<>();
-            failure.completeExceptionally(ex);
-            return failure;
+            modified.completeExceptionally(ex);
+            result.completeExceptionally(ex);
+            return;
          }
 
-         DTO orig = cmdFactory.initialize(getId(), getOriginal());
-         DTO dto = generator.apply(orig);
-         modified.complete(dto);
-         CompletableFuture<DTO> result = exec.apply(dto);
+         DTO dto;
+         try
+         {
+            DTO orig = cmdFactory.initialize(getId(), getOriginal());
+            dto = generator.apply(orig);
+         }
+         catch (Exception ex)
+         {
+            modified.completeExceptionally(ex);
+            result.completeExceptionally(ex);
+            return;
+         }
 
-         // fire post-commit hooks]
-         result
-            .thenRun(() -> timestamp = Instant.now())
-            .thenRunAsync(this::firePostCommitTasks)
-            .thenRun(this::finish);
+         // NOTE continue asynchronously in order to avoid reloading the original state on
+         //      a database executor thread.
+         exec.apply(dto).whenCompleteAsync((stored, ex) -> {
+            Throwable cause = unwrapCause(ex);
+            if (cause instanceof RecordConflictException && attemptsRemaining > 1)
+            {
+               logger.fine(() -> format("Retrying update {0} of entry {1} following a conflicting update.", getUpdateId(), getId()));
+               reloadOriginal();
+               execute(generator, attemptsRemaining - 1, result);
+               return;
+            }
 
-         return result;
+            modified.complete(dto);
+            if (cause == null)
+               result.complete(stored);
+            else
+               result.completeExceptionally(cause);
+         });
       }
 
       private void firePostCommitTasks()
       {
-         // HACK FIXME for now, we'll log this as the 'system' user account if no account is supplied.
-         String actorId = actor == null ? new UUID(0, 1).toString() : actor.getId().toString();
+         String actorId = getActorId(actor);
 
          EntryUpdateEventAdapter event = new EntryUpdateEventAdapter(this);
-         
+
+         // NOTE history is written in the background so that observers (e.g., search
+         //      indexing) are not delayed while the change is recorded.
          switch (action)
          {
             case REMOVE:
-               javers.commitShallowDelete(actorId, getModified());
+               historyWriter.recordDelete(actorId, getModified());
                break;
             default:
-               javers.commit(actorId, getModified());
+               historyWriter.record(actorId, getModified());
                break;
          }
          
@@ -948,6 +1581,29 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       }
    }
 
+   private static Throwable unwrapCause(Throwable ex)
+   {
+      Throwable cause = ex;
+      while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null)
+      {
+         cause = cause.getCause();
+      }
+
+      return cause;
+   }
+
+   private static class VersionedJson
+   {
+      private final String json;
+      private final long version;
+
+      private VersionedJson(String json, long version)
+      {
+         this.json = json;
+         this.version = version;
+      }
+   }
+
 	/**
     *  Wraps an UpdateContextImpl in order to support the {@link RecordUpdateEvent} API.
     */
@@ -1007,4 +1663,66 @@ public class PsqlJacksonRepo<RecordType, DTO, EditCommandType> implements Docume
       }
 
    }
+
+   /**
+    * Describes the creation of a record by a bulk import.
+    */
+   private class ImportEvent implements RecordUpdateEvent<RecordType>
+   {
+      private final UUID updateId = UUID.randomUUID();
+      private final String id;
+      private final Account actor;
+      private final Instant timestamp;
+      private final DTO record;
+
+      private ImportEvent(String id, Account actor, Instant timestamp, DTO record)
+      {
+         this.id = id;
+         this.actor = actor;
+         this.timestamp = timestamp;
+         this.record = record;
+      }
+
+      @Override
+      public String getRecordId()
+      {
+         return id;
+      }
+
+      @Override
+      public UUID getUpdateId()
+      {
+         return updateId;
+      }
+
+      @Override
+      public UpdateActionType getUpdateType()
+      {
+         return UpdateActionType.CREATE;
+      }
+
+      @Override
+      public Instant getTimestamp()
+      {
+         return timestamp;
+      }
+
+      @Override
+      public Account getActor()
+      {
+         return actor;
+      }
+
+      @Override
+      public Optional<RecordType> getOriginalRecord()
+      {
+         return Optional.empty();
+      }
+
+      @Override
+      public Optional<RecordType> getUpdatedRecord()
+      {
+         return Optional.of(adapter.apply(record));
+      }
+   }
 }
@@ -59,9 +59,12 @@ public class PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> implem
                + "  removed TIMESTAMP DEFAULT NULL,"
                + "  date_created TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,"
                + "  last_modified TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,"
+               + "  version BIGINT NOT NULL DEFAULT 0,"
                + "  CONSTRAINT {1}_pkey PRIMARY KEY (id)"
                + ")";
 
+   private final static String ADD_VERSION_SQL = "ALTER TABLE {0} ADD COLUMN version BIGINT NOT NULL DEFAULT 0";
+
    private static final Logger logger = Logger.getLogger(PsqlJacksonRepoBuilder.class.getName());
 
    private SqlExecutor exec;
@@ -71,8 +74,11 @@ public class PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> implem
    private Function<StorageType, RecordType> adapter;
    private EditCommandFactory<StorageType, EditCmdType> cmdFactory;
    private Class<StorageType> storageType;
+   private ObjectMapper mapper;
+   private RecordCachePolicy cachePolicy = RecordCachePolicy.defaultPolicy();
 
    private JaversProvider jvsProvider;
+   private PsqlChangeNotifier notifier;
 
    public PsqlJacksonRepoBuilder()
    {
@@ -104,6 +110,20 @@ public class PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> implem
       return this;
    }
 
+   /**
+    * Optional method to supply a notifier used to keep record caches consistent across
+    * multiple application nodes that share the same database. If supplied, the repository
+    * will announce changes to its records and will invalidate cached records that are
+    * modified by other nodes.
+    *
+    * @param notifier The change notifier.
+    */
+   public PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> setChangeNotifier(PsqlChangeNotifier notifier)
+   {
+      this.notifier = notifier;
+      return this;
+   }
+
    @Override
    public PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> setPersistenceId(String tablename)
    {
@@ -118,6 +138,33 @@ public class PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> implem
       return this;
    }
 
+   /**
+    * Optional method to supply the Jackson {@link ObjectMapper} used to configure JSON
+    * serialization for the storage type. The mapper is used to create a single reader and
+    * writer bound to the storage type when the repository is built; subsequent changes to
+    * the mapper's configuration will not be reflected by the repository. If not supplied, a
+    * default mapper that ignores unknown properties will be used.
+    *
+    * @param mapper The object mapper to use.
+    */
+   public PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> setObjectMapper(ObjectMapper mapper)
+   {
+      this.mapper = mapper;
+      return this;
+   }
+
+   /**
+    * Optional method to configure how the built repository caches records. If not supplied,
+    * {@link RecordCachePolicy#defaultPolicy()} will be used.
+    *
+    * @param policy The cache policy to use.
+    */
+   public PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> setCachePolicy(RecordCachePolicy policy)
+   {
+      this.cachePolicy = policy;
+      return this;
+   }
+
    @Override
    public PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> setDataAdapter(Function<StorageType, RecordType> adapter)
    {
@@ -138,6 +185,8 @@ public class PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> implem
       if (!this.exists() && enableCreation)
          this.create();
 
+      addVersionColumn();
+
       PsqlJacksonRepo<RecordType, StorageType, EditCmdType> repo = new PsqlJacksonRepo<>();
       repo.setSqlExecutor(exec);
       repo.setJaversProvider(jvsProvider);
@@ -145,6 +194,9 @@ public class PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> implem
       repo.setCommandFactory(cmdFactory);
       repo.setAdapter(adapter);
       repo.setStorageType(storageType);
+      repo.setObjectMapper(mapper);
+      repo.setCachePolicy(cachePolicy);
+      repo.setChangeNotifier(notifier);
 
       repo.activate();
 
@@ -250,6 +302,44 @@ public class PsqlJacksonRepoBuilder<RecordType, StorageType, EditCmdType> implem
       return unwrap(result, () -> format("Failed to create database table\n{0}", sql)).booleanValue();
    }
 
+   /**
+    * Adds the {@code version} column used for optimistic concurrency control to tables that
+    * were created before it was introduced.
+    */
+   private void addVersionColumn() throws RepositoryException
+   {
+      Future<Boolean> result = exec.submit(conn -> {
+         if (!tableExists(conn, tablename) || hasColumn(conn, "version"))
+            return Boolean.FALSE;
+
+         logger.log(Level.INFO, format("Adding version column to database table {0}.", tablename));
+         try (Statement stmt = conn.createStatement())
+         {
+            stmt.executeUpdate(format(ADD_VERSION_SQL, tablename));
+         }
+
+         return Boolean.TRUE;
+      });
+
+      unwrap(result, () -> format("Failed to add version column to database table {0}.", tablename));
+   }
+
+   private boolean hasColumn(Connection conn, String column) throws SQLException
+   {
+      // NOTE tables with the same name may exist in other schemas; only consider the schema
+      //      in which unqualified table names used by the repository will be created
+      String sql = "SELECT 1 FROM information_schema.columns"
+            + " WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?";
+      try (PreparedStatement stmt = conn.prepareStatement(sql))
+      {
+         stmt.setString(1, tablename);
+         stmt.setString(2, column);
+
+         ResultSet rs = stmt.executeQuery();
+         return rs.next();
+      }
+   }
+
    // TODO truncate, drop?
 
    private Boolean createTable(Connection conn, String sql) throws RepositoryException, SQLException
@@ -0,0 +1,178 @@
+package edu.tamu.tcat.trc.repo.postgres;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+
+/**
+ * Defines how a {@link PsqlJacksonRepo} caches the records it has loaded. A policy is
+ * supplied to the repository via {@link PsqlJacksonRepoBuilder#setCachePolicy(RecordCachePolicy)}
+ * and is read once when the repository is built.
+ *
+ * <p>The cache may be bounded either by the number of records it holds
+ * ({@link #setMaximumSize(long)}) or by the approximate size of the stored JSON representation
+ * of those records ({@link #setMaximumWeight(long)}), but not by both. The length of the JSON
+ * string (in characters) is used as an estimate of the memory consumed by a cached record.
+ *
+ * <p>Statistics about cache usage (hits, misses, load times and evictions) are recorded for
+ * all enabled caches and are available via {@link PsqlJacksonRepo#getCacheStats()}.
+ */
+public class RecordCachePolicy
+{
+   public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+   public static final long DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES = 10;
+
+   private boolean enabled = true;
+   private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+   private long maximumWeight = -1;
+   private long expireAfterAccess = TimeUnit.MINUTES.toNanos(DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES);
+   private long refreshAfterWrite = -1;
+   private boolean softValues = false;
+
+   /**
+    * @return A policy that holds up to {@value #DEFAULT_MAXIMUM_SIZE} records and expires
+    *       records that have not been accessed for 10 minutes.
+    */
+   public static RecordCachePolicy defaultPolicy()
+   {
+      return new RecordCachePolicy();
+   }
+
+   /**
+    * @return A policy that disables caching. All requests for records will be loaded
+    *       from the database.
+    */
+   public static RecordCachePolicy disabled()
+   {
+      RecordCachePolicy policy = new RecordCachePolicy();
+      policy.enabled = false;
+      return policy;
+   }
+
+   /**
+    * @param size The maximum number of records to be retained. Clears any previously
+    *       configured maximum weight.
+    */
+   public RecordCachePolicy setMaximumSize(long size)
+   {
+      if (size < 0)
+         throw new IllegalArgumentException("The maximum cache size must not be negative");
+
+      this.maximumSize = size;
+      this.maximumWeight = -1;
+      return this;
+   }
+
+   /**
+    * @param bytes The maximum total length of the JSON representations of the records to
+    *       be retained. Clears any previously configured maximum size.
+    */
+   public RecordCachePolicy setMaximumWeight(long bytes)
+   {
+      if (bytes < 0)
+         throw new IllegalArgumentException("The maximum cache weight must not be negative");
+
+      this.maximumWeight = bytes;
+      this.maximumSize = -1;
+      return this;
+   }
+
+   /**
+    * @param duration The length of time after which a record that has not been accessed
+    *       will be removed from the cache. Use a negative value to disable access-based
+    *       expiration.
+    * @param unit The unit of the supplied duration.
+    */
+   public RecordCachePolicy setExpireAfterAccess(long duration, TimeUnit unit)
+   {
+      this.expireAfterAccess = duration < 0 ? -1 : unit.toNanos(duration);
+      return this;
+   }
+
+   /**
+    * @param duration The length of time after which a cached record will be reloaded from
+    *       the database the next time it is requested. Use a negative value to disable
+    *       refreshing.
+    * @param unit The unit of the supplied duration.
+    */
+   public RecordCachePolicy setRefreshAfterWrite(long duration, TimeUnit unit)
+   {
+      this.refreshAfterWrite = duration < 0 ? -1 : unit.toNanos(duration);
+      return this;
+   }
+
+   /**
+    * @param softValues {@code true} if cached records should be held by soft references
+    *       allowing them to be reclaimed by the garbage collector in response to memory
+    *       pressure.
+    */
+   public RecordCachePolicy setSoftValues(boolean softValues)
+   {
+      this.softValues = softValues;
+      return this;
+   }
+
+   public boolean isEnabled()
+   {
+      return enabled;
+   }
+
+   /**
+    * Builds a cache that conforms to this policy.
+    *
+    * @param loader Used to load values that are not present in the cache.
+    * @param weigher Used to compute the weight of cached values if this policy is bounded
+    *       by weight.
+    * @return The configured cache.
+    */
+   <K, V> LoadingCache<K, V> build(CacheLoader<K, V> loader, Weigher<K, V> weigher)
+   {
+      CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+      if (!enabled)
+      {
+         // NOTE a size of zero causes records to be evicted immediately after being loaded
+         return builder.maximumSize(0).build(loader);
+      }
+
+      recordStats(builder);
+      if (expireAfterAccess >= 0)
+         builder.expireAfterAccess(expireAfterAccess, TimeUnit.NANOSECONDS);
+      if (refreshAfterWrite > 0)
+         builder.refreshAfterWrite(refreshAfterWrite, TimeUnit.NANOSECONDS);
+      if (softValues)
+         builder.softValues();
+
+      if (maximumWeight >= 0)
+         return builder.maximumWeight(maximumWeight).weigher(weigher).build(loader);
+
+      if (maximumSize >= 0)
+         builder.maximumSize(maximumSize);
+
+      return builder.build(loader);
+   }
+
+   /**
+    * Enables the collection of statistics by the supplied builder.
+    */
+   private static void recordStats(CacheBuilder<?, ?> builder)
+   {
+      // NOTE Guava 11 always records statistics, but later versions (which satisfy this
+      //      bundle's Import-Package range) do so only if requested using recordStats(),
+      //      which is not available to compile against.
+      try
+      {
+         CacheBuilder.class.getMethod("recordStats").invoke(builder);
+      }
+      catch (NoSuchMethodException ex)
+      {
+         // statistics are recorded by default
+      }
+      catch (ReflectiveOperationException ex)
+      {
+         throw new IllegalStateException("Failed to enable cache statistics.", ex);
+      }
+   }
+}
@@ -8,7 +8,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +25,13 @@ public class DbBackedObfuscatingIdFactoryProvider implements IdFactoryProvider
    private final static Logger logger = Logger.getLogger(DbBackedObfuscatingIdFactoryProvider.class.getName());
 
    public final static String PROP_GRANT_SIZE = "grant_size";
+   public final static String PROP_MAX_GRANT_SIZE = "max_grant_size";
+
+   /** Grants that are consumed faster than this will cause the grant size to be increased. */
+   private final static long FAST_GRANT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+   /** Grants that take longer than this to consume will cause the grant size to be decreased. */
+   private final static long SLOW_GRANT_NANOS = TimeUnit.MINUTES.toNanos(5);
 
    // note - These are currently configured through the OSGi registration process because they
    //        should not change after deployment. Changes to these values will result in conflicts
@@ -35,6 +46,7 @@ public class DbBackedObfuscatingIdFactoryProvider implements IdFactoryProvider
    private SqlExecutor exec;
    private IdObfuscator obfuscator;
    private int grantSize;
+   private int maxGrantSize;
 
    public DbBackedObfuscatingIdFactoryProvider()
    {
@@ -79,6 +91,7 @@ public class DbBackedObfuscatingIdFactoryProvider implements IdFactoryProvider
       Objects.requireNonNull(exec, "SqlExecutor not available.");
 
       grantSize = getProperty(props, PROP_GRANT_SIZE, Integer.valueOf(20)).intValue();
+      maxGrantSize = Math.max(grantSize, getProperty(props, PROP_MAX_GRANT_SIZE, Integer.valueOf(10_000)).intValue());
 
       boolean obfuscate = getProperty(props, PROP_ENABLE_OBFUSCATION, Boolean.FALSE).booleanValue();
       if (obfuscate)
@@ -104,12 +117,7 @@ public class DbBackedObfuscatingIdFactoryProvider implements IdFactoryProvider
       logger.fine(() -> format("Retriving IdFactory for context '{0}'", context));
       return () ->
       {
-         if (!generators.contains(context))
-         {
-            generators.putIfAbsent(context, new IdGenerator(context));
-         }
-
-         long id = generators.get(context).next();
+         long id = generators.computeIfAbsent(context, IdGenerator::new).next();
          String result = obfuscate(id);
 
          logger.fine(() -> format("Genereated id '{0}' for context '{1}'", Long.valueOf(id), context));
@@ -122,54 +130,139 @@ public class DbBackedObfuscatingIdFactoryProvider implements IdFactoryProvider
       return obfuscator == null ? Long.toString(id) : obfuscator.encode(id);
    }
 
-   private final class GrantProvider
+   /**
+    * Issues ids for a single context from grants retrieved from the database. Ids are
+    * issued from the current grant without locking. Once the remaining ids in the current
+    * grant fall below a low-water mark, the next grant is requested in the background so
+    * that callers do not need to wait on the database when the current grant is exhausted.
+    *
+    * <p>The size of requested grants adapts to the rate at which ids are consumed. Grants
+    * that are exhausted quickly cause the grant size to be doubled (up to the configured
+    * maximum) while grants that are consumed slowly cause it to be halved (down to the
+    * configured grant size). Note that any ids remaining in a grant are discarded when the
+    * application is shut down.
+    */
+   private class IdGenerator
    {
       private final String context;
 
-      public GrantProvider(String ctx)
+      private volatile IdBlock current;
+      private final AtomicReference<CompletableFuture<IdGrant>> pending = new AtomicReference<>();
+      private volatile int size = grantSize;
+
+      public IdGenerator(String context)
+      {
+         this.context = context;
+      }
+
+      public long next()
+      {
+         while (true)
+         {
+            IdBlock block = current;
+            if (block != null)
+            {
+               long id = block.next.getAndIncrement();
+               if (id <= block.limit)
+               {
+                  // NOTE only one caller will observe the low-water mark for a given block
+                  if (block.limit - id == block.lowWaterMark)
+                     prefetch();
+
+                  return id;
+               }
+            }
+
+            advance(block);
+         }
+      }
+
+      /**
+       * Starts retrieval of the next grant if it has not already been requested.
+       */
+      private CompletableFuture<IdGrant> prefetch()
       {
-         context = ctx;
+         CompletableFuture<IdGrant> future = pending.get();
+         if (future != null)
+            return future;
+
+         CompletableFuture<IdGrant> request = new CompletableFuture<>();
+         if (!pending.compareAndSet(null, request))
+            return pending.get();
+
+         exec.submit(new GetIdGrantTask(context, size))
+            .whenComplete((grant, ex) -> {
+               if (ex != null)
+                  request.completeExceptionally(ex);
+               else
+                  request.complete(grant);
+            });
+
+         return request;
       }
 
-      public IdGrant requestIdGrant() // throws IdGrantCreationException
+      /**
+       * Replaces the exhausted block with the next grant. This will wait for the next grant
+       * only if it has not been retrieved by the time the current block is exhausted.
+       */
+      private synchronized void advance(IdBlock exhausted)
       {
+         if (current != exhausted)
+            return;        // another thread has already advanced
+
+         CompletableFuture<IdGrant> future = prefetch();
+         IdGrant grant;
          try
          {
-            GetIdGrantTask task = new GetIdGrantTask(context, grantSize);
-            IdGrant idGrant = exec.submit(task).get();
-            return idGrant;
+            grant = future.get();
          }
          catch (Exception e)
          {
             throw new IllegalStateException("Failed to generate id grant for context [" + context + "]", e);
          }
-      }
-   }
-
-   private class IdGenerator
-   {
-      private final GrantProvider grantProvider;
-      private IdGrant grant;
+         finally
+         {
+            pending.compareAndSet(future, null);
+         }
 
-      public long nextId = 0;
+         if (exhausted != null)
+            adjustGrantSize(System.nanoTime() - exhausted.created);
 
-      public IdGenerator(String context)
-      {
-         grantProvider = new GrantProvider(context);
+         current = new IdBlock(grant);
       }
 
-      public synchronized long next()
+      private void adjustGrantSize(long elapsed)
       {
-         if (grant == null || this.nextId > grant.limit)
-            renewGrant();
+         int adjusted = size;
+         if (elapsed < FAST_GRANT_NANOS)
+            adjusted = Math.min(size * 2, maxGrantSize);
+         else if (elapsed > SLOW_GRANT_NANOS)
+            adjusted = Math.max(size / 2, grantSize);
 
-         return this.nextId++;
+         if (adjusted != size)
+         {
+            int newSize = adjusted;
+            logger.fine(() -> format("Adjusting id grant size for context '{0}' to {1}", context, Integer.valueOf(newSize)));
+            size = adjusted;
+         }
       }
+   }
+
+   /**
+    * The ids available from a single grant.
+    */
+   private static class IdBlock
+   {
+      private final AtomicLong next;
+      private final long limit;
+      private final long lowWaterMark;
+      private final long created = System.nanoTime();
 
-      private void renewGrant()
+      IdBlock(IdGrant grant)
       {
-         grant = grantProvider.requestIdGrant();
-         this.nextId = grant.initial;
+         next = new AtomicLong(grant.initial);
+         limit = grant.limit;
+         lowWaterMark = Math.max(1, (grant.limit - grant.initial) / 4);
       }
    }
 
@@ -0,0 +1,222 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.schema.SchemaRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.apache.solr.common.params.ModifiableSolrParams;
+
+/**
+ * Utilities for constructing and combining Solr atomic update documents. An atomic update
+ * document contains the id of an indexed document along with {@code set} operations for
+ * the fields whose values should be replaced. Fields that are not mentioned retain their
+ * current values.
+ *
+ * <p>Note that atomic updates require that all fields in the Solr schema be stored (or
+ * have doc values) so that Solr can reconstruct the unchanged portion of the document.
+ * Applying an atomic update to a document that has not been indexed creates a document
+ * that contains only the updated fields. Consequently, atomic updates must be enabled
+ * explicitly for each core (see {@link BasicSearchSvcMgr}) and the core's schema is checked
+ * using {@link #findUnstoredFields(SolrClient)} before they are used.
+ */
+public final class AtomicUpdates
+{
+   /** The name of the field used as the unique key for all TRC Solr cores. */
+   public static final String ID_FIELD = "id";
+
+   public static final String SET = "set";
+
+   private AtomicUpdates()
+   {
+   }
+
+   /**
+    * Computes the atomic update required to change an indexed document from the original
+    * state to the modified state.
+    *
+    * @param original The document as it is currently indexed.
+    * @param modified The document that should be indexed.
+    * @return An atomic update document that sets all fields that differ between the two
+    *       documents or {@code null} if the documents are equivalent.
+    */
+   public static SolrInputDocument diff(SolrInputDocument original, SolrInputDocument modified)
+   {
+      SolrInputDocument update = create(modified);
+      for (SolrInputField field : modified)
+      {
+         String name = field.getName();
+         if (ID_FIELD.equals(name))
+            continue;
+
+         if (!Objects.equals(valuesOf(original.getField(name)), valuesOf(field)))
+            set(update, name, field.getValues());
+      }
+
+      for (SolrInputField field : original)
+      {
+         // fields that are no longer present must be removed
+         if (modified.getField(field.getName()) == null)
+            set(update, field.getName(), null);
+      }
+
+      return update.size() > 1 ? update : null;
+   }
+
+   /**
+    * Creates an empty atomic update document for the supplied document.
+    *
+    * @param document The document to be updated.
+    * @return An update document containing only the id of the supplied document.
+    */
+   public static SolrInputDocument create(SolrInputDocument document)
+   {
+      Object id = document.getFieldValue(ID_FIELD);
+      if (id == null)
+         throw new IllegalArgumentException("Cannot update a document without an id");
+
+      SolrInputDocument update = new SolrInputDocument();
+      update.setField(ID_FIELD, id);
+      return update;
+   }
+
+   /**
+    * Adds an operation to the supplied atomic update that replaces the values of the named
+    * field.
+    *
+    * @param update The update document to modify.
+    * @param name The name of the field to set.
+    * @param values The new values for the field. May be {@code null} to remove the field.
+    */
+   public static void set(SolrInputDocument update, String name, Collection<Object> values)
+   {
+      Map<String, Object> op = new HashMap<>();
+      op.put(SET, values == null ? null : new ArrayList<>(values));
+      update.setField(name, op);
+   }
+
+   /**
+    * @param document The document to test.
+    * @return {@code true} if the supplied document is an atomic update rather than a
+    *       complete document.
+    */
+   public static boolean isPartial(SolrInputDocument document)
+   {
+      for (SolrInputField field : document)
+      {
+         if (field.getValue() instanceof Map)
+            return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * Combines an update with an earlier update to the same document that has not yet been
+    * sent to Solr. If the earlier update is a complete document, the changes are applied
+    * to that document. Otherwise, the operations are combined with those of the supplied
+    * update taking precedence.
+    *
+    * @param pending The earlier update.
+    * @param update An atomic update to apply after the earlier update.
+    * @return A single document equivalent to applying both updates in order.
+    */
+   public static SolrInputDocument merge(SolrInputDocument pending, SolrInputDocument update)
+   {
+      boolean partial = isPartial(pending);
+      SolrInputDocument merged = pending.deepCopy();
+      for (SolrInputField field : update)
+      {
+         String name = field.getName();
+         if (ID_FIELD.equals(name))
+            continue;
+
+         if (partial)
+         {
+            merged.setField(name, field.getValue());
+            continue;
+         }
+
+         merged.removeField(name);
+         Object value = field.getValue();
+         Object values = (value instanceof Map) ? ((Map<?, ?>)value).get(SET) : value;
+         if (values instanceof Collection)
+            ((Collection<?>)values).forEach(v -> merged.addField(name, v));
+         else if (values != null)
+            merged.addField(name, values);
+      }
+
+      return merged;
+   }
+
+   /**
+    * Retrieves the schema of a Solr core and identifies the fields whose values would be
+    * lost if a document were modified using an atomic update. These are fields that are
+    * neither stored nor have doc values that can be used in place of stored values. The
+    * destinations of copy fields, whose values are regenerated by Solr, and internal fields
+    * such as {@code _version_} are not considered.
+    *
+    * @param solr A client for the core to check.
+    * @return The names of any (static or dynamic) fields that do not support atomic
+    *       updates. Will be empty if all fields support atomic updates.
+    * @throws SearchException If the schema could not be retrieved.
+    */
+   public static List<String> findUnstoredFields(SolrClient solr) throws SearchException
+   {
+      try
+      {
+         // NOTE showDefaults includes the properties inherited from each field's type
+         ModifiableSolrParams params = new ModifiableSolrParams();
+         params.set("showDefaults", true);
+
+         List<Map<String, Object>> fields = new ArrayList<>();
+         fields.addAll(new SchemaRequest.Fields(params).process(solr).getFields());
+         fields.addAll(new SchemaRequest.DynamicFields(params).process(solr).getDynamicFields());
+
+         Set<String> copyTargets = new SchemaRequest.CopyFields().process(solr).getCopyFields().stream()
+               .map(copyField -> String.valueOf(copyField.get("dest")))
+               .collect(Collectors.toSet());
+
+         return fields.stream()
+               .filter(field -> !isStored(field))
+               .map(field -> String.valueOf(field.get("name")))
+               .filter(name -> !copyTargets.contains(name))
+               .filter(name -> !(name.startsWith("_") && name.endsWith("_")))
+               .collect(Collectors.toList());
+      }
+      catch (IOException | SolrServerException | RuntimeException ex)
+      {
+         throw new SearchException("Failed to retrieve the schema of the Solr core.", ex);
+      }
+   }
+
+   private static boolean isStored(Map<String, Object> field)
+   {
+      boolean docValuesAsStored = !"false".equals(String.valueOf(field.get("useDocValuesAsStored")));
+      return isTrue(field.get("stored")) || (isTrue(field.get("docValues")) && docValuesAsStored);
+   }
+
+   private static boolean isTrue(Object value)
+   {
+      return value != null && Boolean.parseBoolean(value.toString());
+   }
+
+   private static List<Object> valuesOf(SolrInputField field)
+   {
+      if (field == null || field.getValueCount() == 0)
+         return Collections.emptyList();
+
+      return new ArrayList<>(field.getValues());
+   }
+}
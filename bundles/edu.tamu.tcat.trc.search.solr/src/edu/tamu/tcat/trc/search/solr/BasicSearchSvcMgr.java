@@ -4,9 +4,18 @@ import static java.text.MessageFormat.format;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,12 +23,11 @@ import java.util.stream.Collectors;
 
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.response.QueryResponse;
-import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
-import org.apache.solr.common.util.NamedList;
 
 import edu.tamu.tcat.osgi.config.ConfigurationProperties;
 
@@ -38,8 +46,40 @@ import edu.tamu.tcat.osgi.config.ConfigurationProperties;
  *
  *   <dt>trc.search.solr.password</dt>
  *   <dd></dd>
+ *
+ *   <dt>trc.search.solr.commitwithin{=1000}</dt>
+ *   <dd>The maximum time (in milliseconds) before updates to an index become visible to
+ *       searchers.</dd>
+ *
+ *   <dt>trc.search.solr.queue.capacity{=10000}</dt>
+ *   <dd>The maximum number of pending updates for each core. Clients that attempt to
+ *       update the index while the queue is full will block until space is available.</dd>
+ *
+ *   <dt>trc.search.solr.querycache.entries{=500}</dt>
+ *   <dd>The maximum number of parsed query results to cache for each core. Use 0 to
+ *       disable the query result cache.</dd>
+ *
+ *   <dt>trc.search.solr.querycache.bytes{=16777216}</dt>
+ *   <dd>The maximum estimated size (in bytes) of the parsed query results cached for
+ *       each core.</dd>
+ *
+ *   <dt>trc.search.solr.querycache.maxage{=60000}</dt>
+ *   <dd>The maximum time (in milliseconds) that a parsed query result will be cached.</dd>
+ *
+ *   <dt>trc.search.solr.embedded.home</dt>
+ *   <dd>The path to a Solr home directory. If supplied, an in-process Solr instance
+ *       loaded from this directory is used in place of the server identified by
+ *       {@code trc.search.solr.url}. Requires that the Solr core libraries be available
+ *       at runtime.</dd>
+ *
+ *   <dt>trc.search.solr.embedded.configset</dt>
+ *   <dd>The name of a config set within the embedded Solr home that will be used to
+ *       create cores that do not yet exist.</dd>
  * </dl>
  *
+ * <p>Connection pool sizes, timeouts and per-core request limits for the Solr server are
+ * described by {@link SolrHttpClientPool}.
+ *
  * <p>Solr organizes it's search indices into different cores. The TRC {@link IndexService}
  * identifies the Solr core to be used based on the logical identifier supplied by
  *
@@ -51,6 +91,12 @@ import edu.tamu.tcat.osgi.config.ConfigurationProperties;
  *
  *   <dt>trc.search.solr.cores.{coreId}.enabled={true}</dt>
  *   <dd></dd>
+ *
+ *   <dt>trc.search.solr.cores.{coreId}.atomicupdates={false}</dt>
+ *   <dd>Indicates whether modified entries should be indexed using atomic updates that
+ *       send only changed fields. Atomic updates require that all fields in the core's
+ *       schema be stored. The schema is checked when the core is first used and atomic
+ *       updates are disabled if this requirement is not met.</dd>
  * </dl>
  * <p>The core key will be used to lookup configuration properties.
  *
@@ -64,9 +110,23 @@ public class BasicSearchSvcMgr implements SearchServiceManager
    public static final String SOLR_ENABLED = "trc.search.solr.enabled";
    public static final String SOLR_USERNAME = "trc.search.solr.username";
    public static final String SOLR_PASSWORD = "trc.search.solr.password";
+   public static final String SOLR_COMMIT_WITHIN = "trc.search.solr.commitwithin";
+   public static final String SOLR_QUEUE_CAPACITY = "trc.search.solr.queue.capacity";
+   public static final String SOLR_QUERY_CACHE_ENTRIES = "trc.search.solr.querycache.entries";
+   public static final String SOLR_QUERY_CACHE_BYTES = "trc.search.solr.querycache.bytes";
+   public static final String SOLR_QUERY_CACHE_MAX_AGE = "trc.search.solr.querycache.maxage";
+   public static final String SOLR_EMBEDDED_HOME = "trc.search.solr.embedded.home";
+   public static final String SOLR_EMBEDDED_CONFIGSET = "trc.search.solr.embedded.configset";
 
    public static final String SOLR_CORE_ID = "trc.search.solr.cores.{0}.id";
    public static final String SOLR_CORE_ENABLED = "trc.search.solr.cores.{0}.enabled";
+   public static final String SOLR_CORE_ATOMIC_UPDATES = "trc.search.solr.cores.{0}.atomicupdates";
+
+   /** The maximum number of document ids to be checked or listed per request to Solr. */
+   private static final int ID_BATCH_SIZE = 500;
+
+   /** Separates the ids supplied to the terms query parser. */
+   private static final String ID_SEPARATOR = "\u001F";
 
    private ConfigurationProperties config;
 
@@ -74,6 +134,12 @@ public class BasicSearchSvcMgr implements SearchServiceManager
    private boolean solrEnabled;
    private String username;
    private String password;
+   private int commitWithin;
+   private int queueCapacity;
+   private long queryCacheEntries;
+   private long queryCacheBytes;
+   private long queryCacheMaxAge;
+   private SolrClientProvider clients;
 
    @SuppressWarnings("rawtypes")    // type consistency is enforced by controlled creation/access
    private final ConcurrentHashMap<Class, BasicSearchService> cache =
@@ -84,6 +150,19 @@ public class BasicSearchSvcMgr implements SearchServiceManager
       this.config = config;
    }
 
+   /**
+    * Optional bind method that supplies the clients used to access Solr cores. If no provider
+    * is supplied, clients for a remote or embedded Solr instance are created based on the
+    * configuration properties. The supplied provider will be closed when this manager is
+    * closed.
+    *
+    * @param clients The provider of Solr clients.
+    */
+   public void setSolrClientProvider(SolrClientProvider clients)
+   {
+      this.clients = clients;
+   }
+
    public void activate()
    {
       logger.info("Starting " + getClass().getSimpleName());
@@ -92,15 +171,41 @@ public class BasicSearchSvcMgr implements SearchServiceManager
       this.solrEnabled = config.getPropertyValue(SOLR_ENABLED, Boolean.class, true);
       this.username = config.getPropertyValue(SOLR_USERNAME, String.class, null);
       this.password = config.getPropertyValue(SOLR_PASSWORD, String.class, null);
-
-      if (solrBaseUri == null)
+      this.commitWithin = config.getPropertyValue(SOLR_COMMIT_WITHIN, Integer.class, Integer.valueOf(1000)).intValue();
+      this.queueCapacity = config.getPropertyValue(SOLR_QUEUE_CAPACITY, Integer.class, Integer.valueOf(10_000)).intValue();
+      this.queryCacheEntries = config.getPropertyValue(SOLR_QUERY_CACHE_ENTRIES, Long.class, Long.valueOf(500)).longValue();
+      this.queryCacheBytes = config.getPropertyValue(SOLR_QUERY_CACHE_BYTES, Long.class, Long.valueOf(16 * 1024 * 1024)).longValue();
+      this.queryCacheMaxAge = config.getPropertyValue(SOLR_QUERY_CACHE_MAX_AGE, Long.class, Long.valueOf(60_000)).longValue();
+
+      if (clients == null)
+         clients = createClientProvider();
+      if (clients == null)
          solrEnabled = false;
 
       String msg = "Solr Search Service started with "
-            + "\n\tBase URI: {0}"
+            + "\n\tServer:   {0}"
             + "\n\tEnabled:  {1}"
             + "\n\tUser:     {2}";
-      logger.info(format(msg, solrBaseUri, solrEnabled, username != null ? username : "No Authentication"));
+      logger.info(format(msg, clients, solrEnabled, username != null ? username : "No Authentication"));
+   }
+
+   /**
+    * @return The provider of clients for the configured Solr instance, or {@code null} if
+    *       no Solr instance has been configured.
+    */
+   private SolrClientProvider createClientProvider()
+   {
+      String embeddedHome = config.getPropertyValue(SOLR_EMBEDDED_HOME, String.class, null);
+      if (embeddedHome != null && solrEnabled)
+      {
+         String configSet = config.getPropertyValue(SOLR_EMBEDDED_CONFIGSET, String.class, null);
+         return new EmbeddedSolrClientProvider(Paths.get(embeddedHome), configSet);
+      }
+
+      if (solrBaseUri != null)
+         return new HttpSolrClientProvider(solrBaseUri, new SolrHttpClientPool(config));
+
+      return null;
    }
 
    public void close()
@@ -109,13 +214,29 @@ public class BasicSearchSvcMgr implements SearchServiceManager
 
       // shut down all active services
       cache.values().forEach(svc -> {
-         if (svc.isEnabled())
+         if (!svc.isEnabled())
             return;
 
          svc.shutdown();
       });
 
       cache.clear();
+
+      if (clients != null)
+         clients.close();
+      clients = null;
+   }
+
+   /**
+    * @return The HTTP connection pool used to access the Solr server, for use in monitoring
+    *       connection utilization. Will be empty if an embedded Solr instance is used or
+    *       search is disabled.
+    */
+   public Optional<SolrHttpClientPool> getHttpClientPool()
+   {
+      return clients instanceof HttpSolrClientProvider
+            ? Optional.of(((HttpSolrClientProvider)clients).getPool())
+            : Optional.empty();
    }
 
    @Override
@@ -160,8 +281,12 @@ public class BasicSearchSvcMgr implements SearchServiceManager
    // TODO really a mediator
    public class BasicSearchService<Entry, QueryCmd> implements IndexService<Entry>, QueryService<QueryCmd>
    {
-      private final HttpSolrClient solr;
+      private final SolrClient solr;
+      private final SolrUpdateQueue updates;
+      private final QueryResultCache queryCache;
+      private final SolrClient querySolr;
       private final IndexServiceStrategy<Entry, QueryCmd> indexCfg;
+      private final boolean atomicUpdates;
 
       private final AtomicBoolean enabled = new AtomicBoolean(true);
 
@@ -173,13 +298,45 @@ public class BasicSearchSvcMgr implements SearchServiceManager
          String coreId = indexCfg.getCoreId();
          String core = config.getPropertyValue(format(SOLR_CORE_ID, coreId), String.class, coreId);
          boolean coreEnabled = config.getPropertyValue(format(SOLR_CORE_ENABLED, coreId), Boolean.class, true);
+         boolean useAtomicUpdates = config.getPropertyValue(format(SOLR_CORE_ATOMIC_UPDATES, coreId), Boolean.class, false);
 
-         URI coreUri = solrBaseUri.resolve(core);
-         this.solr = (solrEnabled && coreEnabled) ? new HttpSolrClient(coreUri.toString()) : null;
+         this.solr = (solrEnabled && coreEnabled) ? clients.open(coreId, core, indexCfg.getIndexCofig()) : null;
+         this.atomicUpdates = solr != null && useAtomicUpdates && supportsAtomicUpdates();
+         this.queryCache = (solr != null && queryCacheEntries > 0) ? new QueryResultCache(queryCacheEntries, queryCacheBytes, commitWithin, queryCacheMaxAge) : null;
+         this.updates = solr != null ? new SolrUpdateQueue(solr, coreId, queueCapacity, commitWithin, this::invalidateQueries) : null;
+         this.querySolr = queryCache != null ? new CachingSolrClient(solr, queryCache) : solr;
          if (this.solr == null)
             enabled.set(false);
       }
 
+      /**
+       * Checks that the schema of this core allows documents to be modified using atomic
+       * updates without losing the values of fields that are not stored.
+       */
+      private boolean supportsAtomicUpdates()
+      {
+         String coreId = indexCfg.getCoreId();
+         try
+         {
+            List<String> unstored = AtomicUpdates.findUnstoredFields(solr);
+            if (!unstored.isEmpty())
+            {
+               String msg = "Atomic updates have been disabled for Solr core {0}. The following fields are not stored: {1}";
+               logger.warning(format(msg, coreId, unstored));
+               return false;
+            }
+
+            logger.info(() -> format("Using atomic updates for Solr core {0}.", coreId));
+            return true;
+         }
+         catch (SearchException ex)
+         {
+            String msg = "Atomic updates have been disabled for Solr core {0}. Unable to verify that its schema supports them.";
+            logger.log(Level.WARNING, format(msg, coreId), ex);
+            return false;
+         }
+      }
+
       public void shutdown()
       {
          // TODO should we require that clients close these? That would imply that we need to do ref tracking, etc.
@@ -187,9 +344,13 @@ public class BasicSearchSvcMgr implements SearchServiceManager
          if (!enabled.compareAndSet(true, false))
             return;
 
+         if (queryCache != null)
+            logger.info(() -> format("Query result cache for Solr core {0}: {1}", indexCfg.getCoreId(), queryCache));
+
          try
          {
-            solr.close();
+            updates.close();
+            clients.release(solr);
          }
          catch (Exception e)
          {
@@ -203,6 +364,34 @@ public class BasicSearchSvcMgr implements SearchServiceManager
          return enabled.get();
       }
 
+      /**
+       * @return The number of index updates that have not yet been sent to Solr.
+       */
+      public int getQueueDepth()
+      {
+         return updates == null ? 0 : updates.getDepth();
+      }
+
+      /**
+       * @return The cache of parsed query results for this core. Will be {@code null} if
+       *       query result caching is disabled.
+       */
+      public QueryResultCache getQueryCache()
+      {
+         return queryCache;
+      }
+
+      @Override
+      public void flush()
+      {
+         checkEnabled();
+         updates.flush(5, TimeUnit.MINUTES);
+
+         // committed updates are now visible to searchers
+         if (queryCache != null)
+            queryCache.clear();
+      }
+
       @Override
       public SolrClient getSolrClient()
       {
@@ -224,8 +413,30 @@ public class BasicSearchSvcMgr implements SearchServiceManager
       {
          checkEnabled();
 
+         String id = indexCfg.getEntryId(instance);
          SolrInputDocument document = indexCfg.getDocument(instance);
-         this.index(document);
+         updates.add(id, document);
+         invalidateQueries();
+      }
+
+      @Override
+      public void update(Entry original, Entry modified)
+      {
+         checkEnabled();
+         if (!atomicUpdates || original == null)
+         {
+            index(modified);
+            return;
+         }
+
+         String id = indexCfg.getEntryId(modified);
+         SolrInputDocument update = indexCfg.getUpdate(original, modified);
+         if (update != null)
+         {
+            // NOTE a complete document is required if the document is pending deletion
+            updates.update(id, update, () -> indexCfg.getDocument(modified));
+            invalidateQueries();
+         }
       }
 
       @Override
@@ -239,18 +450,48 @@ public class BasicSearchSvcMgr implements SearchServiceManager
 
       @Override
       public void remove(String... ids)
+      {
+         remove(Arrays.asList(ids));
+      }
+
+      @Override
+      public void remove(Collection<String> ids)
       {
          checkEnabled();
 
-         addIndexTask(() -> {
-            try {
-               solr.deleteById(Arrays.asList(ids));
-            } catch (Exception e) {
-               String template = "Failed to delete document [{0}] from Solr core {1} [host: {2}].";
-               String msg = format(template, String.join(", ", ids), indexCfg.getCoreId(), solrBaseUri);
-               logger.log(Level.SEVERE, msg, e);
+         // NOTE deletions are coalesced with other pending updates and sent in batches
+         ids.forEach(updates::delete);
+         invalidateQueries();
+      }
+
+      @Override
+      public Set<String> isIndexed(Collection<String> ids)
+      {
+         checkEnabled();
+
+         Set<String> found = new HashSet<>();
+         List<String> batch = new ArrayList<>(ID_BATCH_SIZE);
+         for (String id : ids)
+         {
+            batch.add(id);
+            if (batch.size() == ID_BATCH_SIZE)
+            {
+               found.addAll(findIndexed(batch));
+               batch.clear();
             }
-         });
+         }
+
+         if (!batch.isEmpty())
+            found.addAll(findIndexed(batch));
+
+         return found;
+      }
+
+      @Override
+      public Iterator<String> listIds()
+      {
+         checkEnabled();
+         return new SolrIdIterator(solr, indexCfg.getCoreId(), ID_BATCH_SIZE);
       }
 
       @Override
@@ -258,65 +499,54 @@ public class BasicSearchSvcMgr implements SearchServiceManager
       {
          checkEnabled();
 
-         return indexCfg.createQuery(solr);
+         return indexCfg.createQuery(querySolr);
+      }
+
+      private void invalidateQueries()
+      {
+         if (queryCache != null)
+            queryCache.invalidate();
       }
 
       private void checkEnabled()
       {
          String msg = "The index service for Solr core {1} [host: {2}] has been stopped.";
          if (!enabled.get())
-            throw new IllegalStateException(format(msg, indexCfg.getCoreId(), solrBaseUri));
+            throw new IllegalStateException(format(msg, indexCfg.getCoreId(), clients));
       }
 
       private boolean isIndexed(String id)
       {
-         checkEnabled();
+         return !findIndexed(Collections.singletonList(id)).isEmpty();
+      }
+
+      /**
+       * @param ids The ids to check.
+       * @return The subset of the supplied ids that are present in the index.
+       */
+      private List<String> findIndexed(List<String> ids)
+      {
+         // NOTE the terms query parser matches ids literally, avoiding the need to escape them.
+         //      Terms are separated by a control character that is not expected in ids rather
+         //      than the default (a comma).
+         if (ids.stream().anyMatch(id -> id.indexOf(ID_SEPARATOR) >= 0))
+            throw new IllegalArgumentException("Ids must not contain the character U+001F");
 
          SolrQuery query = new SolrQuery();
-         query.setQuery("id:" + id);
+         query.setQuery("{!terms f=id separator=$idsep}" + String.join(ID_SEPARATOR, ids));
+         query.set("idsep", ID_SEPARATOR);
+         query.setFields("id");
+         query.setRows(Integer.valueOf(ids.size()));
          try
          {
-            QueryResponse response = solr.query(query);
-            return  !response.getResults().isEmpty();
+            QueryResponse response = solr.query(query, METHOD.POST);
+            return response.getResults().stream()
+                  .map(doc -> doc.getFieldValue("id").toString())
+                  .collect(Collectors.toList());
          }
-         catch (IOException | SolrServerException e)
+         catch (IOException | SolrServerException | SolrException e)
          {
-            logger.log(Level.SEVERE, "Failed to query the work id: [" + id + "] from the SOLR server. " + e);
-            return false;
-         }
-      }
-
-      private void index(SolrInputDocument... docs)
-      {
-         checkEnabled();
-
-         addIndexTask(() -> {
-            try
-            {
-               solr.add(Arrays.asList(docs));
-            }
-            catch (SolrServerException | IOException ex)
-            {
-               List<String> ids = Arrays.stream(docs).map(doc -> {
-                  return (String)doc.getField("id").getValue();
-               }).collect(Collectors.toList());
-
-               String template = "Failed to update document(s) [{0}] from Solr core {1} [host: {2}].";
-               String msg = format(template, String.join(", ", ids), indexCfg.getCoreId(), solrBaseUri);
-               logger.log(Level.SEVERE, msg, ex);
-            }
-         });
-      }
-
-      private void addIndexTask(Runnable task)
-      {
-         // TODO HACK execute immediately, commit every so often
-         task.run();
-         try {
-            solr.commit();
-
-         } catch (Exception ex) {
-            logger.log(Level.SEVERE, "Failed to commit changes to Solr", ex);
+            throw new SearchException(format("Failed to query {0} ids from Solr core {1}.", Integer.valueOf(ids.size()), indexCfg.getCoreId()), e);
          }
       }
    }
@@ -0,0 +1,44 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import java.io.IOException;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * A {@link SolrClient} supplied to query commands that exposes the {@link QueryResultCache}
+ * for the core it accesses (see {@link QueryResultCache#of(SolrClient)}). All requests are
+ * delegated to the underlying client.
+ */
+class CachingSolrClient extends SolrClient
+{
+   private static final long serialVersionUID = 1L;
+
+   private final SolrClient delegate;
+   private final transient QueryResultCache cache;
+
+   CachingSolrClient(SolrClient delegate, QueryResultCache cache)
+   {
+      this.delegate = delegate;
+      this.cache = cache;
+   }
+
+   QueryResultCache getQueryCache()
+   {
+      return cache;
+   }
+
+   @Override
+   public NamedList<Object> request(@SuppressWarnings("rawtypes") SolrRequest request, String collection) throws SolrServerException, IOException
+   {
+      return delegate.request(request, collection);
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      // NOTE the underlying client is managed by the search service
+   }
+}
@@ -0,0 +1,106 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import static java.text.MessageFormat.format;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.schema.IndexSchema;
+
+/**
+ * Provides clients that access cores of a Solr instance running within this process. The
+ * Solr home directory must contain the configuration for all cores to be used, in the same
+ * form as would be deployed to a stand-alone Solr server. Cores that do not exist may be
+ * created from a named config set.
+ *
+ * <p>Because queries and updates do not require a network round-trip, this is well suited
+ * to small deployments and to running tests without an external Solr server.
+ */
+class EmbeddedSolrClientProvider implements SolrClientProvider
+{
+   private static final Logger logger = Logger.getLogger(EmbeddedSolrClientProvider.class.getName());
+
+   private final Path solrHome;
+   private final String configSet;
+   private final CoreContainer container;
+
+   /**
+    * @param solrHome The Solr home directory.
+    * @param configSet The name of the config set used to create missing cores. May be
+    *       {@code null}, in which case all cores must already exist.
+    */
+   EmbeddedSolrClientProvider(Path solrHome, String configSet)
+   {
+      this.solrHome = solrHome;
+      this.configSet = configSet;
+
+      logger.info(() -> format("Loading embedded Solr instance from {0}", solrHome));
+      this.container = new CoreContainer(solrHome.toString());
+      this.container.load();
+   }
+
+   @Override
+   public synchronized SolrClient open(String coreId, String core, SolrIndexConfig cfg)
+   {
+      if (!container.getAllCoreNames().contains(core))
+      {
+         if (configSet == null)
+            throw new SearchException(format("The embedded Solr core {0} does not exist in {1}", core, solrHome));
+
+         logger.info(() -> format("Creating embedded Solr core {0} from config set {1}", core, configSet));
+         container.create(core, Collections.singletonMap("configSet", configSet));
+      }
+
+      checkSchema(core, cfg);
+      return new EmbeddedSolrServer(container, core);
+   }
+
+   /**
+    * Ensures that all fields defined by the supplied index configuration are present in the
+    * schema of the named core.
+    */
+   private void checkSchema(String core, SolrIndexConfig cfg)
+   {
+      try (SolrCore solrCore = container.getCore(core))
+      {
+         if (solrCore == null)
+            throw new SearchException(format("Failed to load the embedded Solr core {0}", core));
+
+         IndexSchema schema = solrCore.getLatestSchema();
+         List<String> missing = Stream.concat(cfg.getIndexedFields().stream(), cfg.getStoredFields().stream())
+               .map(SolrIndexField::getName)
+               .distinct()
+               .filter(name -> schema.getFieldOrNull(name) == null)
+               .collect(Collectors.toList());
+
+         if (!missing.isEmpty())
+            throw new SearchException(format("The schema for embedded Solr core {0} does not define the field(s) {1}", core, missing));
+      }
+   }
+
+   @Override
+   public void release(SolrClient client)
+   {
+      // NOTE closing an EmbeddedSolrServer shuts down the shared core container
+   }
+
+   @Override
+   public synchronized void close()
+   {
+      container.shutdown();
+   }
+
+   @Override
+   public String toString()
+   {
+      return "embedded:" + solrHome;
+   }
+}
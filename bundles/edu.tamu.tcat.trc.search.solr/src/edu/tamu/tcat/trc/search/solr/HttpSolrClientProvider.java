@@ -0,0 +1,60 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import java.net.URI;
+
+import org.apache.solr.client.solrj.SolrClient;
+
+/**
+ * Provides clients that access cores on a remote Solr server via HTTP. All clients share
+ * the connections of a single {@link SolrHttpClientPool}.
+ */
+class HttpSolrClientProvider implements SolrClientProvider
+{
+   private final URI solrBaseUri;
+   private final SolrHttpClientPool pool;
+
+   /**
+    * @param solrBaseUri The base URI of the Solr server. Core names will be resolved
+    *       against this URI.
+    * @param pool The connection pool to be used by all clients. The pool is owned by this
+    *       provider and will be closed when this provider is closed.
+    */
+   HttpSolrClientProvider(URI solrBaseUri, SolrHttpClientPool pool)
+   {
+      this.solrBaseUri = solrBaseUri;
+      this.pool = pool;
+   }
+
+   @Override
+   public SolrClient open(String coreId, String core, SolrIndexConfig cfg)
+   {
+      URI coreUri = solrBaseUri.resolve(core);
+      return pool.createClient(coreId, coreUri.toString());
+   }
+
+   @Override
+   public void release(SolrClient client) throws Exception
+   {
+      client.close();
+   }
+
+   @Override
+   public void close()
+   {
+      pool.close();
+   }
+
+   /**
+    * @return The connection pool used by this provider's clients.
+    */
+   SolrHttpClientPool getPool()
+   {
+      return pool;
+   }
+
+   @Override
+   public String toString()
+   {
+      return solrBaseUri.toString() + " " + pool;
+   }
+}
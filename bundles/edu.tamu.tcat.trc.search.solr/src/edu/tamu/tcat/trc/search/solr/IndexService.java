@@ -1,5 +1,9 @@
 package edu.tamu.tcat.trc.search.solr;
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
 import org.apache.solr.client.solrj.SolrClient;
 
 /**
@@ -39,9 +43,27 @@ public interface IndexService<T>
     *
     * @param instance the object to check.
     * @return <code>true</code> if this object is present in the index.
+    * @throws SearchException If the index could not be queried.
     */
    boolean isIndexed(T instance);
 
+   /**
+    * Determines which of the identified objects have been indexed. This is considerably
+    * more efficient than checking each object individually since ids are checked in
+    * batches.
+    *
+    * @param ids The ids of the objects to check.
+    * @return The subset of the supplied ids that are present in the index.
+    * @throws SearchException If the index could not be queried.
+    */
+   Set<String> isIndexed(Collection<String> ids);
+
+   /**
+    * @return An {@link Iterator} over the ids of all documents in the index. Ids are
+    *       retrieved from the index in pages as the iterator is consumed.
+    */
+   Iterator<String> listIds();
+
    /**
     * Adds the supplied object to the index or updates the current representation of this
     * document.
@@ -50,6 +72,15 @@ public interface IndexService<T>
     */
    void index(T instance);
 
+   /**
+    * Updates the indexed representation of an object that has been modified. Where
+    * supported, only those fields that have changed are sent to the index.
+    *
+    * @param original The state of the object as it is currently indexed.
+    * @param modified The new state of the object.
+    */
+   void update(T original, T modified);
+
    /**
     * Removes an object from the index.
     *
@@ -62,4 +93,20 @@ public interface IndexService<T>
     * @param ids The ids of the object or objects to be removed from the index.
     */
    void remove(String... ids);
+
+   /**
+    * Removes the identified objects from the index. Deletions are sent to the index in
+    * batches along with other pending updates.
+    *
+    * @param ids The ids of the objects to be removed from the index.
+    */
+   void remove(Collection<String> ids);
+
+   /**
+    * Updates made using {@link #index(Object)} and {@link #remove(Object)} are applied
+    * asynchronously. This method blocks until all pending updates have been applied and
+    * committed to the index. Any cached query results are discarded, so this should also be
+    * called after the index has been modified by other means, such as a reindex.
+    */
+   void flush();
 }
@@ -40,6 +40,26 @@ public interface IndexServiceStrategy<Entry, QueryCmd>
 
    SolrInputDocument getDocument(Entry entry);
 
+   /**
+    * Builds an atomic update that changes the indexed representation of an entry from its
+    * original state to its modified state (see {@link AtomicUpdates}). Only fields whose
+    * values differ between the two states need to be included.
+    *
+    * <p>The default implementation builds the documents for both states and sets the
+    * fields that differ (see {@link AtomicUpdates#diff(SolrInputDocument, SolrInputDocument)}).
+    * Strategies that can determine which fields have changed without building both
+    * documents (for example, by comparing the entries directly) should override this method.
+    *
+    * @param original The state of the entry as it is currently indexed.
+    * @param modified The new state of the entry.
+    * @return The atomic update document, a complete document for the modified entry, or
+    *       {@code null} if no indexed fields have changed.
+    */
+   default SolrInputDocument getUpdate(Entry original, Entry modified)
+   {
+      return AtomicUpdates.diff(getDocument(original), getDocument(modified));
+   }
+
    String getEntryId(Entry entry);
 
    QueryCmd createQuery(SolrClient solr);
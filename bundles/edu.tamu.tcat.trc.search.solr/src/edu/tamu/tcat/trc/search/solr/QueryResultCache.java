@@ -0,0 +1,253 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import static java.text.MessageFormat.format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the parsed results of queries executed against a single Solr core. Results are
+ * keyed by the (normalized) query parameters used to produce them.
+ *
+ * <p>The cache is bounded both by the number of entries and by the estimated size (in bytes)
+ * of the cached results. The cache is invalidated whenever the associated index is updated.
+ * Since updates sent with {@code commitWithin} become visible to searchers asynchronously,
+ * results cached before the commit interval for the most recent update has elapsed are
+ * discarded once it elapses. Once an update is known to be visible (for example, after an
+ * explicit commit), {@link #clear()} discards all cached results immediately. Results are
+ * also discarded after a maximum age, regardless of updates.
+ *
+ * <p>Cached values are shared between callers and must not be modified.
+ */
+public class QueryResultCache
+{
+   private final Cache<String, Entry> cache;
+   private final long commitWithin;
+
+   private final AtomicLong generation = new AtomicLong();
+
+   /** The time at which pending updates will be visible and the cache must be cleared, or 0. */
+   private final AtomicLong clearAt = new AtomicLong();
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong hitNanos = new AtomicLong();
+   private final AtomicLong missNanos = new AtomicLong();
+
+   /**
+    * @param maxEntries The maximum number of results to cache.
+    * @param maxBytes The maximum estimated size of all cached results.
+    * @param commitWithin The time (in milliseconds) after an update is sent before it will
+    *       be visible to searchers.
+    * @param maxAge The maximum time (in milliseconds) that a result will be cached.
+    */
+   public QueryResultCache(long maxEntries, long maxBytes, long commitWithin, long maxAge)
+   {
+      this.commitWithin = commitWithin;
+
+      // NOTE Guava does not allow a cache to be bounded by both size and weight. Assigning
+      //      each entry a minimum weight limits the number of entries that may be held.
+      long minWeight = Math.max(1, maxBytes / Math.max(1, maxEntries));
+      this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .expireAfterWrite(maxAge, TimeUnit.MILLISECONDS)
+            .weigher((String key, Entry entry) -> (int)Math.min(Integer.MAX_VALUE, Math.max(minWeight, entry.size + key.length())))
+            .build();
+   }
+
+   /**
+    * @param solr A client supplied to a query command.
+    * @return The result cache associated with the supplied client, if any.
+    */
+   public static Optional<QueryResultCache> of(SolrClient solr)
+   {
+      if (solr instanceof CachingSolrClient)
+         return Optional.of(((CachingSolrClient)solr).getQueryCache());
+
+      return Optional.empty();
+   }
+
+   /**
+    * Retrieves a cached result, executing the query if no result has been cached.
+    *
+    * @param params The parameters of the query.
+    * @param loader Executes the query and parses its result.
+    * @param sizer Estimates the size (in bytes) of a result.
+    * @return The query result.
+    * @throws Exception If the query could not be executed.
+    */
+   @SuppressWarnings("unchecked")   // types are consistent for a given set of query parameters
+   public <T> T get(SolrParams params, Callable<T> loader, ToLongFunction<T> sizer) throws Exception
+   {
+      long start = System.nanoTime();
+      clearIfDue();
+
+      String key = normalize(params);
+      Entry entry = cache.getIfPresent(key);
+      if (entry != null)
+      {
+         hits.incrementAndGet();
+         hitNanos.addAndGet(System.nanoTime() - start);
+         return (T)entry.value;
+      }
+
+      long gen = generation.get();
+      T value = loader.call();
+      misses.incrementAndGet();
+      missNanos.addAndGet(System.nanoTime() - start);
+
+      // do not cache results that were produced before the cache was cleared
+      if (gen == generation.get())
+         cache.put(key, new Entry(value, sizer.applyAsLong(value)));
+
+      return value;
+   }
+
+   /**
+    * Called when updates have been sent to the associated index. Discards all cached
+    * results now and again once the commit interval has elapsed, since results loaded
+    * in the meantime may not reflect the updates.
+    */
+   public void invalidate()
+   {
+      long due = System.currentTimeMillis() + commitWithin;
+      clearAt.accumulateAndGet(due, Math::max);
+      clear();
+   }
+
+   /**
+    * Discards all cached results immediately. Called when updates to the associated index
+    * are known to be visible to searchers, for example, after an explicit commit or once the
+    * index has been rebuilt.
+    */
+   public void clear()
+   {
+      generation.incrementAndGet();
+      cache.invalidateAll();
+   }
+
+   private void clearIfDue()
+   {
+      long due = clearAt.get();
+      if (due != 0 && System.currentTimeMillis() >= due && clearAt.compareAndSet(due, 0))
+         clear();
+   }
+
+   /**
+    * @return The number of queries that were answered from the cache.
+    */
+   public long getHitCount()
+   {
+      return hits.get();
+   }
+
+   /**
+    * @return The number of queries that were executed against Solr.
+    */
+   public long getMissCount()
+   {
+      return misses.get();
+   }
+
+   /**
+    * @return The fraction of queries that were answered from the cache, or {@code 0} if no
+    *       queries have been made.
+    */
+   public double getHitRate()
+   {
+      long h = hits.get();
+      long total = h + misses.get();
+      return total == 0 ? 0 : (double)h / total;
+   }
+
+   /**
+    * @param unit The time unit of the returned value.
+    * @return The average time required to answer a query from the cache.
+    */
+   public double getAverageHitTime(TimeUnit unit)
+   {
+      return average(hitNanos.get(), hits.get(), unit);
+   }
+
+   /**
+    * @param unit The time unit of the returned value.
+    * @return The average time required to execute and parse a query that was not cached.
+    */
+   public double getAverageMissTime(TimeUnit unit)
+   {
+      return average(missNanos.get(), misses.get(), unit);
+   }
+
+   private static double average(long nanos, long count, TimeUnit unit)
+   {
+      return count == 0 ? 0 : (double)nanos / count / unit.toNanos(1);
+   }
+
+   @Override
+   public String toString()
+   {
+      return format("hits: {0}, misses: {1}, hit rate: {2,number,percent}, avg hit: {3,number,#.###} ms, avg miss: {4,number,#.###} ms",
+            Long.valueOf(getHitCount()), Long.valueOf(getMissCount()), Double.valueOf(getHitRate()),
+            Double.valueOf(getAverageHitTime(TimeUnit.MICROSECONDS) / 1000),
+            Double.valueOf(getAverageMissTime(TimeUnit.MICROSECONDS) / 1000));
+   }
+
+   /**
+    * Produces a canonical representation of the supplied parameters. Parameter names are
+    * sorted as are the values of filter queries, whose order does not affect results.
+    */
+   private static String normalize(SolrParams params)
+   {
+      List<String> names = new ArrayList<>();
+      Iterator<String> iterator = params.getParameterNamesIterator();
+      iterator.forEachRemaining(names::add);
+      names.sort(null);
+
+      StringBuilder sb = new StringBuilder();
+      for (String name : names)
+      {
+         String[] values = params.getParams(name);
+         if (values == null)
+            continue;
+
+         if (CommonParams.FQ.equals(name))
+         {
+            values = values.clone();
+            Arrays.sort(values);
+         }
+
+         for (String value : values)
+         {
+            sb.append(name).append('=').append(value).append('&');
+         }
+      }
+
+      return sb.toString();
+   }
+
+   private static class Entry
+   {
+      private final Object value;
+      private final long size;
+
+      Entry(Object value, long size)
+      {
+         this.value = value;
+         this.size = size;
+      }
+   }
+}
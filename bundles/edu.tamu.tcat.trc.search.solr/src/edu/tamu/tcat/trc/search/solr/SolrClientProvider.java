@@ -0,0 +1,34 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+
+/**
+ * Supplies the {@link SolrClient}s used by the {@link BasicSearchSvcMgr} to access
+ * individual Solr cores. This allows the search services to be backed either by a remote
+ * Solr server or by an in-process Solr instance.
+ */
+public interface SolrClientProvider
+{
+   /**
+    * @param coreId The logical id of the index, used to look up configuration specific
+    *       to the core.
+    * @param core The name of the Solr core to access.
+    * @param cfg The configuration of the index that will be stored in the core.
+    * @return A client for the named core.
+    * @throws SearchException If the core is not available.
+    */
+   SolrClient open(String coreId, String core, SolrIndexConfig cfg) throws SearchException;
+
+   /**
+    * Releases a client that was obtained from {@link #open(String, String, SolrIndexConfig)}.
+    *
+    * @param client The client to release.
+    */
+   void release(SolrClient client) throws Exception;
+
+   /**
+    * Releases any resources held by this provider. Clients obtained from this provider
+    * must not be used once it has been closed.
+    */
+   void close();
+}
@@ -0,0 +1,336 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import static java.text.MessageFormat.format;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.solr.client.solrj.ResponseParser;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.BinaryResponseParser;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.common.util.NamedList;
+
+import edu.tamu.tcat.osgi.config.ConfigurationProperties;
+
+/**
+ * A pool of HTTP connections shared by the {@link HttpSolrClient}s used to access Solr.
+ * Sharing a single pool bounds the total number of connections held open to the Solr
+ * server and allows connections to be reused across cores. Connect and socket timeouts
+ * are applied to every client so that requests to an unresponsive server fail rather than
+ * blocking indefinitely.
+ *
+ * <p>The number of concurrent requests to an individual core may also be limited. The limit
+ * applies to all clients for that core created by this pool (see
+ * {@link #createClient(String, String)} and {@link #derive(HttpSolrClient, String)}).
+ * Requests that exceed this limit wait until a request to that core completes (or the
+ * queue timeout elapses) so that heavy use of one core cannot exhaust the connections
+ * available to others.
+ *
+ * <p>Configuration properties are as follows:
+ *
+ * <dl>
+ *   <dt>trc.search.solr.http.maxconnections{=128}</dt>
+ *   <dd>The maximum number of connections to all Solr servers.</dd>
+ *
+ *   <dt>trc.search.solr.http.maxconnectionsperhost{=32}</dt>
+ *   <dd>The maximum number of connections to a single Solr server.</dd>
+ *
+ *   <dt>trc.search.solr.http.connecttimeout{=5000}</dt>
+ *   <dd>The time (in milliseconds) to wait for a connection to be established.</dd>
+ *
+ *   <dt>trc.search.solr.http.sockettimeout{=60000}</dt>
+ *   <dd>The time (in milliseconds) to wait for data from an established connection.</dd>
+ *
+ *   <dt>trc.search.solr.http.queuetimeout{=30000}</dt>
+ *   <dd>The time (in milliseconds) a request will wait for the number of concurrent
+ *       requests to a core to fall below its limit.</dd>
+ *
+ *   <dt>trc.search.solr.cores.{coreId}.maxrequests{=0}</dt>
+ *   <dd>The maximum number of concurrent requests to the identified core. Use 0 for no
+ *       limit other than that imposed by the connection pool.</dd>
+ * </dl>
+ *
+ * <p>A pool is owned by the service that creates it, which supplies its configuration and
+ * must {@link #close()} it when it is no longer required. Clients created by the pool must
+ * not be used once it has been closed.
+ */
+public class SolrHttpClientPool
+{
+   private static final Logger logger = Logger.getLogger(SolrHttpClientPool.class.getName());
+
+   public static final String MAX_CONNECTIONS = "trc.search.solr.http.maxconnections";
+   public static final String MAX_CONNECTIONS_PER_HOST = "trc.search.solr.http.maxconnectionsperhost";
+   public static final String CONNECT_TIMEOUT = "trc.search.solr.http.connecttimeout";
+   public static final String SOCKET_TIMEOUT = "trc.search.solr.http.sockettimeout";
+   public static final String QUEUE_TIMEOUT = "trc.search.solr.http.queuetimeout";
+   public static final String CORE_MAX_REQUESTS = "trc.search.solr.cores.{0}.maxrequests";
+
+   private final ConfigurationProperties config;
+   private final PoolingHttpClientConnectionManager connections;
+   private final CloseableHttpClient httpClient;
+   private final int connectTimeout;
+   private final int socketTimeout;
+   private final long queueTimeout;
+
+   private final Map<String, CoreMetrics> metrics = new ConcurrentHashMap<>();
+
+   /**
+    * @param config The configuration properties used to configure the pool and to look up
+    *       per-core request limits.
+    */
+   public SolrHttpClientPool(ConfigurationProperties config)
+   {
+      this.config = config;
+
+      int maxConnections = config.getPropertyValue(MAX_CONNECTIONS, Integer.class, Integer.valueOf(128)).intValue();
+      int maxPerHost = config.getPropertyValue(MAX_CONNECTIONS_PER_HOST, Integer.class, Integer.valueOf(32)).intValue();
+      this.connectTimeout = config.getPropertyValue(CONNECT_TIMEOUT, Integer.class, Integer.valueOf(5000)).intValue();
+      this.socketTimeout = config.getPropertyValue(SOCKET_TIMEOUT, Integer.class, Integer.valueOf(60_000)).intValue();
+      this.queueTimeout = config.getPropertyValue(QUEUE_TIMEOUT, Long.class, Long.valueOf(30_000)).longValue();
+
+      connections = new PoolingHttpClientConnectionManager();
+      connections.setMaxTotal(maxConnections);
+      connections.setDefaultMaxPerRoute(maxPerHost);
+
+      httpClient = HttpClients.custom()
+            .setConnectionManager(connections)
+            .build();
+   }
+
+   /**
+    * Closes the connections held by this pool. Clients created by this pool must not be
+    * used after it has been closed.
+    */
+   public void close()
+   {
+      logger.info(() -> format("Closing Solr HTTP connection pool {0}", this));
+      try
+      {
+         httpClient.close();
+      }
+      catch (IOException ex)
+      {
+         logger.log(Level.WARNING, "Failed to close Solr HTTP connection pool", ex);
+      }
+      finally
+      {
+         connections.shutdown();
+      }
+   }
+
+   /**
+    * Creates a client that accesses a Solr core using connections from this pool. Clients
+    * need not be closed, but closing them does not affect the pool.
+    *
+    * @param coreId The id of the core, used to look up the request limit for the core and
+    *       to report metrics.
+    * @param url The URL of the core.
+    * @return A client for the core.
+    */
+   public HttpSolrClient createClient(String coreId, String url)
+   {
+      CoreMetrics coreMetrics = metrics.computeIfAbsent(coreId, this::createMetrics);
+
+      PooledHttpSolrClient client = new PooledHttpSolrClient(url, coreId, coreMetrics);
+      client.setConnectionTimeout(connectTimeout);
+      client.setSoTimeout(socketTimeout);
+      return client;
+   }
+
+   /**
+    * Creates a client for another URL on the same Solr server as the supplied client, for
+    * example to access a collection that will replace a core or to perform administrative
+    * requests. If the supplied client was created by a pool, the new client shares its
+    * connections and request limit. Otherwise, it shares the supplied client's
+    * {@link HttpClient}.
+    *
+    * @param client A client for a core on the Solr server.
+    * @param url The URL to be accessed by the new client.
+    * @return A client for the supplied URL.
+    */
+   public static HttpSolrClient derive(HttpSolrClient client, String url)
+   {
+      if (client instanceof PooledHttpSolrClient)
+         return ((PooledHttpSolrClient)client).derive(url);
+
+      return new HttpSolrClient(url, client.getHttpClient());
+   }
+
+   private CoreMetrics createMetrics(String coreId)
+   {
+      int maxRequests = config.getPropertyValue(format(CORE_MAX_REQUESTS, coreId), Integer.class, Integer.valueOf(0)).intValue();
+      return new CoreMetrics(maxRequests);
+   }
+
+   /**
+    * @return The number of connections currently in use.
+    */
+   public int getLeasedConnections()
+   {
+      return connections.getTotalStats().getLeased();
+   }
+
+   /**
+    * @return The number of idle connections available for reuse.
+    */
+   public int getAvailableConnections()
+   {
+      return connections.getTotalStats().getAvailable();
+   }
+
+   /**
+    * @return The number of requests waiting for a connection.
+    */
+   public int getPendingConnections()
+   {
+      return connections.getTotalStats().getPending();
+   }
+
+   /**
+    * @return The maximum number of connections.
+    */
+   public int getMaxConnections()
+   {
+      return connections.getMaxTotal();
+   }
+
+   /**
+    * @return The utilization of this pool, expressed as the proportion of the maximum
+    *       number of connections that are in use.
+    */
+   public double getUtilization()
+   {
+      int max = connections.getMaxTotal();
+      return max == 0 ? 0.0 : (double)connections.getTotalStats().getLeased() / max;
+   }
+
+   /**
+    * @param coreId The id of a core.
+    * @return The number of requests to the identified core that are in progress.
+    */
+   public int getActiveRequests(String coreId)
+   {
+      CoreMetrics coreMetrics = metrics.get(coreId);
+      return coreMetrics == null ? 0 : coreMetrics.active.get();
+   }
+
+   /**
+    * @param coreId The id of a core.
+    * @return The number of requests to the identified core that failed because the request
+    *       limit for the core was reached and the queue timeout elapsed.
+    */
+   public long getRejectedRequests(String coreId)
+   {
+      CoreMetrics coreMetrics = metrics.get(coreId);
+      return coreMetrics == null ? 0 : coreMetrics.rejected.get();
+   }
+
+   @Override
+   public String toString()
+   {
+      PoolStats stats = connections.getTotalStats();
+      StringBuilder sb = new StringBuilder();
+      sb.append(format("[leased: {0}, available: {1}, pending: {2}, max: {3}, max per host: {4}, connect timeout: {5}ms, socket timeout: {6}ms]",
+            Integer.valueOf(stats.getLeased()), Integer.valueOf(stats.getAvailable()), Integer.valueOf(stats.getPending()),
+            Integer.valueOf(stats.getMax()), Integer.valueOf(connections.getDefaultMaxPerRoute()),
+            Integer.valueOf(connectTimeout), Integer.valueOf(socketTimeout)));
+
+      metrics.forEach((coreId, coreMetrics) -> sb.append(format("\n\t{0}: active: {1}, total: {2}, rejected: {3}",
+            coreId, Integer.valueOf(coreMetrics.active.get()), Long.valueOf(coreMetrics.total.get()), Long.valueOf(coreMetrics.rejected.get()))));
+
+      return sb.toString();
+   }
+
+   /**
+    * Tracks the requests to a single core and enforces the request limit for that core
+    * across all clients that access it.
+    */
+   private static class CoreMetrics
+   {
+      private final Semaphore permits;
+      private final AtomicInteger active = new AtomicInteger();
+      private final AtomicLong total = new AtomicLong();
+      private final AtomicLong rejected = new AtomicLong();
+
+      CoreMetrics(int maxRequests)
+      {
+         this.permits = maxRequests > 0 ? new Semaphore(maxRequests, true) : null;
+      }
+   }
+
+   /**
+    * An {@link HttpSolrClient} that uses the shared connection pool and enforces the
+    * request limit for its core.
+    */
+   private class PooledHttpSolrClient extends HttpSolrClient
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final String coreId;
+      private final transient CoreMetrics coreMetrics;
+
+      PooledHttpSolrClient(String url, String coreId, CoreMetrics coreMetrics)
+      {
+         super(url, httpClient, new BinaryResponseParser(), false);
+         this.coreId = coreId;
+         this.coreMetrics = coreMetrics;
+      }
+
+      HttpSolrClient derive(String url)
+      {
+         return createClient(coreId, url);
+      }
+
+      @Override
+      public NamedList<Object> request(@SuppressWarnings("rawtypes") SolrRequest request, ResponseParser processor, String collection) throws SolrServerException, IOException
+      {
+         acquire();
+         coreMetrics.active.incrementAndGet();
+         coreMetrics.total.incrementAndGet();
+         try
+         {
+            return super.request(request, processor, collection);
+         }
+         finally
+         {
+            coreMetrics.active.decrementAndGet();
+            if (coreMetrics.permits != null)
+               coreMetrics.permits.release();
+         }
+      }
+
+      private void acquire() throws SolrServerException
+      {
+         if (coreMetrics.permits == null)
+            return;
+
+         try
+         {
+            if (!coreMetrics.permits.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS))
+            {
+               coreMetrics.rejected.incrementAndGet();
+               throw new SolrServerException(format("Timed out waiting to send a request to {0}. Too many concurrent requests.", getBaseURL()));
+            }
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Interrupted while waiting to send a request to " + getBaseURL(), e);
+         }
+      }
+   }
+}
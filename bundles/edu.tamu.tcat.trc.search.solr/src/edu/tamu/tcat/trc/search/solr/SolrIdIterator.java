@@ -0,0 +1,92 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import static java.text.MessageFormat.format;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.CursorMarkParams;
+
+/**
+ * Iterates over the ids of all documents in a Solr core. Ids are retrieved in pages using
+ * a cursor so that the cost of retrieving each page does not grow with its depth in the
+ * core. Only the id field is returned for each document.
+ */
+class SolrIdIterator implements Iterator<String>
+{
+   private static final String ID_FIELD = "id";
+
+   private final SolrClient solr;
+   private final String coreId;
+   private final int pageSize;
+
+   private Iterator<String> page = Collections.emptyIterator();
+   private String cursor = CursorMarkParams.CURSOR_MARK_START;
+   private boolean done = false;
+
+   /**
+    * @param solr The client for the core whose document ids should be listed.
+    * @param coreId The id of the core, used for error reporting.
+    * @param pageSize The number of ids to retrieve per request.
+    */
+   SolrIdIterator(SolrClient solr, String coreId, int pageSize)
+   {
+      this.solr = solr;
+      this.coreId = coreId;
+      this.pageSize = pageSize;
+   }
+
+   @Override
+   public boolean hasNext()
+   {
+      while (!page.hasNext() && !done)
+      {
+         loadNextPage();
+      }
+
+      return page.hasNext();
+   }
+
+   @Override
+   public String next()
+   {
+      if (!hasNext())
+         throw new NoSuchElementException();
+
+      return page.next();
+   }
+
+   private void loadNextPage()
+   {
+      SolrQuery query = new SolrQuery("*:*");
+      query.setFields(ID_FIELD);
+      query.setRows(Integer.valueOf(pageSize));
+      query.setSort(ID_FIELD, ORDER.asc);
+      query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursor);
+
+      try
+      {
+         QueryResponse response = solr.query(query, METHOD.POST);
+         List<String> ids = response.getResults().stream()
+               .map(doc -> doc.getFieldValue(ID_FIELD).toString())
+               .collect(Collectors.toList());
+
+         String next = response.getNextCursorMark();
+         done = next == null || next.equals(cursor) || ids.isEmpty();
+         cursor = next;
+         page = ids.iterator();
+      }
+      catch (Exception ex)
+      {
+         throw new SearchException(format("Failed to list document ids from Solr core {0}.", coreId), ex);
+      }
+   }
+}
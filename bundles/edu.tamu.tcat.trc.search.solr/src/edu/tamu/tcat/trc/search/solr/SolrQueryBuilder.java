@@ -36,6 +36,17 @@ public interface SolrQueryBuilder
 
    void max(int max);
 
+   /**
+    * Requests results using Solr's cursor-based deep paging rather than an offset. Unlike
+    * an offset, the cost of retrieving a page using a cursor does not increase with the
+    * depth of that page within the result set. A sort on the document id is added to the
+    * query (after any existing sort criteria) in order to ensure a stable ordering.
+    *
+    * @param cursorMark The cursor mark returned with the previous page of results, or
+    *       {@code null} to request the first page.
+    */
+   void cursor(String cursorMark);
+
    /**
     * Set the "basic" search terms.
     */
@@ -121,9 +132,69 @@ public interface SolrQueryBuilder
       filterRangeExclusive(param, start, end, false, false);
    }
 
+   /**
+    * Add filter criteria where the parameter falls within the provided range. This
+    * is used for facets.
+    *
+    * @param tag A tag that will be used for facet exclusion. No tag should be added if this parameter is null or empty.
+    */
+   default <P> void filterRange(SolrIndexField<P> param, P start, P end, String tag) throws SearchException
+   {
+      filterRangeExclusive(param, start, end, false, false, tag);
+   }
+
    /**
     * Add filter criteria where the parameter equals the provided value. This
     * is used for facets.
     */
-   <P> void filterRangeExclusive(SolrIndexField<P> param, P start, P end, boolean excludeStart, boolean excludeEnd) throws SearchException;
+   default <P> void filterRangeExclusive(SolrIndexField<P> param, P start, P end, boolean excludeStart, boolean excludeEnd) throws SearchException
+   {
+      filterRangeExclusive(param, start, end, excludeStart, excludeEnd, null);
+   }
+
+   /**
+    * Add filter criteria where the parameter falls within the provided range with optional
+    * range endpoint exclusivity. This is used for facets.
+    *
+    * @param tag A tag that will be used for facet exclusion. No tag should be added if this parameter is null or empty.
+    */
+   <P> void filterRangeExclusive(SolrIndexField<P> param, P start, P end, boolean excludeStart, boolean excludeEnd, String tag) throws SearchException;
+
+   /**
+    * Requests counts of the number of matching documents associated with each distinct
+    * value of the supplied field. Facets are returned along with the results of the query.
+    *
+    * @param field The field to facet on.
+    * @param excludeTags The tags of any filters (see {@link #filterMulti(SolrIndexField, Collection, String)})
+    *       that should be ignored when computing these counts. This allows the counts for
+    *       the values of a field to remain available once results have been filtered by
+    *       one of those values.
+    */
+   <P> void facet(SolrIndexField<P> field, String... excludeTags) throws SearchException;
+
+   /**
+    * Requests counts of the number of matching documents whose value for the supplied
+    * field falls within each of a series of ranges. The ranges are of equal size, starting
+    * from {@code start} and ending at or before {@code end}.
+    *
+    * @param field The field to facet on.
+    * @param start The lower bound (inclusive) of the first range.
+    * @param end The upper bound of the last range.
+    * @param gap The size of each range, expressed using Solr's syntax, for example,
+    *       {@code +10YEARS} for ranges of dates or {@code 100} for ranges of numbers.
+    * @param excludeTags The tags of any filters that should be ignored when computing
+    *       these counts.
+    */
+   <P> void facetRange(SolrIndexField<P> field, P start, P end, String gap, String... excludeTags) throws SearchException;
+
+   /**
+    * @param max The maximum number of values to be returned for each facet.
+    */
+   void facetLimit(int max);
+
+   /**
+    * @param min The minimum number of matching documents required for a facet value to be
+    *       returned.
+    */
+   void facetMinCount(int min);
 }
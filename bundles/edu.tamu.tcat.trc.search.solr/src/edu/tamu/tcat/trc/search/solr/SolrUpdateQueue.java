@@ -0,0 +1,333 @@
+package edu.tamu.tcat.trc.search.solr;
+
+import static java.text.MessageFormat.format;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * Sends document updates to a single Solr core from a background thread. Updates are
+ * coalesced by document id so that only the most recent update to a document that is
+ * waiting to be sent will be applied. Pending updates are sent in batches and are made
+ * visible to searchers using Solr's {@code commitWithin} support rather than by issuing
+ * an explicit commit for each update.
+ *
+ * <p>The number of pending updates is bounded. If the queue is full, clients will block
+ * until space is available (or a timeout elapses). Atomic updates are combined with any
+ * pending update to the same document so that earlier changes are not lost. Batches that
+ * cannot be sent are retried with an increasing delay before they are discarded.
+ */
+public class SolrUpdateQueue
+{
+   private static final Logger logger = Logger.getLogger(SolrUpdateQueue.class.getName());
+
+   /** The maximum number of documents to send in a single request. */
+   private static final int BATCH_SIZE = 500;
+
+   /** The time (in milliseconds) to wait for additional updates before sending a batch. */
+   private static final long LINGER_MS = 100;
+
+   /** The maximum time (in milliseconds) a client will wait for space in a full queue. */
+   private static final long ENQUEUE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+   private static final int MAX_ATTEMPTS = 5;
+   private static final long RETRY_DELAY_MS = 500;
+
+   private final SolrClient solr;
+   private final String coreId;
+   private final int capacity;
+   private final int commitWithin;
+   private final Runnable onSent;
+
+   /** Pending updates by document id. A {@code null} document indicates a deletion. */
+   private final LinkedHashMap<String, SolrInputDocument> pending = new LinkedHashMap<>();
+   private int inFlight = 0;
+   /** The ids of documents whose deletion is currently being sent. */
+   private final Set<String> inFlightDeletions = new HashSet<>();
+   private boolean closed = false;
+
+   private final Thread worker;
+
+   /**
+    * @param solr The client for the Solr core to update.
+    * @param coreId The id of the core, used for logging.
+    * @param capacity The maximum number of pending updates.
+    * @param commitWithin The time (in milliseconds) within which Solr should make sent
+    *       updates visible to searchers.
+    * @param onSent Notified after updates have been sent to Solr. The updates may not yet be
+    *       visible to searchers.
+    */
+   public SolrUpdateQueue(SolrClient solr, String coreId, int capacity, int commitWithin, Runnable onSent)
+   {
+      this.solr = solr;
+      this.coreId = coreId;
+      this.capacity = capacity;
+      this.commitWithin = commitWithin;
+      this.onSent = onSent;
+
+      worker = new Thread(this::run, "trc-solr-updates-" + coreId);
+      worker.setDaemon(true);
+      worker.start();
+   }
+
+   /**
+    * Adds or replaces the supplied document.
+    */
+   public void add(String id, SolrInputDocument doc)
+   {
+      enqueue(id, doc, null);
+   }
+
+   /**
+    * Applies an atomic update to the identified document. If an update to this document is
+    * already pending, the two updates will be combined. If the document is pending
+    * deletion (or its deletion is currently being sent), applying the atomic update would
+    * create a document that contains only the updated fields. In that case, the complete
+    * document is indexed instead.
+    *
+    * @param id The id of the document to update.
+    * @param update The atomic update to apply. Complete documents replace the indexed
+    *       document.
+    * @param document Supplies the complete document if a deletion is pending. If this
+    *       supplies {@code null}, the deletion is retained.
+    */
+   public void update(String id, SolrInputDocument update, Supplier<SolrInputDocument> document)
+   {
+      enqueue(id, update, document);
+   }
+
+   /**
+    * Removes the identified document.
+    */
+   public void delete(String id)
+   {
+      enqueue(id, null, null);
+   }
+
+   /**
+    * @return The number of updates that have not yet been sent to Solr, including those
+    *       that are currently being sent.
+    */
+   public synchronized int getDepth()
+   {
+      return pending.size() + inFlight;
+   }
+
+   /**
+    * Blocks until all pending updates have been sent and then commits them.
+    *
+    * @param timeout The maximum time to wait.
+    * @param unit The unit of the supplied timeout.
+    * @throws SearchException If the pending updates could not be sent or committed.
+    */
+   public void flush(long timeout, TimeUnit unit) throws SearchException
+   {
+      long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+      synchronized (this)
+      {
+         while (!pending.isEmpty() || inFlight > 0)
+         {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+               throw new SearchException(format("Timed out waiting for {0} pending updates to Solr core {1}.", Integer.valueOf(getDepth()), coreId));
+
+            waitFor(remaining);
+         }
+      }
+
+      try
+      {
+         solr.commit();
+      }
+      catch (Exception ex)
+      {
+         throw new SearchException(format("Failed to commit changes to Solr core {0}.", coreId), ex);
+      }
+   }
+
+   /**
+    * Stops accepting updates and waits for all pending updates to be sent.
+    */
+   public void close()
+   {
+      synchronized (this)
+      {
+         closed = true;
+         notifyAll();
+      }
+
+      try
+      {
+         worker.join(TimeUnit.MINUTES.toMillis(1));
+         if (worker.isAlive())
+            logger.warning(() -> format("Timed out sending {0} pending updates to Solr core {1}.", Integer.valueOf(getDepth()), coreId));
+         else
+            solr.commit();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.WARNING, format("Failed to commit changes to Solr core {0}.", coreId), ex);
+      }
+   }
+
+   private synchronized void enqueue(String id, SolrInputDocument doc, Supplier<SolrInputDocument> document)
+   {
+      long deadline = System.currentTimeMillis() + ENQUEUE_TIMEOUT_MS;
+      while (!closed && pending.size() >= capacity && !pending.containsKey(id))
+      {
+         long remaining = deadline - System.currentTimeMillis();
+         if (remaining <= 0)
+            throw new SearchException(format("Failed to update document [{0}]. The update queue for Solr core {1} is full.", id, coreId));
+
+         waitFor(remaining);
+      }
+
+      if (closed)
+         throw new IllegalStateException(format("The update queue for Solr core {0} has been closed.", coreId));
+
+      // NOTE replaces any pending update for this document. A pending deletion is stored
+      //      as a null document and must not be replaced by a partial update. A deletion
+      //      that is being sent will be applied before this update, so it is treated the
+      //      same way unless a later update is already pending.
+      boolean isPending = pending.containsKey(id);
+      SolrInputDocument previous = pending.remove(id);
+      if (doc != null && AtomicUpdates.isPartial(doc))
+      {
+         if (previous != null)
+            doc = AtomicUpdates.merge(previous, doc);
+         else if (isPending || inFlightDeletions.contains(id))
+            doc = document == null ? null : document.get();
+      }
+
+      pending.put(id, doc);
+      notifyAll();
+   }
+
+   private void waitFor(long millis)
+   {
+      try
+      {
+         wait(millis);
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new SearchException("Interrupted while waiting on the Solr update queue.", e);
+      }
+   }
+
+   private void run()
+   {
+      try
+      {
+         while (true)
+         {
+            Map<String, SolrInputDocument> batch = takeBatch();
+            if (batch == null)
+               break;
+
+            send(batch);
+            synchronized (this)
+            {
+               inFlight = 0;
+               inFlightDeletions.clear();
+               notifyAll();
+            }
+         }
+      }
+      catch (InterruptedException e)
+      {
+         logger.warning(() -> format("Solr update queue for core {0} interrupted with {1} pending updates.", coreId, Integer.valueOf(getDepth())));
+      }
+   }
+
+   /**
+    * @return The next batch of updates to send, or {@code null} if the queue has been
+    *       closed and no updates remain.
+    */
+   private synchronized Map<String, SolrInputDocument> takeBatch() throws InterruptedException
+   {
+      while (pending.isEmpty() && !closed)
+      {
+         wait();
+      }
+
+      if (pending.isEmpty())
+         return null;
+
+      // allow a burst of updates to accumulate (and coalesce) before sending
+      if (!closed && pending.size() < BATCH_SIZE)
+         wait(LINGER_MS);
+
+      Map<String, SolrInputDocument> batch = new LinkedHashMap<>();
+      Iterator<Map.Entry<String, SolrInputDocument>> iterator = pending.entrySet().iterator();
+      while (iterator.hasNext() && batch.size() < BATCH_SIZE)
+      {
+         Map.Entry<String, SolrInputDocument> entry = iterator.next();
+         batch.put(entry.getKey(), entry.getValue());
+         if (entry.getValue() == null)
+            inFlightDeletions.add(entry.getKey());
+
+         iterator.remove();
+      }
+
+      inFlight = batch.size();
+      notifyAll();
+      return batch;
+   }
+
+   private void send(Map<String, SolrInputDocument> batch) throws InterruptedException
+   {
+      List<SolrInputDocument> docs = batch.values().stream()
+            .filter(doc -> doc != null)
+            .collect(Collectors.toList());
+      List<String> deletions = batch.entrySet().stream()
+            .filter(entry -> entry.getValue() == null)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+
+      for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++)
+      {
+         try
+         {
+            if (!docs.isEmpty())
+               solr.add(docs, commitWithin);
+            if (!deletions.isEmpty())
+               solr.deleteById(deletions, commitWithin);
+
+            onSent.run();
+            return;
+         }
+         catch (Exception ex)
+         {
+            if (attempt == MAX_ATTEMPTS)
+            {
+               String template = "Failed to send updates for document(s) [{0}] to Solr core {1} after {2} attempts.";
+               String msg = format(template, String.join(", ", new ArrayList<>(batch.keySet())), coreId, Integer.valueOf(attempt));
+               logger.log(Level.SEVERE, msg, ex);
+               return;
+            }
+
+            logger.log(Level.WARNING, format("Failed to send updates to Solr core {0}. Retrying.", coreId), ex);
+            Thread.sleep(RETRY_DELAY_MS << (attempt - 1));
+         }
+      }
+   }
+}
@@ -23,6 +23,7 @@ import java.util.Objects;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import edu.tamu.tcat.trc.search.solr.SearchException;
 import edu.tamu.tcat.trc.search.solr.SolrIndexField;
@@ -186,6 +187,8 @@ public class BasicFields
     */
    public static class SearchProxyField<T> extends FieldBase<T>
    {
+      private volatile ObjectReader reader;
+
       public SearchProxyField(String name, Class<T> type)
       {
          super(name, type);
@@ -211,7 +214,25 @@ public class BasicFields
        */
       public T parse(String str) throws Exception
       {
-         return getMapper().readValue(str, type);
+         return getReader().readValue(str);
+      }
+
+      /**
+       * @return A reader for this field's type. The reader is created from the mapper
+       *       supplied by {@link #getMapper()} on first use and is then reused for all
+       *       values since, unlike the mapper, it is immutable and may be shared between
+       *       threads.
+       */
+      protected ObjectReader getReader()
+      {
+         ObjectReader result = reader;
+         if (result == null)
+         {
+            result = getMapper().reader(type);
+            reader = result;
+         }
+
+         return result;
       }
 
       /**
@@ -0,0 +1,94 @@
+package edu.tamu.tcat.trc.search.solr.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of search proxies returned by a query executed using
+ * {@link TrcQueryBuilder#execute(org.apache.solr.client.solrj.SolrClient, BasicFields.SearchProxyField)}.
+ * Pages may be shared between callers via the query result cache and are immutable.
+ *
+ * @param <T> The type of search proxy.
+ */
+public class ResultPage<T>
+{
+   private final List<T> items;
+   private final int skipped;
+   private final long numFound;
+   private final String nextCursor;
+   private final Map<String, Map<String, List<String>>> highlighting;
+   private final Map<String, Map<String, Long>> facets;
+   private final long size;
+
+   ResultPage(List<T> items, int skipped, long numFound, String nextCursor, Map<String, Map<String, List<String>>> highlighting, Map<String, Map<String, Long>> facets, long size)
+   {
+      this.items = Collections.unmodifiableList(items);
+      this.skipped = skipped;
+      this.numFound = numFound;
+      this.nextCursor = nextCursor;
+      this.highlighting = highlighting != null ? Collections.unmodifiableMap(highlighting) : null;
+      this.facets = Collections.unmodifiableMap(facets);
+      this.size = size;
+   }
+
+   /**
+    * @return The search proxies in this page.
+    */
+   public List<T> getItems()
+   {
+      return items;
+   }
+
+   /**
+    * @return The number of returned documents that were omitted from this page because
+    *       their search proxies could not be parsed.
+    */
+   public int getSkippedCount()
+   {
+      return skipped;
+   }
+
+   /**
+    * @return The total number of documents that matched the query.
+    */
+   public long getNumFound()
+   {
+      return numFound;
+   }
+
+   /**
+    * @return The cursor for the next page of results or {@code null} (see
+    *       {@link TrcQueryBuilder#nextCursor(org.apache.solr.client.solrj.response.QueryResponse)}).
+    */
+   public String getNextCursor()
+   {
+      return nextCursor;
+   }
+
+   /**
+    * @return Hit highlighting information by document id and field, if requested.
+    */
+   public Map<String, Map<String, List<String>>> getHighlighting()
+   {
+      return highlighting;
+   }
+
+   /**
+    * @return The number of matching documents associated with each value of the requested
+    *       facets, by facet name (see {@link TrcQueryBuilder#facetCounts(org.apache.solr.client.solrj.response.QueryResponse)}).
+    *       Will be empty if no facets were requested.
+    */
+   public Map<String, Map<String, Long>> getFacets()
+   {
+      return facets;
+   }
+
+   /**
+    * @return The estimated size of this page in bytes.
+    */
+   long getSize()
+   {
+      return size;
+   }
+}
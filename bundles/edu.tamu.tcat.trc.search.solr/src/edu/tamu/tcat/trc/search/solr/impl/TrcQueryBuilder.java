@@ -15,17 +15,37 @@
  */
 package edu.tamu.tcat.trc.search.solr.impl;
 
+import static java.text.MessageFormat.format;
+
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.RangeFacet;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.FacetParams;
 import org.apache.solr.common.params.SolrParams;
 
+import edu.tamu.tcat.trc.search.solr.QueryResultCache;
 import edu.tamu.tcat.trc.search.solr.SearchException;
 import edu.tamu.tcat.trc.search.solr.SolrIndexConfig;
 import edu.tamu.tcat.trc.search.solr.SolrIndexField;
@@ -37,6 +57,14 @@ import edu.tamu.tcat.trc.search.solr.SolrQueryBuilder;
  */
 public class TrcQueryBuilder implements SolrQueryBuilder
 {
+   /** The unique key field used by all TRC Solr cores. */
+   private static final String ID_FIELD = "id";
+
+   /** The minimum number of documents for which search proxies will be parsed in parallel. */
+   private static final int PARALLEL_UNPACK_THRESHOLD = 50;
+
+   private static final Logger logger = Logger.getLogger(TrcQueryBuilder.class.getName());
+
    private SolrQuery params;
    private SolrIndexConfig cfg;
 
@@ -60,6 +88,40 @@ public class TrcQueryBuilder implements SolrQueryBuilder
       if (offset < 0)
          throw new IllegalArgumentException("Offset cannot be negative");
       params.set("start", offset);
+      params.remove(CursorMarkParams.CURSOR_MARK_PARAM);
+   }
+
+   @Override
+   public void cursor(String cursorMark)
+   {
+      params.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark != null ? cursorMark : CursorMarkParams.CURSOR_MARK_START);
+      params.remove("start");
+
+      // cursors require a sort that includes the unique key
+      boolean sortedById = params.getSorts().stream()
+            .anyMatch(clause -> ID_FIELD.equals(clause.getItem()));
+      if (!sortedById)
+      {
+         // preserve relevance ranking if no other sort has been specified
+         if (params.getSorts().isEmpty())
+            params.addSort("score", ORDER.desc);
+         params.addSort(ID_FIELD, ORDER.asc);
+      }
+   }
+
+   /**
+    * @param response The response to a query built by this builder.
+    * @return The cursor mark to use to request the next page of results, or {@code null}
+    *       if this query does not use a cursor or if all results have been returned.
+    */
+   public String nextCursor(QueryResponse response)
+   {
+      String current = params.get(CursorMarkParams.CURSOR_MARK_PARAM);
+      String next = response.getNextCursorMark();
+      if (current == null || next == null || next.equals(current))
+         return null;
+
+      return next;
    }
 
    @Override
@@ -70,6 +132,7 @@ public class TrcQueryBuilder implements SolrQueryBuilder
       params.set("rows", max);
    }
 
+   @Override
    public void facetLimit(int max)
    {
       if (max < 0)
@@ -77,6 +140,78 @@ public class TrcQueryBuilder implements SolrQueryBuilder
       params.setFacetLimit(max);
    }
 
+   @Override
+   public void facetMinCount(int min)
+   {
+      if (min < 0)
+         throw new IllegalArgumentException("Facet minimum count cannot be negative");
+      params.setFacetMinCount(min);
+   }
+
+   @Override
+   public <P> void facet(SolrIndexField<P> field, String... excludeTags)
+   {
+      params.setFacet(true);
+      params.add(FacetParams.FACET_FIELD, excludeTags(excludeTags) + field.getName());
+   }
+
+   @Override
+   public <P> void facetRange(SolrIndexField<P> field, P start, P end, String gap, String... excludeTags) throws SearchException
+   {
+      String name = field.getName();
+      params.setFacet(true);
+      params.add(FacetParams.FACET_RANGE, excludeTags(excludeTags) + name);
+
+      // range parameters are supplied per field so that multiple range facets may be requested
+      params.set("f." + name + "." + FacetParams.FACET_RANGE_START, field.toSolrValue(start));
+      params.set("f." + name + "." + FacetParams.FACET_RANGE_END, field.toSolrValue(end));
+      params.set("f." + name + "." + FacetParams.FACET_RANGE_GAP, gap);
+   }
+
+   private static String excludeTags(String... tags)
+   {
+      if (tags == null || tags.length == 0)
+         return "";
+
+      return "{!ex=\"" + String.join(",", tags) + "\"}";
+   }
+
+   /**
+    * @param response The response to a query built by this builder.
+    * @return The counts for each value of the facets requested by this query, by facet
+    *       name. Values are ordered as returned by Solr.
+    */
+   public static Map<String, Map<String, Long>> facetCounts(QueryResponse response)
+   {
+      Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+      List<FacetField> fields = response.getFacetFields();
+      if (fields != null)
+      {
+         for (FacetField field : fields)
+         {
+            Map<String, Long> values = new LinkedHashMap<>();
+            field.getValues().forEach(count -> values.put(count.getName(), Long.valueOf(count.getCount())));
+            counts.put(field.getName(), values);
+         }
+      }
+
+      List<RangeFacet> ranges = response.getFacetRanges();
+      if (ranges != null)
+      {
+         for (RangeFacet<?, ?> range : ranges)
+         {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (RangeFacet.Count count : range.getCounts())
+            {
+               values.put(count.getValue(), Long.valueOf(count.getCount()));
+            }
+            counts.put(range.getName(), values);
+         }
+      }
+
+      return counts;
+   }
+
    /**
     * Enables or disables hit-highlighting on the returned results. Note that this is
     * used to override default behavior of the underlying SOLR core.
@@ -93,6 +228,10 @@ public class TrcQueryBuilder implements SolrQueryBuilder
     * document in the provided collection. This involves deserializing
     * the JSON literal stored in the SOLR document into the field's type.
     *
+    * <p>Fails if the search proxy of any document cannot be parsed. Use
+    * {@link #unpack(SolrDocumentList, BasicFields.SearchProxyField, BiConsumer)} to omit
+    * such documents instead.
+    *
     * @param <T> The type of data to be returned. This is a "search proxy" stored in each
     *            document.
     * @param <F> The type of {@link BasicFields.SearchProxyField SearchProxyField}, supplied for the <T> argument.
@@ -100,30 +239,69 @@ public class TrcQueryBuilder implements SolrQueryBuilder
     * @param searchProxyField The field representing the search proxy data in the documents,
     *             typically statically referenced from a {@link SolrIndexConfig} implementation
     *             for the module associated with the SOLR documents and core.
-    * @return
-    * @throws SearchException
+    * @return The parsed search proxies, in the order of the supplied documents.
+    * @throws SearchException If the search proxy of any document could not be parsed.
     */
    public <T,F extends BasicFields.SearchProxyField<T>>
    List<T> unpack(SolrDocumentList docs, F searchProxyField)
    throws SearchException
    {
-      List<T> rv = new ArrayList<>();
-      for (SolrDocument doc : docs)
+      List<SearchException> errors = new ArrayList<>();
+      List<T> proxies = unpack(docs, searchProxyField, (doc, ex) -> {
+         String msg = "Failed to parse search proxy for document [{0}]";
+         errors.add(new SearchException(format(msg, doc.getFieldValue(ID_FIELD)), ex));
+      });
+
+      if (!errors.isEmpty())
       {
-         String workInfo = null;
-         try
-         {
-            workInfo = doc.getFieldValue(searchProxyField.getName()).toString();
-            T wi = searchProxyField.parse(workInfo);
-            rv.add(wi);
-         }
-         catch (Exception e)
-         {
-            // TODO gather all errors and report rather than fail outright.
-            throw new SearchException("Failed to parse search proxy: [" + workInfo + "]", e);
-         }
+         SearchException error = errors.get(0);
+         errors.stream().skip(1).forEach(error::addSuppressed);
+         throw error;
       }
-      return rv;
+
+      return proxies;
+   }
+
+   /**
+    * Unpack data of the given {@link BasicFields.SearchProxyField SearchProxyField} type from each
+    * document in the provided collection. Large collections are parsed in parallel. The
+    * order of the returned proxies matches the order of the supplied documents.
+    *
+    * @param docs The SOLR documents from which to unpack search proxies.
+    * @param searchProxyField The field representing the search proxy data in the documents.
+    * @param onError Notified of each document whose search proxy could not be parsed. Such
+    *       documents are omitted from the returned list.
+    * @return The parsed search proxies.
+    */
+   public <T> List<T> unpack(SolrDocumentList docs, BasicFields.SearchProxyField<T> searchProxyField, BiConsumer<SolrDocument, Exception> onError)
+   {
+      Stream<SolrDocument> stream = docs.size() >= PARALLEL_UNPACK_THRESHOLD ? docs.parallelStream() : docs.stream();
+      List<Optional<T>> parsed = stream
+            .map(doc -> {
+               try
+               {
+                  // NOTE proxies are stored as strings, so toString() does not copy the value
+                  Object json = doc.getFieldValue(searchProxyField.getName());
+                  if (json == null)
+                     throw new SearchException("Missing search proxy field [" + searchProxyField.getName() + "]");
+
+                  return Optional.of(searchProxyField.parse(json.toString()));
+               }
+               catch (Exception ex)
+               {
+                  synchronized (onError)
+                  {
+                     onError.accept(doc, ex);
+                  }
+                  return Optional.<T>empty();
+               }
+            })
+            .collect(Collectors.toList());
+
+      return parsed.stream()
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(Collectors.toList());
    }
 
    /**
@@ -155,6 +333,61 @@ public class TrcQueryBuilder implements SolrQueryBuilder
      return rv;
   }
 
+   /**
+    * Executes the query built by this builder and unpacks the search proxies from the
+    * returned documents. If the supplied client has an associated {@link QueryResultCache},
+    * previously parsed results for an identical query will be returned.
+    *
+    * <p>Documents whose search proxy cannot be parsed are logged and omitted from the
+    * returned page. The number of omitted documents is reported by
+    * {@link ResultPage#getSkippedCount()}.
+    *
+    * @param solr The client to use to execute the query.
+    * @param searchProxyField The field representing the search proxy data in the documents.
+    * @return The page of results.
+    * @throws SearchException If the query could not be executed or its results could not
+    *       be parsed.
+    */
+   public <T> ResultPage<T> execute(SolrClient solr, BasicFields.SearchProxyField<T> searchProxyField) throws SearchException
+   {
+      Callable<ResultPage<T>> loader = () -> {
+         QueryResponse response = solr.query(params);
+         SolrDocumentList docs = response.getResults();
+         AtomicInteger skipped = new AtomicInteger();
+         List<T> items = unpack(docs, searchProxyField, (doc, ex) -> {
+            skipped.incrementAndGet();
+            String msg = "Failed to parse search proxy for document [{0}]. The document will be omitted from the results.";
+            logger.log(Level.WARNING, format(msg, doc.getFieldValue(ID_FIELD)), ex);
+         });
+
+         // estimate size as that of the JSON representation of the proxies (2 bytes per character)
+         long size = 0;
+         for (SolrDocument doc : docs)
+         {
+            Object json = doc.getFieldValue(searchProxyField.getName());
+            size += json == null ? 0 : 2L * json.toString().length();
+         }
+
+         return new ResultPage<>(items, skipped.get(), docs.getNumFound(), nextCursor(response), response.getHighlighting(), facetCounts(response), size);
+      };
+
+      try
+      {
+         Optional<QueryResultCache> cache = QueryResultCache.of(solr);
+         return cache.isPresent()
+               ? cache.get().get(params, loader, ResultPage::getSize)
+               : loader.call();
+      }
+      catch (SearchException ex)
+      {
+         throw ex;
+      }
+      catch (Exception ex)
+      {
+         throw new SearchException("Failed to execute query " + params, ex);
+      }
+   }
+
    @Override
    public void basic(String q) throws SearchException
    {
@@ -240,7 +473,7 @@ public class TrcQueryBuilder implements SolrQueryBuilder
    }
 
    @Override
-   public <P> void filterRangeExclusive(SolrIndexField<P> param, P start, P end, boolean excludeStart, boolean excludeEnd) throws SearchException
+   public <P> void filterRangeExclusive(SolrIndexField<P> param, P start, P end, boolean excludeStart, boolean excludeEnd, String tag) throws SearchException
    {
       StringBuilder sb = new StringBuilder();
       if (excludeStart)
@@ -256,6 +489,6 @@ public class TrcQueryBuilder implements SolrQueryBuilder
          sb.append("]");
 
       // add another 'fq' parameter with this value
-      params.add("fq", param.getName() + ":" + sb.toString());
+      params.add("fq", (tag == null || tag.isEmpty() ? "" : "{!tag=\"" + tag + "\"}") + param.getName() + ":" + sb.toString());
    }
 }
@@ -3,6 +3,7 @@ package edu.tamu.tcat.trc.entries.core.repo;
 import static java.text.MessageFormat.format;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
@@ -79,6 +80,25 @@ public class BasicRepoDelegate<EntryType, StorageType, EditCommandType extends E
       return repo.get(id);
    }
 
+   /**
+    * Retrieves multiple entries using a single request to the underlying repository.
+    *
+    * @param account The account requesting access to the entries. May be {@code null}.
+    * @param ids The ids of the entries to retrieve.
+    * @return The entries that exist, in the order of the supplied ids.
+    */
+   public Collection<EntryType> getAll(Account account, Collection<String> ids)
+   {
+      try
+      {
+         return repo.get(ids.toArray(new String[ids.size()]));
+      }
+      catch (RepositoryException e)
+      {
+         throw new IllegalStateException(format("Unable to retrieve {0} entries {1}", entryName, ids), e);
+      }
+   }
+
    public Iterator<EntryType> listAll()
    {
       try
@@ -91,6 +111,35 @@ public class BasicRepoDelegate<EntryType, StorageType, EditCommandType extends E
       }
    }
 
+   /**
+    * @param afterId The id of the entry after which the listing should begin, or
+    *       {@code null} to list all entries.
+    * @return The entries whose ids follow the supplied id, in ascending order of id.
+    */
+   public Iterator<EntryType> listAll(String afterId)
+   {
+      try
+      {
+         return repo.listAll(afterId);
+      }
+      catch (RepositoryException e)
+      {
+         throw new IllegalStateException(format("Unable to list {0} entries after {1}", entryName, afterId), e);
+      }
+   }
+
+   public Iterator<String> listIds()
+   {
+      try
+      {
+         return repo.listIds();
+      }
+      catch (RepositoryException e)
+      {
+         throw new IllegalStateException(format("Unable to list {0} entry ids", entryName), e);
+      }
+   }
+
    public EditCommandType create(Account account)
    {
       return repo.create(account, idFactory.get());
@@ -139,9 +188,35 @@ public class BasicRepoDelegate<EntryType, StorageType, EditCommandType extends E
    private void notify(RecordUpdateEvent<EntryType> ctx)
    {
       BasicEntryUpdate update = new BasicEntryUpdate(ctx);
+      try
+      {
+         if (isLabelChanged(update))
+            resolvers.invalidateLabel(update.getEntryReference());
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.WARNING, format("Failed to discard the label of updated {0} [{1}]", entryName, ctx.getRecordId()), ex);
+      }
+
       observers.values().parallelStream().forEach(ears -> ears.entryUpdated(update));
    }
 
+   /**
+    * @return {@code false} if the update modified an entry without changing its label.
+    *       Entries that are created or removed are considered to have changed labels.
+    */
+   private boolean isLabelChanged(EntryUpdateRecord<EntryType> update)
+   {
+      EntryType original = update.getOriginalState();
+      EntryType modified = update.getModifiedState();
+      if (original == null || modified == null)
+         return true;
+
+      EntryResolver<EntryType> resolver = resolvers.getResolver(modified);
+      return !Objects.equals(resolver.getLabel(original), resolver.getLabel(modified))
+            || !Objects.equals(resolver.getHtmlLabel(original), resolver.getHtmlLabel(modified));
+   }
+
    public static class Builder<EntryType, StorageType, EditCommandType extends EditEntryCommand<EntryType>>
    {
 
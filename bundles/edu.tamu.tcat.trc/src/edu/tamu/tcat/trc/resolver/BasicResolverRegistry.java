@@ -3,31 +3,103 @@ package edu.tamu.tcat.trc.resolver;
 import static java.text.MessageFormat.format;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import edu.tamu.tcat.account.Account;
 import edu.tamu.tcat.trc.ResourceNotFoundException;
+import edu.tamu.tcat.trc.auth.account.TrcAccountDataStore;
 
 /**
  * A basic implementation of the {@link EntryResolverRegistry}. Intended to be registered as
  * a declarative service or otherwise accessed through dependency injection in order to ensure
  * that only one instance is present in the application.
+ *
+ * <p>Registered resolvers are indexed by the entry type id they declare (see
+ * {@link EntryResolver#getTypeId()}) so that resolving a reference requires a single map
+ * lookup. If more than one resolver declares the same type id, each is asked whether it
+ * accepts the reference, in registration order. The resolver for each class of entry
+ * instance is remembered once it has been found. Both indices are rebuilt whenever a
+ * resolver is registered or removed. Resolvers that do not declare a type id are tested
+ * in registration order.
+ *
+ * <p>The labels of referenced entries are retained in memory so that they can be displayed
+ * (for example, when indexing the anchors of relationships) without loading the entry. Labels
+ * are discarded when the repository for an entry reports that it has changed. Since other
+ * application nodes may modify entries without notifying this registry, retained labels
+ * also expire after a fixed period.
  */
 public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolverRegistrar
 {
+   private static final Logger logger = Logger.getLogger(BasicResolverRegistry.class.getName());
+
+   /** The maximum number of tokens whose decoded form will be retained. */
+   private static final int TOKEN_CACHE_SIZE = 10_000;
+
+   private static final String TOKEN_SEPARATOR = "::";
+
+   /** The maximum number of entry labels to be retained. */
+   private static final int LABEL_CACHE_SIZE = 50_000;
+
+   /** The time (in minutes) for which an entry label will be retained. */
+   private static final long LABEL_EXPIRY = 30;
+
+   /** The account used to resolve entries in order to compute their labels. */
+   private static final Account LABEL_ACCOUNT = TrcAccountDataStore.SYSTEM;
+
+   /** An account id used to cache entries resolved without an account. */
+   private static final UUID ANONYMOUS = new UUID(0, 0);
+
+   private final Map<UUID, EntryResolver<?>> resolvers = new LinkedHashMap<>();
+
+   private volatile ResolverIndex index = new ResolverIndex(Collections.emptyList());
+
+   private final Cache<String, EntryId> decodedTokens = CacheBuilder.newBuilder()
+         .maximumSize(TOKEN_CACHE_SIZE)
+         .build();
+
+   private final Cache<EntryId, String> encodedTokens = CacheBuilder.newBuilder()
+         .maximumSize(TOKEN_CACHE_SIZE)
+         .build();
 
-   private final Map<UUID, EntryResolver<?>> resolvers = new ConcurrentHashMap<>();
+   private final Cache<EntryId, EntryLabel> labels = CacheBuilder.newBuilder()
+         .maximumSize(LABEL_CACHE_SIZE)
+         .expireAfterWrite(LABEL_EXPIRY, TimeUnit.MINUTES)
+         .build();
+
+   private final Map<UUID, Consumer<EntryId>> labelListeners = new ConcurrentHashMap<>();
 
    @Override
-   public <T> EntryResolverRegistrar.Registration register(EntryResolver<T> resolver)
+   public synchronized <T> EntryResolverRegistrar.Registration register(EntryResolver<T> resolver)
    {
       UUID registrationId = UUID.randomUUID();
       resolvers.put(registrationId, resolver);
-      return () -> resolvers.remove(registrationId);
+      index = new ResolverIndex(new ArrayList<>(resolvers.values()));
+
+      return () -> unregister(registrationId);
+   }
+
+   private synchronized void unregister(UUID registrationId)
+   {
+      if (resolvers.remove(registrationId) != null)
+         index = new ResolverIndex(new ArrayList<>(resolvers.values()));
    }
 
    @Override
@@ -46,7 +118,7 @@ public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolv
    @Override
    public <T> EntryReference<T> getReference(URI uri)
    {
-      EntryId eId = resolvers.values().parallelStream()
+      EntryId eId = index.all.stream()
             .filter(candidate -> candidate.accepts(uri))
             .findFirst()
             .map(resolver -> resolver.makeReference(uri))
@@ -66,18 +138,14 @@ public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolv
    @SuppressWarnings({ "unchecked", "rawtypes" })  // HACK: NOT TYPE SAFE
    public <T> EntryResolver<T> getResolver(EntryId ref) throws InvalidReferenceException
    {
-      return (EntryResolver)resolvers.values().parallelStream()
-         .filter(resolver -> resolver.accepts(ref.getId(), ref.getType()))
-         .findAny()
+      return (EntryResolver)index.find(ref.getId(), ref.getType())
          .orElseThrow(() -> new InvalidReferenceException(ref, "No registered resolver accpets this reference"));
    }
 
    @SuppressWarnings({ "unchecked", "rawtypes" })  // HACK: NOT TYPE SAFE
    public <T> EntryResolver<T> getResolver(String id, String type) throws InvalidReferenceException
    {
-      return (EntryResolver)resolvers.values().parallelStream()
-            .filter(resolver -> resolver.accepts(id, type))
-            .findAny()
+      return (EntryResolver)index.find(id, type)
             .orElseThrow(() -> new InvalidReferenceException(id, type,
                   "No registered resolver accpets this reference"));
    }
@@ -86,12 +154,131 @@ public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolv
    @SuppressWarnings("unchecked")  // Type safety enforced by resolver's #accepts method
    public <T> EntryResolver<T> getResolver(T entry)
    {
-      return (EntryResolver<T>)resolvers.values().parallelStream()
-            .filter(resolver -> resolver.accepts(entry))
-            .findAny()
+      return (EntryResolver<T>)index.find(entry)
             .orElseThrow(() -> new InvalidReferenceException((Object)null, "No registered resolver accpets this entry"));
    }
 
+   @Override
+   public Map<EntryId, Object> resolveAll(Collection<EntryId> ids, Account account)
+   {
+      ResolverIndex current = index;
+      Map<EntryResolver<?>, List<EntryId>> byResolver = new LinkedHashMap<>();
+      for (EntryId eId : ids)
+      {
+         current.find(eId.getId(), eId.getType())
+               .ifPresent(resolver -> byResolver.computeIfAbsent(resolver, key -> new ArrayList<>()).add(eId));
+      }
+
+      // NOTE references that cannot be resolved are omitted so that a failure in one
+      //      resolver (or for one entry) does not prevent the others from being resolved
+      Map<EntryId, Object> results = new HashMap<>();
+      byResolver.forEach((resolver, refs) -> {
+         try
+         {
+            results.putAll(resolver.resolveAll(account, refs));
+         }
+         catch (Exception ex)
+         {
+            logger.log(Level.WARNING, format("Failed to resolve {0} entries in bulk. Resolving individually.", Integer.valueOf(refs.size())), ex);
+            refs.forEach(eId -> resolveSafely(resolver, eId, account).ifPresent(entry -> results.put(eId, entry)));
+         }
+      });
+
+      return results;
+   }
+
+   private static Optional<?> resolveSafely(EntryResolver<?> resolver, EntryId eId, Account account)
+   {
+      try
+      {
+         return resolver.resolve(account, eId);
+      }
+      catch (Exception ex)
+      {
+         logger.log(Level.WARNING, format("Failed to resolve entry {0} [{1}]", eId.getId(), eId.getType()), ex);
+         return Optional.empty();
+      }
+   }
+
+   @Override
+   public Map<EntryId, EntryLabel> getLabels(Collection<EntryId> ids)
+   {
+      Map<EntryId, EntryLabel> results = new HashMap<>(labels.getAllPresent(ids));
+      List<EntryId> missing = new ArrayList<>();
+      for (EntryId eId : ids)
+      {
+         if (!results.containsKey(eId))
+            missing.add(eId);
+      }
+
+      if (missing.isEmpty())
+         return results;
+
+      resolveAll(missing, LABEL_ACCOUNT).forEach((eId, entry) -> {
+         try
+         {
+            EntryLabel label = makeLabel(getResolver(eId), entry);
+            labels.put(eId, label);
+            results.put(eId, label);
+         }
+         catch (Exception ex)
+         {
+            logger.log(Level.WARNING, format("Failed to label entry {0} [{1}]", eId.getId(), eId.getType()), ex);
+         }
+      });
+
+      return results;
+   }
+
+   @Override
+   public void invalidateLabel(EntryId eId)
+   {
+      discardLabel(eId);
+      labelListeners.values().forEach(listener -> {
+         try
+         {
+            listener.accept(eId);
+         }
+         catch (Exception ex)
+         {
+            logger.log(Level.WARNING, format("Label change listener failed for entry {0} [{1}]", eId.getId(), eId.getType()), ex);
+         }
+      });
+   }
+
+   /**
+    * Discards the retained label of an entry without notifying label change listeners.
+    * This is intended for use when the entry has been changed by another application node
+    * that is responsible for notifying any listeners.
+    *
+    * @param eId The entry whose label should be discarded.
+    */
+   public void discardLabel(EntryId eId)
+   {
+      labels.invalidate(eId);
+   }
+
+   /**
+    * Discards all retained labels without notifying label change listeners.
+    */
+   public void discardLabels()
+   {
+      labels.invalidateAll();
+   }
+
+   @Override
+   public Runnable onLabelChanged(Consumer<EntryId> listener)
+   {
+      UUID listenerId = UUID.randomUUID();
+      labelListeners.put(listenerId, listener);
+      return () -> labelListeners.remove(listenerId);
+   }
+
+   private static <T> EntryLabel makeLabel(EntryResolver<T> resolver, T entry)
+   {
+      return new EntryLabel(resolver.getLabel(entry), resolver.getHtmlLabel(entry));
+   }
+
    @Override
    public String tokenize(EntryId eId)
    {
@@ -105,34 +292,120 @@ public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolv
 
       // HACK this is an arbitrary restriction on ids and may not be robust
       //      to future changes. Need a better tokenization strategy.
-      if (id.contains("::"))
+      if (id.contains(TOKEN_SEPARATOR))
          throw new IllegalStateException("Cannot tokenize reference with id " + id);
-      String key = id + "::" + type;
-      return Base64.getEncoder().encodeToString(key.getBytes());
+
+      EntryId eId = new EntryId(id, type);
+      String token = encodedTokens.getIfPresent(eId);
+      if (token == null)
+      {
+         String key = id + TOKEN_SEPARATOR + type;
+         token = Base64.getEncoder().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+         encodedTokens.put(eId, token);
+      }
+
+      return token;
    }
 
    @Override
    public EntryId decodeToken(String token)
    {
-      EntryId ref;
-      byte[] bytes = Base64.getDecoder().decode(token);
+      EntryId ref = decodedTokens.getIfPresent(token);
+      if (ref == null)
+      {
+         ref = parseToken(token);
+         decodedTokens.put(token, ref);
+      }
+
+      // ensure that a resolver exists for this reference. Resolvers may have been removed
+      // since the token was decoded, so this cannot be cached.
+      this.getResolver(ref);
+      return ref;
+   }
+
+   private static EntryId parseToken(String token)
+   {
       try
       {
-         String key = new String(bytes, "UTF-8");
-         int ix = key.indexOf("::");
+         byte[] bytes = Base64.getDecoder().decode(token);
+         String key = new String(bytes, StandardCharsets.UTF_8);
+         int ix = key.indexOf(TOKEN_SEPARATOR);
          if (ix < 0 || ix >= key.length() - 3)
             throw new IllegalArgumentException(format("Invalid entry reference token {0}", token));
 
-         ref = new EntryId(key.substring(0, ix), key.substring(ix + 2));
+         return new EntryId(key.substring(0, ix), key.substring(ix + 2));
       }
       catch (Exception e)
       {
          throw new IllegalArgumentException(format("Invalid entry reference token {0}", token));
       }
+   }
 
-      // ensure that a resolver exists for this reference.
-      this.getResolver(ref);
-      return ref;
+   /**
+    * An immutable snapshot of the registered resolvers, indexed for lookup.
+    */
+   private static class ResolverIndex
+   {
+      private final List<EntryResolver<?>> all;
+      private final Map<String, List<EntryResolver<?>>> byType = new HashMap<>();
+      private final List<EntryResolver<?>> untyped = new ArrayList<>();
+
+      /** The resolver found for each class of entry instance. Populated on demand. */
+      private final Map<Class<?>, EntryResolver<?>> byClass = new ConcurrentHashMap<>();
+
+      ResolverIndex(List<EntryResolver<?>> resolvers)
+      {
+         this.all = Collections.unmodifiableList(resolvers);
+         for (EntryResolver<?> resolver : resolvers)
+         {
+            Optional<String> typeId = resolver.getTypeId();
+            if (typeId.isPresent())
+               byType.computeIfAbsent(typeId.get(), key -> new ArrayList<>()).add(resolver);
+            else
+               untyped.add(resolver);
+         }
+      }
+
+      Optional<EntryResolver<?>> find(String id, String type)
+      {
+         for (EntryResolver<?> candidate : byType.getOrDefault(type, Collections.emptyList()))
+         {
+            if (candidate.accepts(id, type))
+               return Optional.of(candidate);
+         }
+
+         for (EntryResolver<?> candidate : untyped)
+         {
+            if (candidate.accepts(id, type))
+               return Optional.of(candidate);
+         }
+
+         return Optional.empty();
+      }
+
+      Optional<EntryResolver<?>> find(Object entry)
+      {
+         if (entry == null)
+            return Optional.empty();
+
+         // NOTE resolvers typically accept entries based on their class, but this is not
+         //      required. Confirm that a remembered resolver accepts this instance.
+         Class<?> cls = entry.getClass();
+         EntryResolver<?> resolver = byClass.get(cls);
+         if (resolver != null && resolver.accepts(entry))
+            return Optional.of(resolver);
+
+         for (EntryResolver<?> candidate : all)
+         {
+            if (candidate.accepts(entry))
+            {
+               byClass.put(cls, candidate);
+               return Optional.of(candidate);
+            }
+         }
+
+         return Optional.empty();
+      }
    }
 
    private class EntryRefImpl<T> implements EntryReference<T>
@@ -151,19 +424,34 @@ public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolv
       {
          this.resolver = BasicResolverRegistry.this.getResolver(instance);
          this.entryId = this.resolver.makeReference(instance);
-         this.cache.put(new UUID(0, 0), Optional.of(instance));
+         this.cache.put(ANONYMOUS, Optional.of(instance));
       }
 
       @Override
       public String getLabel()
       {
-         return resolver.getLabel(getEntry(null));
+         return getEntryLabel().getLabel();
       }
 
       @Override
       public String getHtmlLabel()
       {
-         return resolver.getHtmlLabel(getEntry(null));
+         return getEntryLabel().getHtmlLabel();
+      }
+
+      private EntryLabel getEntryLabel()
+      {
+         // use the entry if it has already been resolved, otherwise the retained label
+         Optional<T> resolved = cache.get(ANONYMOUS);
+         if (resolved != null && resolved.isPresent())
+            return makeLabel(resolver, resolved.get());
+
+         EntryLabel label = getLabels(Collections.singleton(entryId)).get(entryId);
+         if (label != null)
+            return label;
+
+         // NOTE throws ResourceNotFoundException
+         return makeLabel(resolver, getEntry(null));
       }
 
       @Override
@@ -211,7 +499,7 @@ public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolv
       @Override
       public synchronized T getEntry(Account account)
       {
-         UUID id = account != null ? account.getId() : new UUID(0, 0);
+         UUID id = account != null ? account.getId() : ANONYMOUS;
          Optional<T> result = get(account);
 
          String msg = "No entry of type {0} found for id={1} using account {3} [{4}].";
@@ -226,7 +514,7 @@ public class BasicResolverRegistry implements EntryResolverRegistry, EntryResolv
 
       public synchronized Optional<T> get(Account account)
       {
-         UUID id = account != null ? account.getId() : new UUID(0, 0);
+         UUID id = account != null ? account.getId() : ANONYMOUS;
          return cache.computeIfAbsent(id, key -> resolver.resolve(account, getEntryId()));
       }
 
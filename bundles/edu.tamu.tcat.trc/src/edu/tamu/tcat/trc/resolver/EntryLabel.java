@@ -0,0 +1,43 @@
+package edu.tamu.tcat.trc.resolver;
+
+/**
+ * The display labels of an entry, as supplied by its {@link EntryResolver}. Labels are
+ * retained independently of the entries they describe so that they can be displayed
+ * without loading the entry itself (see
+ * {@link EntryResolverRegistry#getLabels(java.util.Collection)}).
+ */
+public final class EntryLabel
+{
+   private final String label;
+   private final String htmlLabel;
+
+   public EntryLabel(String label, String htmlLabel)
+   {
+      this.label = label;
+      this.htmlLabel = htmlLabel;
+   }
+
+   /**
+    * @return A text label for the entry.
+    * @see EntryResolver#getLabel(Object)
+    */
+   public String getLabel()
+   {
+      return label;
+   }
+
+   /**
+    * @return A lightly marked HTML label for the entry.
+    * @see EntryResolver#getHtmlLabel(Object)
+    */
+   public String getHtmlLabel()
+   {
+      return htmlLabel;
+   }
+
+   @Override
+   public String toString()
+   {
+      return label;
+   }
+}
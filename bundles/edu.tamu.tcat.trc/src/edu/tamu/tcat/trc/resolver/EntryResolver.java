@@ -1,6 +1,9 @@
 package edu.tamu.tcat.trc.resolver;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -31,6 +34,21 @@ public interface EntryResolver<T>
     */
    Class<T> getType();
 
+   /**
+    * Supplies the entry type id (see {@link EntryId#getType()}) handled by this resolver.
+    * Registries use this to look up the resolver for a reference directly rather than
+    * testing each registered resolver. Resolvers that accept references of more than one
+    * type should return an empty value, in which case {@link #accepts(EntryId)} will be
+    * consulted.
+    *
+    * @return The type of entry reference accepted by this resolver, if it accepts a single
+    *       type.
+    */
+   default Optional<String> getTypeId()
+   {
+      return Optional.empty();
+   }
+
    /**
     * @param account A reference to the user (or other actor) account that is requesting
     *       access to this resource. May be {@code null}.
@@ -40,6 +58,30 @@ public interface EntryResolver<T>
     */
    Optional<T> resolve(Account account, EntryId reference) throws InvalidReferenceException;
 
+   /**
+    * Resolves multiple references. Implementations backed by a repository should override
+    * this to load all referenced entries in a single request. By default, each reference
+    * is resolved individually.
+    *
+    * @param account A reference to the user (or other actor) account that is requesting
+    *       access to these resources. May be {@code null}.
+    * @param references The references to resolve.
+    * @return A map from reference to the referenced entry. References to entries that do
+    *       not exist will not be present in the returned map.
+    * @throws InvalidReferenceException If any of the supplied references is not accepted
+    *       by this resolver.
+    */
+   default Map<EntryId, T> resolveAll(Account account, Collection<EntryId> references) throws InvalidReferenceException
+   {
+      Map<EntryId, T> results = new HashMap<>();
+      for (EntryId reference : references)
+      {
+         resolve(account, reference).ifPresent(entry -> results.put(reference, entry));
+      }
+
+      return results;
+   }
+
    /**
     * Attempts to remove the supplied entry from its associated data store.
     *
@@ -1,6 +1,13 @@
 package edu.tamu.tcat.trc.resolver;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import edu.tamu.tcat.osgi.config.ConfigurationProperties;
 import edu.tamu.tcat.trc.ConfigParams;
@@ -42,12 +49,54 @@ public abstract class EntryResolverBase<EntryType> implements EntryResolver<Entr
 
    protected abstract String getId(EntryType instance);
 
+   /**
+    * Helper method for use in implementing {@link #resolveAll(edu.tamu.tcat.account.Account, Collection)}
+    * using a repository that is able to load multiple entries at once.
+    *
+    * @param references The references to resolve.
+    * @param loader Loads the entries with the supplied ids. Entries that do not exist
+    *       should be omitted.
+    * @return A map from reference to the referenced entry.
+    * @throws InvalidReferenceException If any of the supplied references is not accepted
+    *       by this resolver.
+    */
+   protected Map<EntryId, EntryType> loadAll(Collection<EntryId> references,
+                                             Function<Collection<String>, Collection<EntryType>> loader)
+         throws InvalidReferenceException
+   {
+      Set<String> ids = new LinkedHashSet<>();
+      for (EntryId reference : references)
+      {
+         if (!accepts(reference))
+            throw new InvalidReferenceException(reference, "Unsupported reference type.");
+
+         ids.add(reference.getId());
+      }
+
+      Map<EntryId, EntryType> results = new HashMap<>();
+      if (ids.isEmpty())
+         return results;
+
+      for (EntryType entry : loader.apply(ids))
+      {
+         results.put(new EntryId(getId(entry), typeId), entry);
+      }
+
+      return results;
+   }
+
    @Override
    public Class<EntryType> getType()
    {
       return entryType;
    }
 
+   @Override
+   public Optional<String> getTypeId()
+   {
+      return Optional.of(typeId);
+   }
+
    @Override
    public URI toUri(EntryId reference) throws InvalidReferenceException
    {
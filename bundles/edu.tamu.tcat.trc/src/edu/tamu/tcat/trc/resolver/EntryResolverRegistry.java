@@ -1,6 +1,11 @@
 package edu.tamu.tcat.trc.resolver;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import edu.tamu.tcat.account.Account;
 
 /**
  * Maintains a registry of {@link EntryResolver}s for the various entry types
@@ -27,6 +32,59 @@ public interface EntryResolverRegistry
     */
    <T> EntryResolver<T> getResolver(T entry);
 
+   /**
+    * Resolves a collection of references, potentially of different types. References are
+    * grouped by type so that each {@link EntryResolver} is asked to resolve all of its
+    * references at once (see {@link EntryResolver#resolveAll(Account, Collection)}). This
+    * should be preferred to resolving references individually when rendering lists of
+    * references, such as the anchors of a page of relationships.
+    *
+    * @param ids The references to resolve.
+    * @param account The account requesting access to the referenced entries. May be
+    *       {@code null}.
+    * @return A map from reference to the referenced entry. References that are not
+    *       accepted by any registered resolver, that refer to entries that do not exist or
+    *       that could not be resolved due to an error will not be present in the returned
+    *       map.
+    */
+   Map<EntryId, Object> resolveAll(Collection<EntryId> ids, Account account);
+
+   /**
+    * Supplies the display labels for a collection of entries. Labels are retained by the
+    * registry once they have been computed so that they can be supplied without loading
+    * the referenced entries. Labels that are not available are computed by resolving the
+    * corresponding entries in bulk (see {@link #resolveAll(Collection, Account)}).
+    *
+    * <p>Labels are assumed to be visible to all users and are shared by all callers. For
+    * this reason, entries are always resolved using the internal system account rather
+    * than the account of the caller.
+    *
+    * @param ids The entries for which labels should be supplied.
+    * @return A map from reference to the labels of the referenced entry. References that
+    *       cannot be resolved will not be present in the returned map.
+    */
+   Map<EntryId, EntryLabel> getLabels(Collection<EntryId> ids);
+
+   /**
+    * Discards the retained labels for the identified entry and notifies listeners
+    * registered using {@link #onLabelChanged(Consumer)}. This is called by entry
+    * repositories when an entry is created or removed or when a modification changes
+    * its label.
+    *
+    * @param eId The entry that was changed.
+    */
+   void invalidateLabel(EntryId eId);
+
+   /**
+    * Registers a listener to be notified when the label of an entry may have changed. This
+    * allows components that store labels (for example, in search documents) to update them.
+    *
+    * @param listener The listener to notify with the id of the changed entry. Listeners
+    *       are notified on the thread that performed the update and should not block.
+    * @return A registration handle for use in removing this listener.
+    */
+   Runnable onLabelChanged(Consumer<EntryId> listener);
+
    /**
     *
     * @param ref An entry ref to tokenize
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Texas A&M Engineering Experiment Station
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.tamu.tcat.trc.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The number of search results associated with each of the values of a single facet, for
+ * example, the number of matching works published by each publisher. Facets are returned
+ * along with the results of a search and are typically used to present the user with a
+ * set of filters that may be used to refine that search.
+ *
+ * <p>For facets computed over a range of values (such as the decade of publication), each
+ * value is the lower bound of the range it represents.
+ */
+public final class SearchFacet
+{
+   private final String name;
+   private final List<Value> values;
+
+   public SearchFacet(String name, List<Value> values)
+   {
+      this.name = Objects.requireNonNull(name, "No facet name supplied");
+      this.values = Collections.unmodifiableList(new ArrayList<>(values));
+   }
+
+   /**
+    * Creates facets from a map of counts. The iteration order of the supplied maps is
+    * preserved.
+    *
+    * @param counts A map from facet name to the number of results associated with
+    *       each value of that facet.
+    * @return The corresponding facets.
+    */
+   public static List<SearchFacet> create(Map<String, ? extends Map<String, Long>> counts)
+   {
+      if (counts == null)
+         return Collections.emptyList();
+
+      List<SearchFacet> facets = new ArrayList<>();
+      counts.forEach((name, valueCounts) -> {
+         List<Value> values = new ArrayList<>();
+         valueCounts.forEach((value, count) -> values.add(new Value(value, count.longValue())));
+         facets.add(new SearchFacet(name, values));
+      });
+
+      return Collections.unmodifiableList(facets);
+   }
+
+   /**
+    * @return The name of this facet. This is typically the name of the field whose values
+    *       were counted.
+    */
+   public String getName()
+   {
+      return name;
+   }
+
+   /**
+    * @return The values of this facet along with their counts, in the order returned by
+    *       the search engine (typically by decreasing count).
+    */
+   public List<Value> getValues()
+   {
+      return values;
+   }
+
+   @Override
+   public String toString()
+   {
+      return name + values;
+   }
+
+   /**
+    * A single value of a facet along with the number of results associated with it.
+    */
+   public static final class Value
+   {
+      private final String value;
+      private final long count;
+
+      public Value(String value, long count)
+      {
+         this.value = value;
+         this.count = count;
+      }
+
+      /**
+       * @return The value of the facet. This may be used to filter results to those that
+       *       are associated with this value.
+       */
+      public String getValue()
+      {
+         return value;
+      }
+
+      /**
+       * @return The number of results associated with this value.
+       */
+      public long getCount()
+      {
+         return count;
+      }
+
+      @Override
+      public String toString()
+      {
+         return value + "=" + count;
+      }
+   }
+}
@@ -0,0 +1,200 @@
+package edu.tamu.tcat.trc.test.entries.relationships;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.entries.types.reln.Anchor;
+import edu.tamu.tcat.trc.entries.types.reln.Relationship;
+import edu.tamu.tcat.trc.entries.types.reln.RelationshipType;
+import edu.tamu.tcat.trc.entries.types.reln.impl.RelationshipGraph;
+import edu.tamu.tcat.trc.entries.types.reln.impl.RelationshipGraph.Direction;
+import edu.tamu.tcat.trc.resolver.EntryId;
+
+public class RelationshipGraphTest
+{
+   private static final EntryId A = new EntryId("a", "test");
+   private static final EntryId B = new EntryId("b", "test");
+   private static final EntryId C = new EntryId("c", "test");
+   private static final EntryId D = new EntryId("d", "test");
+
+   private RelationshipGraph graph;
+
+   @Before
+   public void setup()
+   {
+      graph = new RelationshipGraph();
+      graph.build(Arrays.<Relationship>asList(
+            new TestRelationship("1", "authored", A, B),
+            new TestRelationship("2", "cites", B, C),
+            new TestRelationship("3", "authored", C, D)).iterator());
+   }
+
+   @Test
+   public void testDirection()
+   {
+      Assert.assertEquals(set("1"), graph.getRelationships(A, Direction.FROM, null));
+      Assert.assertEquals(set(), graph.getRelationships(A, Direction.TO, null));
+      Assert.assertEquals(set("1", "2"), graph.getRelationships(B, Direction.ANY, null));
+      Assert.assertEquals(set("2"), graph.getRelationships(B, Direction.ANY, "cites"));
+      Assert.assertEquals(set(), graph.getRelationships(B, Direction.ANY, "unknown"));
+   }
+
+   @Test
+   public void testUpdateAndRemove()
+   {
+      graph.add(new TestRelationship("1", "authored", D, B));
+      Assert.assertEquals(set(), graph.getRelationships(A, Direction.ANY, null));
+      Assert.assertEquals(set("1", "3"), graph.getRelationships(D, Direction.ANY, null));
+
+      graph.remove("3");
+      graph.add(new TestRelationship("4", "cites", A, C));
+      Assert.assertEquals(set("1"), graph.getRelationships(D, Direction.ANY, null));
+      Assert.assertEquals(set("4"), graph.getRelationships(A, Direction.FROM, null));
+      Assert.assertEquals(3, graph.size());
+   }
+
+   @Test
+   public void testNeighborhood()
+   {
+      Assert.assertEquals(set("1"), graph.getNeighborhood(A, 1, 100));
+      Assert.assertEquals(set("1", "2"), graph.getNeighborhood(A, 2, 100));
+      Assert.assertEquals(set("1", "2", "3"), graph.getNeighborhood(A, 3, 100));
+      Assert.assertEquals(2, graph.getNeighborhood(A, 3, 2).size());
+      Assert.assertEquals(set("2", "3"), graph.getNeighborhood(D, 2, 100));
+   }
+
+   private static Set<String> set(String... ids)
+   {
+      return new HashSet<>(Arrays.asList(ids));
+   }
+
+   private static class TestRelationship implements Relationship
+   {
+      private final String id;
+      private final RelationshipType type;
+      private final List<Anchor> related;
+      private final List<Anchor> targets;
+
+      TestRelationship(String id, String typeId, EntryId related, EntryId target)
+      {
+         this.id = id;
+         this.type = new TestType(typeId);
+         this.related = Arrays.asList(related).stream().map(TestAnchor::new).collect(toList());
+         this.targets = Arrays.asList(target).stream().map(TestAnchor::new).collect(toList());
+      }
+
+      @Override
+      public String getId()
+      {
+         return id;
+      }
+
+      @Override
+      public RelationshipType getType()
+      {
+         return type;
+      }
+
+      @Override
+      public String getDescription()
+      {
+         return null;
+      }
+
+      @Override
+      public Collection<Anchor> getRelatedEntities()
+      {
+         return related;
+      }
+
+      @Override
+      public Collection<Anchor> getTargetEntities()
+      {
+         return targets;
+      }
+   }
+
+   private static class TestAnchor implements Anchor
+   {
+      private final EntryId target;
+
+      TestAnchor(EntryId target)
+      {
+         this.target = target;
+      }
+
+      @Override
+      public EntryId getTarget()
+      {
+         return target;
+      }
+
+      @Override
+      public String getLabel()
+      {
+         return null;
+      }
+
+      @Override
+      public Set<String> listProperties()
+      {
+         return Collections.emptySet();
+      }
+
+      @Override
+      public Set<String> getProperty(String property)
+      {
+         return Collections.emptySet();
+      }
+   }
+
+   private static class TestType implements RelationshipType
+   {
+      private final String id;
+
+      TestType(String id)
+      {
+         this.id = id;
+      }
+
+      @Override
+      public String getIdentifier()
+      {
+         return id;
+      }
+
+      @Override
+      public String getTitle()
+      {
+         return id;
+      }
+
+      @Override
+      public String getReverseTitle()
+      {
+         return id;
+      }
+
+      @Override
+      public String getDescription()
+      {
+         return null;
+      }
+
+      @Override
+      public boolean isDirected()
+      {
+         return true;
+      }
+   }
+}
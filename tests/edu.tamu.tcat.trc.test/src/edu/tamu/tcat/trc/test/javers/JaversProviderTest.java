@@ -29,6 +29,7 @@ import edu.tamu.tcat.trc.entries.types.article.impl.repo.DataModelV1;
 import edu.tamu.tcat.trc.entries.types.article.impl.repo.DataModelV1.Article;
 import edu.tamu.tcat.trc.entries.types.article.impl.repo.DataModelV1.ArticleAuthor;
 import edu.tamu.tcat.trc.entries.types.article.impl.repo.DataModelV1.Footnote;
+import edu.tamu.tcat.trc.repo.postgres.HistoryWriter;
 import edu.tamu.tcat.trc.repo.postgres.JaversProvider;
 import edu.tamu.tcat.trc.test.support.TrcTestContext;
 
@@ -142,6 +143,39 @@ public class JaversProviderTest
       
    }
    
+   @Test
+   public void historyWriterCommit() throws Exception
+   {
+      Article articleDTO = createStandardArticle();
+
+      // NOTE history is written in the background, so each version must be a distinct object
+      try (HistoryWriter writer = jvsp.getHistoryWriter())
+      {
+         writer.record("Johnny", articleDTO);
+         writer.record("Johnny", changeTitle(createStandardArticle(articleDTO.id)));
+         writer.record("Johnny", changeBody(createStandardArticle(articleDTO.id))).get();
+      }
+
+      Javers jvs = jvsp.getJavers();
+      List<CdoSnapshot> snapShots = jvs.findSnapshots(QueryBuilder.byInstanceId(articleDTO.id, Article.class).build());
+
+      Assert.assertEquals(3, snapShots.size());
+   }
+
+   @Test
+   public void javersNotShared()
+   {
+      // NOTE each client has its own connection so that reads do not wait on other clients
+      Assert.assertNotSame(jvsp.getJavers(), jvsp.getJavers());
+   }
+
+   private DataModelV1.Article createStandardArticle(String id)
+   {
+      DataModelV1.Article article = createStandardArticle();
+      article.id = id;
+      return article;
+   }
+
    private void checkDiff(List<ArticleAuthor> authors)
    {
       Javers javers = jvsp.getJavers();
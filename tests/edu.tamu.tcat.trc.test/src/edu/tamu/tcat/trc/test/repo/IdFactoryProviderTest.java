@@ -0,0 +1,81 @@
+package edu.tamu.tcat.trc.test.repo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.repo.id.IdFactory;
+import edu.tamu.tcat.trc.repo.postgres.id.DbBackedObfuscatingIdFactoryProvider;
+import edu.tamu.tcat.trc.test.support.TrcTestContext;
+
+public class IdFactoryProviderTest
+{
+   private static final int THREADS = 8;
+   private static final int IDS_PER_THREAD = 1000;
+
+   private static TrcTestContext trcTestContext;
+   private static DbBackedObfuscatingIdFactoryProvider provider;
+
+   @BeforeClass
+   public static void beforeClass()
+   {
+      trcTestContext = new TrcTestContext();
+
+      Map<String, Object> props = new HashMap<>();
+      props.put(DbBackedObfuscatingIdFactoryProvider.PROP_GRANT_SIZE, Integer.valueOf(5));
+
+      provider = new DbBackedObfuscatingIdFactoryProvider();
+      provider.setDatabaseExecutor(trcTestContext.getSqlExecutor());
+      provider.activate(props);
+   }
+
+   @AfterClass
+   public static void afterClass() throws Exception
+   {
+      provider.dispose();
+      trcTestContext.close();
+   }
+
+   @Test
+   public void testConcurrentIdsAreUnique() throws Exception
+   {
+      // use a unique context so that results are not affected by previous runs
+      IdFactory factory = provider.getIdFactory("test/" + UUID.randomUUID());
+      Set<String> ids = ConcurrentHashMap.newKeySet();
+
+      ExecutorService exec = Executors.newFixedThreadPool(THREADS);
+      try
+      {
+         List<Future<?>> results = IntStream.range(0, THREADS)
+               .mapToObj(i -> exec.submit(() -> {
+                  for (int j = 0; j < IDS_PER_THREAD; j++)
+                     ids.add(factory.get());
+               }))
+               .collect(Collectors.toList());
+
+         for (Future<?> result : results)
+            result.get(1, TimeUnit.MINUTES);
+      }
+      finally
+      {
+         exec.shutdown();
+      }
+
+      assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+   }
+}
@@ -0,0 +1,173 @@
+package edu.tamu.tcat.trc.test.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.tamu.tcat.db.exec.sql.SqlExecutor;
+import edu.tamu.tcat.trc.repo.postgres.PsqlChangeNotifier;
+import edu.tamu.tcat.trc.test.support.TrcTestContext;
+
+/**
+ * Simulates two application nodes sharing a database in order to verify that change
+ * notifications are delivered between them.
+ */
+public class PsqlChangeNotifierTest
+{
+   private static final String CHANNEL = PsqlChangeNotifier.getChannel("notifier_test");
+
+   private static TrcTestContext trcTestContext;
+
+   private PsqlChangeNotifier local;
+   private PsqlChangeNotifier remote;
+
+   @BeforeClass
+   public static void beforeClass()
+   {
+      trcTestContext = new TrcTestContext();
+   }
+
+   @AfterClass
+   public static void afterClass() throws Exception
+   {
+      trcTestContext.close();
+   }
+
+   @Before
+   public void setup()
+   {
+      local = new PsqlChangeNotifier();
+      local.setDataSourceProvider(trcTestContext.getDataSourceProvider());
+      local.activate();
+
+      remote = new PsqlChangeNotifier();
+      remote.setDataSourceProvider(trcTestContext.getDataSourceProvider());
+      remote.activate();
+   }
+
+   @After
+   public void tearDown()
+   {
+      local.dispose();
+      remote.dispose();
+   }
+
+   @Test
+   public void testNotifyOtherNode() throws Exception
+   {
+      RecordingListener listener = new RecordingListener(1);
+      local.listen(CHANNEL, listener);
+
+      publish(remote, "record-1");
+
+      assertTrue("Notification was not delivered", listener.await());
+      assertEquals("record-1", listener.ids.get(0));
+   }
+
+   @Test
+   public void testIgnoreOwnNotifications() throws Exception
+   {
+      RecordingListener listener = new RecordingListener(1);
+      local.listen(CHANNEL, listener);
+
+      publish(local, "record-1");
+
+      assertFalse("Node should ignore its own notifications", listener.await());
+   }
+
+   @Test
+   public void testRemoveListener() throws Exception
+   {
+      RecordingListener listener = new RecordingListener(1);
+      Runnable registration = local.listen(CHANNEL, listener);
+      registration.run();
+
+      publish(remote, "record-1");
+
+      assertFalse("Removed listener should not be notified", listener.await());
+   }
+
+   @Test
+   public void testRemoveOneOfSeveralListeners() throws Exception
+   {
+      RecordingListener removed = new RecordingListener(1);
+      RecordingListener retained = new RecordingListener(1);
+      Runnable registration = local.listen(CHANNEL, removed);
+      local.listen(CHANNEL, retained);
+      registration.run();
+
+      publish(remote, "record-1");
+
+      assertTrue("Remaining listener was not notified", retained.await());
+      assertFalse("Removed listener should not be notified", removed.await());
+   }
+
+   @Test
+   public void testListenAfterLastListenerRemoved() throws Exception
+   {
+      Runnable registration = local.listen(CHANNEL, new RecordingListener(1));
+
+      // allow the node to stop listening on the channel before registering again
+      Thread.sleep(1000);
+      registration.run();
+      Thread.sleep(1000);
+
+      RecordingListener listener = new RecordingListener(1);
+      local.listen(CHANNEL, listener);
+
+      publish(remote, "record-1");
+
+      assertTrue("Notification was not delivered", listener.await());
+   }
+
+   private void publish(PsqlChangeNotifier notifier, String id) throws Exception
+   {
+      // allow time for the listening node to register with the database
+      Thread.sleep(1000);
+
+      SqlExecutor exec = trcTestContext.getSqlExecutor();
+      exec.submit(conn -> {
+         notifier.publish(conn, CHANNEL, id);
+         return null;
+      }).get(10, TimeUnit.SECONDS);
+   }
+
+   private static class RecordingListener implements PsqlChangeNotifier.ChangeListener
+   {
+      private final List<String> ids = new CopyOnWriteArrayList<>();
+      private final CountDownLatch latch;
+
+      RecordingListener(int expected)
+      {
+         latch = new CountDownLatch(expected);
+      }
+
+      boolean await() throws InterruptedException
+      {
+         return latch.await(5, TimeUnit.SECONDS);
+      }
+
+      @Override
+      public void changed(String id)
+      {
+         ids.add(id);
+         latch.countDown();
+      }
+
+      @Override
+      public void reset()
+      {
+      }
+   }
+}
@@ -0,0 +1,184 @@
+package edu.tamu.tcat.trc.test.repo;
+
+import static java.text.MessageFormat.format;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.repo.EditCommandFactory;
+import edu.tamu.tcat.trc.repo.ExecutableUpdateContext;
+import edu.tamu.tcat.trc.repo.postgres.PsqlJacksonRepo;
+import edu.tamu.tcat.trc.repo.postgres.PsqlJacksonRepoBuilder;
+import edu.tamu.tcat.trc.repo.postgres.RecordCachePolicy;
+import edu.tamu.tcat.trc.test.support.TrcTestContext;
+
+/**
+ * Measures the latency of basic repository operations against the test database in order
+ * to make performance regressions in these paths visible. Record caching is disabled so
+ * that each read is served by the database. Latencies are reported to the log and the
+ * results of each operation are checked.
+ *
+ * <p>This test is not run by default. Set the system property {@value #ENABLE_PROP} to
+ * {@code true} to run it.
+ */
+public class PsqlJacksonRepoLatencyTest
+{
+   private static final Logger logger = Logger.getLogger(PsqlJacksonRepoLatencyTest.class.getName());
+
+   public static final String ENABLE_PROP = "trc.test.latency";
+
+   private static final String TABLE_NAME = "trc_latency_test";
+   private static final int WARMUP = 50;
+   private static final int ITERATIONS = 500;
+
+   private static TrcTestContext trcTestContext;
+   private static PsqlJacksonRepo<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> repo;
+   private static List<String> ids = new ArrayList<>();
+
+   public static class TestRecord
+   {
+      public String id;
+      public String title;
+      public String body;
+   }
+
+   private static class TestCommandFactory implements EditCommandFactory<TestRecord, ExecutableUpdateContext<TestRecord>>
+   {
+      @Override
+      public ExecutableUpdateContext<TestRecord> create(ExecutableUpdateContext<TestRecord> ctx)
+      {
+         return ctx;
+      }
+
+      @Override
+      public TestRecord initialize(String id, Optional<TestRecord> original)
+      {
+         TestRecord record = new TestRecord();
+         record.id = id;
+         original.ifPresent(orig -> {
+            record.title = orig.title;
+            record.body = orig.body;
+         });
+
+         return record;
+      }
+   }
+
+   @BeforeClass
+   public static void beforeClass()
+   {
+      Assume.assumeTrue("Latency measurements are disabled", Boolean.getBoolean(ENABLE_PROP));
+      trcTestContext = new TrcTestContext();
+
+      PsqlJacksonRepoBuilder<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> builder = new PsqlJacksonRepoBuilder<>();
+      builder.setDbExecutor(trcTestContext.getSqlExecutor());
+      builder.setJaversProvider(trcTestContext.getJaversProvider());
+      builder.setPersistenceId(TABLE_NAME);
+      builder.setEnableCreation(true);
+      builder.setStorageType(TestRecord.class);
+      builder.setDataAdapter(dto -> dto);
+      builder.setEditCommandFactory(new TestCommandFactory());
+      builder.setCachePolicy(RecordCachePolicy.disabled());
+
+      repo = builder.build();
+   }
+
+   @AfterClass
+   public static void afterClass() throws Exception
+   {
+      if (trcTestContext == null)
+         return;
+
+      repo.dispose();
+
+      Future<Void> future = trcTestContext.getSqlExecutor().submit(conn -> {
+         try (PreparedStatement ps = conn.prepareStatement(format("DROP TABLE IF EXISTS {0}", TABLE_NAME)))
+         {
+            ps.executeUpdate();
+            return null;
+         }
+      });
+
+      future.get(1, TimeUnit.MINUTES);
+      trcTestContext.close();
+   }
+
+   @Test
+   public void testLatency() throws Exception
+   {
+      measure("create", i -> {
+         String id = UUID.randomUUID().toString();
+         ids.add(id);
+         repo.create(null, id).update(dto -> {
+            dto.title = "Record " + i;
+            dto.body = "Body of record " + i;
+            return dto;
+         }).get(1, TimeUnit.MINUTES);
+      });
+
+      measure("get", i -> {
+         TestRecord record = repo.get(ids.get(i)).orElseThrow(() -> new AssertionError("Missing record " + i));
+         Assert.assertEquals("Record " + i, record.title);
+      });
+      measure("exists", i -> Assert.assertTrue(repo.exists(ids.get(i))));
+      measure("get (batch of 20)", i -> {
+         int start = i % (ids.size() - 20);
+         Assert.assertEquals(20, repo.get(ids.subList(start, start + 20).toArray(new String[20])).size());
+      });
+
+      measure("edit", i -> {
+         TestRecord edited = repo.edit(null, ids.get(i)).update(dto -> {
+            dto.title = "Edited record " + i;
+            return dto;
+         }).get(1, TimeUnit.MINUTES);
+         Assert.assertEquals("Edited record " + i, edited.title);
+      });
+
+      Assert.assertEquals("Edited record 0", repo.get(ids.get(0)).get().title);
+      Assert.assertFalse(repo.exists(UUID.randomUUID().toString()));
+   }
+
+   @FunctionalInterface
+   private interface Operation
+   {
+      void run(int iteration) throws Exception;
+   }
+
+   private static void measure(String name, Operation op) throws Exception
+   {
+      int total = WARMUP + ITERATIONS;
+      long[] times = new long[ITERATIONS];
+      for (int i = 0; i < total; i++)
+      {
+         long start = System.nanoTime();
+         op.run(i);
+         long elapsed = System.nanoTime() - start;
+
+         if (i >= WARMUP)
+            times[i - WARMUP] = elapsed;
+      }
+
+      Arrays.sort(times);
+      logger.info(format("{0}: p50={1}us p95={2}us p99={3}us max={4}us",
+            name, micros(times, 0.50), micros(times, 0.95), micros(times, 0.99), micros(times, 1.0)));
+   }
+
+   private static String micros(long[] sorted, double percentile)
+   {
+      int ix = Math.min(sorted.length - 1, (int)Math.ceil(percentile * sorted.length) - 1);
+      return Long.toString(TimeUnit.NANOSECONDS.toMicros(sorted[ix]));
+   }
+}
@@ -0,0 +1,391 @@
+package edu.tamu.tcat.trc.test.repo;
+
+import static java.text.MessageFormat.format;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+import edu.tamu.tcat.trc.repo.EditCommandFactory;
+import edu.tamu.tcat.trc.repo.ExecutableUpdateContext;
+import edu.tamu.tcat.trc.repo.RecordUpdateEvent;
+import edu.tamu.tcat.trc.repo.UpdateActionType;
+import edu.tamu.tcat.trc.repo.postgres.BulkImportMonitor;
+import edu.tamu.tcat.trc.repo.postgres.PsqlChangeNotifier;
+import edu.tamu.tcat.trc.repo.postgres.PsqlJacksonRepo;
+import edu.tamu.tcat.trc.repo.postgres.PsqlJacksonRepoBuilder;
+import edu.tamu.tcat.trc.repo.postgres.RecordCachePolicy;
+import edu.tamu.tcat.trc.test.support.TrcTestContext;
+
+public class PsqlJacksonRepoTest
+{
+   private static final String TABLE_NAME = "trc_repo_test";
+
+   private static TrcTestContext trcTestContext;
+
+   private PsqlJacksonRepo<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> repo;
+
+   public static class TestRecord
+   {
+      public String id;
+      public String title;
+      public String body;
+   }
+
+   private static class TestCommandFactory implements EditCommandFactory<TestRecord, ExecutableUpdateContext<TestRecord>>
+   {
+      @Override
+      public ExecutableUpdateContext<TestRecord> create(ExecutableUpdateContext<TestRecord> ctx)
+      {
+         return ctx;
+      }
+
+      @Override
+      public TestRecord initialize(String id, Optional<TestRecord> original)
+      {
+         TestRecord record = new TestRecord();
+         record.id = id;
+         original.ifPresent(orig -> {
+            record.title = orig.title;
+            record.body = orig.body;
+         });
+
+         return record;
+      }
+   }
+
+   @BeforeClass
+   public static void beforeClass()
+   {
+      trcTestContext = new TrcTestContext();
+   }
+
+   @AfterClass
+   public static void afterClass() throws Exception
+   {
+      trcTestContext.close();
+   }
+
+   @Before
+   public void setup()
+   {
+      repo = createRepo(RecordCachePolicy.disabled());
+   }
+
+   private PsqlJacksonRepo<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> createRepo(RecordCachePolicy cachePolicy)
+   {
+      return createRepo(cachePolicy, null);
+   }
+
+   private PsqlJacksonRepo<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> createRepo(RecordCachePolicy cachePolicy, PsqlChangeNotifier notifier)
+   {
+      PsqlJacksonRepoBuilder<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> builder = new PsqlJacksonRepoBuilder<>();
+      builder.setDbExecutor(trcTestContext.getSqlExecutor());
+      builder.setJaversProvider(trcTestContext.getJaversProvider());
+      builder.setPersistenceId(TABLE_NAME);
+      builder.setEnableCreation(true);
+      builder.setStorageType(TestRecord.class);
+      builder.setDataAdapter(dto -> dto);
+      builder.setEditCommandFactory(new TestCommandFactory());
+      builder.setCachePolicy(cachePolicy);
+      builder.setChangeNotifier(notifier);
+
+      return builder.build();
+   }
+
+   @After
+   public void tearDown() throws Exception
+   {
+      repo.dispose();
+
+      Future<Void> future = trcTestContext.getSqlExecutor().submit(conn -> {
+         try (PreparedStatement ps = conn.prepareStatement(format("DROP TABLE IF EXISTS {0}", TABLE_NAME)))
+         {
+            ps.executeUpdate();
+            return null;
+         }
+      });
+
+      future.get(1, TimeUnit.MINUTES);
+   }
+
+   @Test
+   public void testConcurrentEdits() throws Exception
+   {
+      String id = UUID.randomUUID().toString();
+      repo.create(null, id).update(dto -> {
+         dto.title = "Original title";
+         dto.body = "Original body";
+         return dto;
+      }).get(1, TimeUnit.MINUTES);
+
+      AtomicInteger preCommitCount = new AtomicInteger();
+      repo.beforeUpdate(ctx -> preCommitCount.incrementAndGet());
+
+      // both edits load the original state before either is stored, so one must conflict
+      CountDownLatch loaded = new CountDownLatch(2);
+      ExecutorService exec = Executors.newFixedThreadPool(2);
+      try
+      {
+         Future<CompletableFuture<TestRecord>> titleEdit = exec.submit(() ->
+               edit(id, loaded, dto -> dto.title = "Edited title"));
+         Future<CompletableFuture<TestRecord>> bodyEdit = exec.submit(() ->
+               edit(id, loaded, dto -> dto.body = "Edited body"));
+
+         titleEdit.get(1, TimeUnit.MINUTES).get(1, TimeUnit.MINUTES);
+         bodyEdit.get(1, TimeUnit.MINUTES).get(1, TimeUnit.MINUTES);
+      }
+      finally
+      {
+         exec.shutdownNow();
+      }
+
+      TestRecord record = repo.get(id).get();
+      Assert.assertEquals("Edited title", record.title);
+      Assert.assertEquals("Edited body", record.body);
+      Assert.assertTrue("Pre-commit tasks should be run for each attempt", preCommitCount.get() >= 3);
+   }
+
+   @Test
+   public void testListIds() throws Exception
+   {
+      List<String> ids = new ArrayList<>();
+      for (int i = 0; i < 5; i++)
+      {
+         String id = UUID.randomUUID().toString();
+         ids.add(id);
+         repo.create(null, id).update(dto -> {
+            dto.title = "Title " + id;
+            return dto;
+         }).get(1, TimeUnit.MINUTES);
+      }
+
+      // removed records are not listed
+      repo.delete(null, ids.get(0)).get(1, TimeUnit.MINUTES);
+      ids.remove(0);
+
+      List<String> listed = new ArrayList<>();
+      repo.listIds().forEachRemaining(listed::add);
+      Assert.assertEquals(ids.size(), listed.size());
+      Assert.assertEquals(new HashSet<>(ids), new HashSet<>(listed));
+   }
+
+   @Test
+   public void testImportAll() throws Exception
+   {
+      List<TestRecord> records = new ArrayList<>();
+      for (int i = 0; i < 3; i++)
+      {
+         TestRecord record = new TestRecord();
+         record.id = UUID.randomUUID().toString();
+         record.title = "Imported " + i;
+         records.add(record);
+      }
+
+      // values must be escaped for the text format of the COPY command
+      records.get(0).body = "Tab\tNewline\nBackslash\\ \\N";
+
+      List<RecordUpdateEvent<TestRecord>> events = new CopyOnWriteArrayList<>();
+      repo.afterUpdate(events::add);
+
+      AtomicInteger committed = new AtomicInteger(-1);
+      BulkImportMonitor monitor = new BulkImportMonitor()
+      {
+         @Override
+         public void committed(int count)
+         {
+            committed.set(count);
+         }
+      };
+
+      Integer count = repo.importAll(null, records.stream(), record -> record.id, monitor).get(1, TimeUnit.MINUTES);
+      Assert.assertEquals(3, count.intValue());
+      Assert.assertEquals(3, committed.get());
+
+      for (TestRecord expected : records)
+      {
+         TestRecord stored = repo.get(expected.id).orElseThrow(() -> new AssertionError("Record not imported: " + expected.id));
+         Assert.assertEquals(expected.title, stored.title);
+         Assert.assertEquals(expected.body, stored.body);
+      }
+
+      Set<String> notified = events.stream().map(RecordUpdateEvent::getRecordId).collect(Collectors.toSet());
+      Assert.assertEquals(records.stream().map(record -> record.id).collect(Collectors.toSet()), notified);
+      Assert.assertTrue(events.stream().allMatch(event -> event.getUpdateType() == UpdateActionType.CREATE));
+   }
+
+   @Test
+   public void testImportAllRollsBackOnConflict() throws Exception
+   {
+      String existing = UUID.randomUUID().toString();
+      repo.create(null, existing).update(dto -> {
+         dto.title = "Existing";
+         return dto;
+      }).get(1, TimeUnit.MINUTES);
+
+      TestRecord added = new TestRecord();
+      added.id = UUID.randomUUID().toString();
+      TestRecord duplicate = new TestRecord();
+      duplicate.id = existing;
+
+      try
+      {
+         repo.importAll(null, Stream.of(added, duplicate), record -> record.id, null).get(1, TimeUnit.MINUTES);
+         Assert.fail("Expected the import of a duplicate id to fail");
+      }
+      catch (ExecutionException expected)
+      {
+         // expected
+      }
+
+      // no records are imported if any record fails
+      Assert.assertFalse(repo.get(added.id).isPresent());
+      Assert.assertEquals("Existing", repo.get(existing).get().title);
+   }
+
+   @Test
+   public void testCacheStats() throws Exception
+   {
+      PsqlJacksonRepo<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> cachingRepo = createRepo(RecordCachePolicy.defaultPolicy());
+      try
+      {
+         String id = UUID.randomUUID().toString();
+         cachingRepo.create(null, id).update(dto -> {
+            dto.title = "Cached";
+            return dto;
+         }).get(1, TimeUnit.MINUTES);
+
+         CacheStats before = cachingRepo.getCacheStats();
+         Assert.assertEquals("Cached", cachingRepo.get(id).get().title);
+         Assert.assertEquals("Cached", cachingRepo.get(id).get().title);
+         Assert.assertEquals("Cached", cachingRepo.get(id).get().title);
+
+         CacheStats stats = cachingRepo.getCacheStats().minus(before);
+         Assert.assertEquals(3, stats.requestCount());
+         Assert.assertTrue("Expected cache hits", stats.hitCount() >= 2);
+         Assert.assertTrue("Expected a load", cachingRepo.getCacheStats().loadCount() >= 1);
+      }
+      finally
+      {
+         cachingRepo.dispose();
+      }
+   }
+
+   @Test
+   public void testRemoteChangeListener() throws Exception
+   {
+      // simulates two application nodes, each with its own notifier and cached repository
+      PsqlChangeNotifier localNotifier = createNotifier();
+      PsqlChangeNotifier remoteNotifier = createNotifier();
+      PsqlJacksonRepo<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> local = createRepo(RecordCachePolicy.defaultPolicy(), localNotifier);
+      PsqlJacksonRepo<TestRecord, TestRecord, ExecutableUpdateContext<TestRecord>> remote = createRepo(RecordCachePolicy.defaultPolicy(), remoteNotifier);
+      try
+      {
+         String id = UUID.randomUUID().toString();
+         remote.create(null, id).update(dto -> {
+            dto.title = "Original";
+            return dto;
+         }).get(1, TimeUnit.MINUTES);
+         Assert.assertEquals("Original", local.get(id).get().title);
+
+         // listeners are notified once the stale cached record has been discarded
+         List<String> titles = new CopyOnWriteArrayList<>();
+         CountDownLatch notified = new CountDownLatch(1);
+         local.onRemoteChange(new PsqlChangeNotifier.ChangeListener()
+         {
+            @Override
+            public void changed(String changedId)
+            {
+               local.get(changedId).ifPresent(record -> titles.add(record.title));
+               notified.countDown();
+            }
+
+            @Override
+            public void reset()
+            {
+            }
+         });
+
+         // allow the local node to register with the database
+         Thread.sleep(1000);
+         remote.edit(null, id).update(dto -> {
+            dto.title = "Edited";
+            return dto;
+         }).get(1, TimeUnit.MINUTES);
+
+         Assert.assertTrue("Remote change was not reported", notified.await(10, TimeUnit.SECONDS));
+         Assert.assertEquals(Collections.singletonList("Edited"), titles);
+      }
+      finally
+      {
+         local.dispose();
+         remote.dispose();
+         localNotifier.dispose();
+         remoteNotifier.dispose();
+      }
+   }
+
+   private static PsqlChangeNotifier createNotifier()
+   {
+      PsqlChangeNotifier notifier = new PsqlChangeNotifier();
+      notifier.setDataSourceProvider(trcTestContext.getDataSourceProvider());
+      notifier.activate();
+      return notifier;
+   }
+
+   private CompletableFuture<TestRecord> edit(String id, CountDownLatch loaded, Consumer<TestRecord> change)
+   {
+      AtomicBoolean first = new AtomicBoolean(true);
+      return repo.edit(null, id).update(dto -> {
+         if (first.getAndSet(false))
+         {
+            loaded.countDown();
+            await(loaded);
+         }
+
+         change.accept(dto);
+         return dto;
+      });
+   }
+
+   private static void await(CountDownLatch latch)
+   {
+      try
+      {
+         if (!latch.await(30, TimeUnit.SECONDS))
+            throw new IllegalStateException("Timed out waiting for concurrent edit");
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException(e);
+      }
+   }
+}
@@ -0,0 +1,346 @@
+package edu.tamu.tcat.trc.test.resolver;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.tamu.tcat.account.Account;
+import edu.tamu.tcat.trc.auth.account.TrcAccountDataStore;
+import edu.tamu.tcat.trc.resolver.BasicResolverRegistry;
+import edu.tamu.tcat.trc.resolver.EntryId;
+import edu.tamu.tcat.trc.resolver.EntryLabel;
+import edu.tamu.tcat.trc.resolver.EntryResolver;
+import edu.tamu.tcat.trc.resolver.EntryResolverRegistrar;
+import edu.tamu.tcat.trc.resolver.InvalidReferenceException;
+
+public class BasicResolverRegistryTest
+{
+   private BasicResolverRegistry registry;
+   private TestResolver people;
+   private TestResolver works;
+   private EntryResolverRegistrar.Registration peopleReg;
+
+   @Before
+   public void setup()
+   {
+      people = new TestResolver("person");
+      works = new TestResolver("work");
+      people.add("a", "Person A");
+      people.add("b", "Person B");
+      works.add("1", "Work 1");
+
+      registry = new BasicResolverRegistry();
+      peopleReg = registry.register(people);
+      registry.register(works);
+   }
+
+   @Test
+   public void testRegistration()
+   {
+      TestResolver places = new TestResolver("place");
+      EntryResolverRegistrar.Registration reg = registry.register(places);
+      Assert.assertSame(places, registry.getResolver(new EntryId("x", "place")));
+
+      reg.unregister();
+      try
+      {
+         registry.getResolver(new EntryId("x", "place"));
+         Assert.fail("Expected the resolver to have been removed");
+      }
+      catch (InvalidReferenceException expected)
+      {
+         // expected
+      }
+
+      Assert.assertSame(people, registry.getResolver(person("a")));
+   }
+
+   @Test
+   public void testResolversWithSameTypeId()
+   {
+      TestResolver local = new TestResolver("book", "local-");
+      TestResolver remote = new TestResolver("book", "remote-");
+      registry.register(local);
+      registry.register(remote);
+
+      Assert.assertSame(local, registry.getResolver(new EntryId("local-1", "book")));
+      Assert.assertSame(remote, registry.getResolver(new EntryId("remote-1", "book")));
+      try
+      {
+         registry.getResolver(new EntryId("other-1", "book"));
+         Assert.fail("Expected no resolver to accept this reference");
+      }
+      catch (InvalidReferenceException expected)
+      {
+         // expected
+      }
+   }
+
+   @Test
+   public void testResolverWithoutTypeId()
+   {
+      TestResolver places = new TestResolver("place");
+      places.untyped = true;
+      registry.register(places);
+
+      Assert.assertSame(places, registry.getResolver(new EntryId("x", "place")));
+      Assert.assertSame(people, registry.getResolver(person("a")));
+   }
+
+   @Test
+   public void testFindResolverForEntry()
+   {
+      // the resolver found for a class of entry must still accept each instance
+      TestEntry personEntry = new TestEntry(person("a"), "Person A");
+      TestEntry workEntry = new TestEntry(work("1"), "Work 1");
+
+      Assert.assertSame(people, registry.getResolver(personEntry));
+      Assert.assertSame(works, registry.getResolver(workEntry));
+      Assert.assertSame(people, registry.getResolver(personEntry));
+      Assert.assertEquals(work("1"), registry.getReference(workEntry).getEntryId());
+   }
+
+   @Test
+   public void testGetReferenceByUri()
+   {
+      Assert.assertEquals(work("1"), registry.getReference(URI.create("work/1")).getEntryId());
+   }
+
+   @Test
+   public void testTokens()
+   {
+      String token = registry.tokenize(person("a"));
+      Assert.assertSame(token, registry.tokenize(person("a")));
+      Assert.assertEquals(person("a"), registry.decodeToken(token));
+      Assert.assertEquals(person("a"), registry.decodeToken(token));
+      Assert.assertNotEquals(token, registry.tokenize(person("b")));
+      Assert.assertEquals(person("a"), registry.getReference(token).getEntryId());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testDecodeInvalidToken()
+   {
+      registry.decodeToken("not-a-token");
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testTokenizeInvalidId()
+   {
+      registry.tokenize(person("a::b"));
+   }
+
+   @Test(expected = InvalidReferenceException.class)
+   public void testDecodeTokenAfterResolverRemoved()
+   {
+      String token = registry.tokenize(person("a"));
+      peopleReg.unregister();
+
+      // previously decoded tokens must not be accepted once their resolver is removed
+      registry.decodeToken(token);
+   }
+
+   @Test
+   public void testResolveAll()
+   {
+      Map<EntryId, Object> results = registry.resolveAll(
+            Arrays.asList(person("a"), person("b"), work("1"), work("missing")), null);
+
+      Assert.assertEquals(3, results.size());
+      Assert.assertEquals("Person A", ((TestEntry)results.get(person("a"))).label);
+      Assert.assertEquals("Work 1", ((TestEntry)results.get(work("1"))).label);
+      Assert.assertEquals(1, people.bulkRequests);
+      Assert.assertEquals(1, works.bulkRequests);
+   }
+
+   @Test
+   public void testResolveAllToleratesResolverFailure()
+   {
+      // bulk resolution fails, so each entry is resolved individually; "b" also fails
+      people.failBulk = true;
+      people.failing.add("b");
+
+      Map<EntryId, Object> results = registry.resolveAll(Arrays.asList(person("a"), person("b"), work("1")), null);
+
+      Assert.assertEquals(new HashSet<>(Arrays.asList(person("a"), work("1"))), results.keySet());
+   }
+
+   @Test
+   public void testGetLabelsOmitsFailedEntries()
+   {
+      people.failBulk = true;
+      people.failing.add("b");
+
+      Map<EntryId, EntryLabel> labels = registry.getLabels(Arrays.asList(person("a"), person("b")));
+
+      Assert.assertEquals(1, labels.size());
+      Assert.assertEquals("Person A", labels.get(person("a")).getLabel());
+      Assert.assertFalse(labels.containsKey(person("b")));
+   }
+
+   @Test
+   public void testLabelsResolvedWithSystemAccount()
+   {
+      registry.getLabels(Arrays.asList(person("a"), work("1")));
+
+      Assert.assertSame(TrcAccountDataStore.SYSTEM, people.lastAccount);
+      Assert.assertSame(TrcAccountDataStore.SYSTEM, works.lastAccount);
+   }
+
+   @Test
+   public void testDiscardLabel()
+   {
+      List<EntryId> changed = new ArrayList<>();
+      registry.onLabelChanged(changed::add);
+      Assert.assertEquals("Person A", registry.getLabels(Arrays.asList(person("a"))).get(person("a")).getLabel());
+
+      // retained labels are returned until they are discarded
+      people.add("a", "Renamed Person A");
+      Assert.assertEquals("Person A", registry.getLabels(Arrays.asList(person("a"))).get(person("a")).getLabel());
+
+      // discarding a label (e.g., when notified by another node) does not notify listeners
+      registry.discardLabel(person("a"));
+      Assert.assertEquals("Renamed Person A", registry.getLabels(Arrays.asList(person("a"))).get(person("a")).getLabel());
+      Assert.assertTrue(changed.isEmpty());
+
+      people.add("a", "Person A");
+      registry.invalidateLabel(person("a"));
+      Assert.assertEquals("Person A", registry.getLabels(Arrays.asList(person("a"))).get(person("a")).getLabel());
+      Assert.assertEquals(Arrays.asList(person("a")), changed);
+   }
+
+   private static EntryId person(String id)
+   {
+      return new EntryId(id, "person");
+   }
+
+   private static EntryId work(String id)
+   {
+      return new EntryId(id, "work");
+   }
+
+   private static class TestEntry
+   {
+      private final EntryId id;
+      private final String label;
+
+      TestEntry(EntryId id, String label)
+      {
+         this.id = id;
+         this.label = label;
+      }
+   }
+
+   private static class TestResolver implements EntryResolver<TestEntry>
+   {
+      private final String type;
+      private final String idPrefix;
+      private boolean untyped = false;
+      private final Map<EntryId, TestEntry> entries = new HashMap<>();
+      private final Set<String> failing = new HashSet<>();
+      private boolean failBulk = false;
+      private int bulkRequests = 0;
+      private Account lastAccount;
+
+      TestResolver(String type)
+      {
+         this(type, "");
+      }
+
+      TestResolver(String type, String idPrefix)
+      {
+         this.type = type;
+         this.idPrefix = idPrefix;
+      }
+
+      void add(String id, String label)
+      {
+         EntryId eId = new EntryId(id, type);
+         entries.put(eId, new TestEntry(eId, label));
+      }
+
+      @Override
+      public Class<TestEntry> getType()
+      {
+         return TestEntry.class;
+      }
+
+      @Override
+      public Optional<String> getTypeId()
+      {
+         return untyped ? Optional.empty() : Optional.of(type);
+      }
+
+      @Override
+      public Optional<TestEntry> resolve(Account account, EntryId reference) throws InvalidReferenceException
+      {
+         if (failing.contains(reference.getId()))
+            throw new IllegalStateException("Failed to resolve " + reference.getId());
+
+         return Optional.ofNullable(entries.get(reference));
+      }
+
+      @Override
+      public Map<EntryId, TestEntry> resolveAll(Account account, Collection<EntryId> references) throws InvalidReferenceException
+      {
+         bulkRequests++;
+         lastAccount = account;
+         if (failBulk)
+            throw new IllegalStateException("Failed to resolve entries");
+
+         return EntryResolver.super.resolveAll(account, references);
+      }
+
+      @Override
+      public URI toUri(EntryId reference) throws InvalidReferenceException
+      {
+         return URI.create(type + "/" + reference.getId());
+      }
+
+      @Override
+      public String getLabel(TestEntry instance)
+      {
+         return instance.label;
+      }
+
+      @Override
+      public EntryId makeReference(TestEntry instance) throws InvalidReferenceException
+      {
+         return instance.id;
+      }
+
+      @Override
+      public EntryId makeReference(URI uri) throws InvalidReferenceException
+      {
+         return new EntryId(uri.getPath().substring(type.length() + 1), type);
+      }
+
+      @Override
+      public boolean accepts(Object obj)
+      {
+         return obj instanceof TestEntry && ((TestEntry)obj).id.getType().equals(type);
+      }
+
+      @Override
+      public boolean accepts(EntryId ref)
+      {
+         return type.equals(ref.getType()) && ref.getId().startsWith(idPrefix);
+      }
+
+      @Override
+      public boolean accepts(URI uri)
+      {
+         return uri.getPath().startsWith(type + "/");
+      }
+   }
+}
@@ -0,0 +1,102 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.search.solr.AtomicUpdates;
+
+public class AtomicUpdatesTest
+{
+   @Test
+   public void testDiffUnchanged()
+   {
+      SolrInputDocument original = document("1", "title", "A Title");
+      SolrInputDocument modified = document("1", "title", "A Title");
+
+      Assert.assertNull(AtomicUpdates.diff(original, modified));
+   }
+
+   @Test
+   public void testDiffChangedAndRemovedFields()
+   {
+      SolrInputDocument original = document("1", "title", "A Title");
+      original.addField("author", "Smith");
+      original.addField("date", "1900");
+
+      SolrInputDocument modified = document("1", "title", "A Title");
+      modified.addField("author", "Smith");
+      modified.addField("author", "Jones");
+
+      SolrInputDocument update = AtomicUpdates.diff(original, modified);
+      Assert.assertTrue(AtomicUpdates.isPartial(update));
+      Assert.assertEquals("1", update.getFieldValue("id"));
+      Assert.assertNull(update.getField("title"));
+      Assert.assertEquals(Arrays.asList("Smith", "Jones"), getSet(update, "author"));
+      Assert.assertTrue(getOp(update, "date").containsKey(AtomicUpdates.SET));
+      Assert.assertNull(getSet(update, "date"));
+   }
+
+   @Test
+   public void testMergePartialUpdates()
+   {
+      SolrInputDocument first = AtomicUpdates.create(document("1"));
+      AtomicUpdates.set(first, "title", Collections.<Object>singletonList("First"));
+      AtomicUpdates.set(first, "author", Collections.<Object>singletonList("Smith"));
+
+      SolrInputDocument second = AtomicUpdates.create(document("1"));
+      AtomicUpdates.set(second, "title", Collections.<Object>singletonList("Second"));
+
+      SolrInputDocument merged = AtomicUpdates.merge(first, second);
+      Assert.assertTrue(AtomicUpdates.isPartial(merged));
+      Assert.assertEquals(Collections.singletonList("Second"), getSet(merged, "title"));
+      Assert.assertEquals(Collections.singletonList("Smith"), getSet(merged, "author"));
+
+      // the pending update must not be modified
+      Assert.assertEquals(Collections.<Object>singletonList("First"), getSet(first, "title"));
+   }
+
+   @Test
+   public void testMergeIntoCompleteDocument()
+   {
+      SolrInputDocument pending = document("1", "title", "A Title");
+      pending.addField("date", "1900");
+
+      SolrInputDocument update = AtomicUpdates.create(pending);
+      AtomicUpdates.set(update, "title", Arrays.<Object>asList("New Title"));
+      AtomicUpdates.set(update, "date", null);
+
+      SolrInputDocument merged = AtomicUpdates.merge(pending, update);
+      Assert.assertFalse(AtomicUpdates.isPartial(merged));
+      Assert.assertEquals("1", merged.getFieldValue("id"));
+      Assert.assertEquals("New Title", merged.getFieldValue("title"));
+      Assert.assertNull(merged.getField("date"));
+   }
+
+   private static SolrInputDocument document(String id, String... fields)
+   {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.setField("id", id);
+      for (int i = 0; i < fields.length; i += 2)
+      {
+         doc.addField(fields[i], fields[i + 1]);
+      }
+
+      return doc;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Map<String, Object> getOp(SolrInputDocument update, String field)
+   {
+      return (Map<String, Object>)update.getFieldValue(field);
+   }
+
+   private static Object getSet(SolrInputDocument update, String field)
+   {
+      return getOp(update, field).get(AtomicUpdates.SET);
+   }
+}
@@ -0,0 +1,350 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.tamu.tcat.osgi.config.ConfigurationProperties;
+import edu.tamu.tcat.trc.search.solr.AtomicUpdates;
+import edu.tamu.tcat.trc.search.solr.BasicSearchSvcMgr;
+import edu.tamu.tcat.trc.search.solr.IndexService;
+import edu.tamu.tcat.trc.search.solr.IndexServiceStrategy;
+import edu.tamu.tcat.trc.search.solr.SearchException;
+import edu.tamu.tcat.trc.search.solr.SolrClientProvider;
+import edu.tamu.tcat.trc.search.solr.SolrIndexConfig;
+import edu.tamu.tcat.trc.search.solr.SolrIndexField;
+
+/**
+ * Tests the bulk operations of the index services provided by the {@link BasicSearchSvcMgr}
+ * using a stub Solr client that emulates the queries used to look up document ids.
+ */
+public class BasicSearchServiceTest
+{
+   private StubSolrClient solr;
+   private NavigableSet<String> indexed;
+   private BasicSearchSvcMgr searchMgr;
+   private IndexService<TestEntry> indexSvc;
+
+   @Before
+   public void setup()
+   {
+      indexed = new TreeSet<>();
+      solr = new StubSolrClient();
+      solr.setResponseHandler(this::respond);
+
+      Map<String, Object> props = new HashMap<>();
+      props.put(BasicSearchSvcMgr.SOLR_COMMIT_WITHIN, Integer.valueOf(10));
+
+      searchMgr = new BasicSearchSvcMgr();
+      searchMgr.setConfigurationProperties(new MapConfigurationProperties(props));
+      searchMgr.setSolrClientProvider(new StubClientProvider(solr));
+      searchMgr.activate();
+
+      indexSvc = searchMgr.configure(new TestStrategy());
+   }
+
+   @After
+   public void tearDown()
+   {
+      searchMgr.close();
+   }
+
+   /**
+    * Answers queries for specific ids made using the terms query parser and cursor-based
+    * queries for all ids.
+    */
+   private NamedList<Object> respond(SolrParams params)
+   {
+      String q = params.get("q");
+      if (q.startsWith("{!terms"))
+      {
+         // resolve the separator, which is supplied by parameter reference
+         String local = q.substring(0, q.indexOf('}'));
+         String ref = local.substring(local.indexOf("separator=$") + "separator=$".length()).split(" ")[0];
+         String separator = params.get(ref);
+         Assert.assertNotNull("No term separator supplied", separator);
+
+         List<String> ids = Arrays.asList(q.substring(q.indexOf('}') + 1).split(Pattern.quote(separator)));
+         Assert.assertTrue(ids.size() <= params.getInt("rows").intValue());
+         return StubSolrClient.response(documents(ids.stream().filter(indexed::contains).collect(Collectors.toList())));
+      }
+
+      String cursor = params.get(CursorMarkParams.CURSOR_MARK_PARAM);
+      Assert.assertNotNull("Expected a cursor query", cursor);
+
+      int rows = params.getInt("rows").intValue();
+      Collection<String> remaining = CursorMarkParams.CURSOR_MARK_START.equals(cursor) ? indexed : indexed.tailSet(cursor, false);
+      List<String> page = remaining.stream().limit(rows).collect(Collectors.toList());
+
+      NamedList<Object> response = StubSolrClient.response(documents(page));
+      response.add(CursorMarkParams.CURSOR_MARK_NEXT, page.isEmpty() ? cursor : page.get(page.size() - 1));
+      return response;
+   }
+
+   private static SolrDocumentList documents(List<String> ids)
+   {
+      SolrDocumentList docs = new SolrDocumentList();
+      for (String id : ids)
+      {
+         SolrDocument doc = new SolrDocument();
+         doc.setField("id", id);
+         docs.add(doc);
+      }
+
+      docs.setNumFound(ids.size());
+      return docs;
+   }
+
+   private List<SolrParams> termsQueries()
+   {
+      return solr.getQueries().stream()
+            .filter(params -> params.get("q").startsWith("{!terms"))
+            .collect(Collectors.toList());
+   }
+
+   @Test
+   public void testIsIndexed()
+   {
+      indexed.addAll(Arrays.asList("a,b", "c", "d"));
+
+      // ids may contain commas, which separate terms by default
+      Set<String> found = indexSvc.isIndexed(Arrays.asList("a,b", "c", "x"));
+      Assert.assertEquals(new HashSet<>(Arrays.asList("a,b", "c")), found);
+
+      Assert.assertTrue(indexSvc.isIndexed(new TestEntry("d")));
+      Assert.assertFalse(indexSvc.isIndexed(new TestEntry("x")));
+   }
+
+   @Test
+   public void testIsIndexedInBatches()
+   {
+      List<String> ids = new ArrayList<>();
+      for (int i = 0; i < 1200; i++)
+      {
+         String id = String.format("%04d", Integer.valueOf(i));
+         ids.add(id);
+         if (i % 2 == 0)
+            indexed.add(id);
+      }
+
+      Set<String> found = indexSvc.isIndexed(ids);
+      Assert.assertEquals(indexed, found);
+      Assert.assertEquals(3, termsQueries().size());
+   }
+
+   @Test(expected = SearchException.class)
+   public void testIsIndexedFailure()
+   {
+      solr.setResponseHandler(params -> {
+         throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Unavailable");
+      });
+
+      // failures must not be reported as the entry not being indexed
+      indexSvc.isIndexed(new TestEntry("a"));
+   }
+
+   @Test
+   public void testRemoveCollection()
+   {
+      indexSvc.remove(Arrays.asList("1", "2", "3"));
+      indexSvc.flush();
+
+      Assert.assertEquals(Arrays.asList("1", "2", "3"), solr.getDeletions());
+   }
+
+   @Test
+   @SuppressWarnings("unchecked")
+   public void testDefaultUpdate()
+   {
+      TestStrategy strategy = new TestStrategy();
+      Assert.assertNull(strategy.getUpdate(new TestEntry("1", "Title"), new TestEntry("1", "Title")));
+
+      SolrInputDocument update = strategy.getUpdate(new TestEntry("1", "Title"), new TestEntry("1", "Modified"));
+      Assert.assertTrue(AtomicUpdates.isPartial(update));
+      Assert.assertEquals("1", update.getFieldValue("id"));
+      Object values = ((Map<String, Object>)update.getFieldValue("title")).get(AtomicUpdates.SET);
+      Assert.assertEquals(Collections.singletonList("Modified"), values);
+   }
+
+   @Test
+   public void testListIds()
+   {
+      for (int i = 0; i < 1250; i++)
+      {
+         indexed.add(String.format("%04d", Integer.valueOf(i)));
+      }
+
+      List<String> ids = new ArrayList<>();
+      Iterator<String> iterator = indexSvc.listIds();
+      iterator.forEachRemaining(ids::add);
+
+      Assert.assertEquals(new ArrayList<>(indexed), ids);
+      Assert.assertFalse(iterator.hasNext());
+   }
+
+   @Test
+   public void testListIdsEmpty()
+   {
+      Assert.assertFalse(indexSvc.listIds().hasNext());
+   }
+
+   private static class TestEntry
+   {
+      private final String id;
+      private final String title;
+
+      TestEntry(String id)
+      {
+         this(id, null);
+      }
+
+      TestEntry(String id, String title)
+      {
+         this.id = id;
+         this.title = title;
+      }
+   }
+
+   private static class TestStrategy implements IndexServiceStrategy<TestEntry, Void>
+   {
+      @Override
+      public Class<TestEntry> getType()
+      {
+         return TestEntry.class;
+      }
+
+      @Override
+      public String getCoreId()
+      {
+         return "test";
+      }
+
+      @Override
+      public SolrIndexConfig getIndexCofig()
+      {
+         return new SolrIndexConfig()
+         {
+            @Override
+            public Class<?> getSearchProxyType()
+            {
+               return TestEntry.class;
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getIndexedFields()
+            {
+               return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getStoredFields()
+            {
+               return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getMultiValuedFields()
+            {
+               return Collections.emptyList();
+            }
+         };
+      }
+
+      @Override
+      public SolrInputDocument getDocument(TestEntry entry)
+      {
+         SolrInputDocument doc = new SolrInputDocument();
+         doc.setField("id", entry.id);
+         if (entry.title != null)
+            doc.setField("title", entry.title);
+
+         return doc;
+      }
+
+      @Override
+      public String getEntryId(TestEntry entry)
+      {
+         return entry.id;
+      }
+
+      @Override
+      public Void createQuery(SolrClient client)
+      {
+         return null;
+      }
+   }
+
+   private static class StubClientProvider implements SolrClientProvider
+   {
+      private final SolrClient solr;
+
+      StubClientProvider(SolrClient solr)
+      {
+         this.solr = solr;
+      }
+
+      @Override
+      public SolrClient open(String coreId, String core, SolrIndexConfig cfg)
+      {
+         return solr;
+      }
+
+      @Override
+      public void release(SolrClient client)
+      {
+         // no resources to release
+      }
+
+      @Override
+      public void close()
+      {
+         // no resources to release
+      }
+   }
+
+   private static class MapConfigurationProperties implements ConfigurationProperties
+   {
+      private final Map<String, Object> props;
+
+      MapConfigurationProperties(Map<String, Object> props)
+      {
+         this.props = props;
+      }
+
+      @Override
+      public <T> T getPropertyValue(String name, Class<T> type)
+      {
+         return type.cast(props.get(name));
+      }
+
+      @Override
+      public <T> T getPropertyValue(String name, Class<T> type, T defaultValue)
+      {
+         return props.containsKey(name) ? type.cast(props.get(name)) : defaultValue;
+      }
+   }
+}
@@ -0,0 +1,232 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.tamu.tcat.osgi.config.ConfigurationProperties;
+import edu.tamu.tcat.trc.search.solr.BasicSearchSvcMgr;
+import edu.tamu.tcat.trc.search.solr.IndexService;
+import edu.tamu.tcat.trc.search.solr.IndexServiceStrategy;
+import edu.tamu.tcat.trc.search.solr.SolrIndexConfig;
+import edu.tamu.tcat.trc.search.solr.SolrIndexField;
+import edu.tamu.tcat.trc.search.solr.impl.BasicFields;
+
+/**
+ * Tests the index services provided by the {@link BasicSearchSvcMgr} against a core of an
+ * embedded Solr instance, so that no external Solr server is required.
+ *
+ * <p>The Solr home is copied from {@code res/solr} (or the directory named by the
+ * {@code trc.test.solr.home} system property) so that cores created by the test do not
+ * modify the source tree.
+ */
+public class EmbeddedSolrSearchTest
+{
+   private static final BasicFields.BasicString TITLE = new BasicFields.BasicString("title");
+
+   @Rule
+   public TemporaryFolder tempDir = new TemporaryFolder();
+
+   private BasicSearchSvcMgr searchMgr;
+   private IndexService<TestEntry> indexSvc;
+
+   @Before
+   public void setup() throws IOException
+   {
+      Path solrHome = copySolrHome(Paths.get(System.getProperty("trc.test.solr.home", "res/solr")));
+
+      Map<String, Object> props = new HashMap<>();
+      props.put(BasicSearchSvcMgr.SOLR_EMBEDDED_HOME, solrHome.toString());
+      props.put(BasicSearchSvcMgr.SOLR_EMBEDDED_CONFIGSET, "trc-test");
+
+      searchMgr = new BasicSearchSvcMgr();
+      searchMgr.setConfigurationProperties(new MapConfigurationProperties(props));
+      searchMgr.activate();
+
+      indexSvc = searchMgr.configure(new TestStrategy());
+   }
+
+   @After
+   public void tearDown()
+   {
+      searchMgr.close();
+   }
+
+   private Path copySolrHome(Path source) throws IOException
+   {
+      Path target = tempDir.newFolder("solr").toPath();
+      try (Stream<Path> files = Files.walk(source))
+      {
+         for (Path file : (Iterable<Path>)files::iterator)
+         {
+            Path copy = target.resolve(source.relativize(file).toString());
+            if (Files.isDirectory(file))
+               Files.createDirectories(copy);
+            else
+               Files.copy(file, copy);
+         }
+      }
+
+      return target;
+   }
+
+   @Test
+   public void testIndexAndQuery() throws Exception
+   {
+      Assert.assertTrue(indexSvc.isEnabled());
+
+      indexSvc.index(new TestEntry("1", "Origin of Species"));
+      indexSvc.index(new TestEntry("2", "Principles of Geology"));
+      indexSvc.index(new TestEntry("3", "Natural Theology"));
+      indexSvc.flush();
+
+      SolrClient solr = indexSvc.getSolrClient();
+      SolrDocumentList docs = solr.query(new SolrQuery("title:\"Principles of Geology\"")).getResults();
+      Assert.assertEquals(1, docs.getNumFound());
+      Assert.assertEquals("2", docs.get(0).getFieldValue("id"));
+
+      Assert.assertTrue(indexSvc.isIndexed(new TestEntry("1", null)));
+      Assert.assertEquals(new HashSet<>(Arrays.asList("1", "3")), indexSvc.isIndexed(Arrays.asList("1", "3", "4")));
+   }
+
+   @Test
+   public void testRemoveAndListIds() throws Exception
+   {
+      for (int i = 0; i < 20; i++)
+      {
+         indexSvc.index(new TestEntry(String.format("%02d", Integer.valueOf(i)), "Title " + i));
+      }
+      indexSvc.flush();
+
+      indexSvc.remove(Arrays.asList("00", "01"));
+      indexSvc.flush();
+
+      List<String> ids = new ArrayList<>();
+      indexSvc.listIds().forEachRemaining(ids::add);
+      Assert.assertEquals(18, ids.size());
+      Assert.assertFalse(ids.contains("00"));
+      Assert.assertFalse(indexSvc.isIndexed(new TestEntry("01", null)));
+   }
+
+   private static class TestEntry
+   {
+      private final String id;
+      private final String title;
+
+      TestEntry(String id, String title)
+      {
+         this.id = id;
+         this.title = title;
+      }
+   }
+
+   private static class TestStrategy implements IndexServiceStrategy<TestEntry, Void>
+   {
+      @Override
+      public Class<TestEntry> getType()
+      {
+         return TestEntry.class;
+      }
+
+      @Override
+      public String getCoreId()
+      {
+         return "test";
+      }
+
+      @Override
+      public SolrIndexConfig getIndexCofig()
+      {
+         return new SolrIndexConfig()
+         {
+            @Override
+            public Class<?> getSearchProxyType()
+            {
+               return TestEntry.class;
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getIndexedFields()
+            {
+               return Collections.singletonList(TITLE);
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getStoredFields()
+            {
+               return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getMultiValuedFields()
+            {
+               return Collections.emptyList();
+            }
+         };
+      }
+
+      @Override
+      public SolrInputDocument getDocument(TestEntry entry)
+      {
+         SolrInputDocument doc = new SolrInputDocument();
+         doc.setField("id", entry.id);
+         doc.setField(TITLE.getName(), entry.title);
+         return doc;
+      }
+
+      @Override
+      public String getEntryId(TestEntry entry)
+      {
+         return entry.id;
+      }
+
+      @Override
+      public Void createQuery(SolrClient client)
+      {
+         return null;
+      }
+   }
+
+   private static class MapConfigurationProperties implements ConfigurationProperties
+   {
+      private final Map<String, Object> props;
+
+      MapConfigurationProperties(Map<String, Object> props)
+      {
+         this.props = props;
+      }
+
+      @Override
+      public <T> T getPropertyValue(String name, Class<T> type)
+      {
+         return type.cast(props.get(name));
+      }
+
+      @Override
+      public <T> T getPropertyValue(String name, Class<T> type, T defaultValue)
+      {
+         return props.containsKey(name) ? type.cast(props.get(name)) : defaultValue;
+      }
+   }
+}
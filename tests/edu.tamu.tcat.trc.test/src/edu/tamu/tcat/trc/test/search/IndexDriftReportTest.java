@@ -0,0 +1,48 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.impl.psql.entries.IndexDriftReport;
+
+public class IndexDriftReportTest
+{
+   @Test
+   public void testConsistent()
+   {
+      IndexDriftReport report = IndexDriftReport.compute(
+            Arrays.asList("1", "2", "3").iterator(),
+            Arrays.asList("3", "1", "2").iterator());
+
+      Assert.assertTrue(report.isConsistent());
+      Assert.assertEquals(3, report.getRepositoryCount());
+      Assert.assertEquals(3, report.getIndexCount());
+   }
+
+   @Test
+   public void testMissingAndOrphaned()
+   {
+      IndexDriftReport report = IndexDriftReport.compute(
+            Arrays.asList("1", "2", "3", "4").iterator(),
+            Arrays.asList("2", "4", "5").iterator());
+
+      Assert.assertFalse(report.isConsistent());
+      Assert.assertEquals(Arrays.asList("1", "3"), report.getMissing());
+      Assert.assertEquals(Collections.singletonList("5"), report.getOrphaned());
+   }
+
+   @Test
+   public void testEmptyIndex()
+   {
+      IndexDriftReport report = IndexDriftReport.compute(
+            Arrays.asList("1", "2").iterator(),
+            Collections.<String>emptyIterator());
+
+      Assert.assertEquals(Arrays.asList("1", "2"), report.getMissing());
+      Assert.assertTrue(report.getOrphaned().isEmpty());
+      Assert.assertEquals(0, report.getIndexCount());
+   }
+}
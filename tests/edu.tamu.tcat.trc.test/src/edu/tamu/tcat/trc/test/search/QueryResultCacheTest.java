@@ -0,0 +1,115 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.search.solr.QueryResultCache;
+
+public class QueryResultCacheTest
+{
+   private final AtomicInteger loads = new AtomicInteger();
+
+   private String load() throws Exception
+   {
+      return "result " + loads.incrementAndGet();
+   }
+
+   private static ModifiableSolrParams params(String q, String... fq)
+   {
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set("q", q);
+      if (fq.length > 0)
+         params.set("fq", fq);
+
+      return params;
+   }
+
+   @Test
+   public void testHitRateWithoutQueries()
+   {
+      QueryResultCache cache = new QueryResultCache(10, 10_000, 0, 60_000);
+      Assert.assertEquals(0, cache.getHitRate(), 0);
+   }
+
+   @Test
+   public void testCachedResult() throws Exception
+   {
+      QueryResultCache cache = new QueryResultCache(10, 10_000, 0, 60_000);
+
+      // the order of filter queries does not affect the result
+      Assert.assertEquals("result 1", cache.get(params("*:*", "a:1", "b:2"), this::load, String::length));
+      Assert.assertEquals("result 1", cache.get(params("*:*", "b:2", "a:1"), this::load, String::length));
+      Assert.assertEquals("result 2", cache.get(params("title:x"), this::load, String::length));
+
+      Assert.assertEquals(1, cache.getHitCount());
+      Assert.assertEquals(2, cache.getMissCount());
+      Assert.assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+   }
+
+   @Test
+   public void testInvalidate() throws Exception
+   {
+      QueryResultCache cache = new QueryResultCache(10, 10_000, 0, 60_000);
+      cache.get(params("*:*"), this::load, String::length);
+      cache.invalidate();
+
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+   }
+
+   @Test
+   public void testResultNotCachedIfInvalidatedDuringQuery() throws Exception
+   {
+      QueryResultCache cache = new QueryResultCache(10, 10_000, 0, 60_000);
+
+      // the index is updated while the query is executing, so its result may be stale
+      cache.get(params("*:*"), () -> {
+         cache.invalidate();
+         return load();
+      }, String::length);
+
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+   }
+
+   @Test
+   public void testClearedWhenUpdateVisible() throws Exception
+   {
+      QueryResultCache cache = new QueryResultCache(10, 10_000, 500, 60_000);
+      cache.invalidate();
+
+      // results loaded before the update is visible are discarded once it is
+      Assert.assertEquals("result 1", cache.get(params("*:*"), this::load, String::length));
+      Assert.assertEquals("result 1", cache.get(params("*:*"), this::load, String::length));
+
+      Thread.sleep(600);
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+      Assert.assertEquals(2, cache.getHitCount());
+   }
+
+   @Test
+   public void testClear() throws Exception
+   {
+      QueryResultCache cache = new QueryResultCache(10, 10_000, 60_000, 60_000);
+      cache.get(params("*:*"), this::load, String::length);
+      cache.clear();
+
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+   }
+
+   @Test
+   public void testMaxAge() throws Exception
+   {
+      QueryResultCache cache = new QueryResultCache(10, 10_000, 0, 200);
+      Assert.assertEquals("result 1", cache.get(params("*:*"), this::load, String::length));
+      Assert.assertEquals("result 1", cache.get(params("*:*"), this::load, String::length));
+
+      Thread.sleep(300);
+      Assert.assertEquals("result 2", cache.get(params("*:*"), this::load, String::length));
+   }
+}
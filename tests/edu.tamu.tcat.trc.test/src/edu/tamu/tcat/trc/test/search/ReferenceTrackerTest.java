@@ -0,0 +1,394 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.impl.psql.entries.ReferenceTracker;
+import edu.tamu.tcat.trc.resolver.BasicResolverRegistry;
+import edu.tamu.tcat.trc.resolver.EntryId;
+import edu.tamu.tcat.trc.search.solr.IndexService;
+
+public class ReferenceTrackerTest
+{
+   private static final EntryId PERSON_A = new EntryId("a", "person");
+   private static final EntryId PERSON_B = new EntryId("b", "person");
+
+   /** Longer than the period for which the tracker collects changes before reindexing. */
+   private static final long REINDEX_WAIT = 4000;
+
+   private BasicResolverRegistry resolvers;
+   private StubIndexService indexSvc;
+   private Map<String, TestEntry> repository;
+   private List<Collection<String>> loaded;
+   private ReferenceTracker<TestEntry> tracker;
+
+   @Before
+   public void setup()
+   {
+      resolvers = new BasicResolverRegistry();
+      indexSvc = new StubIndexService();
+      repository = new HashMap<>();
+      loaded = new CopyOnWriteArrayList<>();
+      tracker = new ReferenceTracker<>("test", indexSvc, entry -> entry.id, entry -> entry.refs, this::load);
+   }
+
+   @After
+   public void tearDown()
+   {
+      tracker.stop();
+   }
+
+   private Collection<TestEntry> load(Collection<String> ids)
+   {
+      loaded.add(new ArrayList<>(ids));
+      return ids.stream()
+            .map(repository::get)
+            .filter(entry -> entry != null)
+            .collect(Collectors.toList());
+   }
+
+   private void start(TestEntry... entries) throws InterruptedException
+   {
+      CountDownLatch built = new CountDownLatch(1);
+      tracker.start(resolvers, () -> new NotifyingIterator(Arrays.asList(entries).iterator(), built));
+      Assert.assertTrue("Reference index was not built", built.await(10, TimeUnit.SECONDS));
+   }
+
+   private TestEntry store(TestEntry entry)
+   {
+      repository.put(entry.id, entry);
+      return entry;
+   }
+
+   @Test
+   public void testIndexedAndRemoved() throws Exception
+   {
+      start(store(new TestEntry("1", PERSON_A)), store(new TestEntry("2", PERSON_A, PERSON_B)));
+      Assert.assertEquals(set("1", "2"), tracker.getDependents(PERSON_A));
+      Assert.assertEquals(set("2"), tracker.getDependents(PERSON_B));
+      Assert.assertEquals(2, tracker.getReferencedCount());
+
+      // replaces the references previously recorded for the entry
+      tracker.indexed(new TestEntry("1", PERSON_B));
+      Assert.assertEquals(set("2"), tracker.getDependents(PERSON_A));
+      Assert.assertEquals(set("1", "2"), tracker.getDependents(PERSON_B));
+
+      tracker.removed("2");
+      Assert.assertEquals(set(), tracker.getDependents(PERSON_A));
+      Assert.assertEquals(set("1"), tracker.getDependents(PERSON_B));
+      Assert.assertEquals(1, tracker.getReferencedCount());
+   }
+
+   @Test
+   public void testLiveUpdatesDuringBuild() throws Exception
+   {
+      CountDownLatch reading = new CountDownLatch(1);
+      CountDownLatch proceed = new CountDownLatch(1);
+      CountDownLatch built = new CountDownLatch(1);
+
+      // the build reads stale states for both entries after they have been updated
+      List<TestEntry> stale = Arrays.asList(new TestEntry("1", PERSON_A), new TestEntry("2", PERSON_A));
+      tracker.start(resolvers, () -> new NotifyingIterator(new BlockingIterator(stale.iterator(), reading, proceed), built));
+
+      Assert.assertTrue(reading.await(10, TimeUnit.SECONDS));
+      tracker.indexed(new TestEntry("1", PERSON_B));
+      tracker.removed("2");
+      proceed.countDown();
+
+      Assert.assertTrue("Reference index was not built", built.await(10, TimeUnit.SECONDS));
+      Assert.assertEquals(set(), tracker.getDependents(PERSON_A));
+      Assert.assertEquals(set("1"), tracker.getDependents(PERSON_B));
+   }
+
+   @Test
+   public void testRemoteChange() throws Exception
+   {
+      start(store(new TestEntry("1", PERSON_A)), store(new TestEntry("2", PERSON_A)));
+
+      // entries modified, created and deleted by another node
+      store(new TestEntry("1", PERSON_B));
+      store(new TestEntry("3", PERSON_B));
+      repository.remove("2");
+      tracker.changed("1");
+      tracker.changed("3");
+      tracker.changed("2");
+
+      awaitDependents(PERSON_B, set("1", "3"));
+      Assert.assertEquals(set(), tracker.getDependents(PERSON_A));
+      Assert.assertEquals(1, tracker.getReferencedCount());
+   }
+
+   @Test
+   public void testRemoteReset() throws Exception
+   {
+      CountDownLatch built = new CountDownLatch(1);
+      store(new TestEntry("1", PERSON_A));
+      store(new TestEntry("2", PERSON_A));
+      tracker.start(resolvers, () -> new NotifyingIterator(new ArrayList<>(repository.values()).iterator(), built));
+      Assert.assertTrue("Reference index was not built", built.await(10, TimeUnit.SECONDS));
+
+      // changes made by another node for which notifications were missed
+      store(new TestEntry("1", PERSON_B));
+      store(new TestEntry("3", PERSON_B));
+      repository.remove("2");
+      tracker.reset();
+
+      awaitDependents(PERSON_B, set("1", "3"));
+      Assert.assertEquals(set(), tracker.getDependents(PERSON_A));
+      Assert.assertEquals(1, tracker.getReferencedCount());
+   }
+
+   @Test
+   public void testReferenceChanged() throws Exception
+   {
+      start(store(new TestEntry("1", PERSON_A)), store(new TestEntry("2", PERSON_A, PERSON_B)),
+            store(new TestEntry("3", PERSON_B)), store(new TestEntry("4")));
+
+      resolvers.invalidateLabel(PERSON_A);
+      Thread.sleep(REINDEX_WAIT);
+
+      Assert.assertEquals(set("1", "2"), indexedIds());
+      Assert.assertEquals(1, tracker.getChangeCount());
+      Assert.assertEquals(2, tracker.getReindexedCount());
+      Assert.assertEquals(2, tracker.getMaxFanOut());
+   }
+
+   @Test
+   public void testChangesAreDebounced() throws Exception
+   {
+      start(store(new TestEntry("1", PERSON_A)), store(new TestEntry("2", PERSON_A, PERSON_B)),
+            store(new TestEntry("3", PERSON_B)));
+
+      resolvers.invalidateLabel(PERSON_A);
+      resolvers.invalidateLabel(PERSON_B);
+      resolvers.invalidateLabel(PERSON_A);
+      Thread.sleep(REINDEX_WAIT);
+
+      // each dependent document is loaded and reindexed once
+      Assert.assertEquals(1, loaded.size());
+      Assert.assertEquals(set("1", "2", "3"), new HashSet<>(loaded.get(0)));
+      Assert.assertEquals(3, indexSvc.indexed.size());
+      Assert.assertEquals(3, tracker.getChangeCount());
+      Assert.assertEquals(3, tracker.getReindexedCount());
+   }
+
+   @Test
+   public void testDependentsAreLoadedInBatches() throws Exception
+   {
+      int count = 450;
+      TestEntry[] entries = new TestEntry[count];
+      for (int i = 0; i < count; i++)
+      {
+         entries[i] = store(new TestEntry(String.valueOf(i), PERSON_A));
+      }
+
+      start(entries);
+      resolvers.invalidateLabel(PERSON_A);
+      Thread.sleep(REINDEX_WAIT);
+
+      List<Integer> sizes = loaded.stream().map(batch -> Integer.valueOf(batch.size())).collect(Collectors.toList());
+      Assert.assertEquals(Arrays.asList(Integer.valueOf(200), Integer.valueOf(200), Integer.valueOf(50)), sizes);
+      Assert.assertEquals(count, indexSvc.indexed.size());
+      Assert.assertEquals(count, tracker.getMaxFanOut());
+   }
+
+   @Test
+   public void testUnreferencedChangeIgnored() throws Exception
+   {
+      start(store(new TestEntry("1", PERSON_A)));
+
+      resolvers.invalidateLabel(PERSON_B);
+      Thread.sleep(REINDEX_WAIT);
+
+      Assert.assertTrue(loaded.isEmpty());
+      Assert.assertEquals(0, tracker.getChangeCount());
+      Assert.assertEquals(0, tracker.getMaxFanOut());
+   }
+
+   private void awaitDependents(EntryId ref, Set<String> expected) throws InterruptedException
+   {
+      long timeout = System.currentTimeMillis() + 10_000;
+      while (!expected.equals(tracker.getDependents(ref)) && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(50);
+      }
+
+      Assert.assertEquals(expected, tracker.getDependents(ref));
+   }
+
+   private Set<String> indexedIds()
+   {
+      return indexSvc.indexed.stream().map(entry -> entry.id).collect(Collectors.toSet());
+   }
+
+   private static Set<String> set(String... ids)
+   {
+      return new HashSet<>(Arrays.asList(ids));
+   }
+
+   private static class TestEntry
+   {
+      private final String id;
+      private final Collection<EntryId> refs;
+
+      TestEntry(String id, EntryId... refs)
+      {
+         this.id = id;
+         this.refs = Arrays.asList(refs);
+      }
+   }
+
+   /**
+    * Signals once all entries have been read.
+    */
+   private static class NotifyingIterator implements Iterator<TestEntry>
+   {
+      private final Iterator<TestEntry> delegate;
+      private final CountDownLatch done;
+
+      NotifyingIterator(Iterator<TestEntry> delegate, CountDownLatch done)
+      {
+         this.delegate = delegate;
+         this.done = done;
+      }
+
+      @Override
+      public boolean hasNext()
+      {
+         boolean hasNext = delegate.hasNext();
+         if (!hasNext)
+            done.countDown();
+
+         return hasNext;
+      }
+
+      @Override
+      public TestEntry next()
+      {
+         return delegate.next();
+      }
+   }
+
+   /**
+    * Waits before returning the first entry, simulating a slow read from the repository.
+    */
+   private static class BlockingIterator implements Iterator<TestEntry>
+   {
+      private final Iterator<TestEntry> delegate;
+      private final CountDownLatch reading;
+      private final CountDownLatch proceed;
+
+      BlockingIterator(Iterator<TestEntry> delegate, CountDownLatch reading, CountDownLatch proceed)
+      {
+         this.delegate = delegate;
+         this.reading = reading;
+         this.proceed = proceed;
+      }
+
+      @Override
+      public boolean hasNext()
+      {
+         return delegate.hasNext();
+      }
+
+      @Override
+      public TestEntry next()
+      {
+         reading.countDown();
+         try
+         {
+            proceed.await(10, TimeUnit.SECONDS);
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+
+         return delegate.next();
+      }
+   }
+
+   private static class StubIndexService implements IndexService<TestEntry>
+   {
+      private final List<TestEntry> indexed = new CopyOnWriteArrayList<>();
+
+      @Override
+      public SolrClient getSolrClient()
+      {
+         return null;
+      }
+
+      @Override
+      public boolean isEnabled()
+      {
+         return true;
+      }
+
+      @Override
+      public boolean isIndexed(TestEntry instance)
+      {
+         return indexed.contains(instance);
+      }
+
+      @Override
+      public Set<String> isIndexed(Collection<String> ids)
+      {
+         return indexed.stream().map(entry -> entry.id).filter(ids::contains).collect(Collectors.toSet());
+      }
+
+      @Override
+      public Iterator<String> listIds()
+      {
+         return indexed.stream().map(entry -> entry.id).iterator();
+      }
+
+      @Override
+      public void index(TestEntry instance)
+      {
+         indexed.add(instance);
+      }
+
+      @Override
+      public void update(TestEntry original, TestEntry modified)
+      {
+         indexed.add(modified);
+      }
+
+      @Override
+      public void remove(TestEntry instance)
+      {
+      }
+
+      @Override
+      public void remove(String... ids)
+      {
+      }
+
+      @Override
+      public void remove(Collection<String> ids)
+      {
+      }
+
+      @Override
+      public void flush()
+      {
+      }
+   }
+}
@@ -0,0 +1,190 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.entries.types.article.search.ArticleSearchResult.FacetValueList;
+import edu.tamu.tcat.trc.search.SearchFacet;
+import edu.tamu.tcat.trc.search.solr.SolrIndexConfig;
+import edu.tamu.tcat.trc.search.solr.SolrIndexField;
+import edu.tamu.tcat.trc.search.solr.impl.BasicFields;
+import edu.tamu.tcat.trc.search.solr.impl.ResultPage;
+import edu.tamu.tcat.trc.search.solr.impl.TrcQueryBuilder;
+
+public class SearchFacetTest
+{
+   private static final BasicFields.BasicString AUTHOR = new BasicFields.BasicString("author");
+   private static final BasicFields.BasicString PUBLISHER = new BasicFields.BasicString("publisher");
+   private static final BasicFields.BasicInteger YEAR = new BasicFields.BasicInteger("year");
+   private static final BasicFields.SearchProxyField<TestProxy> PROXY =
+         new BasicFields.SearchProxyField<>("proxy", TestProxy.class);
+
+   public static class TestProxy
+   {
+      public String id;
+   }
+
+   private static class TestIndexConfig implements SolrIndexConfig
+   {
+      @Override
+      public Class<?> getSearchProxyType()
+      {
+         return TestProxy.class;
+      }
+
+      @Override
+      public Collection<? extends SolrIndexField<?>> getIndexedFields()
+      {
+         return Arrays.<SolrIndexField<?>>asList(AUTHOR, PUBLISHER, YEAR);
+      }
+
+      @Override
+      public Collection<? extends SolrIndexField<?>> getStoredFields()
+      {
+         return Collections.singletonList(PROXY);
+      }
+
+      @Override
+      public Collection<? extends SolrIndexField<?>> getMultiValuedFields()
+      {
+         return Collections.singletonList(AUTHOR);
+      }
+   }
+
+   @Test
+   public void testFacetParameters() throws Exception
+   {
+      TrcQueryBuilder qb = new TrcQueryBuilder(new TestIndexConfig());
+      qb.filterMulti(PUBLISHER, Arrays.asList("Penguin"), "pub");
+      qb.filterRange(YEAR, Integer.valueOf(1850), Integer.valueOf(1870), "year");
+      qb.facet(AUTHOR);
+      qb.facet(PUBLISHER, "pub");
+      qb.facetRange(YEAR, Integer.valueOf(1800), Integer.valueOf(1900), "+10", "year", "pub");
+      qb.facetLimit(5);
+      qb.facetMinCount(1);
+
+      SolrParams params = qb.get();
+      Assert.assertEquals("true", params.get(FacetParams.FACET));
+      Assert.assertArrayEquals(new String[] { "author", "{!ex=\"pub\"}publisher" }, params.getParams(FacetParams.FACET_FIELD));
+      Assert.assertArrayEquals(new String[] { "{!ex=\"year,pub\"}year" }, params.getParams(FacetParams.FACET_RANGE));
+      Assert.assertEquals("1800", params.get("f.year." + FacetParams.FACET_RANGE_START));
+      Assert.assertEquals("1900", params.get("f.year." + FacetParams.FACET_RANGE_END));
+      Assert.assertEquals("+10", params.get("f.year." + FacetParams.FACET_RANGE_GAP));
+      Assert.assertEquals("5", params.get(FacetParams.FACET_LIMIT));
+      Assert.assertEquals("1", params.get(FacetParams.FACET_MINCOUNT));
+
+      List<String> filters = Arrays.asList(params.getParams("fq"));
+      Assert.assertTrue(filters.contains("{!tag=\"year\"}year:[1850 TO 1870]"));
+      Assert.assertTrue(filters.contains("{!tag=\"pub\"}publisher:\"Penguin\""));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNegativeFacetLimit() throws Exception
+   {
+      new TrcQueryBuilder(new TestIndexConfig()).facetLimit(-1);
+   }
+
+   @Test
+   public void testFacetCounts() throws Exception
+   {
+      StubSolrClient solr = new StubSolrClient();
+      solr.setResponseHandler(params -> facetResponse());
+
+      TrcQueryBuilder qb = new TrcQueryBuilder(new TestIndexConfig());
+      qb.facet(AUTHOR);
+      qb.facetRange(YEAR, Integer.valueOf(1800), Integer.valueOf(1900), "+10");
+      ResultPage<TestProxy> page = qb.execute(solr, PROXY);
+
+      List<SearchFacet> facets = SearchFacet.create(page.getFacets());
+      Assert.assertEquals(2, facets.size());
+
+      SearchFacet authors = facets.get(0);
+      Assert.assertEquals("author", authors.getName());
+      Assert.assertEquals(Arrays.asList("Smith", "Jones"), values(authors));
+      Assert.assertEquals(3, authors.getValues().get(0).getCount());
+      Assert.assertEquals(1, authors.getValues().get(1).getCount());
+
+      SearchFacet years = facets.get(1);
+      Assert.assertEquals("year", years.getName());
+      Assert.assertEquals(Arrays.asList("1800", "1810"), values(years));
+      Assert.assertEquals(2, years.getValues().get(0).getCount());
+      Assert.assertEquals(0, years.getValues().get(1).getCount());
+   }
+
+   @Test
+   public void testCreatePreservesOrder()
+   {
+      Map<String, Long> values = new LinkedHashMap<>();
+      values.put("b", Long.valueOf(5));
+      values.put("a", Long.valueOf(2));
+      Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+      counts.put("second", Collections.emptyMap());
+      counts.put("first", values);
+
+      List<SearchFacet> facets = SearchFacet.create(counts);
+      Assert.assertEquals("second", facets.get(0).getName());
+      Assert.assertTrue(facets.get(0).getValues().isEmpty());
+      Assert.assertEquals(Arrays.asList("b", "a"), values(facets.get(1)));
+      Assert.assertTrue(SearchFacet.create(null).isEmpty());
+   }
+
+   @Test
+   @SuppressWarnings("deprecation")
+   public void testDeprecatedFacetAdapter()
+   {
+      SearchFacet facet = new SearchFacet("type", Arrays.asList(new SearchFacet.Value("essay", 4), new SearchFacet.Value("a \"note\"", 1)));
+      FacetValueList adapted = FacetValueList.adapt(facet);
+
+      Assert.assertEquals("type", adapted.name);
+      Assert.assertEquals(2, adapted.count);
+      Assert.assertEquals("essay", adapted.items.get(0).name);
+      Assert.assertEquals(4, adapted.items.get(0).count);
+      Assert.assertEquals("type:\"essay\"", adapted.items.get(0).filter);
+      Assert.assertEquals("type:\"a \\\"note\\\"\"", adapted.items.get(1).filter);
+   }
+
+   private static List<String> values(SearchFacet facet)
+   {
+      return Arrays.asList(facet.getValues().stream().map(SearchFacet.Value::getValue).toArray(String[]::new));
+   }
+
+   private static NamedList<Object> facetResponse()
+   {
+      NamedList<Object> authors = new NamedList<>();
+      authors.add("Smith", Integer.valueOf(3));
+      authors.add("Jones", Integer.valueOf(1));
+      NamedList<Object> fields = new NamedList<>();
+      fields.add("author", authors);
+
+      NamedList<Object> yearCounts = new NamedList<>();
+      yearCounts.add("1800", Integer.valueOf(2));
+      yearCounts.add("1810", Integer.valueOf(0));
+      NamedList<Object> year = new NamedList<>();
+      year.add("counts", yearCounts);
+      year.add("gap", Integer.valueOf(10));
+      year.add("start", Integer.valueOf(1800));
+      year.add("end", Integer.valueOf(1900));
+      NamedList<Object> ranges = new NamedList<>();
+      ranges.add("year", year);
+
+      NamedList<Object> facetCounts = new NamedList<>();
+      facetCounts.add("facet_queries", new NamedList<>());
+      facetCounts.add("facet_fields", fields);
+      facetCounts.add("facet_ranges", ranges);
+
+      NamedList<Object> response = StubSolrClient.response(new SolrDocumentList());
+      response.add("facet_counts", facetCounts);
+      return response;
+   }
+}
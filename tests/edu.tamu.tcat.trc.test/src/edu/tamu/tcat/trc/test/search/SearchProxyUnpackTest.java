@@ -0,0 +1,157 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.search.solr.SearchException;
+import edu.tamu.tcat.trc.search.solr.SolrIndexConfig;
+import edu.tamu.tcat.trc.search.solr.SolrIndexField;
+import edu.tamu.tcat.trc.search.solr.impl.BasicFields;
+import edu.tamu.tcat.trc.search.solr.impl.ResultPage;
+import edu.tamu.tcat.trc.search.solr.impl.TrcQueryBuilder;
+
+/**
+ * Verifies that search proxies are unpacked from result pages correctly.
+ */
+public class SearchProxyUnpackTest
+{
+   private static final int PAGE_SIZE = 100;
+
+   private static final BasicFields.SearchProxyField<TestProxy> PROXY =
+         new BasicFields.SearchProxyField<>("proxy", TestProxy.class);
+
+   private static SolrDocumentList page;
+
+   public static class TestProxy
+   {
+      public String id;
+      public String title;
+      public String summary;
+      public List<String> authors;
+   }
+
+   private static class TestIndexConfig implements SolrIndexConfig
+   {
+      @Override
+      public Class<?> getSearchProxyType()
+      {
+         return TestProxy.class;
+      }
+
+      @Override
+      public Collection<? extends SolrIndexField<?>> getIndexedFields()
+      {
+         return Collections.emptyList();
+      }
+
+      @Override
+      public Collection<? extends SolrIndexField<?>> getStoredFields()
+      {
+         return Collections.singletonList(PROXY);
+      }
+
+      @Override
+      public Collection<? extends SolrIndexField<?>> getMultiValuedFields()
+      {
+         return Collections.emptyList();
+      }
+   }
+
+   @BeforeClass
+   public static void beforeClass() throws Exception
+   {
+      page = new SolrDocumentList();
+      for (int i = 0; i < PAGE_SIZE; i++)
+      {
+         TestProxy proxy = new TestProxy();
+         proxy.id = "doc" + i;
+         proxy.title = "Title of document " + i;
+         proxy.summary = "A short summary of document " + i + " used to give each proxy a realistic size.";
+         proxy.authors = new ArrayList<>();
+         proxy.authors.add("Author A" + i);
+         proxy.authors.add("Author B" + i);
+
+         page.add(createDoc(proxy.id, PROXY.toSolrValue(proxy)));
+      }
+
+      page.setNumFound(PAGE_SIZE);
+   }
+
+   @Test
+   public void testUnpackPreservesOrder() throws Exception
+   {
+      List<TestProxy> proxies = new TrcQueryBuilder(new TestIndexConfig()).unpack(page, PROXY);
+
+      Assert.assertEquals(PAGE_SIZE, proxies.size());
+      for (int i = 0; i < PAGE_SIZE; i++)
+      {
+         Assert.assertEquals("doc" + i, proxies.get(i).id);
+      }
+   }
+
+   @Test
+   public void testUnpackSkipsCorruptDocuments() throws Exception
+   {
+      SolrDocumentList docs = new SolrDocumentList();
+      docs.addAll(page.subList(0, 10));
+      docs.add(createDoc("corrupt", "{\"id\": \"corrupt\", "));
+      docs.add(createDoc("missing", null));
+      docs.addAll(page.subList(10, 20));
+
+      List<String> failed = new ArrayList<>();
+      List<TestProxy> proxies = new TrcQueryBuilder(new TestIndexConfig())
+            .unpack(docs, PROXY, (doc, ex) -> failed.add((String)doc.getFieldValue("id")));
+
+      Assert.assertEquals(20, proxies.size());
+      Assert.assertEquals("doc10", proxies.get(10).id);
+      Assert.assertEquals(2, failed.size());
+      Assert.assertTrue(failed.contains("corrupt"));
+      Assert.assertTrue(failed.contains("missing"));
+   }
+
+   @Test(expected = SearchException.class)
+   public void testUnpackFailsOnCorruptDocument() throws Exception
+   {
+      SolrDocumentList docs = new SolrDocumentList();
+      docs.addAll(page.subList(0, 10));
+      docs.add(createDoc("corrupt", "{\"id\": \"corrupt\", "));
+
+      new TrcQueryBuilder(new TestIndexConfig()).unpack(docs, PROXY);
+   }
+
+   @Test
+   public void testExecuteReportsSkippedDocuments() throws Exception
+   {
+      SolrDocumentList docs = new SolrDocumentList();
+      docs.addAll(page.subList(0, 10));
+      docs.add(createDoc("corrupt", "{\"id\": \"corrupt\", "));
+      docs.add(createDoc("missing", null));
+      docs.setNumFound(12);
+
+      StubSolrClient solr = new StubSolrClient();
+      solr.setQueryHandler(params -> docs);
+      ResultPage<TestProxy> result = new TrcQueryBuilder(new TestIndexConfig()).execute(solr, PROXY);
+
+      Assert.assertEquals(10, result.getItems().size());
+      Assert.assertEquals(2, result.getSkippedCount());
+      Assert.assertEquals(12, result.getNumFound());
+   }
+
+   private static SolrDocument createDoc(String id, String json)
+   {
+      SolrDocument doc = new SolrDocument();
+      doc.setField("id", id);
+      if (json != null)
+         doc.setField(PROXY.getName(), json);
+
+      return doc;
+   }
+}
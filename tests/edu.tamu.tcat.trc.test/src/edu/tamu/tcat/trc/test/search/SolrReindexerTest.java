@@ -0,0 +1,407 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.tamu.tcat.osgi.config.ConfigurationProperties;
+import edu.tamu.tcat.trc.impl.psql.entries.ReindexCheckpoint;
+import edu.tamu.tcat.trc.impl.psql.entries.SolrReindexer;
+import edu.tamu.tcat.trc.impl.psql.entries.SolrSearchSupport;
+import edu.tamu.tcat.trc.search.solr.IndexService;
+import edu.tamu.tcat.trc.search.solr.IndexServiceStrategy;
+import edu.tamu.tcat.trc.search.solr.SearchException;
+import edu.tamu.tcat.trc.search.solr.SolrIndexConfig;
+import edu.tamu.tcat.trc.search.solr.SolrIndexField;
+
+public class SolrReindexerTest
+{
+   private static final int ENTRY_COUNT = 1050;
+
+   @Rule
+   public TemporaryFolder tempDir = new TemporaryFolder();
+
+   private NavigableSet<String> repository;
+   private List<String> requestedAfter;
+   private TestStrategy strategy;
+
+   @Before
+   public void setup()
+   {
+      repository = new TreeSet<>();
+      for (int i = 0; i < ENTRY_COUNT; i++)
+      {
+         repository.add(String.format("%04d", Integer.valueOf(i)));
+      }
+
+      requestedAfter = new ArrayList<>();
+      strategy = new TestStrategy();
+   }
+
+   /**
+    * Lists entries following the supplied id, as a repository would using keyset pagination.
+    */
+   private Iterator<String> listAfter(String afterId)
+   {
+      requestedAfter.add(afterId);
+      return (afterId == null ? repository : repository.tailSet(afterId, false)).iterator();
+   }
+
+   private static List<String> ids(List<SolrInputDocument> docs)
+   {
+      return docs.stream().map(doc -> (String)doc.getFieldValue("id")).collect(Collectors.toList());
+   }
+
+   @Test
+   public void testReindex()
+   {
+      StubSolrClient solr = new StubSolrClient();
+      SolrReindexer<String> reindexer = new SolrReindexer<>(solr, strategy)
+            .setBatchSize(100)
+            .setReadAhead(2);
+
+      long count = reindexer.reindex(this::listAfter);
+
+      Assert.assertEquals(ENTRY_COUNT, count);
+      Assert.assertEquals(new ArrayList<>(repository), ids(solr.getDocuments()));
+      Assert.assertEquals(Collections.singletonList(null), requestedAfter);
+   }
+
+   @Test
+   public void testDocumentFailureSkipsEntry()
+   {
+      strategy.failing.add("0005");
+      StubSolrClient solr = new StubSolrClient();
+
+      long count = new SolrReindexer<>(solr, strategy).setBatchSize(10).reindex(this::listAfter);
+
+      Assert.assertEquals(ENTRY_COUNT, count);
+      Assert.assertEquals(ENTRY_COUNT - 1, solr.getDocuments().size());
+      Assert.assertFalse(ids(solr.getDocuments()).contains("0005"));
+   }
+
+   @Test
+   public void testResumeFromCheckpoint() throws IOException
+   {
+      Path file = tempDir.getRoot().toPath().resolve("test.checkpoint");
+      ReindexCheckpoint checkpoint = ReindexCheckpoint.file(file);
+
+      FailingSolrClient failing = new FailingSolrClient(3);
+      try
+      {
+         new SolrReindexer<>(failing, strategy)
+               .setBatchSize(100)
+               .setReadAhead(1)
+               .setCheckpoint(checkpoint)
+               .reindex(this::listAfter);
+         Assert.fail("Expected the reindex to fail");
+      }
+      catch (SearchException expected)
+      {
+         // expected
+      }
+
+      ReindexCheckpoint.Position position = checkpoint.load().orElseThrow(() -> new AssertionError("No checkpoint recorded"));
+      Assert.assertEquals(300, position.count);
+      Assert.assertEquals("0299", position.lastId);
+
+      // resuming requests only the entries following the last checkpointed entry
+      requestedAfter.clear();
+      StubSolrClient solr = new StubSolrClient();
+      long count = new SolrReindexer<>(solr, strategy)
+            .setBatchSize(100)
+            .setCheckpoint(checkpoint)
+            .reindex(this::listAfter);
+
+      Assert.assertEquals(ENTRY_COUNT - 300, count);
+      Assert.assertEquals(Collections.singletonList("0299"), requestedAfter);
+      Assert.assertEquals(new ArrayList<>(repository.tailSet("0299", false)), ids(solr.getDocuments()));
+      Assert.assertFalse("Checkpoint should be removed once the reindex completes", Files.exists(file));
+   }
+
+   @Test
+   public void testResumeAfterRemovedEntry()
+   {
+      ReindexCheckpoint checkpoint = ReindexCheckpoint.file(tempDir.getRoot().toPath().resolve("test.checkpoint"));
+      checkpoint.save(new ReindexCheckpoint.Position(500, "0499"));
+      repository.remove("0499");
+
+      StubSolrClient solr = new StubSolrClient();
+      long count = new SolrReindexer<>(solr, strategy).setCheckpoint(checkpoint).reindex(this::listAfter);
+
+      Assert.assertEquals(ENTRY_COUNT - 500, count);
+      Assert.assertEquals("0500", ids(solr.getDocuments()).get(0));
+   }
+
+   @Test
+   public void testCheckpointFromConfiguration() throws IOException
+   {
+      Path dir = tempDir.newFolder("checkpoints").toPath();
+      Map<String, Object> props = new HashMap<>();
+      props.put(SolrSearchSupport.REINDEX_CHECKPOINT_DIR, dir.toString());
+      props.put(SolrSearchSupport.REINDEX_BATCH_SIZE, Integer.valueOf(10));
+
+      SolrSearchSupport<String> support = new SolrSearchSupport<>(new StubIndexService(new FailingSolrClient(2)), strategy, new MapConfigurationProperties(props));
+
+      // failures are logged rather than reported to the caller
+      support.reIndex(this::listAfter);
+
+      Optional<ReindexCheckpoint.Position> position = ReindexCheckpoint.file(dir.resolve("test.checkpoint")).load();
+      Assert.assertTrue(position.isPresent());
+      Assert.assertEquals(20, position.get().count);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testAliasSwapFromConfiguration()
+   {
+      Map<String, Object> props = new HashMap<>();
+      props.put("trc.search.solr.cores.test.reindex.alias", "test");
+      props.put("trc.search.solr.cores.test.reindex.collection", "test_b");
+
+      SolrSearchSupport<String> support = new SolrSearchSupport<>(new StubIndexService(new StubSolrClient()), strategy, new MapConfigurationProperties(props));
+
+      // alias swapping is configured, but requires an HTTP client to manage collections
+      support.createReindexer().reindex(this::listAfter);
+   }
+
+   @Test
+   public void testDefaultsWithoutConfiguration()
+   {
+      StubSolrClient solr = new StubSolrClient();
+      SolrSearchSupport<String> support = new SolrSearchSupport<>(new StubIndexService(solr), strategy);
+
+      Assert.assertEquals(ENTRY_COUNT, support.createReindexer().reindex(this::listAfter));
+      Assert.assertEquals(ENTRY_COUNT, solr.getDocuments().size());
+   }
+
+   @Test
+   public void testReindexFlushesIndexService()
+   {
+      StubIndexService indexSvc = new StubIndexService(new StubSolrClient());
+      SolrSearchSupport<String> support = new SolrSearchSupport<>(indexSvc, strategy);
+
+      // flushing discards query results cached before the index was rebuilt
+      support.reIndex(this::listAfter);
+      Assert.assertEquals(1, indexSvc.flushes);
+
+      // including if the reindex fails
+      support.reIndex(afterId -> { throw new SearchException("Unavailable"); });
+      Assert.assertEquals(2, indexSvc.flushes);
+   }
+
+   /**
+    * Fails all requests to add documents after a given number have succeeded.
+    */
+   private static class FailingSolrClient extends StubSolrClient
+   {
+      private static final long serialVersionUID = 1L;
+
+      private int remaining;
+
+      FailingSolrClient(int successfulAdds)
+      {
+         this.remaining = successfulAdds;
+      }
+
+      @Override
+      public NamedList<Object> request(@SuppressWarnings("rawtypes") SolrRequest request, String collection)
+      {
+         if (request instanceof UpdateRequest && ((UpdateRequest)request).getDocuments() != null)
+         {
+            if (remaining-- <= 0)
+               throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Unavailable");
+         }
+
+         return super.request(request, collection);
+      }
+   }
+
+   private static class TestStrategy implements IndexServiceStrategy<String, Void>
+   {
+      private final Set<String> failing = new TreeSet<>();
+
+      @Override
+      public Class<String> getType()
+      {
+         return String.class;
+      }
+
+      @Override
+      public String getCoreId()
+      {
+         return "test";
+      }
+
+      @Override
+      public SolrIndexConfig getIndexCofig()
+      {
+         return new SolrIndexConfig()
+         {
+            @Override
+            public Class<?> getSearchProxyType()
+            {
+               return String.class;
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getIndexedFields()
+            {
+               return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getStoredFields()
+            {
+               return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<? extends SolrIndexField<?>> getMultiValuedFields()
+            {
+               return Collections.emptyList();
+            }
+         };
+      }
+
+      @Override
+      public SolrInputDocument getDocument(String entry)
+      {
+         if (failing.contains(entry))
+            throw new IllegalStateException("Failed to build document for " + entry);
+
+         SolrInputDocument doc = new SolrInputDocument();
+         doc.setField("id", entry);
+         return doc;
+      }
+
+      @Override
+      public String getEntryId(String entry)
+      {
+         return entry;
+      }
+
+      @Override
+      public Void createQuery(SolrClient client)
+      {
+         return null;
+      }
+   }
+
+   private static class StubIndexService implements IndexService<String>
+   {
+      private final SolrClient solr;
+      private int flushes = 0;
+
+      StubIndexService(SolrClient solr)
+      {
+         this.solr = solr;
+      }
+
+      @Override
+      public SolrClient getSolrClient()
+      {
+         return solr;
+      }
+
+      @Override
+      public boolean isEnabled()
+      {
+         return true;
+      }
+
+      @Override
+      public boolean isIndexed(String instance)
+      {
+         return false;
+      }
+
+      @Override
+      public Set<String> isIndexed(Collection<String> ids)
+      {
+         return Collections.emptySet();
+      }
+
+      @Override
+      public Iterator<String> listIds()
+      {
+         return Collections.emptyIterator();
+      }
+
+      @Override
+      public void index(String instance)
+      {
+      }
+
+      @Override
+      public void update(String original, String modified)
+      {
+      }
+
+      @Override
+      public void remove(String instance)
+      {
+      }
+
+      @Override
+      public void remove(String... ids)
+      {
+      }
+
+      @Override
+      public void remove(Collection<String> ids)
+      {
+      }
+
+      @Override
+      public void flush()
+      {
+         flushes++;
+      }
+   }
+
+   private static class MapConfigurationProperties implements ConfigurationProperties
+   {
+      private final Map<String, Object> props;
+
+      MapConfigurationProperties(Map<String, Object> props)
+      {
+         this.props = props;
+      }
+
+      @Override
+      public <T> T getPropertyValue(String name, Class<T> type)
+      {
+         return type.cast(props.get(name));
+      }
+
+      @Override
+      public <T> T getPropertyValue(String name, Class<T> type, T defaultValue)
+      {
+         return props.containsKey(name) ? type.cast(props.get(name)) : defaultValue;
+      }
+   }
+}
@@ -0,0 +1,183 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.tamu.tcat.trc.search.solr.AtomicUpdates;
+import edu.tamu.tcat.trc.search.solr.SolrUpdateQueue;
+
+public class SolrUpdateQueueTest
+{
+   private StubSolrClient solr;
+   private SolrUpdateQueue queue;
+
+   @Before
+   public void setup()
+   {
+      solr = new StubSolrClient();
+      queue = new SolrUpdateQueue(solr, "test", 100, 1000, () -> {});
+   }
+
+   @After
+   public void tearDown()
+   {
+      queue.close();
+   }
+
+   @Test
+   public void testPartialUpdateAfterDelete()
+   {
+      SolrInputDocument full = document("1", "Complete");
+
+      // NOTE holding the queue's lock ensures that both updates are pending together
+      synchronized (queue)
+      {
+         queue.delete("1");
+         queue.update("1", partial("1", "Partial"), () -> full);
+      }
+
+      queue.flush(10, TimeUnit.SECONDS);
+
+      Assert.assertTrue(solr.getDeletions().isEmpty());
+      List<SolrInputDocument> docs = solr.getDocuments();
+      Assert.assertEquals(1, docs.size());
+      Assert.assertFalse(AtomicUpdates.isPartial(docs.get(0)));
+      Assert.assertEquals("Complete", docs.get(0).getFieldValue("title"));
+   }
+
+   @Test
+   public void testPartialUpdateAfterDeleteRetainsDelete()
+   {
+      synchronized (queue)
+      {
+         queue.delete("1");
+         queue.update("1", partial("1", "Partial"), () -> null);
+      }
+
+      queue.flush(10, TimeUnit.SECONDS);
+
+      Assert.assertTrue(solr.getDocuments().isEmpty());
+      Assert.assertEquals(Collections.singletonList("1"), solr.getDeletions());
+   }
+
+   @Test
+   public void testPartialUpdateDuringDelete() throws Exception
+   {
+      CountDownLatch sending = new CountDownLatch(1);
+      CountDownLatch proceed = new CountDownLatch(1);
+      queue.close();
+      solr = new BlockingSolrClient(sending, proceed);
+      queue = new SolrUpdateQueue(solr, "test", 100, 1000, () -> {});
+
+      SolrInputDocument full = document("1", "Complete");
+      queue.delete("1");
+      Assert.assertTrue("Deletion was not sent", sending.await(10, TimeUnit.SECONDS));
+
+      // the deletion is applied before this update, which must not create a partial document
+      queue.update("1", partial("1", "Partial"), () -> full);
+      proceed.countDown();
+      queue.flush(10, TimeUnit.SECONDS);
+
+      Assert.assertEquals(Collections.singletonList("1"), solr.getDeletions());
+      List<SolrInputDocument> docs = solr.getDocuments();
+      Assert.assertEquals(1, docs.size());
+      Assert.assertFalse(AtomicUpdates.isPartial(docs.get(0)));
+      Assert.assertEquals("Complete", docs.get(0).getFieldValue("title"));
+   }
+
+   @Test
+   public void testPartialUpdatesMerged()
+   {
+      SolrInputDocument first = partial("1", "First");
+      AtomicUpdates.set(first, "author", Collections.<Object>singletonList("Smith"));
+
+      synchronized (queue)
+      {
+         queue.update("1", first, SolrUpdateQueueTest::unexpected);
+         queue.update("1", partial("1", "Second"), SolrUpdateQueueTest::unexpected);
+      }
+
+      queue.flush(10, TimeUnit.SECONDS);
+
+      List<SolrInputDocument> docs = solr.getDocuments();
+      Assert.assertEquals(1, docs.size());
+      Assert.assertEquals(Collections.singletonList("Second"), getSet(docs.get(0), "title"));
+      Assert.assertEquals(Collections.singletonList("Smith"), getSet(docs.get(0), "author"));
+   }
+
+   private static SolrInputDocument document(String id, String title)
+   {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.setField("id", id);
+      doc.setField("title", title);
+      return doc;
+   }
+
+   private static SolrInputDocument partial(String id, String title)
+   {
+      SolrInputDocument update = new SolrInputDocument();
+      update.setField("id", id);
+      AtomicUpdates.set(update, "title", Collections.<Object>singletonList(title));
+      return update;
+   }
+
+   private static SolrInputDocument unexpected()
+   {
+      Assert.fail("A complete document should not be required.");
+      return null;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Object getSet(SolrInputDocument update, String field)
+   {
+      return ((Map<String, Object>)update.getFieldValue(field)).get(AtomicUpdates.SET);
+   }
+
+   /**
+    * Blocks while sending deletions, simulating a slow request to Solr.
+    */
+   private static class BlockingSolrClient extends StubSolrClient
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final transient CountDownLatch sending;
+      private final transient CountDownLatch proceed;
+
+      BlockingSolrClient(CountDownLatch sending, CountDownLatch proceed)
+      {
+         this.sending = sending;
+         this.proceed = proceed;
+      }
+
+      @Override
+      public NamedList<Object> request(@SuppressWarnings("rawtypes") SolrRequest request, String collection)
+      {
+         if (request instanceof UpdateRequest && ((UpdateRequest)request).getDeleteById() != null)
+         {
+            sending.countDown();
+            try
+            {
+               proceed.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+         }
+
+         return super.request(request, collection);
+      }
+   }
+}
@@ -0,0 +1,120 @@
+package edu.tamu.tcat.trc.test.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * A {@link SolrClient} that records the updates sent to it and answers queries using a
+ * supplied function, for use in testing code that accesses Solr without a Solr server.
+ */
+public class StubSolrClient extends SolrClient
+{
+   private static final long serialVersionUID = 1L;
+
+   private final List<UpdateRequest> updates = Collections.synchronizedList(new ArrayList<>());
+   private final List<SolrParams> queries = Collections.synchronizedList(new ArrayList<>());
+   private transient Function<SolrParams, NamedList<Object>> responseHandler = params -> response(new SolrDocumentList());
+
+   /**
+    * @param queryHandler Supplies the results of queries sent to this client.
+    */
+   public void setQueryHandler(Function<SolrParams, SolrDocumentList> queryHandler)
+   {
+      this.responseHandler = params -> response(queryHandler.apply(params));
+   }
+
+   /**
+    * @param responseHandler Supplies the complete responses to queries sent to this client,
+    *       for example to include a cursor mark.
+    */
+   public void setResponseHandler(Function<SolrParams, NamedList<Object>> responseHandler)
+   {
+      this.responseHandler = responseHandler;
+   }
+
+   /**
+    * @param docs The documents to return.
+    * @return A query response containing the supplied documents.
+    */
+   public static NamedList<Object> response(SolrDocumentList docs)
+   {
+      NamedList<Object> response = new NamedList<>();
+      response.add("response", docs);
+      return response;
+   }
+
+   @Override
+   public NamedList<Object> request(@SuppressWarnings("rawtypes") SolrRequest request, String collection)
+   {
+      if (request instanceof QueryRequest)
+      {
+         queries.add(request.getParams());
+         return responseHandler.apply(request.getParams());
+      }
+
+      if (request instanceof UpdateRequest)
+         updates.add((UpdateRequest)request);
+
+      return new NamedList<>();
+   }
+
+   /**
+    * @return The documents added or updated, in the order they were sent.
+    */
+   public List<SolrInputDocument> getDocuments()
+   {
+      List<SolrInputDocument> docs = new ArrayList<>();
+      synchronized (updates)
+      {
+         updates.stream()
+            .filter(request -> request.getDocuments() != null)
+            .forEach(request -> docs.addAll(request.getDocuments()));
+      }
+
+      return docs;
+   }
+
+   /**
+    * @return The ids of the documents deleted, in the order they were sent.
+    */
+   public List<String> getDeletions()
+   {
+      List<String> ids = new ArrayList<>();
+      synchronized (updates)
+      {
+         updates.stream()
+            .filter(request -> request.getDeleteById() != null)
+            .forEach(request -> ids.addAll(request.getDeleteById()));
+      }
+
+      return ids;
+   }
+
+   /**
+    * @return The parameters of the queries sent to this client.
+    */
+   public List<SolrParams> getQueries()
+   {
+      synchronized (queries)
+      {
+         return new ArrayList<>(queries);
+      }
+   }
+
+   @Override
+   public void close()
+   {
+      // no resources to release
+   }
+}
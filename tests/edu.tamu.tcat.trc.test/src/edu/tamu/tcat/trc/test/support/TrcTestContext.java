@@ -24,6 +24,7 @@ import edu.tamu.tcat.trc.impl.psql.services.TrcSvcMgrImpl;
 import edu.tamu.tcat.trc.repo.id.IdFactoryProvider;
 import edu.tamu.tcat.trc.repo.postgres.JaversProvider;
 import edu.tamu.tcat.trc.repo.postgres.PostgresDataSourceProvider;
+import edu.tamu.tcat.trc.repo.postgres.PsqlChangeNotifier;
 import edu.tamu.tcat.trc.resolver.EntryResolverRegistry;
 import edu.tamu.tcat.trc.search.solr.BasicSearchSvcMgr;
 
@@ -46,8 +47,9 @@ public class TrcTestContext implements AutoCloseable
    private final TrcSvcMgrImpl svcMgr = initServiceManager(sqlExecutor, registrar);
    private final BasicSearchSvcMgr searchMgr = initSearchManager(config);
 
-//   private static PostgresDataSourceProvider dsp;
+   private static PostgresDataSourceProvider dsp;
    private static JaversProvider jvsp;
+   private static PsqlChangeNotifier notifier;
 
    public TrcTestContext()
    {
@@ -64,6 +66,8 @@ public class TrcTestContext implements AutoCloseable
    @Override
    public void close() throws Exception
    {
+      notifier.dispose();
+      jvsp.dispose();
       sqlExecutor.close();
       registrar.dispose();
       svcMgr.dispose();
@@ -96,6 +100,7 @@ public class TrcTestContext implements AutoCloseable
       repos.setIdFactory(idProvider);
       repos.setSqlExecutor(sqlExecutor);
       repos.setJaversProvider(jvsp);
+      repos.setChangeNotifier(notifier);
       repos.activate();
       return repos;
    }
@@ -105,7 +110,7 @@ public class TrcTestContext implements AutoCloseable
       try
       {
 
-         PostgresDataSourceProvider dsp = new PostgresDataSourceProvider();
+         dsp = new PostgresDataSourceProvider();
          dsp.bind(config);
          dsp.activate();
 
@@ -115,6 +120,10 @@ public class TrcTestContext implements AutoCloseable
          jvsp = new JaversProvider();
          jvsp.setDataSourceProvider(dsp);
 
+         notifier = new PsqlChangeNotifier();
+         notifier.setDataSourceProvider(dsp);
+         notifier.activate();
+
          // decorate the executor to ensure that the data source provider is properly disposed
          return new ClosableSqlExecutor() {
             @Override
@@ -154,6 +163,16 @@ public class TrcTestContext implements AutoCloseable
       return jvsp;
    }
 
+   public PostgresDataSourceProvider getDataSourceProvider()
+   {
+      return dsp;
+   }
+
+   public PsqlChangeNotifier getChangeNotifier()
+   {
+      return notifier;
+   }
+
    public TrcApplication getApplicationContext()
    {
       return ctx;